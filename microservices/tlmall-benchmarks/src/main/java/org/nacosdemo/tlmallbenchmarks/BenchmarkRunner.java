@@ -0,0 +1,28 @@
+package org.nacosdemo.tlmallbenchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行全部基准测试，默认打开GC Profiler，同时输出 ops/s 和 gc.alloc.rate.norm（每次操作分配的字节数）
+ * <p>
+ * 用法：
+ * mvn -pl microservices/tlmall-benchmarks -am package -DskipTests
+ * java -jar microservices/tlmall-benchmarks/target/benchmarks.jar [JMH参数]
+ * <p>
+ * 例如只跑一致性哈希、1万实例：
+ * java -jar benchmarks.jar LoadBalancerBenchmark -p strategy=IP_HASH -p instanceCount=10000
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
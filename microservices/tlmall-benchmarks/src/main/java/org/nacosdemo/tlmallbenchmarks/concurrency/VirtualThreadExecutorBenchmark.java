@@ -0,0 +1,121 @@
+package org.nacosdemo.tlmallbenchmarks.concurrency;
+
+import org.nacosdemo.tlmalluser.config.VirtualThreadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 高并发阻塞任务下，虚拟线程执行器与平台线程池的对比
+ * <p>
+ * - 每次操作同时提交 concurrency 个任务并等待全部完成，每个任务阻塞 blockMillis 模拟一次下游调用
+ * - 结果为每批任务的平均耗时，每秒任务数 = concurrency / 平均耗时
+ * - VIRTUAL 是 VirtualThreadConfig 中实际使用的执行器（SimpleAsyncTaskExecutor + 虚拟线程）
+ * - PLATFORM_200 对应Tomcat默认的最大线程数，PLATFORM_1000 是加大线程池的常见做法
+ * - VIRTUAL_PINNED 在 synchronized 块内阻塞，虚拟线程被钉在载体线程上，吞吐量退化为"CPU核数大小的线程池"
+ * <p>
+ * 例如：java -jar benchmarks.jar VirtualThreadExecutorBenchmark -p concurrency=10000
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadExecutorBenchmark {
+
+    public enum ExecutorType {
+        VIRTUAL, VIRTUAL_PINNED, PLATFORM_200, PLATFORM_1000
+    }
+
+    @Param({"1000", "10000"})
+    private int concurrency;
+
+    @Param({"10"})
+    private long blockMillis;
+
+    @Param
+    private ExecutorType executorType;
+
+    private Executor executor;
+    private Runnable closer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (executorType) {
+            case VIRTUAL:
+            case VIRTUAL_PINNED:
+                SimpleAsyncTaskExecutor virtual = VirtualThreadConfig.virtualThreadExecutor(
+                        "bench-vt-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+                executor = virtual;
+                closer = virtual::close;
+                break;
+            case PLATFORM_200:
+                usePlatformPool(200);
+                break;
+            case PLATFORM_1000:
+                usePlatformPool(1000);
+                break;
+            default:
+                throw new IllegalStateException("Unknown executor type: " + executorType);
+        }
+    }
+
+    private void usePlatformPool(int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        executor = pool;
+        closer = pool::shutdownNow;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        closer.run();
+    }
+
+    @Benchmark
+    public void blockingBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        boolean pinned = executorType == ExecutorType.VIRTUAL_PINNED;
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    if (pinned) {
+                        blockPinned();
+                    } else {
+                        Thread.sleep(blockMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void blockPinned() throws InterruptedException {
+        // 每个任务各自的锁，不存在锁竞争，只有钉住的影响
+        Object lock = new Object();
+        synchronized (lock) {
+            Thread.sleep(blockMillis);
+        }
+    }
+}
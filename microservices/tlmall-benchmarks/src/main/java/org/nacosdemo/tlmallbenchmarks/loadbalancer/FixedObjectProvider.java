@@ -0,0 +1,35 @@
+package org.nacosdemo.tlmallbenchmarks.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * 直接持有对象的ObjectProvider，代替LoadBalancerClientFactory.getLazyProvider()，不需要Spring容器
+ */
+class FixedObjectProvider<T> implements ObjectProvider<T> {
+
+    private final T object;
+
+    FixedObjectProvider(T object) {
+        this.object = object;
+    }
+
+    @Override
+    public T getObject(Object... args) {
+        return object;
+    }
+
+    @Override
+    public T getIfAvailable() {
+        return object;
+    }
+
+    @Override
+    public T getIfUnique() {
+        return object;
+    }
+
+    @Override
+    public T getObject() {
+        return object;
+    }
+}
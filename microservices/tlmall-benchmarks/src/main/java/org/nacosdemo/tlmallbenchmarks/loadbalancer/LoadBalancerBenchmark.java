@@ -0,0 +1,187 @@
+package org.nacosdemo.tlmallbenchmarks.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.IPHashLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestTracker;
+import org.nacosdemo.tlmalluser.loadbalancer.LeastRequestLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.PeakEwmaLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.ResponseTimeTracker;
+import org.nacosdemo.tlmalluser.loadbalancer.SmoothWeightedRoundRobinLoadBalancer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各负载均衡策略 choose() 的吞吐量和每次调用的内存分配
+ * <p>
+ * - 实例列表是合成的 DefaultServiceInstance，Supplier直接返回固定列表，不依赖Nacos
+ * - instanceCount 覆盖 2 ~ 10000 个实例，线程数见各 @Threads 方法
+ * - 配合 GC Profiler（BenchmarkRunner默认打开，或 -prof gc）看 gc.alloc.rate.norm
+ * <p>
+ * 有状态的策略（LEAST_REQUEST、PEAK_EWMA）在每次选择后模拟一次请求的开始和结束，
+ * 把 LoadBalancerLifecycle 中更新计数器/延迟的开销也算进去
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBalancerBenchmark {
+
+    private static final String SERVICE_ID = "tlmall-order";
+
+    // 模拟的客户端IP个数，IP_HASH按这些IP做哈希
+    private static final int CLIENT_KEYS = 1024;
+
+    // 模拟的下游响应时间
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    public enum Strategy {
+        IP_HASH, RANDOM, ROUND_ROBIN, LEAST_REQUEST, PEAK_EWMA, WEIGHTED_ROUND_ROBIN
+    }
+
+    @Param({"2", "10", "100", "1000", "10000"})
+    private int instanceCount;
+
+    @Param
+    private Strategy strategy;
+
+    private ReactorServiceInstanceLoadBalancer loadBalancer;
+
+    private InFlightRequestTracker inFlightRequestTracker;
+
+    private ResponseTimeTracker responseTimeTracker;
+
+    private Request<RequestDataContext>[] requests;
+
+    @Setup
+    public void setUp() {
+        ServiceInstanceListSupplier supplier = new StaticServiceInstanceListSupplier(SERVICE_ID, instances(instanceCount));
+        ObjectProvider<ServiceInstanceListSupplier> provider = new FixedObjectProvider<>(supplier);
+        switch (strategy) {
+            case IP_HASH:
+                loadBalancer = new IPHashLoadBalancer(provider, SERVICE_ID);
+                break;
+            case RANDOM:
+                loadBalancer = new RandomLoadBalancer(provider, SERVICE_ID);
+                break;
+            case ROUND_ROBIN:
+                loadBalancer = new RoundRobinLoadBalancer(provider, SERVICE_ID);
+                break;
+            case LEAST_REQUEST:
+                inFlightRequestTracker = new InFlightRequestTracker();
+                loadBalancer = new LeastRequestLoadBalancer(provider, SERVICE_ID, inFlightRequestTracker);
+                break;
+            case PEAK_EWMA:
+                inFlightRequestTracker = new InFlightRequestTracker();
+                responseTimeTracker = new ResponseTimeTracker();
+                loadBalancer = new PeakEwmaLoadBalancer(provider, SERVICE_ID, inFlightRequestTracker, responseTimeTracker);
+                break;
+            case WEIGHTED_ROUND_ROBIN:
+                loadBalancer = new SmoothWeightedRoundRobinLoadBalancer(provider, SERVICE_ID);
+                break;
+            default:
+                throw new IllegalStateException("Unknown strategy: " + strategy);
+        }
+        requests = requests(CLIENT_KEYS);
+    }
+
+    /**
+     * 每个线程各自轮流使用不同客户端IP的请求
+     */
+    @State(Scope.Thread)
+    public static class RequestCursor {
+        private int next;
+
+        int next() {
+            return next++ & (CLIENT_KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ServiceInstance chooseOneThread(RequestCursor cursor) {
+        return choose(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ServiceInstance chooseFourThreads(RequestCursor cursor) {
+        return choose(cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ServiceInstance chooseMaxThreads(RequestCursor cursor) {
+        return choose(cursor);
+    }
+
+    private ServiceInstance choose(RequestCursor cursor) {
+        Response<ServiceInstance> response = loadBalancer.choose(requests[cursor.next()]).block();
+        ServiceInstance instance = response.getServer();
+        if (inFlightRequestTracker != null) {
+            inFlightRequestTracker.increment(instance);
+            inFlightRequestTracker.decrement(instance);
+        }
+        if (responseTimeTracker != null) {
+            responseTimeTracker.record(instance, LATENCY_NANOS);
+        }
+        return instance;
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> metadata = new HashMap<>();
+            // 权重在 50 ~ 150 之间变化，避免加权轮询退化成普通轮询
+            metadata.put("weight", String.valueOf(50 + i % 101));
+            String host = "10.0." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+            instances.add(new DefaultServiceInstance(SERVICE_ID + "-" + i, SERVICE_ID, host, 8060, false, metadata));
+        }
+        return instances;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Request<RequestDataContext>[] requests(int count) {
+        Request<RequestDataContext>[] requests = new Request[count];
+        URI uri = URI.create("http://" + SERVICE_ID + "/order/getOrder?userId=fox");
+        for (int i = 0; i < count; i++) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Client-IP", "192.168." + (i >> 8 & 0xFF) + "." + (i & 0xFF));
+            RequestData requestData = new RequestData(HttpMethod.GET, uri, headers, new LinkedMultiValueMap<>(), new HashMap<>());
+            requests[i] = new DefaultRequest<>(new RequestDataContext(requestData));
+        }
+        return requests;
+    }
+}
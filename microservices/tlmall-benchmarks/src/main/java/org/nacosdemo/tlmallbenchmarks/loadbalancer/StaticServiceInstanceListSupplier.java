@@ -0,0 +1,33 @@
+package org.nacosdemo.tlmallbenchmarks.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 返回固定实例列表的Supplier，Flux预先构建好，get()本身不产生对象分配，
+ * 基准测试测到的只有负载均衡器自身的开销
+ */
+class StaticServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+    private final String serviceId;
+
+    private final Flux<List<ServiceInstance>> instances;
+
+    StaticServiceInstanceListSupplier(String serviceId, List<ServiceInstance> instances) {
+        this.serviceId = serviceId;
+        this.instances = Flux.just(instances);
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return instances;
+    }
+}
@@ -0,0 +1,158 @@
+package org.nacosdemo.tlmallbenchmarks.pagination;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 翻到第depth条时，OFFSET分页与keyset（seek）分页取一页的耗时对比
+ * <p>
+ * - KEYSET 与 tlmall-nacos-demo-order 中 OrderMapper.getOrderPageByUserId 的SQL相同：
+ *   where user_id = ? and id &lt; ? order by id desc limit ?，从 (user_id, id) 索引上一页的末尾直接定位
+ * - OFFSET 为 order by id desc limit ? offset ?，需要先读出并丢弃前depth行
+ * - 预期KEYSET的耗时不随depth变化，OFFSET随depth线性增长
+ * <p>
+ * 需要一个MySQL：第一次运行时在其中创建 order_pagination_bench 表（与 order 表结构相同，带 (user_id, id) 索引），
+ * 为一个用户写入rows条订单，之后复用。连接参数通过系统属性指定，例如：
+ * java -Dtlmall.bench.jdbc-url=jdbc:mysql://127.0.0.1:3306/tlmall_order -jar benchmarks.jar OrderPaginationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPaginationBenchmark {
+
+    public enum Paging {
+        OFFSET, KEYSET
+    }
+
+    private static final String TABLE = "order_pagination_bench";
+    private static final String USER_ID = "bench-user";
+
+    private static final String KEYSET_SQL = "select * from " + TABLE
+            + " where user_id = ? and id < ? order by id desc limit ?";
+    private static final String OFFSET_SQL = "select * from " + TABLE
+            + " where user_id = ? order by id desc limit ? offset ?";
+
+    @Param({"0", "1000", "10000", "100000"})
+    private int depth;
+
+    @Param({"20"})
+    private int pageSize;
+
+    @Param({"200000"})
+    private int rows;
+
+    @Param
+    private Paging paging;
+
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        if (depth + pageSize > rows) {
+            throw new IllegalArgumentException("depth + pageSize must not exceed rows");
+        }
+        connection = DriverManager.getConnection(
+                System.getProperty("tlmall.bench.jdbc-url",
+                        "jdbc:mysql://tlmall-mysql:3306/tlmall_order?useSSL=false&allowPublicKeyRetrieval=true"),
+                System.getProperty("tlmall.bench.jdbc-user", "root"),
+                System.getProperty("tlmall.bench.jdbc-password", "root"));
+        seed();
+        if (paging == Paging.KEYSET) {
+            // 写入的id为1..rows，按id倒序跳过depth行后，上一页最后一条的id为 rows - depth + 1
+            statement = connection.prepareStatement(KEYSET_SQL);
+            statement.setString(1, USER_ID);
+            statement.setInt(2, rows - depth + 1);
+            statement.setInt(3, pageSize);
+        } else {
+            statement = connection.prepareStatement(OFFSET_SQL);
+            statement.setString(1, USER_ID);
+            statement.setInt(2, pageSize);
+            statement.setInt(3, depth);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (statement != null) {
+            statement.close();
+        }
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void page(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getInt("id"));
+                blackhole.consume(resultSet.getString("commodity_code"));
+                blackhole.consume(resultSet.getInt("count"));
+                blackhole.consume(resultSet.getInt("money"));
+                blackhole.consume(resultSet.getTimestamp("create_time"));
+                blackhole.consume(resultSet.getTimestamp("update_time"));
+            }
+        }
+    }
+
+    // 表不存在或行数不对时重建并写入数据，id连续便于计算keyset游标
+    private void seed() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table if not exists " + TABLE + " ("
+                    + "id int not null primary key, user_id varchar(255), commodity_code varchar(255), "
+                    + "count int default 0, money int default 0, "
+                    + "create_time timestamp default current_timestamp, update_time timestamp default current_timestamp, "
+                    + "key idx_user_id_id (user_id, id))");
+            try (ResultSet count = ddl.executeQuery("select count(*) from " + TABLE)) {
+                count.next();
+                if (count.getInt(1) == rows) {
+                    return;
+                }
+            }
+            ddl.execute("truncate table " + TABLE);
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into " + TABLE
+                + " (id, user_id, commodity_code, count, money) values (?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= rows; id++) {
+                insert.setInt(1, id);
+                insert.setString(2, USER_ID);
+                insert.setString(3, "C" + (id % 1000));
+                insert.setInt(4, 1 + id % 5);
+                insert.setInt(5, 10 * (1 + id % 50));
+                insert.addBatch();
+                if (id % 5000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package org.nacosdemo.tlmallgateway;
 
+import org.nacosdemo.tlmallgateway.config.loadbalancer.IPHashLoadBalancerConfig;
+import org.nacosdemo.tlmallgateway.config.loadbalancer.InstanceListSupplierConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 
 @SpringBootApplication
+// 路由到tlmall-order时按客户端IP做一致性哈希，客户端Key由ClientKeyGlobalFilter解析并通过Reactor Context传递
+// InstanceListSupplierConfig：按真实请求结果被动摘除异常实例
+@LoadBalancerClients(value = {
+		@LoadBalancerClient(name = "tlmall-order",
+				configuration = {IPHashLoadBalancerConfig.class, InstanceListSupplierConfig.class})
+})
 public class TlmallGatewayApplication {
 
 	public static void main(String[] args) {
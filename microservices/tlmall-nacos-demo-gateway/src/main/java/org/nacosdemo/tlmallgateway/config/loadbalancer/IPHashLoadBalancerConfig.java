@@ -0,0 +1,28 @@
+package org.nacosdemo.tlmallgateway.config.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.ConsistentHashRing;
+import org.nacosdemo.tlmallsupport.loadbalancer.IPHashLoadBalancer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围
+public class IPHashLoadBalancerConfig {
+    // 一致性哈希环上每个实例的虚拟节点数量
+    public static final String VIRTUAL_NODES = "tlmall.loadbalancer.consistent-hash.virtual-nodes";
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        int virtualNodes = environment.getProperty(
+                VIRTUAL_NODES, Integer.class, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        return new IPHashLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name, virtualNodes);
+    }
+}
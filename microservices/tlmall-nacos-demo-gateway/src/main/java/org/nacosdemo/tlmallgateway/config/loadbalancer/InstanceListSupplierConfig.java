@@ -0,0 +1,56 @@
+package org.nacosdemo.tlmallgateway.config.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetectionLifecycle;
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetectionProperties;
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetector;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.OutlierEjectionServiceInstanceListSupplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplierBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是与负载均衡策略配置一起，通过启动类上的@LoadBalancerClients注解来指定Bean生效范围
+//
+// 网关是响应式的，以ReactiveDiscoveryClient + 缓存为基础（与LoadBalancerClientConfiguration默认方式一致），
+// 再叠加异常实例摘除
+public class InstanceListSupplierConfig {
+
+    // 被动异常实例检测，每个下游服务（子容器）一个
+    @Bean
+    @ConditionalOnProperty(value = OutlierDetectionProperties.PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+    public OutlierDetector outlierDetector(Environment environment) {
+        OutlierDetectionProperties properties = Binder.get(environment)
+                .bind(OutlierDetectionProperties.PREFIX, OutlierDetectionProperties.class)
+                .orElseGet(OutlierDetectionProperties::new);
+        return new OutlierDetector(properties);
+    }
+
+    // 把每次请求的结果交给OutlierDetector
+    @Bean
+    @ConditionalOnProperty(value = OutlierDetectionProperties.PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+    public OutlierDetectionLifecycle outlierDetectionLifecycle(OutlierDetector outlierDetector) {
+        return new OutlierDetectionLifecycle(outlierDetector);
+    }
+
+    @Bean
+    public ServiceInstanceListSupplier discoveryClientServiceInstanceListSupplier(
+            ConfigurableApplicationContext context,
+            ObjectProvider<OutlierDetector> outlierDetector) {
+        ServiceInstanceListSupplierBuilder builder = ServiceInstanceListSupplier.builder()
+                .withDiscoveryClient()
+                .withCaching();
+
+        OutlierDetector detector = outlierDetector.getIfAvailable();
+        if (detector != null) {
+            builder.with((ctx, delegate) -> new OutlierEjectionServiceInstanceListSupplier(delegate, detector));
+        }
+
+        return builder.build(context);
+    }
+}
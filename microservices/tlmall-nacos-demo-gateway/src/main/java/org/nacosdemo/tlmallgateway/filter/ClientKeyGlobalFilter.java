@@ -0,0 +1,74 @@
+package org.nacosdemo.tlmallgateway.filter;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 在网关入口解析一次客户端Key（用于IPHashLoadBalancer），沿以下路径传给负载均衡器：
+ * exchange属性（进入RequestDataContext）、Reactor Context、以及转发给下游的X-Client-IP请求头
+ * <p>
+ * 网关是入口，不信任客户端传入的X-Client-IP：否则调用方可以自己选择哈希Key、把流量压到同一个实例上。
+ * Key 取自对端地址；网关前面还有SLB/Nginx时，配置 tlmall.gateway.client-key.trusted-hops 为可信代理的层数，
+ * 从X-Forwarded-For右起取对应的一跳。解析出的Key覆盖入站的X-Client-IP请求头
+ * <p>
+ * 必须在 ReactiveLoadBalancerClientFilter 之前执行
+ */
+@Component
+public class ClientKeyGlobalFilter implements GlobalFilter, Ordered {
+    // 网关前面可信代理（SLB/Nginx）的层数，0表示直接使用对端地址
+    public static final String TRUSTED_HOPS = "tlmall.gateway.client-key.trusted-hops";
+
+    private final RemoteAddressResolver remoteAddressResolver;
+
+    public ClientKeyGlobalFilter(Environment environment) {
+        int trustedHops = environment.getProperty(TRUSTED_HOPS, Integer.class, 0);
+        this.remoteAddressResolver = trustedHops > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedHops)
+                : new RemoteAddressResolver() {
+                };
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String clientKey = clientKey(remoteAddressResolver.resolve(exchange));
+        if (clientKey == null) {
+            // 无法确定客户端地址时去掉入站的请求头，下游不会用伪造的Key
+            return chain.filter(exchange.mutate()
+                    .request(builder -> builder.headers(headers -> headers.remove(ClientKeys.HEADER)))
+                    .build());
+        }
+        ServerWebExchange mutated = exchange.mutate()
+                .request(builder -> builder.headers(headers -> headers.set(ClientKeys.HEADER, clientKey)))
+                .build();
+        mutated.getAttributes().put(ClientKeys.ATTRIBUTE, clientKey);
+        return chain.filter(mutated).contextWrite(ClientKeys.context(clientKey));
+    }
+
+    // X-Forwarded-For中解析出的地址是未解析的（只有字符串形式），对端地址则带有InetAddress
+    private static String clientKey(InetSocketAddress address) {
+        if (address == null) {
+            return null;
+        }
+        if (address.getAddress() != null) {
+            return address.getAddress().getHostAddress();
+        }
+        String host = address.getHostString();
+        return host == null || host.isEmpty() ? null : host;
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package org.nacosdemo.tlmallgateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientKeyGlobalFilterTest {
+
+    private final ClientKeyGlobalFilter filter = new ClientKeyGlobalFilter(new MockEnvironment());
+
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+    private final AtomicReference<String> contextKey = new AtomicReference<>();
+
+    // 记录传给下一个过滤器的 exchange 以及 Reactor Context 中的客户端Key
+    private final GatewayFilterChain chain = exchange -> Mono.deferContextual(context -> {
+        forwarded.set(exchange);
+        contextKey.set(context.getOrDefault(ClientKeys.ATTRIBUTE, null));
+        return Mono.empty();
+    });
+
+    @Test
+    void spoofedHeaderIsReplacedByRemoteAddress() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/user/getOrder").header(ClientKeys.HEADER, "10.0.0.1")
+                        .header("X-Forwarded-For", "10.0.0.2")
+                        .remoteAddress(new InetSocketAddress("192.168.0.9", 5000)));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(forwarded.get().getAttributes()).containsEntry(ClientKeys.ATTRIBUTE, "192.168.0.9");
+        assertThat(forwarded.get().getRequest().getHeaders().get(ClientKeys.HEADER)).containsExactly("192.168.0.9");
+        assertThat(contextKey.get()).isEqualTo("192.168.0.9");
+    }
+
+    @Test
+    void trustedHopIsTakenFromForwardedFor() {
+        ClientKeyGlobalFilter behindProxy = new ClientKeyGlobalFilter(
+                new MockEnvironment().withProperty(ClientKeyGlobalFilter.TRUSTED_HOPS, "1"));
+        // 客户端自己填的X-Forwarded-For在左边，可信代理追加的对端地址在最右边
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/user/getOrder").header(ClientKeys.HEADER, "10.0.0.1")
+                        .header("X-Forwarded-For", "10.0.0.2, 172.16.0.7")
+                        .remoteAddress(new InetSocketAddress("192.168.0.1", 5000)));
+
+        behindProxy.filter(exchange, chain).block();
+
+        assertThat(forwarded.get().getAttributes()).containsEntry(ClientKeys.ATTRIBUTE, "172.16.0.7");
+        assertThat(forwarded.get().getRequest().getHeaders().get(ClientKeys.HEADER)).containsExactly("172.16.0.7");
+        assertThat(contextKey.get()).isEqualTo("172.16.0.7");
+    }
+
+    @Test
+    void remoteAddressIsUsedAndForwardedWhenHeaderIsMissing() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/user/getOrder").remoteAddress(new InetSocketAddress("192.168.0.9", 5000)));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(forwarded.get().getAttributes()).containsEntry(ClientKeys.ATTRIBUTE, "192.168.0.9");
+        assertThat(forwarded.get().getRequest().getHeaders().getFirst(ClientKeys.HEADER)).isEqualTo("192.168.0.9");
+        assertThat(contextKey.get()).isEqualTo("192.168.0.9");
+    }
+
+    @Test
+    void noKeyWithoutRemoteAddress() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/user/getOrder").header(ClientKeys.HEADER, "10.0.0.1"));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(forwarded.get().getAttributes()).doesNotContainKey(ClientKeys.ATTRIBUTE);
+        assertThat(forwarded.get().getRequest().getHeaders().containsKey(ClientKeys.HEADER)).isFalse();
+        assertThat(contextKey.get()).isNull();
+    }
+}
@@ -0,0 +1,185 @@
+package org.nacosdemo.tlmallorder.batch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 把并发的单key查询合并成一次批量查询（DataLoader风格）
+ * <p>
+ * 没有批量查询在执行时，到达的key立即单独查询，空闲时不增加延迟；
+ * 有批量查询在执行时，新到达的key进入下一批，在以下任一条件满足时把这一批交给batchLoader执行一次批量查询，再按key分发结果：
+ * - 正在执行的批量查询全部结束
+ * - 自第一个key入队起经过一个时间窗口（window）
+ * - 攒够maxBatchSize个key
+ * <p>
+ * - 同一批中重复的key共享同一个CompletableFuture，只查询一次
+ * - batchLoader返回的Map中没有的key，结果为null
+ * - 批量查询失败时，这一批的所有调用方都收到同一个异常
+ * <p>
+ * 单个请求最多多等待一个window，并发高时数据库QPS按批大小成倍下降；
+ * 批量查询在executor上执行，调用方线程只负责入队。
+ * 锁只保护入队和取批，不在锁内做I/O，使用ReentrantLock而不是synchronized，避免钉住虚拟线程
+ */
+public class BatchCoalescer<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchLoader;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final DistributionSummary batchSizes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> timer;
+    // 每取走一批加一；已被取消但仍在执行的定时任务据此识别自己已过期
+    private long generation;
+    // 已提交、尚未结束的批量查询数
+    private int inFlight;
+
+    public BatchCoalescer(Function<Set<K>, Map<K, V>> batchLoader, int maxBatchSize, Duration window,
+                          ScheduledExecutorService scheduler, Executor executor,
+                          MeterRegistry meterRegistry, String name) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.batchSizes = meterRegistry == null ? null : DistributionSummary.builder("tlmall.batch.size")
+                .description("每次合并查询包含的Key数量")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 异步获取key对应的值，和窗口内的其它key一起批量查询
+     */
+    public CompletableFuture<V> load(K key) {
+        CompletableFuture<V> future;
+        Map<K, CompletableFuture<V>> batch = null;
+        lock.lock();
+        try {
+            future = pending.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(key, future);
+            }
+            if (pending.size() >= maxBatchSize || inFlight == 0) {
+                batch = takePending();
+            } else if (timer == null) {
+                long current = generation;
+                timer = scheduler.schedule(() -> flushOnTimer(current), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return future;
+    }
+
+    /**
+     * 同步获取key对应的值，批量查询的异常原样抛出
+     */
+    public V get(K key) {
+        try {
+            return load(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void flushOnTimer(long scheduledGeneration) {
+        Map<K, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            if (scheduledGeneration != generation) {
+                // 这个定时任务对应的批已经被取走，当前的timer属于下一批
+                return;
+            }
+            timer = null;
+            batch = pending.isEmpty() ? null : takePending();
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    // 调用时必须持有锁
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        generation++;
+        inFlight++;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        if (batchSizes != null) {
+            batchSizes.record(batch.size());
+        }
+        try {
+            executor.execute(() -> complete(batch));
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            onBatchFinished();
+        }
+    }
+
+    /**
+     * 一次批量查询结束；没有其它查询在执行时，立即提交期间攒下的key，不必等到窗口结束
+     */
+    private void onBatchFinished() {
+        Map<K, CompletableFuture<V>> batch = null;
+        lock.lock();
+        try {
+            inFlight--;
+            if (inFlight == 0 && !pending.isEmpty()) {
+                batch = takePending();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private void complete(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = batchLoader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (Throwable t) {
+            batch.values().forEach(future -> future.completeExceptionally(t));
+        } finally {
+            onBatchFinished();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.nacosdemo.tlmallorder.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmallorder.entity.Order;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 按userId缓存订单列表的读穿透（read-through）缓存（Caffeine）
+ * <p>
+ * 同一批热点用户每分钟被查询上千次，每次都执行 select ... where user_id = ? order by id desc，
+ * 这里在OrderService和MySQL之间加一层有界的本地缓存：
+ * - 容量：按缓存的订单总数（maximumWeight，每个条目的权重为列表长度）而不是用户数限制，
+ *   订单很多的用户占用的配额相应更多，内存占用有上界
+ * - 淘汰策略：W-TinyLFU（Caffeine限制容量时的默认策略），偶发的冷门用户不会把热点用户挤出去
+ * - 过期：写入后expireAfterWrite过期；为0时不缓存，直接查库。订单由其它服务写入，本服务感知不到变化，
+ *   因此没有主动失效，订单变化最多延迟expireAfterWrite才可见
+ * - 提前刷新（refresh-ahead）：写入超过refreshAfterWrite后再被访问，先返回旧值，同时在后台重新加载，
+ *   热点用户的请求不会因为过期而落到数据库上；后台加载失败时继续使用旧值
+ * - 防击穿：同一个userId的并发未命中共享同一个加载中的CompletableFuture，只查一次库；
+ *   加载在executor上执行，不占用Caffeine内部哈希表的锁，其它key的读写不受慢查询影响
+ * - 指标：cache.gets{result=hit|miss}、cache.evictions、cache.load.duration 等，tag cache=name
+ * <p>
+ * 缓存的列表不可修改，调用方不能就地改动缓存内容
+ */
+@Slf4j
+public class OrderCache {
+
+    private final AsyncLoadingCache<String, List<Order>> cache;
+
+    private final Function<String, List<Order>> loader;
+
+    public OrderCache(Function<String, List<Order>> loader, long maximumOrders, Duration expireAfterWrite,
+                      Duration refreshAfterWrite, Executor executor) {
+        this(loader, maximumOrders, expireAfterWrite, refreshAfterWrite, executor, Ticker.systemTicker());
+    }
+
+    OrderCache(Function<String, List<Order>> loader, long maximumOrders, Duration expireAfterWrite,
+               Duration refreshAfterWrite, Executor executor, Ticker ticker) {
+        this.loader = loader;
+        if (expireAfterWrite.isZero()) {
+            this.cache = null;
+            return;
+        }
+        Caffeine<String, List<Order>> builder = Caffeine.newBuilder()
+                .maximumWeight(maximumOrders)
+                .expireAfterWrite(expireAfterWrite)
+                .executor(executor)
+                .ticker(ticker)
+                .recordStats()
+                // 没有订单的用户也占一个单位，避免大量空列表不受容量限制
+                .weigher((String userId, List<Order> orders) -> Math.max(1, orders.size()));
+        // 刷新时间不小于过期时间时，条目在刷新之前就已过期，刷新不起作用
+        if (!refreshAfterWrite.isZero() && refreshAfterWrite.compareTo(expireAfterWrite) < 0) {
+            builder.refreshAfterWrite(refreshAfterWrite);
+        }
+        this.cache = builder.buildAsync(userId -> List.copyOf(loader.apply(userId)));
+    }
+
+    /**
+     * 把命中率、淘汰数、加载耗时等指标注册到meterRegistry
+     */
+    public OrderCache bindTo(MeterRegistry meterRegistry, String name) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        }
+        return this;
+    }
+
+    /**
+     * 是否启用了缓存（expire-after-write大于0）
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * 已缓存的订单列表，未命中（或仍在加载中）时返回null，不触发加载
+     */
+    public List<Order> getIfPresent(String userId) {
+        if (cache == null) {
+            return null;
+        }
+        CompletableFuture<List<Order>> future = cache.getIfPresent(userId);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    /**
+     * 用户的订单列表（按id倒序），未命中时查库并缓存
+     */
+    public List<Order> getOrdersByUserId(String userId) {
+        if (cache == null) {
+            return loader.apply(userId);
+        }
+        CompletableFuture<List<Order>> future = cache.get(userId);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // 加载失败的Future不会被缓存，下次访问重新加载；Caffeine在回调中移除它，可能晚于这里返回，
+            // 因此在这里同步移除，紧接着的访问不会拿到同一个失败的Future。把Mapper的原始异常抛给调用方
+            cache.asMap().remove(userId, future);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
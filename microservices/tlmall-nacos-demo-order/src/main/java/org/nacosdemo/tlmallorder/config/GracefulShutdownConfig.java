@@ -0,0 +1,33 @@
+package org.nacosdemo.tlmallorder.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmallorder.shutdown.NacosWeightHooks;
+import org.nacosdemo.tlmallsupport.shutdown.DrainFilter;
+import org.nacosdemo.tlmallsupport.shutdown.GracefulDrainCoordinator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 优雅下线（tlmall-support 的 GracefulDrainCoordinator、DrainFilter），zero-weight 模式由 NacosWeightHooks 更新权重
+ */
+@Configuration
+public class GracefulShutdownConfig {
+
+    @Bean
+    public GracefulDrainCoordinator gracefulDrainCoordinator(ObjectProvider<ServiceRegistry<Registration>> serviceRegistry,
+                                                             ObjectProvider<Registration> registration,
+                                                             NacosWeightHooks nacosWeightHooks,
+                                                             ObjectProvider<MeterRegistry> meterRegistry,
+                                                             Environment environment) {
+        return new GracefulDrainCoordinator(serviceRegistry, registration, nacosWeightHooks, meterRegistry, environment);
+    }
+
+    @Bean
+    public DrainFilter drainFilter(GracefulDrainCoordinator gracefulDrainCoordinator) {
+        return new DrainFilter(gracefulDrainCoordinator);
+    }
+}
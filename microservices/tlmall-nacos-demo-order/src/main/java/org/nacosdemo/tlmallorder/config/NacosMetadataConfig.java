@@ -0,0 +1,29 @@
+package org.nacosdemo.tlmallorder.config;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.discovery.event.InstancePreRegisteredEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * 注册到Nacos之前，在实例元数据中写入 startup.time（毫秒时间戳）
+ * <p>
+ * 调用方（tlmall-nacos-demo-user 的 SlowStartLoadBalancer）据此对刚启动的实例做预热，
+ * 在预热窗口内逐步提升它的流量，避免JIT、连接池、缓存都还是冷的时候就承接全部流量
+ * <p>
+ * 与 tlmall-nacos-demo-user 中注释掉的 NacosMetadataConfig 不同：不使用本地时间格式（不带时区，跨时区的调用方会算错预热进度），
+ * 不替换 NacosDiscoveryProperties Bean，并且取的是注册时刻而不是容器创建时刻
+ */
+@Configuration
+public class NacosMetadataConfig {
+    public static final String STARTUP_TIME = "startup.time";
+
+    @Autowired
+    private NacosDiscoveryProperties nacosDiscoveryProperties;
+
+    @EventListener(InstancePreRegisteredEvent.class)
+    public void stampStartupTime() {
+        nacosDiscoveryProperties.getMetadata().put(STARTUP_TIME, String.valueOf(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,53 @@
+package org.nacosdemo.tlmallorder.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmallorder.batch.BatchCoalescer;
+import org.nacosdemo.tlmallorder.entity.Order;
+import org.nacosdemo.tlmallorder.mapper.OrderMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 按id查询订单的请求合并（BatchCoalescer）：并发的 getOrderById 合并为一次 where id in (...) 查询，空闲时单个请求不等待
+ * <p>
+ * 时间窗口由一个守护线程调度，批量查询在虚拟线程上执行
+ */
+@Configuration
+public class OrderBatchConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService orderBatchScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("order-batch-timer").daemon().factory());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService orderBatchExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-batch-", 0).factory());
+    }
+
+    @Bean
+    public BatchCoalescer<Integer, Order> orderByIdCoalescer(
+            Environment environment, OrderMapper orderMapper, ScheduledExecutorService orderBatchScheduler,
+            ExecutorService orderBatchExecutor, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BatchCoalescer<>(
+                ids -> {
+                    Map<Integer, Order> orders = new HashMap<>();
+                    for (Order order : orderMapper.getOrdersByIds(ids)) {
+                        orders.put(order.getId(), order);
+                    }
+                    return orders;
+                },
+                environment.getProperty("tlmall.order-batch.max-batch-size", Integer.class, 100),
+                environment.getProperty("tlmall.order-batch.window", Duration.class, Duration.ofMillis(2)),
+                orderBatchScheduler, orderBatchExecutor, meterRegistry.getIfAvailable(), "order-by-id");
+    }
+}
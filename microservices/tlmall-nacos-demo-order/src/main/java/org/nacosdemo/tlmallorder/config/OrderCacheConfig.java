@@ -0,0 +1,43 @@
+package org.nacosdemo.tlmallorder.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmallorder.cache.OrderCache;
+import org.nacosdemo.tlmallorder.mapper.OrderMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 订单读穿透缓存（OrderCache）
+ * <p>
+ * 缓存加载是阻塞的JDBC查询，在虚拟线程上执行，不占用ForkJoinPool.commonPool（Caffeine的默认执行器）
+ */
+@Configuration
+public class OrderCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService orderCacheExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-cache-", 0).factory());
+    }
+
+    @Bean
+    public OrderCache orderCache(Environment environment, OrderMapper orderMapper,
+                                 ExecutorService orderCacheExecutor, ObjectProvider<MeterRegistry> meterRegistry) {
+        boolean enabled = environment.getProperty("tlmall.order-cache.enabled", Boolean.class, true);
+        OrderCache cache = new OrderCache(
+                orderMapper::getOrderByUserId,
+                environment.getProperty("tlmall.order-cache.maximum-orders", Long.class, 100_000L),
+                enabled ? environment.getProperty("tlmall.order-cache.expire-after-write", Duration.class,
+                        Duration.ofSeconds(60)) : Duration.ZERO,
+                environment.getProperty("tlmall.order-cache.refresh-after-write", Duration.class,
+                        Duration.ofSeconds(30)),
+                orderCacheExecutor);
+        meterRegistry.ifAvailable(registry -> cache.bindTo(registry, "tlmall.order.by-user"));
+        return cache;
+    }
+}
@@ -0,0 +1,26 @@
+package org.nacosdemo.tlmallorder.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+
+/**
+ * 订单导出（见OrderExporter、OrderController.export）的执行器
+ * <p>
+ * 导出耗时与导出行数、客户端读取速度成正比，不和其它异步请求共用Spring MVC的执行器：
+ * OrderController.export 只为导出请求换成这个执行器，每个导出一个虚拟线程，阻塞在写输出流或读游标上时不占用平台线程。
+ * 同时进行的导出数由OrderExporter的名额限制，超出时直接返回503，这里不再设concurrencyLimit（否则提交任务会阻塞请求线程）
+ */
+@Configuration
+public class StreamingExportConfig {
+
+    @Bean(destroyMethod = "close")
+    public SimpleAsyncTaskExecutor streamingExportExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-export-");
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(Duration.ofSeconds(30).toMillis());
+        return executor;
+    }
+}
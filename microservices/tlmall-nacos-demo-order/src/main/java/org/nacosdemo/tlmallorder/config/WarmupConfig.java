@@ -0,0 +1,21 @@
+package org.nacosdemo.tlmallorder.config;
+
+import org.nacosdemo.tlmallsupport.warmup.JitWarmup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 注册到Nacos之前的JIT预热（tlmall-support 的 JitWarmup）
+ * <p>
+ * 预热请求走完整的 Tomcat → DispatcherServlet → OrderService → MyBatis 链路；
+ * 本服务没有就绪闸门，请求不需要附加旁路令牌
+ */
+@Configuration
+public class WarmupConfig {
+
+    @Bean
+    public JitWarmup jitWarmup(Environment environment) {
+        return new JitWarmup(environment);
+    }
+}
@@ -1,30 +1,70 @@
 package org.nacosdemo.tlmallorder.controller;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.nacosdemo.tlmallorder.export.OrderExporter;
 import org.nacosdemo.tlmallorder.dto.OrderDTO;
 import org.nacosdemo.tlmallorder.service.OrderService;
+import org.nacosdemo.tlmallsupport.order.OrderView;
 import org.springcloudmvp.tlmallcommon.BusinessException;
 import org.springcloudmvp.tlmallcommon.Result;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @RestController
 @RequestMapping("/order")
 @Slf4j
 public class OrderController {
+    // 导出名额用完时，建议客户端多少秒后重试
+    private static final int EXPORT_RETRY_AFTER_SECONDS = 30;
+    private static final String EXPORT_PERMIT_INTERCEPTOR = OrderController.class.getName() + ".EXPORT_PERMIT";
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExporter orderExporter;
+
+    @Autowired
+    private AsyncTaskExecutor streamingExportExecutor;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 根据用户id查询订单信息
      *
      * @param userId
+     * @param view   summary：只返回id、commodityCode、count、money；full（缺省）：完整的订单
      * @return
      */
     @RequestMapping("/getOrder")
-    public Result<?> getOrder(@RequestParam("userId") String userId) {
+    public Result<?> getOrder(@RequestParam("userId") String userId,
+                              @RequestParam(value = "view", required = false) String view) {
         //模拟异常
         if (("foxxxx").equals(userId)) {
             throw new IllegalArgumentException("非法参数异常");
@@ -40,7 +80,31 @@ public class OrderController {
         log.info("根据userId:" + userId + "查询订单信息");
         Result<?> res = null;
         try {
-            res = orderService.getOrderByUserId(userId);
+            res = orderService.getOrderByUserId(userId, OrderView.from(view));
+        } catch (BusinessException e) {
+            return Result.failed(e.getMessage());
+        }
+        return res;
+    }
+
+
+    /**
+     * 按id倒序分页查询用户的订单（keyset分页）
+     *
+     * @param userId
+     * @param cursor 上一页返回的nextCursor，第一页不传
+     * @param limit  页大小，缺省20，最大200
+     * @param view   summary或full（缺省），同getOrder
+     * @return OrderPage，nextCursor为null表示没有下一页
+     */
+    @GetMapping("/getOrderPage")
+    public Result<?> getOrderPage(@RequestParam("userId") String userId,
+                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                  @RequestParam(value = "view", required = false) String view) {
+        Result<?> res = null;
+        try {
+            res = orderService.getOrderPageByUserId(userId, cursor, limit, OrderView.from(view));
         } catch (BusinessException e) {
             return Result.failed(e.getMessage());
         }
@@ -48,6 +112,98 @@ public class OrderController {
     }
 
 
+    /**
+     * 流式导出订单（NDJSON，每行一个订单），用于分析系统批量拉取
+     * <p>
+     * 边从数据库游标读边写响应，不在内存中组装结果；userId和时间范围至少指定一个。
+     * 导出在专用的streamingExportExecutor上执行，同时进行的导出数达到上限时立即返回503，不排队等待
+     *
+     * @param userId 用户id
+     * @param from   创建时间下限（含），ISO格式，例如 2024-01-01T00:00:00
+     * @param to     创建时间上限（不含）
+     * @return
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            HttpServletRequest request,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (userId == null && from == null && to == null) {
+            return failed(ResponseEntity.badRequest(), "userId和时间范围至少指定一个");
+        }
+        // 在取得名额之前读取配置：配置错误时直接失败，不会占住名额
+        long timeoutMillis = environment.getProperty("tlmall.export.timeout", Duration.class,
+                Duration.ofMinutes(10)).toMillis();
+        if (!orderExporter.tryAcquire()) {
+            log.warn("导出任务过多，拒绝导出: userId={}, from={}, to={}", userId, from, to);
+            return failed(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(EXPORT_RETRY_AFTER_SECONDS)), "导出任务过多，请稍后重试");
+        }
+        log.info("导出订单: userId={}, from={}, to={}", userId, from, to);
+        // 名额只释放一次：导出开始后由导出结束时释放；导出没能开始时（提交给执行器被拒绝、开始前就超时、设置异步请求出错）在这里释放
+        AtomicBoolean permitClaimed = new AtomicBoolean();
+        Runnable releaseIfNotStarted = () -> {
+            if (permitClaimed.compareAndSet(false, true)) {
+                orderExporter.release();
+            }
+        };
+        try {
+            // 只对这个请求换成导出专用的执行器和超时，不影响其它异步请求
+            WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+            asyncManager.setTaskExecutor(task -> {
+                try {
+                    streamingExportExecutor.execute(task);
+                } catch (RuntimeException e) {
+                    // 例如容器关闭期间执行器已关闭（TaskRejectedException），导出不会开始
+                    releaseIfNotStarted.run();
+                    throw e;
+                }
+            });
+            asyncManager.getAsyncWebRequest().setTimeout(timeoutMillis);
+            asyncManager.registerCallableInterceptor(EXPORT_PERMIT_INTERCEPTOR, new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                    // 异步请求结束（正常完成、超时或出错）；导出还没开始时由这里释放
+                    releaseIfNotStarted.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            releaseIfNotStarted.run();
+            throw e;
+        }
+        StreamingResponseBody body = out -> {
+            if (!permitClaimed.compareAndSet(false, true)) {
+                // 异步请求在导出开始之前已经结束（例如超时），名额已经释放
+                return;
+            }
+            try {
+                orderExporter.export(userId, from, to, out);
+            } finally {
+                orderExporter.release();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OrderExporter.NDJSON))
+                .body(body);
+    }
+
+    /**
+     * 导出失败时返回JSON格式的Result
+     * <p>
+     * 返回值必须声明为 ResponseEntity&lt;StreamingResponseBody&gt;，Spring MVC才会按流式响应处理，因此失败信息也以StreamingResponseBody写出
+     */
+    private ResponseEntity<StreamingResponseBody> failed(ResponseEntity.BodyBuilder builder, String message) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(Result.failed(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(out -> out.write(json));
+    }
+
+
     @RequestMapping("/getOrderById/{id}")
     public Result<?> getOrderById(@PathVariable("id") Integer id) {
         Result<?> res = null;
@@ -60,6 +216,24 @@ public class OrderController {
     }
 
 
+    /**
+     * 按一批id查询订单，例如 /order/getOrdersByIds?ids=1,2,3，一次最多500个
+     *
+     * @param ids
+     * @return 按ids的顺序返回，不存在的id被忽略
+     */
+    @RequestMapping("/getOrdersByIds")
+    public Result<?> getOrdersByIds(@RequestParam("ids") List<Integer> ids) {
+        Result<?> res = null;
+        try {
+            res = orderService.getOrdersByIds(ids);
+        } catch (BusinessException e) {
+            return Result.failed(e.getMessage());
+        }
+        return res;
+    }
+
+
     /**
      * 模拟测试openFegin的接口方法规范
      *
@@ -0,0 +1,43 @@
+package org.nacosdemo.tlmallorder.dto;
+
+import org.springcloudmvp.tlmallcommon.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 订单分页的不透明游标（opaque cursor）
+ * <p>
+ * 内容是上一页最后一条订单的id（keyset分页的 beforeId），编码为URL安全的Base64，
+ * 调用方只能原样回传，不依赖其格式；以后改为复合键（如 create_time + id）时只需要升级版本号
+ */
+public final class OrderCursor {
+
+    private static final String VERSION = "v1:";
+
+    private OrderCursor() {
+    }
+
+    public static String encode(Integer beforeId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((VERSION + beforeId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，null或空串表示第一页（返回null）；格式错误时抛出BusinessException
+     */
+    public static Integer decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(VERSION)) {
+                return Integer.valueOf(value.substring(VERSION.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Base64或数字格式错误，按非法游标处理
+        }
+        throw new BusinessException("非法的分页游标: " + cursor);
+    }
+}
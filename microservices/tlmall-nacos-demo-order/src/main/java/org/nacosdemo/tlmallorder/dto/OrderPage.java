@@ -0,0 +1,39 @@
+package org.nacosdemo.tlmallorder.dto;
+
+import java.util.List;
+
+/**
+ * 订单的一页数据（keyset分页）
+ * <p>
+ * nextCursor为null表示已经是最后一页，否则原样作为下一次请求的cursor参数
+ */
+public class OrderPage<T> {
+
+    private List<T> items;
+
+    private String nextCursor;
+
+    public OrderPage() {
+    }
+
+    public OrderPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
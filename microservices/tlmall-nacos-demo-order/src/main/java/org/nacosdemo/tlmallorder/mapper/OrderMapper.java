@@ -19,9 +19,14 @@ package org.nacosdemo.tlmallorder.mapper;
 import org.apache.ibatis.annotations.*;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 import org.springframework.stereotype.Repository;
 import org.nacosdemo.tlmallorder.entity.Order;
+import org.nacosdemo.tlmallsupport.order.OrderSummary;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -29,10 +34,79 @@ import java.util.List;
 @Repository
 public interface OrderMapper {
 
+	// 完整视图（Order）的列，显式列出而不是select *，表增加列时不会多传
+	String FULL_COLUMNS = "id, user_id, commodity_code, count, money, create_time, update_time";
 
-	@Select("select * from `order` where user_id = #{userId} order by id desc")
+	// 摘要视图（OrderSummary）的列，顺序与OrderSummary的构造方法参数一致
+	String SUMMARY_COLUMNS = "id, commodity_code, count, money";
+
+	@Select("select " + FULL_COLUMNS + " from `order` where user_id = #{userId} order by id desc")
 	List<Order> getOrderByUserId(@Param("userId") String userId);
 
-	@Select("select * from `order` where id = #{id}")
+	/**
+	 * 同getOrderByUserId，只查询摘要视图的列
+	 */
+	@Select("select " + SUMMARY_COLUMNS + " from `order` where user_id = #{userId} order by id desc")
+	@ConstructorArgs({
+			@Arg(column = "id", javaType = Integer.class),
+			@Arg(column = "commodity_code", javaType = String.class),
+			@Arg(column = "count", javaType = Integer.class),
+			@Arg(column = "money", javaType = Integer.class)
+	})
+	List<OrderSummary> getOrderSummariesByUserId(@Param("userId") String userId);
+
+	/**
+	 * keyset（seek）分页：按id倒序取beforeId之前的limit条，beforeId为null时取第一页
+	 * <p>
+	 * 依赖 (user_id, id) 上的索引，每一页都从索引中的上一页末尾直接定位，
+	 * 耗时与翻到第几页无关；OFFSET分页需要先扫描并丢弃前面的所有行
+	 */
+	@Select("<script>select " + FULL_COLUMNS + " from `order` where user_id = #{userId}"
+			+ "<if test='beforeId != null'> and id &lt; #{beforeId}</if>"
+			+ " order by id desc limit #{limit}</script>")
+	List<Order> getOrderPageByUserId(@Param("userId") String userId, @Param("beforeId") Integer beforeId,
+									 @Param("limit") int limit);
+
+	/**
+	 * 同getOrderPageByUserId，只查询摘要视图的列；(user_id, id) 索引不覆盖这几列，仍需回表，省的是传输和对象分配
+	 */
+	@Select("<script>select " + SUMMARY_COLUMNS + " from `order` where user_id = #{userId}"
+			+ "<if test='beforeId != null'> and id &lt; #{beforeId}</if>"
+			+ " order by id desc limit #{limit}</script>")
+	@ConstructorArgs({
+			@Arg(column = "id", javaType = Integer.class),
+			@Arg(column = "commodity_code", javaType = String.class),
+			@Arg(column = "count", javaType = Integer.class),
+			@Arg(column = "money", javaType = Integer.class)
+	})
+	List<OrderSummary> getOrderSummaryPageByUserId(@Param("userId") String userId,
+												   @Param("beforeId") Integer beforeId, @Param("limit") int limit);
+
+	/**
+	 * 按用户和/或创建时间范围 [from, to) 流式读取订单（按id升序），条件为null时不限制，见OrderExporter
+	 * <p>
+	 * fetchSize=Integer.MIN_VALUE 让MySQL驱动逐行读取结果（流式结果集），不会一次把结果集读入内存，
+	 * 只对这条查询生效，其它查询仍使用客户端预处理语句；读完之前这个连接不能执行其它语句，
+	 * 返回的Cursor必须在事务（SqlSession）内读完
+	 */
+	@Select("<script>select " + FULL_COLUMNS + " from `order`"
+			+ "<where>"
+			+ "<if test='userId != null'>user_id = #{userId}</if>"
+			+ "<if test='from != null'> and create_time &gt;= #{from}</if>"
+			+ "<if test='to != null'> and create_time &lt; #{to}</if>"
+			+ "</where>"
+			+ " order by id</script>")
+	@Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+	Cursor<Order> streamOrders(@Param("userId") String userId, @Param("from") LocalDateTime from,
+							   @Param("to") LocalDateTime to);
+
+	@Select("select " + FULL_COLUMNS + " from `order` where id = #{id}")
 	Order getOrderById(@Param("id") Integer id);
+
+	/**
+	 * 按一批id查询订单，不存在的id没有对应的行，返回顺序不确定；ids不能为空
+	 */
+	@Select("<script>select " + FULL_COLUMNS + " from `order` where id in "
+			+ "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+	List<Order> getOrdersByIds(@Param("ids") Collection<Integer> ids);
 }
@@ -17,13 +17,29 @@
 package org.nacosdemo.tlmallorder.service;
 
 
+import org.nacosdemo.tlmallsupport.order.OrderView;
 import org.springcloudmvp.tlmallcommon.Result;
 
+import java.util.List;
+
 
 public interface OrderService {
 
 
-	Result<?> getOrderByUserId(String userId);
+	/**
+	 * 查询用户的所有订单，view为SUMMARY时只返回摘要视图（OrderSummary）
+	 */
+	Result<?> getOrderByUserId(String userId, OrderView view);
 
 	Result<?> getOrderById(Integer id);
+
+	/**
+	 * 按一批id查询订单，按请求中id的顺序返回，不存在的id被忽略
+	 */
+	Result<?> getOrdersByIds(List<Integer> ids);
+
+	/**
+	 * 按id倒序分页查询用户的订单，cursor为上一页返回的nextCursor，第一页传null
+	 */
+	Result<?> getOrderPageByUserId(String userId, String cursor, Integer limit, OrderView view);
 }
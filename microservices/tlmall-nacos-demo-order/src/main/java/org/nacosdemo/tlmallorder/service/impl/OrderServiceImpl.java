@@ -19,32 +19,119 @@ package org.nacosdemo.tlmallorder.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.nacosdemo.tlmallorder.batch.BatchCoalescer;
+import org.nacosdemo.tlmallorder.cache.OrderCache;
+import org.nacosdemo.tlmallorder.dto.OrderCursor;
+import org.nacosdemo.tlmallorder.dto.OrderPage;
 import org.nacosdemo.tlmallorder.entity.Order;
 import org.nacosdemo.tlmallorder.mapper.OrderMapper;
 import org.nacosdemo.tlmallorder.service.OrderService;
+import org.nacosdemo.tlmallsupport.order.OrderSummary;
+import org.nacosdemo.tlmallsupport.order.OrderView;
+import org.springcloudmvp.tlmallcommon.BusinessException;
 import org.springcloudmvp.tlmallcommon.Result;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    // 分页的缺省和最大页大小
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // 一次批量查询最多的id数
+    public static final int MAX_BATCH_IDS = 500;
+
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private OrderCache orderCache;
+
+    @Autowired
+    private BatchCoalescer<Integer, Order> orderByIdCoalescer;
 
     @Override
-    public Result<?> getOrderByUserId(String userId) {
-        List<Order> list = orderMapper.getOrderByUserId(userId);
+    public Result<?> getOrderByUserId(String userId, OrderView view) {
+        if (view == OrderView.SUMMARY) {
+            // 缓存中已有完整的订单时直接取其中几列，不再查库；
+            // 未命中时只查询摘要的列，不为了摘要把完整的行加载进缓存
+            List<Order> cached = orderCache.getIfPresent(userId);
+            return Result.success(cached != null
+                    ? toSummaries(cached)
+                    : orderMapper.getOrderSummariesByUserId(userId));
+        }
+        // 读穿透缓存，未命中时才查库，见OrderCache
+        List<Order> list = orderCache.getOrdersByUserId(userId);
 
         return Result.success(list);
     }
 
     public Result<?> getOrderById(Integer id) {
-
-        Order order = orderMapper.getOrderById(id);
+        // 与同一时间窗口内其它的按id查询合并为一次 id in (...) 查询，见OrderBatchConfig
+        Order order = orderByIdCoalescer.get(id);
         return Result.success(order);
     }
 
+    @Override
+    public Result<?> getOrdersByIds(List<Integer> ids) {
+        Set<Integer> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.isEmpty()) {
+            return Result.success(new ArrayList<Order>());
+        }
+        if (distinctIds.size() > MAX_BATCH_IDS) {
+            throw new BusinessException("一次最多查询" + MAX_BATCH_IDS + "个订单");
+        }
+        Map<Integer, Order> byId = new HashMap<>();
+        for (Order order : orderMapper.getOrdersByIds(distinctIds)) {
+            byId.put(order.getId(), order);
+        }
+        List<Order> orders = new ArrayList<>(byId.size());
+        for (Integer id : distinctIds) {
+            Order order = byId.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return Result.success(orders);
+    }
+
+    @Override
+    public Result<?> getOrderPageByUserId(String userId, String cursor, Integer limit, OrderView view) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Integer beforeId = OrderCursor.decode(cursor);
+        // 多取一条判断是否还有下一页，不需要额外的count查询
+        if (view == OrderView.SUMMARY) {
+            return Result.success(page(orderMapper.getOrderSummaryPageByUserId(userId, beforeId, pageSize + 1),
+                    pageSize, OrderSummary::getId));
+        }
+        return Result.success(page(orderMapper.getOrderPageByUserId(userId, beforeId, pageSize + 1),
+                pageSize, Order::getId));
+    }
+
+    private static <T> OrderPage<T> page(List<T> rows, int pageSize, Function<T, Integer> idOf) {
+        if (rows.size() <= pageSize) {
+            return new OrderPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new OrderPage<>(items, OrderCursor.encode(idOf.apply(items.get(pageSize - 1))));
+    }
+
+    private static List<OrderSummary> toSummaries(List<Order> orders) {
+        List<OrderSummary> summaries = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            summaries.add(new OrderSummary(order.getId(), order.getCommodityCode(), order.getCount(), order.getMoney()));
+        }
+        return summaries;
+    }
+
 }
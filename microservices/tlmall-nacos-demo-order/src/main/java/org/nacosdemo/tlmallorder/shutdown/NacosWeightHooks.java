@@ -0,0 +1,75 @@
+package org.nacosdemo.tlmallorder.shutdown;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmallsupport.shutdown.GracefulDrainCoordinator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 优雅下线的 zero-weight 模式：本模块没有就绪闸门，直接通过 NamingMaintainService.updateInstance 把权重置为0
+ */
+@Component
+@Slf4j
+public class NacosWeightHooks implements GracefulDrainCoordinator.DiscoveryHooks {
+
+    private final ObjectProvider<Registration> registration;
+    private final NacosServiceManager nacosServiceManager;
+    private final NacosDiscoveryProperties discoveryProperties;
+    private final boolean zeroWeightDrain;
+
+    public NacosWeightHooks(ObjectProvider<Registration> registration,
+                            NacosServiceManager nacosServiceManager,
+                            NacosDiscoveryProperties discoveryProperties,
+                            Environment environment) {
+        this.registration = registration;
+        this.nacosServiceManager = nacosServiceManager;
+        this.discoveryProperties = discoveryProperties;
+        this.zeroWeightDrain = environment.getProperty("tlmall.shutdown.drain.enabled", Boolean.class, true)
+                && "zero-weight".equals(environment.getProperty("tlmall.shutdown.drain.mode", "deregister"));
+    }
+
+    @Override
+    public boolean zeroWeight() throws Exception {
+        Registration current = registration.getIfAvailable();
+        if (current == null || current.getPort() <= 0) {
+            return false;
+        }
+        updateWeight(current, 0);
+        return true;
+    }
+
+    /**
+     * updateInstance写入的是服务端的实例元数据，实例注销后仍会保留一段时间；
+     * zero-weight模式下同一IP:端口快速重启时，注册完成后先恢复配置的权重，避免沿用上次下线时的权重0
+     */
+    @EventListener(InstanceRegisteredEvent.class)
+    public void restoreWeight() {
+        Registration current = registration.getIfAvailable();
+        if (zeroWeightDrain && current != null) {
+            try {
+                updateWeight(current, discoveryProperties.getWeight());
+            } catch (Exception e) {
+                log.error("恢复Nacos实例权重失败", e);
+            }
+        }
+    }
+
+    private void updateWeight(Registration current, double weight) throws Exception {
+        Instance instance = new Instance();
+        instance.setIp(current.getHost());
+        instance.setPort(current.getPort());
+        instance.setClusterName(discoveryProperties.getClusterName());
+        instance.setEphemeral(discoveryProperties.isEphemeral());
+        instance.setMetadata(discoveryProperties.getMetadata());
+        instance.setWeight(weight);
+        nacosServiceManager.getNamingMaintainService(discoveryProperties.getNacosProperties())
+                .updateInstance(discoveryProperties.getService(), discoveryProperties.getGroup(), instance);
+    }
+}
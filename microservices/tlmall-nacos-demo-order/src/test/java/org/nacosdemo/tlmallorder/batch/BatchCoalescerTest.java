@@ -0,0 +1,194 @@
+package org.nacosdemo.tlmallorder.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BatchCoalescerTest {
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    // 手动执行的executor：批量查询在runNext()时才执行，用来模拟"有查询正在执行"
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final List<Set<Integer>> batches = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RuntimeException failure;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(mock(ScheduledFuture.class)).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void loneRequestIsDispatchedWithoutWaitingForTheWindow() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(100);
+
+        CompletableFuture<String> future = coalescer.load(1);
+
+        assertThat(tasks).hasSize(1);
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        runNext();
+        assertThat(future).isCompletedWithValue("order-1");
+        assertThat(batches).containsExactly(Set.of(1));
+    }
+
+    @Test
+    void keysArrivingDuringAQueryAreCoalescedAndDeduplicated() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(100);
+        coalescer.load(1);
+
+        CompletableFuture<String> first = coalescer.load(2);
+        coalescer.load(3);
+        CompletableFuture<String> duplicate = coalescer.load(2);
+
+        assertThat(duplicate).isSameAs(first);
+        assertThat(tasks).hasSize(1);
+        // 第一次查询结束后立即提交攒下的key，不必等窗口
+        runNext();
+        runNext();
+        assertThat(batches).containsExactly(Set.of(1), Set.of(2, 3));
+        assertThat(first).isCompletedWithValue("order-2");
+        assertThat(registry.get("tlmall.batch.size").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaiting() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(2);
+        coalescer.load(1);
+
+        coalescer.load(2);
+        assertThat(tasks).hasSize(1);
+        coalescer.load(3);
+
+        assertThat(tasks).hasSize(2);
+        runNext();
+        runNext();
+        assertThat(batches).containsExactly(Set.of(1), Set.of(2, 3));
+    }
+
+    @Test
+    void windowFlushesKeysWhileAQueryIsStillRunning() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(100);
+        coalescer.load(1);
+        CompletableFuture<String> waiting = coalescer.load(2);
+
+        timers().get(0).run();
+
+        assertThat(tasks).hasSize(2);
+        runNext();
+        runNext();
+        assertThat(waiting).isCompletedWithValue("order-2");
+        assertThat(batches).containsExactly(Set.of(1), Set.of(2));
+    }
+
+    @Test
+    void staleTimerDoesNotFlushTheNextBatch() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(2);
+        coalescer.load(1);
+        coalescer.load(2);
+        // 攒满后立即提交，第一个定时器被取消，但它可能已经在执行
+        coalescer.load(3);
+        coalescer.load(4);
+        List<Runnable> timers = timers();
+        assertThat(timers).hasSize(2);
+
+        timers.get(0).run();
+        assertThat(tasks).hasSize(2);
+
+        timers.get(1).run();
+        assertThat(tasks).hasSize(3);
+    }
+
+    @Test
+    void failureIsDeliveredToEveryCallerOfTheBatch() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(100);
+        coalescer.load(1);
+        CompletableFuture<String> a = coalescer.load(2);
+        CompletableFuture<String> b = coalescer.load(3);
+        failure = new IllegalStateException("db down");
+
+        runNext();
+        runNext();
+
+        assertThat(a).isCompletedExceptionally();
+        assertThat(b).isCompletedExceptionally();
+        assertThatThrownBy(a::join).hasCause(failure);
+        assertThatThrownBy(b::join).hasCause(failure);
+    }
+
+    @Test
+    void getRethrowsTheLoaderException() {
+        failure = new IllegalStateException("db down");
+        BatchCoalescer<Integer, String> coalescer = new BatchCoalescer<>(this::load, 100, Duration.ofMillis(2),
+                scheduler, Runnable::run, null, "test");
+
+        assertThatThrownBy(() -> coalescer.get(1)).isSameAs(failure);
+    }
+
+    @Test
+    void missingKeysCompleteWithNull() {
+        BatchCoalescer<Integer, String> coalescer = coalescer(100);
+        coalescer.load(1);
+        CompletableFuture<String> found = coalescer.load(2);
+        CompletableFuture<String> missing = coalescer.load(404);
+
+        runNext();
+        runNext();
+
+        assertThat(found).isCompletedWithValue("order-2");
+        assertThat(missing).isCompletedWithValue(null);
+    }
+
+    private BatchCoalescer<Integer, String> coalescer(int maxBatchSize) {
+        return new BatchCoalescer<>(this::load, maxBatchSize, Duration.ofMillis(2), scheduler, tasks::add,
+                registry, "test");
+    }
+
+    private Map<Integer, String> load(Set<Integer> ids) {
+        batches.add(new LinkedHashSet<>(ids));
+        if (failure != null) {
+            throw failure;
+        }
+        Map<Integer, String> values = new HashMap<>();
+        for (Integer id : ids) {
+            if (id != 404) {
+                values.put(id, "order-" + id);
+            }
+        }
+        return values;
+    }
+
+    private void runNext() {
+        tasks.remove().run();
+    }
+
+    private List<Runnable> timers() {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(captor.capture(), anyLong(), any(TimeUnit.class));
+        return captor.getAllValues();
+    }
+}
@@ -0,0 +1,156 @@
+package org.nacosdemo.tlmallorder.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallorder.entity.Order;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCacheTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void readThroughLoadsOnceAndReturnsUnmodifiableList() {
+        OrderCache cache = cache(userId -> orders(loads.incrementAndGet()));
+
+        List<Order> first = cache.getOrdersByUserId("fox");
+        List<Order> second = cache.getOrdersByUserId("fox");
+
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThatThrownBy(() -> first.add(new Order())).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderCache cache = cache(userId -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return orders(1);
+        });
+
+        List<CompletableFuture<List<Order>>> callers = new ArrayList<>();
+        callers.add(CompletableFuture.supplyAsync(() -> cache.getOrdersByUserId("fox"), executor));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 7; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> cache.getOrdersByUserId("fox"), executor));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (CompletableFuture<List<Order>> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void staleEntryIsServedWhileRefreshingInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderCache cache = cache(userId -> {
+            int load = loads.incrementAndGet();
+            if (load > 1) {
+                await(release);
+            }
+            return orders(load);
+        });
+        assertThat(cache.getOrdersByUserId("fox")).hasSize(1);
+
+        // 超过refresh-after-write、未超过expire-after-write：后台刷新期间返回旧值
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(cache.getOrdersByUserId("fox")).hasSize(1);
+        assertThat(cache.getOrdersByUserId("fox")).hasSize(1);
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getOrdersByUserId("fox").size() != 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cache.getOrdersByUserId("fox")).hasSize(2);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void failedLoadIsNotCachedAndRethrowsMapperException() {
+        OrderCache cache = cache(userId -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("db down");
+            }
+            return orders(1);
+        });
+
+        assertThatThrownBy(() -> cache.getOrdersByUserId("fox"))
+                .isInstanceOf(IllegalStateException.class).hasMessage("db down");
+        assertThat(cache.getOrdersByUserId("fox")).hasSize(1);
+    }
+
+    @Test
+    void getIfPresentDoesNotLoad() {
+        OrderCache cache = cache(userId -> orders(loads.incrementAndGet()));
+
+        assertThat(cache.getIfPresent("fox")).isNull();
+        assertThat(loads).hasValue(0);
+
+        List<Order> loaded = cache.getOrdersByUserId("fox");
+        assertThat(cache.getIfPresent("fox")).isSameAs(loaded);
+    }
+
+    @Test
+    void zeroExpiryBypassesTheCache() {
+        OrderCache cache = new OrderCache(userId -> orders(loads.incrementAndGet()), 100,
+                Duration.ZERO, Duration.ofSeconds(30), executor);
+
+        cache.getOrdersByUserId("fox");
+        cache.getOrdersByUserId("fox");
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.getIfPresent("fox")).isNull();
+        assertThat(loads).hasValue(2);
+    }
+
+    private OrderCache cache(Function<String, List<Order>> loader) {
+        return new OrderCache(loader, 100, Duration.ofSeconds(60), Duration.ofSeconds(30), executor, nanos::get);
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setId(i + 1);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.nacosdemo.tlmallorder.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallorder.export.OrderExporter;
+import org.nacosdemo.tlmallorder.service.OrderService;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderControllerTest {
+
+    private final OrderExporter orderExporter = mock(OrderExporter.class);
+    private final OrderController controller = new OrderController();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "orderService", mock(OrderService.class));
+        ReflectionTestUtils.setField(controller, "orderExporter", orderExporter);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "streamingExportExecutor", new SimpleAsyncTaskExecutor("test-export-"));
+        MockEnvironment environment = new MockEnvironment().withProperty("tlmall.export.timeout", "5s");
+        environment.setConversionService(new ApplicationConversionService());
+        ReflectionTestUtils.setField(controller, "environment", environment);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void exportRunsOnExportExecutorAndReleasesPermit() throws Exception {
+        when(orderExporter.tryAcquire()).thenReturn(true);
+        AtomicReference<String> thread = new AtomicReference<>();
+        // 请求线程确认异步已开始之后才让导出结束
+        CountDownLatch started = new CountDownLatch(1);
+        when(orderExporter.export(eq("fox"), any(), any(), any())).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            started.await(5, TimeUnit.SECONDS);
+            OutputStream out = invocation.getArgument(3);
+            out.write("{\"id\":1}\n".getBytes());
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/order/export").param("userId", "fox"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.countDown();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":1}\n"));
+
+        assertThat(thread.get()).startsWith("test-export-");
+        verify(orderExporter).release();
+    }
+
+    @Test
+    void permitIsReleasedWhenTheExportExecutorRejectsTheExport() throws Exception {
+        when(orderExporter.tryAcquire()).thenReturn(true);
+        // 容器关闭期间，导出执行器已关闭
+        SimpleAsyncTaskExecutor closed = new SimpleAsyncTaskExecutor("test-export-");
+        closed.close();
+        ReflectionTestUtils.setField(controller, "streamingExportExecutor", closed);
+
+        mockMvc.perform(get("/order/export").param("userId", "fox"));
+
+        verify(orderExporter, never()).export(any(), any(), any(), any());
+        verify(orderExporter).release();
+    }
+
+    @Test
+    void invalidTimeoutFailsBeforeTakingAPermit() {
+        MockEnvironment environment = new MockEnvironment().withProperty("tlmall.export.timeout", "ten minutes");
+        environment.setConversionService(new ApplicationConversionService());
+        ReflectionTestUtils.setField(controller, "environment", environment);
+
+        assertThatThrownBy(() -> mockMvc.perform(get("/order/export").param("userId", "fox")))
+                .isInstanceOf(ServletException.class);
+
+        verify(orderExporter, never()).tryAcquire();
+    }
+
+    @Test
+    void exportIsRejectedWhenNoPermitIsLeft() throws Exception {
+        when(orderExporter.tryAcquire()).thenReturn(false);
+
+        MvcResult result = mockMvc.perform(get("/order/export").param("userId", "fox")).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value("导出任务过多，请稍后重试"));
+
+        verify(orderExporter, never()).export(any(), any(), any(), any());
+        verify(orderExporter, never()).release();
+    }
+}
@@ -0,0 +1,39 @@
+package org.nacosdemo.tlmallorder.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springcloudmvp.tlmallcommon.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTest {
+
+    @Test
+    void roundTrip() {
+        String cursor = OrderCursor.encode(12345);
+
+        assertThat(cursor).doesNotContain("12345").doesNotContain("=");
+        assertThat(OrderCursor.decode(cursor)).isEqualTo(12345);
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(OrderCursor.decode(null)).isNull();
+        assertThat(OrderCursor.decode("")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> OrderCursor.decode("not base64!")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> OrderCursor.decode(encodeRaw("v2:10"))).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> OrderCursor.decode(encodeRaw("v1:abc"))).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> OrderCursor.decode(encodeRaw("10"))).isInstanceOf(BusinessException.class);
+    }
+
+    private static String encodeRaw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
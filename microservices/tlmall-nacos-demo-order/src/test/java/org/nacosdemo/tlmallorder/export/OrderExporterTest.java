@@ -0,0 +1,108 @@
+package org.nacosdemo.tlmallorder.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallorder.entity.Order;
+import org.nacosdemo.tlmallorder.mapper.OrderMapper;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderExporterTest {
+
+    private final OrderMapper orderMapper = mock(OrderMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OrderExporter exporter = new OrderExporter(orderMapper, objectMapper,
+            new MockEnvironment().withProperty("tlmall.export.concurrency-limit", "2"));
+
+    @Test
+    void writesOneJsonObjectPerLine() throws Exception {
+        Cursor<Order> cursor = cursorOf(orders(3));
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(orderMapper.streamOrders("fox", from, null)).thenReturn(cursor);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export("fox", from, null, out);
+
+        assertThat(rows).isEqualTo(3);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode node = objectMapper.readTree(lines[i]);
+            assertThat(node.get("id").asInt()).isEqualTo(i + 1);
+            assertThat(node.get("userId").asText()).isEqualTo("fox");
+        }
+        verify(cursor).close();
+    }
+
+    @Test
+    void outputStreamIsNotClosedByTheExporter() throws Exception {
+        Cursor<Order> cursor = cursorOf(orders(1));
+        when(orderMapper.streamOrders(any(), any(), any())).thenReturn(cursor);
+        OutputStream out = mock(OutputStream.class);
+
+        exporter.export("fox", null, null, out);
+
+        verify(out, never()).close();
+    }
+
+    @Test
+    void cursorIsClosedWhenClientGoesAway() throws Exception {
+        Cursor<Order> cursor = cursorOf(orders(2));
+        when(orderMapper.streamOrders(any(), any(), any())).thenReturn(cursor);
+        OutputStream out = mock(OutputStream.class);
+        doThrow(new IOException("Broken pipe")).when(out).write(any(byte[].class), anyInt(), anyInt());
+
+        assertThatThrownBy(() -> exporter.export("fox", null, null, out)).isInstanceOf(IOException.class);
+        verify(cursor).close();
+    }
+
+    @Test
+    void concurrentExportsAreLimited() {
+        assertThat(exporter.tryAcquire()).isTrue();
+        assertThat(exporter.tryAcquire()).isTrue();
+        assertThat(exporter.tryAcquire()).isFalse();
+
+        exporter.release();
+        assertThat(exporter.tryAcquire()).isTrue();
+    }
+
+    private static List<Order> orders(int n) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            Order order = new Order();
+            order.setId(i);
+            order.setUserId("fox");
+            order.setCommodityCode("1");
+            order.setCount(1);
+            order.setMoney(10);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<Order> cursorOf(List<Order> orders) {
+        Cursor<Order> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(orders.iterator());
+        return cursor;
+    }
+}
@@ -0,0 +1,96 @@
+package org.nacosdemo.tlmallorder.mapper;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.order.OrderSummary;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 摘要查询的 @ConstructorArgs 映射：列的顺序和类型必须与OrderSummary的构造方法一致，否则运行时才报错
+ */
+class OrderMapperTest {
+
+    private final Configuration configuration = new Configuration();
+
+    OrderMapperTest() {
+        configuration.addMapper(OrderMapper.class);
+    }
+
+    @Test
+    void constructorArgsFollowSummaryColumns() throws Exception {
+        for (String id : new String[]{"getOrderSummariesByUserId", "getOrderSummaryPageByUserId"}) {
+            List<ResultMapping> args = statement(id).getResultMaps().get(0).getConstructorResultMappings();
+
+            assertThat(args).extracting(ResultMapping::getColumn)
+                    .containsExactly(OrderMapper.SUMMARY_COLUMNS.split(",\\s*"));
+            Class<?>[] types = args.stream().map(ResultMapping::getJavaType).toArray(Class<?>[]::new);
+            assertThat(OrderSummary.class.getConstructor(types)).isNotNull();
+        }
+    }
+
+    @Test
+    void summaryRowIsMappedThroughTheConstructor() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", "fox");
+        params.put("beforeId", null);
+        params.put("limit", 2);
+
+        List<Object> rows = map(statement("getOrderSummaryPageByUserId"), params);
+
+        assertThat(rows).hasSize(1);
+        OrderSummary summary = (OrderSummary) rows.get(0);
+        assertThat(summary.getId()).isEqualTo(7);
+        assertThat(summary.getCommodityCode()).isEqualTo("P-1");
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getMoney()).isEqualTo(200);
+    }
+
+    private MappedStatement statement(String id) {
+        return configuration.getMappedStatement(OrderMapper.class.getName() + "." + id);
+    }
+
+    /**
+     * 用MyBatis的ResultSetHandler把一行模拟的结果集映射成对象，不需要数据库
+     */
+    private List<Object> map(MappedStatement statement, Object params) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(4);
+        String[] columns = OrderMapper.SUMMARY_COLUMNS.split(",\\s*");
+        int[] types = {Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER};
+        for (int i = 0; i < columns.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(columns[i]);
+            when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+            when(metaData.getColumnClassName(i + 1))
+                    .thenReturn(types[i] == Types.VARCHAR ? String.class.getName() : Integer.class.getName());
+        }
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getInt("id")).thenReturn(7);
+        when(resultSet.getString("commodity_code")).thenReturn("P-1");
+        when(resultSet.getInt("count")).thenReturn(2);
+        when(resultSet.getInt("money")).thenReturn(200);
+        Statement jdbcStatement = mock(Statement.class);
+        when(jdbcStatement.getResultSet()).thenReturn(resultSet);
+
+        ResultSetHandler handler = configuration.newResultSetHandler(mock(Executor.class), statement,
+                RowBounds.DEFAULT, null, null, statement.getBoundSql(params));
+        return handler.handleResultSets(jdbcStatement);
+    }
+}
@@ -0,0 +1,132 @@
+package org.nacosdemo.tlmallorder.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallorder.cache.OrderCache;
+import org.nacosdemo.tlmallorder.dto.OrderCursor;
+import org.nacosdemo.tlmallorder.dto.OrderPage;
+import org.nacosdemo.tlmallorder.entity.Order;
+import org.nacosdemo.tlmallorder.mapper.OrderMapper;
+import org.nacosdemo.tlmallsupport.order.OrderSummary;
+import org.nacosdemo.tlmallsupport.order.OrderView;
+import org.springcloudmvp.tlmallcommon.BusinessException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderServiceImplTest {
+
+    private final OrderMapper orderMapper = mock(OrderMapper.class);
+    private final OrderCache orderCache = mock(OrderCache.class);
+    private final OrderServiceImpl orderService = new OrderServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderService, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(orderService, "orderCache", orderCache);
+        when(orderMapper.getOrderPageByUserId(eq("fox"), any(), anyInt())).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    void limitIsClampedAndOneExtraRowIsRequested() {
+        orderService.getOrderPageByUserId("fox", null, null, OrderView.FULL);
+        verify(orderMapper).getOrderPageByUserId("fox", null, OrderServiceImpl.DEFAULT_PAGE_SIZE + 1);
+
+        orderService.getOrderPageByUserId("fox", null, 10_000, OrderView.FULL);
+        verify(orderMapper).getOrderPageByUserId("fox", null, OrderServiceImpl.MAX_PAGE_SIZE + 1);
+
+        orderService.getOrderPageByUserId("fox", null, -5, OrderView.FULL);
+        verify(orderMapper).getOrderPageByUserId("fox", null, 2);
+    }
+
+    @Test
+    void extraRowMeansThereIsANextPage() {
+        when(orderMapper.getOrderPageByUserId("fox", null, 4)).thenReturn(orders(10, 9, 8, 7));
+
+        OrderPage<?> page = page(orderService.getOrderPageByUserId("fox", null, 3, OrderView.FULL).getData());
+
+        assertThat(page.getItems()).extracting("id").containsExactly(10, 9, 8);
+        assertThat(OrderCursor.decode(page.getNextCursor())).isEqualTo(8);
+    }
+
+    @Test
+    void noExtraRowMeansLastPage() {
+        when(orderMapper.getOrderPageByUserId("fox", 8, 4)).thenReturn(orders(7, 6));
+
+        OrderPage<?> page = page(orderService.getOrderPageByUserId("fox", OrderCursor.encode(8), 3, OrderView.FULL)
+                .getData());
+
+        assertThat(page.getItems()).extracting("id").containsExactly(7, 6);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void summaryViewPagesOverSummaries() {
+        List<OrderSummary> rows = new ArrayList<>();
+        rows.add(new OrderSummary(5, "1", 1, 10));
+        rows.add(new OrderSummary(4, "1", 1, 10));
+        when(orderMapper.getOrderSummaryPageByUserId("fox", null, 2)).thenReturn(rows);
+
+        OrderPage<?> page = page(orderService.getOrderPageByUserId("fox", null, 1, OrderView.SUMMARY).getData());
+
+        assertThat(page.getItems()).extracting("id").containsExactly(5);
+        assertThat(OrderCursor.decode(page.getNextCursor())).isEqualTo(5);
+    }
+
+    @Test
+    void summaryOfCachedUserIsTakenFromCache() {
+        when(orderCache.getIfPresent("fox")).thenReturn(orders(3, 2));
+
+        List<?> summaries = (List<?>) orderService.getOrderByUserId("fox", OrderView.SUMMARY).getData();
+
+        assertThat(summaries).extracting("id").containsExactly(3, 2);
+        verifyNoInteractions(orderMapper);
+    }
+
+    @Test
+    void summaryCacheMissQueriesOnlySummaryColumns() {
+        List<OrderSummary> rows = new ArrayList<>();
+        rows.add(new OrderSummary(3, "1", 1, 10));
+        when(orderCache.getIfPresent("fox")).thenReturn(null);
+        when(orderMapper.getOrderSummariesByUserId("fox")).thenReturn(rows);
+
+        Object data = orderService.getOrderByUserId("fox", OrderView.SUMMARY).getData();
+
+        assertThat(data).isSameAs(rows);
+        // 未命中时不为了摘要去加载完整的订单
+        verify(orderCache, never()).getOrdersByUserId(any());
+    }
+
+    @Test
+    void malformedCursorIsRejectedBeforeQuerying() {
+        assertThatThrownBy(() -> orderService.getOrderPageByUserId("fox", "bogus", 3, OrderView.FULL))
+                .isInstanceOf(BusinessException.class);
+        verifyNoInteractions(orderMapper);
+    }
+
+    private static OrderPage<?> page(Object data) {
+        return (OrderPage<?>) data;
+    }
+
+    private static List<Order> orders(int... ids) {
+        List<Order> orders = new ArrayList<>();
+        for (int id : ids) {
+            Order order = new Order();
+            order.setId(id);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -1,8 +1,10 @@
 package org.nacosdemo.tlmalluser;
 
 import com.alibaba.cloud.nacos.loadbalancer.NacosLoadBalancer;
-import org.nacosdemo.tlmalluser.config.loadbalancer.IPHashLoadBalancerConfig;
+import org.nacosdemo.tlmalluser.config.loadbalancer.InstanceListSupplierConfig;
+import org.nacosdemo.tlmalluser.config.loadbalancer.LoadBalancerMetricsConfig;
 import org.nacosdemo.tlmalluser.config.loadbalancer.RandomLoadBalancerConfig;
+import org.nacosdemo.tlmalluser.config.loadbalancer.SwitchableLoadBalancerConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
@@ -29,8 +31,22 @@ import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 // 方法1：指定一个全局统一的策略
 // @LoadBalancerClients(defaultConfiguration = RandomLoadBalancerConfig.class)
 // 方法2：为特定下游指定特定策略
+// 可选的自定义策略：
+// - IPHashLoadBalancerConfig：按客户端IP一致性哈希
+// - LeastRequestLoadBalancerConfig：二选一最少在途请求
+// - PeakEwmaLoadBalancerConfig：按响应时间 Peak EWMA × (在途请求数 + 1) 二选一
+// - WeightedRoundRobinLoadBalancerConfig：按实例元数据 weight 平滑加权轮询
+// - SwitchableLoadBalancerConfig：以上策略及轮询/随机，按 tlmall.lb.<下游服务名>.strategy 选择，可通过Nacos配置中心运行时切换
+// 可叠加的配置：
+// - InstanceListSupplierConfig：订阅Nacos推送的实例列表快照；被动摘除异常实例；同集群/同地域优先，本地容量不足时跨区溢出
+// - SlowStartLoadBalancerConfig：按实例元数据 startup.time 对新启动的实例预热，逐步提升其流量
+//   （加权轮询按权重、随机/二选一/PeakEwma按概率拒绝后重选；轮询、IPHash不支持）
+// 默认配置（对所有下游生效，与方法1同时使用时放在同一个defaultConfiguration中）：
+// - LoadBalancerMetricsConfig：负载均衡决策与各实例下游耗时的Micrometer指标，见 /actuator/metrics
 @LoadBalancerClients(value = {
-    @LoadBalancerClient(name = "tlmall-order", configuration = IPHashLoadBalancerConfig.class)}
+    @LoadBalancerClient(name = "tlmall-order",
+            configuration = {SwitchableLoadBalancerConfig.class, InstanceListSupplierConfig.class})},
+    defaultConfiguration = LoadBalancerMetricsConfig.class
 )
 @SpringBootApplication
 public class TlmallUserApplication {
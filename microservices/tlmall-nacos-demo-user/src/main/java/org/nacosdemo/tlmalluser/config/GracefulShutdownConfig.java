@@ -0,0 +1,49 @@
+package org.nacosdemo.tlmalluser.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmallsupport.shutdown.DrainFilter;
+import org.nacosdemo.tlmallsupport.shutdown.GracefulDrainCoordinator;
+import org.nacosdemo.tlmalluser.listener.handler.NacosManualRegistrater;
+import org.nacosdemo.tlmalluser.listener.handler.NacosReadinessPublisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 优雅下线（tlmall-support 的 GracefulDrainCoordinator、DrainFilter）
+ * <p>
+ * zero-weight 模式通过 NacosReadinessPublisher 把权重置为0（与就绪闸门共用同一份实例元数据）；
+ * 配置了 register-enabled: false 时实例由 NacosManualRegistrater 注册，下线时也由它注销
+ */
+@Configuration
+public class GracefulShutdownConfig {
+
+    @Bean
+    public GracefulDrainCoordinator gracefulDrainCoordinator(ObjectProvider<ServiceRegistry<Registration>> serviceRegistry,
+                                                             ObjectProvider<Registration> registration,
+                                                             NacosManualRegistrater manualRegistrater,
+                                                             NacosReadinessPublisher readinessPublisher,
+                                                             ObjectProvider<MeterRegistry> meterRegistry,
+                                                             Environment environment) {
+        GracefulDrainCoordinator.DiscoveryHooks hooks = new GracefulDrainCoordinator.DiscoveryHooks() {
+            @Override
+            public boolean zeroWeight() {
+                return readinessPublisher.markNotReady();
+            }
+
+            @Override
+            public boolean deregisterUnmanaged() {
+                return manualRegistrater.deregister();
+            }
+        };
+        return new GracefulDrainCoordinator(serviceRegistry, registration, hooks, meterRegistry, environment);
+    }
+
+    @Bean
+    public DrainFilter drainFilter(GracefulDrainCoordinator gracefulDrainCoordinator) {
+        return new DrainFilter(gracefulDrainCoordinator);
+    }
+}
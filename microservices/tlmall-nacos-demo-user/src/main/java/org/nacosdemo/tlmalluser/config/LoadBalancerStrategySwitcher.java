@@ -0,0 +1,61 @@
+package org.nacosdemo.tlmalluser.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmalluser.config.loadbalancer.SwitchableLoadBalancerConfig;
+import org.nacosdemo.tlmalluser.loadbalancer.LoadBalancerStrategy;
+import org.nacosdemo.tlmalluser.loadbalancer.SwitchableLoadBalancer;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 配置 tlmall.lb.&lt;下游服务名&gt;.strategy 或 tlmall.lb.default-strategy 变化时，切换已创建的 SwitchableLoadBalancer 的策略
+ * <p>
+ * Nacos配置中心推送（或 /actuator/refresh）刷新Environment后，Spring Cloud发布EnvironmentChangeEvent，事件中带有变化的配置项。
+ * 该事件只在主容器中发布，LoadBalancerClientFactory的子容器收不到，而且子容器的Environment是创建时从主容器合并的，
+ * 刷新后不会更新，所以这里读取主容器的Environment，再到子容器中找到负载均衡器切换策略：
+ * - 只处理已经创建的子容器；还没创建的子容器在第一次调用时按最新配置初始化
+ * - 配置项被删除时回到 tlmall.lb.default-strategy（缺省为轮询），用于快速回滚
+ * - 名称未知时保持当前策略
+ * <p>
+ * 例如在Nacos中为 tlmall-user.yml 增加 tlmall.lb.tlmall-order.strategy=p2c，tlmall-order的调用随即改为二选一最少在途请求
+ */
+@Slf4j
+@Component
+public class LoadBalancerStrategySwitcher implements ApplicationListener<EnvironmentChangeEvent> {
+
+    private final Environment environment;
+
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+
+    public LoadBalancerStrategySwitcher(Environment environment, LoadBalancerClientFactory loadBalancerClientFactory) {
+        this.environment = environment;
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        boolean defaultChanged = event.getKeys().contains(SwitchableLoadBalancerConfig.DEFAULT_STRATEGY);
+        for (String service : loadBalancerClientFactory.getContextNames()) {
+            if (defaultChanged || event.getKeys().contains(SwitchableLoadBalancerConfig.strategyProperty(service))) {
+                switchStrategy(service);
+            }
+        }
+    }
+
+    private void switchStrategy(String service) {
+        SwitchableLoadBalancer loadBalancer = SwitchableLoadBalancer.unwrap(
+                loadBalancerClientFactory.getInstance(service, ReactorServiceInstanceLoadBalancer.class));
+        if (loadBalancer == null) {
+            log.warn("下游{}没有使用SwitchableLoadBalancerConfig，忽略负载均衡策略的修改", service);
+            return;
+        }
+        String configured = environment.getProperty(SwitchableLoadBalancerConfig.strategyProperty(service),
+                environment.getProperty(SwitchableLoadBalancerConfig.DEFAULT_STRATEGY,
+                        LoadBalancerStrategy.ROUND_ROBIN.getName()));
+        loadBalancer.switchTo(configured);
+    }
+}
@@ -1,6 +1,9 @@
 package org.nacosdemo.tlmalluser.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmalluser.http.PooledHttpClientFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerInterceptor;
@@ -8,10 +11,22 @@ import org.springframework.cloud.client.loadbalancer.LoadBalancerRequestFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestConfig {
+    /**
+     * 按下游创建的HTTP连接池（Apache HttpClient 5），参数见 tlmall.http-client
+     * <p>
+     * 连接池随RestTemplate一起在启动时创建，之后不要再调用setRequestFactory；单次调用需要不同超时时使用CallTimeouts
+     */
+    @Bean
+    public PooledHttpClientFactory pooledHttpClientFactory(Environment environment,
+                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        return new PooledHttpClientFactory(environment, meterRegistry.getIfAvailable());
+    }
+
     /**
      * 默认的RestTemplate
      * <p>
@@ -23,8 +38,9 @@ public class RestConfig {
     @Bean
     @LoadBalanced
     @Primary
-    public RestTemplate defaultRestTemplate() {
-        return new RestTemplate();
+    public RestTemplate defaultRestTemplate(PooledHttpClientFactory pooledHttpClientFactory) {
+        // 目前只调用tlmall-order；调用其它下游时为其单独定义RestTemplate，使用该下游自己的连接池
+        return new RestTemplate(pooledHttpClientFactory.requestFactory(ORDER_SERVICE));
     }
 
     /**
@@ -37,9 +53,10 @@ public class RestConfig {
      */
     @Bean(EARLY_BALANCER_INJECTED)
     public RestTemplate earlyBalanceInjectedTemplate(LoadBalancerClient loadBalancerClient,
-                                                     LoadBalancerRequestFactory requestFactory) {
-        // 实例化RestTemplate
-        RestTemplate restTemplate = new RestTemplate();
+                                                     LoadBalancerRequestFactory requestFactory,
+                                                     PooledHttpClientFactory pooledHttpClientFactory) {
+        // 实例化RestTemplate，与defaultRestTemplate共用tlmall-order的连接池
+        RestTemplate restTemplate = new RestTemplate(pooledHttpClientFactory.requestFactory(ORDER_SERVICE));
         // 添加拦截器
         LoadBalancerInterceptor loadBalancerInterceptor
                 = new LoadBalancerInterceptor(loadBalancerClient, requestFactory);
@@ -48,4 +65,6 @@ public class RestConfig {
     }
 
     public static final String EARLY_BALANCER_INJECTED = "early-balancer-injected";
+
+    public static final String ORDER_SERVICE = "tlmall-order";
 }
@@ -0,0 +1,35 @@
+package org.nacosdemo.tlmalluser.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 调用下游的重试（RetryRegistry），每次尝试在专用的虚拟线程执行器上执行，退避等待期间不占用线程
+ * <p>
+ * 不与@Async共用 applicationTaskExecutor：扇出任务（UserService.getOrderByUserIdAsync）在那里执行并等待本次调用，
+ * 两者共用一个有并发上限的执行器时，名额被等待中的扇出任务占满后，尝试永远拿不到名额。
+ * 这里的执行器每个任务一个虚拟线程、不限并发，提交从不阻塞；对下游的并发由连接池限制，见 UserService.callOrder
+ * <p>
+ * 下游调用的上下文（clientKey等）都由调用方显式传入，不依赖线程上下文，因此不需要TaskDecorator
+ */
+@Configuration
+public class RetryConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService retryAttemptExecutor() {
+        return Executors.newThreadPerTaskExecutor(VirtualThreadConfig.virtualThreadFactory("tlmall-retry-"));
+    }
+
+    @Bean
+    public RetryRegistry retryRegistry(Environment environment, ExecutorService retryAttemptExecutor,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RetryRegistry(environment, retryAttemptExecutor, null, meterRegistry.getIfAvailable());
+    }
+}
@@ -0,0 +1,69 @@
+package org.nacosdemo.tlmalluser.config;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程执行器
+ * <p>
+ * 本服务的工作几乎都是阻塞在下游HTTP调用上，平台线程池（Tomcat默认200个线程）在高并发时先被"等待"耗尽，
+ * 而虚拟线程阻塞时只会卸载（unmount）出载体线程，一个任务一个虚拟线程即可，不需要池化：
+ * - Tomcat请求线程：spring.threads.virtual.enabled=true，UserService中的远程调用在虚拟线程上阻塞
+ * - @Async：使用本类的 applicationTaskExecutor（同时注册为taskExecutor）
+ * - StartupPreloader：每次执行创建一个 {@link #virtualThreadFactory(String)} 的执行器，用完即关闭（tlmall-support 的 JitWarmup 同理，线程名前缀 warmup-）
+ * <p>
+ * 执行器本身不限制并发数：它的任务（@Async的扇出）还会向执行器提交任务（RetryRegistry等），
+ * 阻塞提交者的concurrencyLimit在任务占满上限、又都在等待自己提交的任务时会死锁。
+ * 对下游的并发保护放在调用处，即每个下游的连接池（PooledHttpClientFactory的max-per-route/max-total，
+ * 取连接最多等待connection-request-timeout后失败），见 UserService.callOrder。
+ * 线程名带统一前缀，便于在线程转储和 VirtualThreadPinningMonitor 的钉住（pinning）报告中定位
+ * <p>
+ * 基准测试见 tlmall-benchmarks 的 VirtualThreadExecutorBenchmark
+ */
+@Configuration
+@EnableAsync
+public class VirtualThreadConfig {
+
+    public static final String THREAD_NAME_PREFIX = "tlmall-vt-";
+
+    /**
+     * 替代Spring Boot自动配置的 applicationTaskExecutor，@Async 按名称taskExecutor找到它
+     * <p>
+     * 容器关闭时 close() 最多等待 task-termination-timeout，让进行中的异步任务结束
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public SimpleAsyncTaskExecutor applicationTaskExecutor(Environment environment) {
+        SimpleAsyncTaskExecutor executor = virtualThreadExecutor(
+                environment.getProperty("tlmall.virtual-threads.thread-name-prefix", THREAD_NAME_PREFIX),
+                SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        Duration terminationTimeout = environment.getProperty("tlmall.virtual-threads.task-termination-timeout",
+                Duration.class, Duration.ofSeconds(10));
+        executor.setTaskTerminationTimeout(terminationTimeout.toMillis());
+        return executor;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的执行器；concurrencyLimit为 {@link SimpleAsyncTaskExecutor#UNBOUNDED_CONCURRENCY} 时不限流，
+     * 否则超出的提交者阻塞等待
+     */
+    public static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+
+    /**
+     * 带名称前缀和序号的虚拟线程工厂，配合 Executors.newThreadPerTaskExecutor 使用
+     */
+    public static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+        return Thread.ofVirtual().name(threadNamePrefix, 0).factory();
+    }
+}
@@ -0,0 +1,155 @@
+package org.nacosdemo.tlmalluser.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程钉住（pinning）诊断
+ * <p>
+ * 虚拟线程在 synchronized 块内或本地方法帧上阻塞时无法卸载，会一直占着载体线程（carrier），
+ * 载体线程数默认等于CPU核数，钉住多了吞吐量就退化成一个很小的平台线程池。
+ * 本类在进程内订阅JFR的 jdk.VirtualThreadPinned 事件（阻塞时长超过threshold才会产生）：
+ * - 按阻塞位置（栈上第一个非JDK的帧）归类，每个位置第一次出现时打印WARN和调用栈，之后只计数
+ * - 指标 tlmall.virtual-threads.pinned（Timer，tag site=阻塞位置）
+ * <p>
+ * 也可以用JVM参数 -Djdk.tracePinnedThreads=short 让JDK直接在标准输出打印钉住时的调用栈，但无法按阈值过滤
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+    private final Duration threshold;
+    private final int stackDepth;
+
+    private final Map<String, LongAdder> pinnedSites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("tlmall.virtual-threads.pinning.enabled", Boolean.class, true);
+        this.threshold = environment.getProperty("tlmall.virtual-threads.pinning.threshold",
+                Duration.class, Duration.ofMillis(20));
+        this.stackDepth = environment.getProperty("tlmall.virtual-threads.pinning.stack-depth", Integer.class, 8);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recording.onEvent(PINNED_EVENT, this::onPinned);
+            recording.startAsync();
+            stream = recording;
+            log.info("虚拟线程钉住诊断已开启，阈值{}ms", threshold.toMillis());
+        } catch (RuntimeException e) {
+            // JFR不可用（例如裁剪过的运行时）时不影响启动
+            log.warn("虚拟线程钉住诊断开启失败", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String site = site(frames);
+        Duration duration = event.getDuration();
+
+        LongAdder count = pinnedSites.computeIfAbsent(site, key -> new LongAdder());
+        count.increment();
+        if (count.sum() == 1) {
+            log.warn("虚拟线程被钉住{}ms，线程={}，位置={}，调用栈:\n{}",
+                    duration.toMillis(), threadName(event.getThread()), site, format(frames));
+        } else {
+            log.debug("虚拟线程被钉住{}ms，位置={}，累计{}次", duration.toMillis(), site, count.sum());
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder("tlmall.virtual-threads.pinned")
+                    .description("虚拟线程被钉住（无法卸载）的阻塞时长")
+                    .tag("site", site)
+                    .register(registry)
+                    .record(duration);
+        }
+    }
+
+    /**
+     * 各阻塞位置被钉住的次数
+     */
+    public Map<String, Long> getPinnedSites() {
+        Map<String, Long> snapshot = new HashMap<>();
+        pinnedSites.forEach((site, count) -> snapshot.put(site, count.sum()));
+        return snapshot;
+    }
+
+    private List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? Collections.<RecordedFrame>emptyList() : stackTrace.getFrames();
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return frames.isEmpty() ? "unknown"
+                : frames.get(0).getMethod().getType().getName() + "." + frames.get(0).getMethod().getName();
+    }
+
+    private String format(List<RecordedFrame> frames) {
+        StringBuilder builder = new StringBuilder();
+        int depth = Math.min(stackDepth, frames.size());
+        for (int i = 0; i < depth; i++) {
+            RecordedFrame frame = frames.get(i);
+            builder.append("\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()).append('\n');
+        }
+        if (frames.size() > depth) {
+            builder.append("\t... ").append(frames.size() - depth).append(" more\n");
+        }
+        return builder.toString();
+    }
+
+    private static String threadName(RecordedThread thread) {
+        return thread == null ? "unknown" : thread.getJavaName();
+    }
+}
@@ -0,0 +1,23 @@
+package org.nacosdemo.tlmalluser.config;
+
+import org.nacosdemo.tlmallsupport.warmup.JitWarmup;
+import org.nacosdemo.tlmalluser.readiness.ReadinessGate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 注册到Nacos之前的JIT预热（tlmall-support 的 JitWarmup）
+ * <p>
+ * 预热请求携带就绪闸门的旁路令牌，不会被 ReadinessGateFilter 拒绝。
+ * 注意：tlmall-user 的接口会调用下游 tlmall-order，预热请求同样会打到下游，因此缺省关闭（tlmall.warmup.enabled）
+ */
+@Configuration
+public class WarmupConfig {
+
+    @Bean
+    public JitWarmup jitWarmup(Environment environment, ReadinessGate readinessGate) {
+        return new JitWarmup(environment,
+                builder -> builder.header(ReadinessGate.BYPASS_HEADER, readinessGate.getBypassToken()));
+    }
+}
@@ -0,0 +1,88 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetectionLifecycle;
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetectionProperties;
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetector;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.OutlierEjectionServiceInstanceListSupplier;
+import org.nacosdemo.tlmalluser.loadbalancer.supplier.NacosPushServiceInstanceListSupplier;
+import org.nacosdemo.tlmalluser.loadbalancer.supplier.ZoneAffinityServiceInstanceListSupplier;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplierBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是与负载均衡策略配置一起，通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围，例如
+// @LoadBalancerClient(name = "tlmall-order", configuration = {IPHashLoadBalancerConfig.class, InstanceListSupplierConfig.class})
+//
+// 声明了ServiceInstanceListSupplier Bean后，LoadBalancerClientConfiguration中默认的Supplier不再生效，
+// 这里以DiscoveryClient为基础，优先使用Nacos推送的实例列表快照（否则退回默认的缓存），再按配置叠加自定义的过滤：
+// 异常实例摘除 → 同集群/同地域优先
+public class InstanceListSupplierConfig {
+    // 订阅Nacos实例变化推送，choose()时不再查询DiscoveryClient
+    public static final String NACOS_PUSH_ENABLED = "tlmall.loadbalancer.nacos-push.enabled";
+    // 同集群/同地域优先
+    public static final String ZONE_AFFINITY_ENABLED = "tlmall.loadbalancer.zone-affinity.enabled";
+    // 本地健康实例数占全部健康实例数的最低比例，低于该比例时溢出到其它区
+    public static final String ZONE_AFFINITY_MIN_LOCAL_RATIO = "tlmall.loadbalancer.zone-affinity.min-local-ratio";
+
+    // 被动异常实例检测，每个下游服务（子容器）一个
+    @Bean
+    @ConditionalOnProperty(value = OutlierDetectionProperties.PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+    public OutlierDetector outlierDetector(Environment environment) {
+        OutlierDetectionProperties properties = Binder.get(environment)
+                .bind(OutlierDetectionProperties.PREFIX, OutlierDetectionProperties.class)
+                .orElseGet(OutlierDetectionProperties::new);
+        return new OutlierDetector(properties);
+    }
+
+    // 把每次请求的结果交给OutlierDetector
+    @Bean
+    @ConditionalOnProperty(value = OutlierDetectionProperties.PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+    public OutlierDetectionLifecycle outlierDetectionLifecycle(OutlierDetector outlierDetector) {
+        return new OutlierDetectionLifecycle(outlierDetector);
+    }
+
+    @Bean
+    public ServiceInstanceListSupplier discoveryClientServiceInstanceListSupplier(
+            ConfigurableApplicationContext context,
+            Environment environment,
+            ObjectProvider<NacosDiscoveryProperties> discoveryProperties,
+            ObjectProvider<NacosServiceManager> nacosServiceManager,
+            ObjectProvider<OutlierDetector> outlierDetector) {
+        NacosDiscoveryProperties properties = discoveryProperties.getIfAvailable();
+        NacosServiceManager serviceManager = nacosServiceManager.getIfAvailable();
+
+        ServiceInstanceListSupplierBuilder builder = ServiceInstanceListSupplier.builder()
+                .withBlockingDiscoveryClient();
+        if (environment.getProperty(NACOS_PUSH_ENABLED, Boolean.class, true)
+                && properties != null && serviceManager != null) {
+            String group = properties.getGroup();
+            builder.with((ctx, delegate) -> new NacosPushServiceInstanceListSupplier(delegate, serviceManager, group));
+        } else {
+            builder.withCaching();
+        }
+
+        OutlierDetector detector = outlierDetector.getIfAvailable();
+        if (detector != null) {
+            builder.with((ctx, delegate) -> new OutlierEjectionServiceInstanceListSupplier(delegate, detector));
+        }
+
+        if (environment.getProperty(ZONE_AFFINITY_ENABLED, Boolean.class, true)) {
+            String cluster = properties != null ? properties.getClusterName() : null;
+            String region = properties != null ? properties.getMetadata().get(ZoneAffinityServiceInstanceListSupplier.REGION) : null;
+            double minLocalRatio = environment.getProperty(ZONE_AFFINITY_MIN_LOCAL_RATIO, Double.class, 0.2);
+            builder.with((ctx, delegate) ->
+                    new ZoneAffinityServiceInstanceListSupplier(delegate, cluster, region, minLocalRatio));
+        }
+
+        return builder.build(context);
+    }
+}
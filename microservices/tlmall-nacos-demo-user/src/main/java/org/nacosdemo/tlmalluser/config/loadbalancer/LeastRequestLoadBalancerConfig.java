@@ -0,0 +1,37 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestLifecycle;
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestTracker;
+import org.nacosdemo.tlmalluser.loadbalancer.LeastRequestLoadBalancer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围
+// 每个下游服务都有自己的子容器，因此在途请求计数也是按下游服务隔离的
+public class LeastRequestLoadBalancerConfig {
+    @Bean
+    public InFlightRequestTracker inFlightRequestTracker() {
+        return new InFlightRequestTracker();
+    }
+
+    @Bean
+    public InFlightRequestLifecycle inFlightRequestLifecycle(InFlightRequestTracker inFlightRequestTracker) {
+        return new InFlightRequestLifecycle(inFlightRequestTracker);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+            InFlightRequestTracker inFlightRequestTracker) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LeastRequestLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name,
+                inFlightRequestTracker);
+    }
+}
@@ -0,0 +1,65 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmalluser.loadbalancer.InstrumentedLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.LoadBalancerMetrics;
+import org.nacosdemo.tlmalluser.loadbalancer.LoadBalancerMetricsLifecycle;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是作为所有下游的默认配置注册，例如
+// @LoadBalancerClients(value = {...}, defaultConfiguration = LoadBalancerMetricsConfig.class)
+//
+// 与SlowStartLoadBalancerConfig一样用BeanPostProcessor包装子容器中已配置的策略，
+// 因此任何策略（包括Spring自带的RoundRobin/Random）都会被统计；排在最后执行，位于最外层，统计的是最终的选择结果
+public class LoadBalancerMetricsConfig {
+
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    public LoadBalancerMetrics loadBalancerMetrics(Environment environment, MeterRegistry meterRegistry) {
+        return new LoadBalancerMetrics(meterRegistry, environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME));
+    }
+
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    public LoadBalancerMetricsLifecycle loadBalancerMetricsLifecycle(LoadBalancerMetrics loadBalancerMetrics) {
+        return new LoadBalancerMetricsLifecycle(loadBalancerMetrics);
+    }
+
+    @Bean
+    public static BeanPostProcessor instrumentedLoadBalancerPostProcessor(ObjectProvider<LoadBalancerMetrics> metrics) {
+        return new InstrumentingPostProcessor(metrics);
+    }
+
+    private static final class InstrumentingPostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<LoadBalancerMetrics> metrics;
+
+        private InstrumentingPostProcessor(ObjectProvider<LoadBalancerMetrics> metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof ReactorServiceInstanceLoadBalancer && !(bean instanceof InstrumentedLoadBalancer)) {
+                LoadBalancerMetrics loadBalancerMetrics = metrics.getIfAvailable();
+                if (loadBalancerMetrics != null) {
+                    return new InstrumentedLoadBalancer((ReactorServiceInstanceLoadBalancer) bean, loadBalancerMetrics);
+                }
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
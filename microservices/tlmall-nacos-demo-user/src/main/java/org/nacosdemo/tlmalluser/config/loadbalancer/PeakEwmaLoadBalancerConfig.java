@@ -0,0 +1,56 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestLifecycle;
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestTracker;
+import org.nacosdemo.tlmalluser.loadbalancer.PeakEwmaLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.ResponseTimeLifecycle;
+import org.nacosdemo.tlmalluser.loadbalancer.ResponseTimeTracker;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围，例如
+// @LoadBalancerClient(name = "tlmall-order", configuration = PeakEwmaLoadBalancerConfig.class)
+public class PeakEwmaLoadBalancerConfig {
+    // EWMA 的衰减时间常数，同时也是空闲实例向均值衰减的时间常数
+    public static final String DECAY_TIME = "tlmall.loadbalancer.peak-ewma.decay-time";
+
+    @Bean
+    public InFlightRequestTracker inFlightRequestTracker() {
+        return new InFlightRequestTracker();
+    }
+
+    @Bean
+    public InFlightRequestLifecycle inFlightRequestLifecycle(InFlightRequestTracker inFlightRequestTracker) {
+        return new InFlightRequestLifecycle(inFlightRequestTracker);
+    }
+
+    @Bean
+    public ResponseTimeTracker responseTimeTracker(Environment environment) {
+        Duration decayTime = environment.getProperty(
+                DECAY_TIME, Duration.class, ResponseTimeTracker.DEFAULT_DECAY_TIME);
+        return new ResponseTimeTracker(decayTime);
+    }
+
+    @Bean
+    public ResponseTimeLifecycle responseTimeLifecycle(ResponseTimeTracker responseTimeTracker) {
+        return new ResponseTimeLifecycle(responseTimeTracker);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+            InFlightRequestTracker inFlightRequestTracker, ResponseTimeTracker responseTimeTracker) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name,
+                inFlightRequestTracker, responseTimeTracker);
+    }
+}
@@ -0,0 +1,78 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmalluser.loadbalancer.SlowStart;
+import org.nacosdemo.tlmalluser.loadbalancer.SlowStartLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.SmoothWeightedRoundRobinLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.SwitchableLoadBalancer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是与负载均衡策略配置一起，通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围，例如
+// @LoadBalancerClient(name = "tlmall-order", configuration = {LeastRequestLoadBalancerConfig.class, SlowStartLoadBalancerConfig.class})
+//
+// 预热按策略分两种方式生效：
+// - 加权轮询（WeightedRoundRobinLoadBalancerConfig，或SwitchableLoadBalancerConfig切换到wrr）读取这里声明的SlowStart Bean，
+//   把预热factor乘到调度表的权重上
+// - 随机、二选一、PeakEwma以及SwitchableLoadBalancer：用BeanPostProcessor把已配置的策略包装成SlowStartLoadBalancer，
+//   按factor的概率拒绝预热中的实例后重新选择
+// 轮询、IPHash不支持预热，叠加本配置时只打印警告
+public class SlowStartLoadBalancerConfig {
+    // 预热窗口，startup.time 之后这段时间内逐步提升权重
+    public static final String WINDOW = "tlmall.loadbalancer.slow-start.window";
+    // 爬升曲线：1为线性，大于1时前期爬升更快
+    public static final String AGGRESSION = "tlmall.loadbalancer.slow-start.aggression";
+    // 预热开始时的最低权重百分比
+    public static final String MIN_WEIGHT_PERCENT = "tlmall.loadbalancer.slow-start.min-weight-percent";
+
+    @Bean
+    public SlowStart slowStart(Environment environment) {
+        return new SlowStart(
+                environment.getProperty(WINDOW, Duration.class, SlowStart.DEFAULT_WINDOW),
+                environment.getProperty(AGGRESSION, Double.class, SlowStart.DEFAULT_AGGRESSION),
+                environment.getProperty(MIN_WEIGHT_PERCENT, Double.class, SlowStart.DEFAULT_MIN_WEIGHT_PERCENT));
+    }
+
+    @Bean
+    public static BeanPostProcessor slowStartLoadBalancerPostProcessor(ObjectProvider<SlowStart> slowStart) {
+        return new SlowStartPostProcessor(slowStart);
+    }
+
+    @Slf4j
+    private static final class SlowStartPostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<SlowStart> slowStart;
+
+        private SlowStartPostProcessor(ObjectProvider<SlowStart> slowStart) {
+            this.slowStart = slowStart;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof ReactorServiceInstanceLoadBalancer) || bean instanceof SlowStartLoadBalancer) {
+                return bean;
+            }
+            ReactorServiceInstanceLoadBalancer loadBalancer = (ReactorServiceInstanceLoadBalancer) bean;
+            if (loadBalancer instanceof SwitchableLoadBalancer || SlowStartLoadBalancer.supportsRetry(loadBalancer)) {
+                return new SlowStartLoadBalancer(loadBalancer, slowStart.getObject());
+            }
+            if (!(loadBalancer instanceof SmoothWeightedRoundRobinLoadBalancer)) {
+                log.warn("负载均衡策略{}不支持预热，忽略SlowStartLoadBalancerConfig", loadBalancer.getClass().getSimpleName());
+            }
+            return bean;
+        }
+
+        // 先于LoadBalancerMetricsConfig执行，预热装饰器位于指标装饰器之内
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+}
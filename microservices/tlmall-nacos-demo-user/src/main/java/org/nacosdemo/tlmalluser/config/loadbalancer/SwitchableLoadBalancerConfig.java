@@ -0,0 +1,119 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.ConsistentHashRing;
+import org.nacosdemo.tlmallsupport.loadbalancer.IPHashLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestLifecycle;
+import org.nacosdemo.tlmalluser.loadbalancer.InFlightRequestTracker;
+import org.nacosdemo.tlmalluser.loadbalancer.LeastRequestLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.LoadBalancerStrategy;
+import org.nacosdemo.tlmalluser.loadbalancer.PeakEwmaLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.ResponseTimeLifecycle;
+import org.nacosdemo.tlmalluser.loadbalancer.ResponseTimeTracker;
+import org.nacosdemo.tlmalluser.loadbalancer.SlowStart;
+import org.nacosdemo.tlmalluser.loadbalancer.SmoothWeightedRoundRobinLoadBalancer;
+import org.nacosdemo.tlmalluser.loadbalancer.SwitchableLoadBalancer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围，例如
+// @LoadBalancerClient(name = "tlmall-order", configuration = SwitchableLoadBalancerConfig.class)
+//
+// 替代IPHash/LeastRequest/PeakEwma/WeightedRoundRobin等策略配置，不能与它们同时使用；
+// 可以继续叠加InstanceListSupplierConfig、SlowStartLoadBalancerConfig
+//
+// 策略由 tlmall.lb.<下游服务名>.strategy 指定（可选值见LoadBalancerStrategy），未配置时使用 tlmall.lb.default-strategy；
+// 放在Nacos配置中心时修改后即时生效，见LoadBalancerStrategySwitcher
+public class SwitchableLoadBalancerConfig {
+    public static final String PROPERTY_PREFIX = "tlmall.lb";
+
+    public static final String DEFAULT_STRATEGY = PROPERTY_PREFIX + ".default-strategy";
+
+    /**
+     * 下游的策略配置项：tlmall.lb.&lt;service&gt;.strategy
+     */
+    public static String strategyProperty(String service) {
+        return PROPERTY_PREFIX + "." + service + ".strategy";
+    }
+
+    /**
+     * 下游当前配置的策略：先取下游自己的配置，再取缺省配置，都没有或名称未知时为轮询
+     */
+    public static LoadBalancerStrategy configuredStrategy(Environment environment, String service) {
+        String value = environment.getProperty(strategyProperty(service),
+                environment.getProperty(DEFAULT_STRATEGY, LoadBalancerStrategy.ROUND_ROBIN.getName()));
+        LoadBalancerStrategy strategy = LoadBalancerStrategy.from(value);
+        return strategy != null ? strategy : LoadBalancerStrategy.ROUND_ROBIN;
+    }
+
+    // 在途请求数和响应时间始终统计，切换到 p2c / peak-ewma 时不需要重新积累数据
+    @Bean
+    public InFlightRequestTracker inFlightRequestTracker() {
+        return new InFlightRequestTracker();
+    }
+
+    @Bean
+    public InFlightRequestLifecycle inFlightRequestLifecycle(InFlightRequestTracker inFlightRequestTracker) {
+        return new InFlightRequestLifecycle(inFlightRequestTracker);
+    }
+
+    @Bean
+    public ResponseTimeTracker responseTimeTracker(Environment environment) {
+        Duration decayTime = environment.getProperty(
+                PeakEwmaLoadBalancerConfig.DECAY_TIME, Duration.class, ResponseTimeTracker.DEFAULT_DECAY_TIME);
+        return new ResponseTimeTracker(decayTime);
+    }
+
+    @Bean
+    public ResponseTimeLifecycle responseTimeLifecycle(ResponseTimeTracker responseTimeTracker) {
+        return new ResponseTimeLifecycle(responseTimeTracker);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+            InFlightRequestTracker inFlightRequestTracker, ResponseTimeTracker responseTimeTracker,
+            ObjectProvider<SlowStart> slowStart) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        ObjectProvider<ServiceInstanceListSupplier> supplier =
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class);
+        int virtualNodes = environment.getProperty(
+                IPHashLoadBalancerConfig.VIRTUAL_NODES, Integer.class, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        return new SwitchableLoadBalancer(name, configuredStrategy(environment, name),
+                strategy -> create(strategy, supplier, name, virtualNodes, inFlightRequestTracker, responseTimeTracker,
+                        slowStart.getIfAvailable()));
+    }
+
+    private static ReactorServiceInstanceLoadBalancer create(
+            LoadBalancerStrategy strategy, ObjectProvider<ServiceInstanceListSupplier> supplier, String name,
+            int virtualNodes, InFlightRequestTracker inFlightRequestTracker, ResponseTimeTracker responseTimeTracker,
+            SlowStart slowStart) {
+        switch (strategy) {
+            case RANDOM:
+                return new RandomLoadBalancer(supplier, name);
+            case IP_HASH:
+                return new IPHashLoadBalancer(supplier, name, virtualNodes);
+            case LEAST_REQUEST:
+                return new LeastRequestLoadBalancer(supplier, name, inFlightRequestTracker);
+            case PEAK_EWMA:
+                return new PeakEwmaLoadBalancer(supplier, name, inFlightRequestTracker, responseTimeTracker);
+            case WEIGHTED_ROUND_ROBIN:
+                // 叠加SlowStartLoadBalancerConfig时预热体现在权重上，SlowStartLoadBalancer对它不做重新选择
+                return new SmoothWeightedRoundRobinLoadBalancer(supplier, name, slowStart);
+            case ROUND_ROBIN:
+            default:
+                return new RoundRobinLoadBalancer(supplier, name);
+        }
+    }
+}
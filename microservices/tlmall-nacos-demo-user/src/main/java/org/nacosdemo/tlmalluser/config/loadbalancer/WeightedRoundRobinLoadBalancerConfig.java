@@ -0,0 +1,28 @@
+package org.nacosdemo.tlmalluser.config.loadbalancer;
+
+import org.nacosdemo.tlmalluser.loadbalancer.SlowStart;
+import org.nacosdemo.tlmalluser.loadbalancer.SmoothWeightedRoundRobinLoadBalancer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+// 注意：
+// 不添加@Configuration注解以防止被自动扫到
+// 而是通过服务启动类上的@LoadBalancerClients注解来指定Bean生效范围
+//
+// 叠加SlowStartLoadBalancerConfig时，新启动实例的预热factor乘到调度表的权重上
+public class WeightedRoundRobinLoadBalancerConfig {
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+            ObjectProvider<SlowStart> slowStart) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new SmoothWeightedRoundRobinLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name,
+                slowStart.getIfAvailable());
+    }
+}
@@ -2,6 +2,7 @@ package org.nacosdemo.tlmalluser.controller;
 
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
 import org.nacosdemo.tlmalluser.config.RestConfig;
 import org.nacosdemo.tlmalluser.config.loadbalancer.RandomLoadBalancerConfig;
 import org.nacosdemo.tlmalluser.service.UserService;
@@ -11,13 +12,22 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.core.env.Environment;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
 import org.springcloudmvp.tlmallcommon.Result;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/user")
 @Slf4j
@@ -26,9 +36,40 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private Environment environment;
+
     @RequestMapping(value = "/getOrder")
-    public Result<?> getOrderByUserId(@RequestParam("userId") String userId) {
+    public Result<?> getOrderByUserId(
+            @RequestParam("userId") String userId,
+            @RequestAttribute(name = ClientKeys.ATTRIBUTE, required = false) String clientKey) {
         log.info("根据userId:"+userId+"查询订单信息");
-        return userService.getOrderByUserId(userId);
+        // clientKey由ClientKeyFilter在入口解析好，显式传给下游调用，用于IPHashLoadBalancer
+        return userService.getOrderByUserId(userId, clientKey);
+    }
+
+    /**
+     * 并发查询多个用户的订单：每个userId一个@Async虚拟线程调用下游，总耗时约等于最慢的一次调用
+     * <p>
+     * 一个请求放大成的下游调用数不超过 tlmall.user.get-orders.max-user-ids（去重后），超出时直接拒绝，不调用下游
+     */
+    @RequestMapping(value = "/getOrders")
+    public Result<?> getOrdersByUserIds(
+            @RequestParam("userId") List<String> userIds,
+            @RequestAttribute(name = ClientKeys.ATTRIBUTE, required = false) String clientKey) {
+        Set<String> distinct = new LinkedHashSet<>(userIds);
+        int maxUserIds = environment.getProperty("tlmall.user.get-orders.max-user-ids", Integer.class, 50);
+        if (distinct.size() > maxUserIds) {
+            log.warn("批量查询订单的用户数{}超过上限{}，拒绝请求", distinct.size(), maxUserIds);
+            return Result.failed("一次最多查询" + maxUserIds + "个用户的订单");
+        }
+        log.info("并发查询{}个用户的订单信息", distinct.size());
+        Map<String, CompletableFuture<Result<?>>> futures = new LinkedHashMap<>();
+        for (String userId : distinct) {
+            futures.put(userId, userService.getOrderByUserIdAsync(userId, clientKey));
+        }
+        Map<String, Result<?>> orders = new LinkedHashMap<>();
+        futures.forEach((userId, future) -> orders.put(userId, future.join()));
+        return Result.success(orders);
     }
-}
\ No newline at end of file
+}
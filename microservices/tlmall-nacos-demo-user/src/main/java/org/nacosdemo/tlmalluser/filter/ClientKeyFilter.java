@@ -0,0 +1,34 @@
+package org.nacosdemo.tlmalluser.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 在请求入口解析一次客户端Key（用于IPHashLoadBalancer），放入请求属性
+ * <p>
+ * 之后由Controller通过 @RequestAttribute 取出并显式传给下游调用，
+ * 不需要在每次负载均衡时再通过 RequestContextHolder 读取请求头
+ */
+@Component
+public class ClientKeyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // 方法1：从HTTP Header “X-CLIENT-IP”提取IP，方便演示
+        String clientKey = request.getHeader(ClientKeys.HEADER);
+        // 方法2：使用客户端IP，实际应用还需要考虑网关转发等情况，从请求头中找到转发前的原始IP
+        // String clientKey = request.getRemoteAddr();
+        if (clientKey != null && !clientKey.isEmpty()) {
+            request.setAttribute(ClientKeys.ATTRIBUTE, clientKey);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,70 @@
+package org.nacosdemo.tlmalluser.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.nacosdemo.tlmalluser.readiness.ReadinessGate;
+import org.springcloudmvp.tlmallcommon.Result;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 就绪闸门关闭期间（启动数据加载中）直接拒绝业务请求
+ * <p>
+ * 返回 503 + Retry-After，上游的重试/负载均衡可以立即换一个实例；响应体在启动时序列化好，
+ * 拒绝请求时不做任何序列化，也不进入DispatcherServlet
+ * <p>
+ * /actuator 下的请求（健康检查、就绪探针）以及携带旁路令牌的进程内请求（JIT预热）始终放行
+ */
+@Component
+public class ReadinessGateFilter extends OncePerRequestFilter implements Ordered {
+
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    private final ReadinessGate readinessGate;
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final byte[] body;
+
+    public ReadinessGateFilter(ReadinessGate readinessGate, ObjectMapper objectMapper,
+                               Environment environment) throws JsonProcessingException {
+        this.readinessGate = readinessGate;
+        this.enabled = environment.getProperty("tlmall.readiness-gate.enabled", Boolean.class, true);
+        Duration retryAfter = environment.getProperty("tlmall.readiness-gate.retry-after",
+                Duration.class, Duration.ofSeconds(5));
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.getSeconds()));
+        this.body = objectMapper.writeValueAsBytes(Result.failed("服务启动中，请稍后重试"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled || readinessGate.isAcceptingTraffic() || request.getRequestURI().startsWith(ACTUATOR_PATH)
+                || readinessGate.isBypass(request.getHeader(ReadinessGate.BYPASS_HEADER))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    @Override
+    public int getOrder() {
+        // 在DrainFilter（HIGHEST_PRECEDENCE）之后，被拒绝的请求也计入处理中/下线期间拒绝数；
+        // 在其它过滤器（如ClientKeyFilter）之前拒绝请求
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,87 @@
+package org.nacosdemo.tlmalluser.http;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * 单次调用的超时覆盖（不可变）
+ * <p>
+ * 共享的RestTemplate及其连接池不能在运行时修改（setRequestFactory会影响所有并发的调用方），
+ * 需要更长或更短超时的调用在当前线程上声明覆盖值，只对 {@link #call(Callable)} 内发起的请求生效：
+ * <pre>
+ * Result&lt;?&gt; result = CallTimeouts.responseTimeout(Duration.ofSeconds(8))
+ *         .call(() -&gt; restTemplate.getForObject(url, Result.class));
+ * </pre>
+ * 覆盖值保存在ThreadLocal中，由 {@link PooledHttpClientFactory} 创建请求时读取，
+ * 因此必须在发起请求的线程上调用（配合RetryExecutor时放在每次尝试的Callable里面）
+ */
+public final class CallTimeouts {
+
+    private static final ThreadLocal<CallTimeouts> CURRENT = new ThreadLocal<>();
+
+    private final Duration responseTimeout;
+    private final Duration connectionRequestTimeout;
+
+    private CallTimeouts(Duration responseTimeout, Duration connectionRequestTimeout) {
+        this.responseTimeout = responseTimeout;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public static CallTimeouts responseTimeout(Duration responseTimeout) {
+        return new CallTimeouts(requirePositive(responseTimeout, "responseTimeout"), null);
+    }
+
+    public static CallTimeouts connectionRequestTimeout(Duration connectionRequestTimeout) {
+        return new CallTimeouts(null, requirePositive(connectionRequestTimeout, "connectionRequestTimeout"));
+    }
+
+    public CallTimeouts withResponseTimeout(Duration responseTimeout) {
+        return new CallTimeouts(requirePositive(responseTimeout, "responseTimeout"), connectionRequestTimeout);
+    }
+
+    public CallTimeouts withConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        return new CallTimeouts(responseTimeout, requirePositive(connectionRequestTimeout, "connectionRequestTimeout"));
+    }
+
+    /**
+     * 在覆盖的超时下执行调用，结束后恢复外层的覆盖值
+     */
+    public <T> T call(Callable<T> call) throws Exception {
+        CallTimeouts previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 等待响应的超时，为null时使用连接池的配置
+     */
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    /**
+     * 从连接池获取连接的超时，为null时使用连接池的配置
+     */
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    static CallTimeouts current() {
+        return CURRENT.get();
+    }
+
+    private static Duration requirePositive(Duration timeout, String name) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(name + " must be positive: " + timeout);
+        }
+        return timeout;
+    }
+}
@@ -0,0 +1,112 @@
+package org.nacosdemo.tlmalluser.http;
+
+import java.time.Duration;
+
+/**
+ * 某个下游的HTTP连接池参数
+ * <p>
+ * 对应配置 tlmall.http-client.default（所有下游的缺省值），以及 tlmall.http-client.services.&lt;下游服务名&gt;（覆盖缺省值）
+ */
+public class HttpClientPoolProperties {
+
+    public static final String PREFIX = "tlmall.http-client";
+
+    // 连接池总连接数上限
+    private int maxTotal = 200;
+
+    // 每个路由（即下游的一个实例 host:port）的连接数上限
+    private int maxPerRoute = 50;
+
+    // 建立TCP连接的超时时间
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    // 等待响应的超时时间（两个数据包之间的最大间隔），可以按调用覆盖，见 CallTimeouts
+    private Duration responseTimeout = Duration.ofSeconds(5);
+
+    // 从连接池获取连接的超时时间，连接池耗尽时快速失败，可以按调用覆盖
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    // 连接的最长存活时间，超过后不再复用，让连接能够定期重新分布到新扩容的实例上
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    // 下游响应没有Keep-Alive头时，连接保持可复用的时间
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    // 空闲超过该时间的连接由后台线程关闭，应小于下游Tomcat的keepAliveTimeout（缺省60s）
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    // 连接空闲超过该时间后，复用前先检查是否已被对端关闭
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    public void setResponseTimeout(Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(Duration keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+}
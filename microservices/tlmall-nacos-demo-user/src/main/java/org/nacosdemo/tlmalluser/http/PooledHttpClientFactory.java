@@ -0,0 +1,156 @@
+package org.nacosdemo.tlmalluser.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按下游创建带连接池的 ClientHttpRequestFactory（Apache HttpClient 5）
+ * <p>
+ * SimpleClientHttpRequestFactory 依赖 HttpURLConnection 的全局keep-alive缓存（每个目标默认只缓存5个连接），
+ * 并发稍高就要重新建连，user → order 这种短调用的大部分耗时都花在TCP建连上。这里为每个下游创建一次独立的连接池：
+ * - 每个路由（下游的一个实例）最多maxPerRoute个连接，总数不超过maxTotal
+ * - LIFO复用：优先复用最近用过的热连接，多余的连接空闲后被后台线程关闭
+ * - 连接存活时间（timeToLive）到期后不再复用，扩容后连接能重新分布到新实例
+ * - 关闭HttpClient自带的重试，重试统一由RetryRegistry负责
+ * - 连接池指标：httpcomponents.httpclient.pool.*（tag httpclient=下游服务名）
+ * <p>
+ * 同一个下游只创建一次，之后不能修改；单次调用需要不同的超时时用 {@link CallTimeouts} 覆盖
+ */
+@Slf4j
+public class PooledHttpClientFactory implements AutoCloseable {
+
+    private final Binder binder;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ClientHttpRequestFactory> factories = new ConcurrentHashMap<>();
+    private final List<CloseableHttpClient> clients = new ArrayList<>();
+
+    public PooledHttpClientFactory(Environment environment, MeterRegistry meterRegistry) {
+        this.binder = Binder.get(environment);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 下游对应的请求工厂，第一次调用时按配置创建连接池
+     */
+    public ClientHttpRequestFactory requestFactory(String service) {
+        return factories.computeIfAbsent(service, this::create);
+    }
+
+    /**
+     * 下游的连接池配置：tlmall.http-client.default，再叠加 tlmall.http-client.services.&lt;service&gt;
+     */
+    public HttpClientPoolProperties properties(String service) {
+        HttpClientPoolProperties properties = new HttpClientPoolProperties();
+        binder.bind(HttpClientPoolProperties.PREFIX + ".default", Bindable.ofInstance(properties));
+        binder.bind(HttpClientPoolProperties.PREFIX + ".services." + service, Bindable.ofInstance(properties));
+        return properties;
+    }
+
+    private ClientHttpRequestFactory create(String service) {
+        HttpClientPoolProperties properties = properties(service);
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(properties.getConnectTimeout()))
+                        .setSocketTimeout(timeout(properties.getResponseTimeout()))
+                        .setTimeToLive(timeValue(properties.getTimeToLive()))
+                        .setValidateAfterInactivity(timeValue(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+        RequestConfig defaultRequestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(timeout(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(timeout(properties.getResponseTimeout()))
+                // 下游响应没有Keep-Alive头时使用该值
+                .setConnectionKeepAlive(timeValue(properties.getKeepAlive()))
+                .build();
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(timeValue(properties.getIdleTimeout()))
+                .disableAutomaticRetries()
+                .build();
+        synchronized (clients) {
+            clients.add(client);
+        }
+        if (meterRegistry != null) {
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, service).bindTo(meterRegistry);
+        }
+
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(client);
+        factory.setHttpContextFactory((method, uri) -> callContext(defaultRequestConfig));
+        log.info("下游{}的HTTP连接池已创建: maxTotal={}, maxPerRoute={}, connectTimeout={}ms, responseTimeout={}ms, ttl={}s",
+                service, properties.getMaxTotal(), properties.getMaxPerRoute(),
+                properties.getConnectTimeout().toMillis(), properties.getResponseTimeout().toMillis(),
+                properties.getTimeToLive().getSeconds());
+        return factory;
+    }
+
+    /**
+     * 有 {@link CallTimeouts} 覆盖时，为这次请求创建单独的RequestConfig；否则返回null，使用HttpClient的缺省配置
+     */
+    private static HttpContext callContext(RequestConfig defaultRequestConfig) {
+        CallTimeouts timeouts = CallTimeouts.current();
+        if (timeouts == null) {
+            return null;
+        }
+        RequestConfig.Builder config = RequestConfig.copy(defaultRequestConfig);
+        if (timeouts.getResponseTimeout() != null) {
+            config.setResponseTimeout(timeout(timeouts.getResponseTimeout()));
+        }
+        if (timeouts.getConnectionRequestTimeout() != null) {
+            config.setConnectionRequestTimeout(timeout(timeouts.getConnectionRequestTimeout()));
+        }
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(config.build());
+        return context;
+    }
+
+    @Override
+    public void close() {
+        synchronized (clients) {
+            for (CloseableHttpClient client : clients) {
+                client.close(CloseMode.GRACEFUL);
+            }
+            clients.clear();
+        }
+        factories.clear();
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue timeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
+}
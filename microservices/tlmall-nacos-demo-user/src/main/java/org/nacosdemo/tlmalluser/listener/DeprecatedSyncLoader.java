@@ -1,14 +1,16 @@
 package org.nacosdemo.tlmalluser.listener;
 
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
 import org.nacosdemo.tlmalluser.listener.handler.NacosManualRegistrater;
+import org.nacosdemo.tlmalluser.http.CallTimeouts;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import lombok.extern.slf4j.Slf4j;
 import org.springcloudmvp.tlmallcommon.Result;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * 实验2.2 微服务启动阶段访问下游（方法3）
  * (1) 开启下面的配置和
@@ -34,18 +36,21 @@ import org.springframework.web.client.RestTemplate;
 public class DeprecatedSyncLoader {
     private final RestTemplate restTemplate;
     private final NacosManualRegistrater nacosManualRegistrater;
+    private final RetryRegistry retryRegistry;
 
     public DeprecatedSyncLoader(
             RestTemplate restTemplate,
-            NacosManualRegistrater nacosManualRegistrater) {
+            NacosManualRegistrater nacosManualRegistrater,
+            RetryRegistry retryRegistry) {
         this.restTemplate = restTemplate;
         this.nacosManualRegistrater = nacosManualRegistrater;
+        this.retryRegistry = retryRegistry;
     }
 
 //    @EventListener(ContextRefreshedEvent.class)
 //    public void onApplicationReady(ContextRefreshedEvent event) throws InterruptedException {
     @EventListener(ApplicationReadyEvent.class)
-    public void onApplicationReady() throws InterruptedException {
+    public void onApplicationReady() throws Exception {
         // 初始化开始
         log.info("同步远程数据初始化...");
 
@@ -60,29 +65,19 @@ public class DeprecatedSyncLoader {
         nacosManualRegistrater.register();
     }
 
-    private void loadOrderData() throws InterruptedException {
+    private void loadOrderData() throws Exception {
         try {
             // 0. 模拟超长时间远程调用
             // log.info("启动数据加载所需时间较长，预计30秒");
             // Thread.sleep(30000);
 
-            // 1. 设置超时
-            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-            factory.setConnectTimeout(8000);
-            factory.setReadTimeout(8000);
-            restTemplate.setRequestFactory(factory);
+            // 1. 设置超时：只对本次调用生效，不修改共享RestTemplate的连接池
+            CallTimeouts timeouts = CallTimeouts.responseTimeout(Duration.ofSeconds(8));
 
             // 2. 执行远程调用（带重试）
-            Result<?> result = RetryTemplate.builder()
-                    .maxAttempts(5)
-                    .fixedBackoff(2000)
-                    .retryOn(Exception.class)
-                    .build()
-                    .execute(context -> {
-                        log.info("尝试第{}次加载数据", context.getRetryCount() + 1);
-                        String url = "http://tlmall-order/order/getOrder?userId=fox";
-                        return restTemplate.getForObject(url, Result.class);
-                    });
+            String url = "http://tlmall-order/order/getOrder?userId=fox";
+            Result<?> result = retryRegistry.forService("tlmall-order")
+                    .executeAndWait(StartupRetry.POLICY, () -> timeouts.call(() -> restTemplate.getForObject(url, Result.class)));
 
             // 3. 模拟超长时间远程调用
             log.info("数据加载所需时间较长，预计30秒");
@@ -1,17 +1,16 @@
 package org.nacosdemo.tlmalluser.listener;
 
 import lombok.extern.slf4j.Slf4j;
-import org.nacosdemo.tlmalluser.listener.handler.NacosManualRegistrater;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
+import org.nacosdemo.tlmalluser.http.CallTimeouts;
 import org.springcloudmvp.tlmallcommon.Result;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Duration;
 
 /**
  * 实验2.2 微服务启动阶段访问下游（方法2）
@@ -26,15 +25,20 @@ import java.util.concurrent.CompletableFuture;
  * 注意：此时服务已经在接收上游请求
  * - 会遇到并发同步问题
  * - 需要代码额外处理
+ *
+ * 下面的"兜底数据"可以由启动数据快照提供：StartupPreloader 把上一次加载成功的数据持久化到本地，
+ * 启动时直接从快照恢复并在后台刷新，见 StartupPreloadTasks
  */
 // @Component
 @Slf4j
 public class StartupASyncLoader {
-
     private final RestTemplate restTemplate;
+    // 每次尝试在虚拟线程执行器（VirtualThreadConfig）上执行，重试间隔中不占用任何线程
+    private final RetryRegistry retryRegistry;
 
-    public StartupASyncLoader(RestTemplate restTemplate) {
+    public StartupASyncLoader(RestTemplate restTemplate, RetryRegistry retryRegistry) {
         this.restTemplate = restTemplate;
+        this.retryRegistry = retryRegistry;
     }
 
     @EventListener(ApplicationReadyEvent.class)
@@ -42,42 +46,29 @@ public class StartupASyncLoader {
         // 初始化开始
         log.info("异步远程数据初始化开始...");
 
-        // 提交异步数据加载
-        CompletableFuture.runAsync(this::loadOrderData);
-        log.info("异步远程数据初始化已提交异步执行");
-    }
+        // 1. 准备兜底用的数据
+        // ……
 
-    private void loadOrderData() {
-        try {
-            // 1. 准备兜底用的数据
-            // ……
+        // 2. 提交异步远程调用（带重试）
+        //    超时只对本次调用生效，不修改共享RestTemplate的连接池
+        CallTimeouts timeouts = CallTimeouts.responseTimeout(Duration.ofSeconds(8));
+        String url = "http://tlmall-order/order/getOrder?userId=fox";
+        retryRegistry.forService("tlmall-order")
+                .execute(StartupRetry.POLICY, () -> timeouts.call(() -> restTemplate.getForObject(url, Result.class)))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        // 3. 从兜底数据切换到远程调用获取的数据
+                        // ……
 
-            // 2. 执行远程调用
-            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-            factory.setConnectTimeout(8000);
-            factory.setReadTimeout(8000);
-            restTemplate.setRequestFactory(factory);
-            Result<?> result = RetryTemplate.builder()
-                    .maxAttempts(5)
-                    .fixedBackoff(2000)
-                    .retryOn(Exception.class)
-                    .build()
-                    .execute(context -> {
-                        log.info("尝试第{}次加载数据", context.getRetryCount() + 1);
-                        String url = "http://tlmall-order/order/getOrder?userId=fox";
-                        return restTemplate.getForObject(url, Result.class);
-                    });
+                        // 4. 加载完成
+                        log.info("异步数据加载成功: {}", result);
+                    } else {
+                        log.error("异步数据加载失败，回退兜底数据", error);
 
-            // 3. 从兜底数据切换到远程调用获取的数据
-            // ……
-
-            // 4. 加载完成
-            log.info("异步数据加载成功: {}", result);
-        } catch (Exception e) {
-            log.error("异步数据加载失败，回退兜底数据", e);
-
-            // 继续使用兜底数据
-            // ……
-        }
+                        // 继续使用兜底数据
+                        // ……
+                    }
+                });
+        log.info("异步远程数据初始化已提交异步执行");
     }
 }
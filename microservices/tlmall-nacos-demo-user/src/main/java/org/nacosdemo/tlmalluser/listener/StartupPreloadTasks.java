@@ -0,0 +1,77 @@
+package org.nacosdemo.tlmalluser.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmalluser.preload.PreloadTask;
+import org.springcloudmvp.tlmallcommon.Result;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 实验2.2 微服务启动阶段访问下游（方法4）：声明式并行预加载，执行框架见 StartupPreloader
+ * (1) 确保下面配置被注释，使得自动注册保持在默认的开启状态
+ *     # spring.cloud.nacos.discovery.register-enabled: false
+ * (2) 确保DeprecatedSyncLoader, StartupSyncLoader, StartupAsyncLoader的@Component注解被注释掉，防止它们提前注册，造成干扰
+ * (3) 取消这个类（StartupPreloadTasks）中 @Configuration 的注释，让它生效
+ *
+ * 任务依赖关系如下，dictionary 和 orderData 并行加载，userOrderSummary 在两者完成后加载
+ *     dictionary ──┐
+ *                  ├──> userOrderSummary
+ *     orderData ───┘
+ * 预加载期间实例尚未注册到Nacos，日志中可以看到每个任务的启动偏移和耗时
+ *
+ * 三个任务都声明了snapshot，第二次启动时直接从本地快照恢复（日志"从启动数据快照恢复"），
+ * 实例立即注册，网络加载转到后台执行；业务代码通过 PreloadedData.get("orderData") 读取数据
+ */
+// @Configuration
+@Slf4j
+public class StartupPreloadTasks {
+
+    @Bean
+    public PreloadTask dictionary() {
+        return PreloadTask.builder("dictionary")
+                .timeout(Duration.ofSeconds(5))
+                .snapshot(Map.class)
+                .loader(context -> {
+                    // 模拟加载本地字典数据
+                    Thread.sleep(2000);
+                    return Collections.singletonMap("region", "cn-shanghai");
+                })
+                .build();
+    }
+
+    @Bean
+    public PreloadTask orderData(RestTemplate restTemplate) {
+        return PreloadTask.builder("orderData")
+                .timeout(Duration.ofSeconds(8))
+                .snapshot(Result.class)
+                .loader(context -> {
+                    String url = "http://tlmall-order/order/getOrder?userId=fox";
+                    return restTemplate.getForObject(url, Result.class);
+                })
+                .fallback(e -> {
+                    log.warn("订单数据加载失败，使用兜底数据: {}", e.toString());
+                    return Result.failed("兜底数据");
+                })
+                .build();
+    }
+
+    @Bean
+    public PreloadTask userOrderSummary() {
+        return PreloadTask.builder("userOrderSummary")
+                .dependsOn("dictionary", "orderData")
+                .optional()
+                .snapshot(Result.class)
+                .loader(context -> {
+                    Map<String, String> dictionary = context.get("dictionary");
+                    Result<?> orders = context.get("orderData");
+                    log.info("汇总启动数据: dictionary={}, orders={}", dictionary, orders);
+                    return orders;
+                })
+                .build();
+    }
+}
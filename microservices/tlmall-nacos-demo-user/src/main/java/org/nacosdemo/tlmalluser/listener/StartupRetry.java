@@ -0,0 +1,23 @@
+package org.nacosdemo.tlmalluser.listener;
+
+import org.nacosdemo.tlmallsupport.retry.RetryPolicy;
+
+import java.time.Duration;
+
+/**
+ * 启动加载器（StartupSyncLoader、StartupASyncLoader、DeprecatedSyncLoader）共用的重试策略
+ * <p>
+ * 启动阶段下游可能还没注册（负载均衡器找不到实例），任何异常都重试；退避带随机抖动，各实例不会同时重试
+ */
+final class StartupRetry {
+
+    static final RetryPolicy POLICY = RetryPolicy.builder()
+            .maxAttempts(5)
+            .baseDelay(Duration.ofMillis(500))
+            .maxDelay(Duration.ofSeconds(4))
+            .retryOn(e -> e instanceof Exception)
+            .build();
+
+    private StartupRetry() {
+    }
+}
@@ -1,15 +1,17 @@
 package org.nacosdemo.tlmalluser.listener;
 
 import lombok.extern.slf4j.Slf4j;
-import org.nacosdemo.tlmalluser.listener.handler.NacosInstanceStatusManager;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
+import org.nacosdemo.tlmalluser.readiness.ReadinessGate;
+import org.nacosdemo.tlmalluser.http.CallTimeouts;
 import org.springcloudmvp.tlmallcommon.Result;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * 实验2.2 微服务启动阶段访问下游（方法1）
  * (1) 确保下面配置被注释，使得自动注册保持在默认的开启状态
@@ -19,14 +21,17 @@ import org.springframework.web.client.RestTemplate;
  * (4) 取消这个类（StartupSyncLoader）中 @Component 的注释，让它生效
  *
  * 这个阶段、实例已经注册到Nacos，
- * - 主动设置Healthy状态为false阻止上游请求
+ * - 构造时关闭就绪闸门（ReadinessGate），实例以权重0注册，ReadinessGateFilter对业务请求返回503
  * - 加载启动数据
- * - 设置Healthy状态为true接收上游请求
+ * - 释放就绪闸门，NacosReadinessPublisher通过一次updateInstance恢复权重，开始接收上游请求
  *
- * 这样只能缓解，并不能彻底解决问题，依然有诸多事项要考虑，包括
+ * 早期版本通过 NacosInstanceStatusManager 设置Healthy状态为false/true，存在以下问题，现已由就绪闸门解决
  * - 并发问题：同样在启动阶段，上游依然有可能发送请求过来（例如实例重启、但是上游的实例缓存还没有更新），但是与上一个方法不同的是，**此时服务已经能够接收上游请求、可以引起并发问题**。这意味着要手动拒绝这些请求，避免同步问题。
+ *   → ReadinessGateFilter 直接返回预先编码好的503和Retry-After，上游可以立即重试其它实例
  * - 干扰监控：设置”healthy=false“会干扰监控，难以区分"正常不可用"和"异常不可用"。
+ *   → healthy保持true，改用权重0和元数据tlmall.ready=false表示预热中
  * - 框架耦合：设置”healthy=false“用到了Nacos内部的Bean，依然依赖Nacos的特定实现。
+ *   → 闸门状态以Spring Boot的ReadinessState发布，Nacos同步只是其中一个订阅者
  *
  * 总之最好的办法还是定制RestTemplate Bean，参考UserService和RestConfig
  */
@@ -34,54 +39,46 @@ import org.springframework.web.client.RestTemplate;
 @Slf4j
 public class StartupSyncLoader {
     private final RestTemplate restTemplate;
-    private final NacosInstanceStatusManager instanceStatusManager;
+    private final RetryRegistry retryRegistry;
+    private final ReadinessGate.Hold readinessHold;
 
     public StartupSyncLoader(
             RestTemplate restTemplate,
-            NacosInstanceStatusManager instanceStatusManager) {
+            RetryRegistry retryRegistry,
+            ReadinessGate readinessGate) {
         this.restTemplate = restTemplate;
-        this.instanceStatusManager = instanceStatusManager;
+        this.retryRegistry = retryRegistry;
+        // 在Bean创建时（注册到Nacos之前）关闭闸门
+        this.readinessHold = readinessGate.hold("StartupSyncLoader加载启动数据");
     }
 
     @EventListener(ApplicationReadyEvent.class)
-    public void onApplicationReady() throws InterruptedException {
+    public void onApplicationReady() throws Exception {
         // 初始化开始
         log.info("同步远程数据初始化...");
-        log.info("服务实例设为heathy=false，阻止上游请求");
-        instanceStatusManager.setHealthy(false);
-
-        // 加载各类业务数据
-        loadOrderData();
-
-        // 初始化完成
-        log.info("同步远程数据初始化完成");
-        log.info("服务实例设为heathy=true，开放上游请求");
-        instanceStatusManager.setHealthy(true);
+        try {
+            // 加载各类业务数据
+            loadOrderData();
+        } finally {
+            // 初始化完成（或失败后使用兜底数据）
+            log.info("同步远程数据初始化完成，打开就绪闸门");
+            readinessHold.release();
+        }
     }
 
-    private void loadOrderData() throws InterruptedException {
+    private void loadOrderData() throws Exception {
         try {
             // 0. 模拟超长时间远程调用
             // log.info("启动数据加载所需时间较长，预计30秒");
             // Thread.sleep(30000);
 
-            // 1. 设置超时
-            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-            factory.setConnectTimeout(8000);
-            factory.setReadTimeout(8000);
-            restTemplate.setRequestFactory(factory);
+            // 1. 设置超时：只对本次调用生效，不修改共享RestTemplate的连接池
+            CallTimeouts timeouts = CallTimeouts.responseTimeout(Duration.ofSeconds(8));
 
             // 2. 执行远程调用（带重试）
-            String result = RetryTemplate.builder()
-                    .maxAttempts(5)
-                    .fixedBackoff(2000)
-                    .retryOn(Exception.class)
-                    .build()
-                    .execute(context -> {
-                        log.info("尝试第{}次加载数据", context.getRetryCount() + 1);
-                        String url = "http://tlmall-order/order/getOrder?userId=fox";
-                        return restTemplate.getForObject(url, String.class);
-                    });
+            String url = "http://tlmall-order/order/getOrder?userId=fox";
+            String result = retryRegistry.forService("tlmall-order")
+                    .executeAndWait(StartupRetry.POLICY, () -> timeouts.call(() -> restTemplate.getForObject(url, String.class)));
 
             // 3. 模拟超长时间远程调用
             log.info("数据加载所需时间较长，预计30秒");
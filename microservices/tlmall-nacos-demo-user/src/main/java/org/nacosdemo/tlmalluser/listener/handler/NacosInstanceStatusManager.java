@@ -8,6 +8,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * 通过重新注册实例（registerInstance）设置healthy状态
+ * <p>
+ * 只为翻转一个标记就做一次完整的重新注册，上游缓存刷新前仍会路由过来，healthy=false也会干扰监控；
+ * 启动阶段阻止流量请改用 ReadinessGate（配合 ReadinessGateFilter、NacosReadinessPublisher）
+ */
 @Component
 @Slf4j
 public class NacosInstanceStatusManager {
@@ -17,6 +23,7 @@ public class NacosInstanceStatusManager {
     @Autowired
     private NacosDiscoveryProperties nacosDiscoveryProperties;
 
+    @Deprecated
     public void setHealthy(boolean isHealthy) {
         try {
             // 1. 获取 NamingService
@@ -64,6 +64,29 @@ public class NacosManualRegistrater {
         }
     }
 
+    /**
+     * 注销手动注册的实例，供优雅下线（GracefulDrainCoordinator）使用；未手动注册过时什么也不做
+     *
+     * @return 是否执行了注销
+     */
+    public boolean deregister() {
+        if (!isRegistered) {
+            return false;
+        }
+        try {
+            NamingService namingService = nacosServiceManager.getNamingService();
+            // 与register()一致，使用缺省分组
+            namingService.deregisterInstance(discoveryProperties.getService(),
+                    getServiceIp(), getServicePort(), discoveryProperties.getClusterName());
+            isRegistered = false;
+            log.info("Nacos服务手动注销成功: {}", discoveryProperties.getService());
+            return true;
+        } catch (Exception e) {
+            log.error("Nacos手动注销失败", e);
+            throw new RuntimeException("服务注销失败", e);
+        }
+    }
+
     /**
      * 获取服务IP（优先使用Nacos自动获取的）
      */
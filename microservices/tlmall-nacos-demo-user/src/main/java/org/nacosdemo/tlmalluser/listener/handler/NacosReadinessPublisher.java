@@ -0,0 +1,179 @@
+package org.nacosdemo.tlmalluser.listener.handler;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.cloud.nacos.registry.NacosRegistration;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmalluser.readiness.ReadinessGate;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cloud.client.discovery.event.InstancePreRegisteredEvent;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把就绪闸门的状态同步到Nacos：不就绪时权重置为0，就绪后恢复原权重
+ * <p>
+ * 与 NacosInstanceStatusManager.setHealthy() 的区别：
+ * - 不重新注册实例，只通过 NamingMaintainService.updateInstance 更新实例元数据（权重、tlmall.ready），属于轻量操作
+ * - healthy保持true，监控上能区分"预热中"（tlmall.ready=false）和"异常不可用"（healthy=false）
+ * - Nacos客户端的selectInstances只返回 weight>0 的实例，网关等上游不需要任何改动就不会再选中本实例
+ * <p>
+ * updateInstance 写入的是服务端的实例元数据，优先级高于客户端注册时上报的值，gRPC断线重连时客户端的重新注册不会覆盖它。
+ * 也正因为如此，服务端可能残留上一次运行写入的值（快速重启、同一IP:端口），所以注册完成后总会按当前状态同步一次
+ * <p>
+ * updateInstance 失败（Nacos短暂不可用）时按指数退避在后台重试，直到当前期望的状态写入成功；
+ * 重试期间状态再次变化时，重试写入的是最新的期望状态
+ */
+@Component
+@Slf4j
+public class NacosReadinessPublisher {
+
+    public static final String READY_METADATA = "tlmall.ready";
+
+    private final NacosServiceManager nacosServiceManager;
+    private final NacosDiscoveryProperties discoveryProperties;
+    private final ReadinessGate readinessGate;
+
+    static final Duration INITIAL_RETRY_DELAY = Duration.ofMillis(500);
+    static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "nacos-readiness-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private float registerWeight;
+    private volatile boolean registered;
+    private Boolean published;
+    // 最近一次要求的状态，重试时以它为准
+    private boolean desired;
+    private ScheduledFuture<?> retry;
+    private int failures;
+
+    public NacosReadinessPublisher(NacosServiceManager nacosServiceManager,
+                                   NacosDiscoveryProperties discoveryProperties,
+                                   ReadinessGate readinessGate) {
+        this.nacosServiceManager = nacosServiceManager;
+        this.discoveryProperties = discoveryProperties;
+        this.readinessGate = readinessGate;
+        this.registerWeight = discoveryProperties.getWeight();
+    }
+
+    /**
+     * 闸门已关闭时以权重0注册，避免注册和第一次同步之间的短暂窗口内接收流量
+     */
+    @EventListener
+    public synchronized void onPreRegistered(InstancePreRegisteredEvent event) {
+        if (readinessGate.isHeld() && event.getRegistration() instanceof NacosRegistration) {
+            NacosDiscoveryProperties properties = ((NacosRegistration) event.getRegistration()).getNacosDiscoveryProperties();
+            registerWeight = properties.getWeight();
+            properties.setWeight(0);
+            properties.getMetadata().put(READY_METADATA, "false");
+        }
+    }
+
+    @EventListener
+    public synchronized void onRegistered(InstanceRegisteredEvent<?> event) {
+        if (discoveryProperties.getWeight() == 0 && registerWeight > 0) {
+            discoveryProperties.setWeight(registerWeight);
+        }
+        registered = true;
+        publish(!readinessGate.isHeld());
+    }
+
+    @EventListener
+    public void onReadinessStateChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (registered) {
+            publish(event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !readinessGate.isHeld());
+        }
+    }
+
+    /**
+     * 优雅下线时把权重置为0（GracefulDrainCoordinator 的 zero-weight 模式），与就绪闸门的状态无关
+     *
+     * @return 实例是否已注册
+     * @throws IllegalStateException 权重没能写入Nacos，调用方应改用注销实例
+     */
+    public boolean markNotReady() {
+        if (registered && !publish(false)) {
+            throw new IllegalStateException("Nacos实例权重置0失败");
+        }
+        return registered;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryExecutor.shutdownNow();
+    }
+
+    /**
+     * @return 期望状态是否已写入Nacos；失败时已安排后台重试
+     */
+    synchronized boolean publish(boolean ready) {
+        desired = ready;
+        if (published != null && published == ready) {
+            cancelRetry();
+            return true;
+        }
+        Instance instance = new Instance();
+        instance.setIp(discoveryProperties.getIp());
+        instance.setPort(discoveryProperties.getPort());
+        instance.setClusterName(discoveryProperties.getClusterName());
+        instance.setEphemeral(discoveryProperties.isEphemeral());
+        instance.setWeight(ready ? registerWeight : 0);
+        Map<String, String> metadata = new HashMap<>(discoveryProperties.getMetadata());
+        metadata.put(READY_METADATA, String.valueOf(ready));
+        instance.setMetadata(metadata);
+        try {
+            nacosServiceManager.getNamingMaintainService(discoveryProperties.getNacosProperties())
+                    .updateInstance(discoveryProperties.getService(), discoveryProperties.getGroup(), instance);
+            // 与客户端本地保存的注册信息保持一致（元数据Map与注册时使用的是同一个对象）
+            discoveryProperties.getMetadata().put(READY_METADATA, String.valueOf(ready));
+            published = ready;
+            failures = 0;
+            cancelRetry();
+            log.info("Nacos实例就绪状态更新为: {}，权重: {}", ready, instance.getWeight());
+            return true;
+        } catch (Exception e) {
+            // 服务端的状态未知，下次无论期望什么状态都要重新写入
+            published = null;
+            // 本地闸门不受影响，依然会拒绝请求；Nacos上的权重在重试成功前可能与本地状态不一致
+            log.error("Nacos实例就绪状态更新失败，{}ms后重试: {}", scheduleRetry(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private long scheduleRetry() {
+        long delay = Math.min(INITIAL_RETRY_DELAY.toMillis() << Math.min(failures, 16), MAX_RETRY_DELAY.toMillis());
+        failures++;
+        if (!retryExecutor.isShutdown() && (retry == null || retry.isDone())) {
+            retry = retryExecutor.schedule(this::retry, delay, TimeUnit.MILLISECONDS);
+        }
+        return delay;
+    }
+
+    private synchronized void retry() {
+        retry = null;
+        publish(desired);
+    }
+
+    private void cancelRetry() {
+        if (retry != null) {
+            retry.cancel(false);
+            retry = null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+/**
+ * 通过 Spring Cloud LoadBalancer 的生命周期回调维护各实例的在途请求数
+ * <p>
+ * - onStartRequest：已选定实例、即将发出请求，计数 +1
+ * - onComplete：请求结束，计数 -1；无论成功（SUCCESS）还是失败（FAILED，包括连接/读超时抛出的异常）都会回调
+ * - DISCARD 表示没有选出实例、请求没有发出，不做处理
+ * <p>
+ * RestTemplate（BlockingLoadBalancerClient / RetryLoadBalancerInterceptor）与 OpenFeign（FeignBlockingLoadBalancerClient）
+ * 都会从负载均衡子容器中取出 LoadBalancerLifecycle Bean 并回调，因此只需把它声明为子容器中的Bean
+ */
+public class InFlightRequestLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InFlightRequestTracker tracker;
+
+    public InFlightRequestLifecycle(InFlightRequestTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse != null && lbResponse.hasServer()) {
+            tracker.increment(lbResponse.getServer());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse != null && lbResponse.hasServer()) {
+            tracker.decrement(lbResponse.getServer());
+        }
+    }
+}
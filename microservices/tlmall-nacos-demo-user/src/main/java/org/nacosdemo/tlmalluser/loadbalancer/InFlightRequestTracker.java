@@ -0,0 +1,80 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.ServiceInstanceKey;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按实例统计在途（已发出、尚未完成）的请求数
+ * <p>
+ * 每个实例一个 LongAdder：内部按线程分段（striped）计数，高并发下加减互不争用、无锁；
+ * 读取时求和，代价是 O(分段数)，对"二选一"这种每次只读两个计数器的场景足够便宜
+ * <p>
+ * 计数由 {@link InFlightRequestLifecycle} 在请求开始/结束时维护；
+ * 实例下线后其计数器由负载均衡器在选择时通过 {@link #retainAll(List)} 清理，避免实例频繁上下线时 Map 无限增长
+ */
+public class InFlightRequestTracker {
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void increment(ServiceInstance instance) {
+        counter(instance).increment();
+    }
+
+    public void decrement(ServiceInstance instance) {
+        // 计数器可能已被 retainAll 清理（实例下线），此时不再重建，避免把已删除的 key 又加回来
+        LongAdder counter = counters.get(ServiceInstanceKey.of(instance));
+        if (counter != null) {
+            counter.decrement();
+        }
+    }
+
+    public long get(ServiceInstance instance) {
+        LongAdder counter = counters.get(ServiceInstanceKey.of(instance));
+        if (counter == null) {
+            return 0;
+        }
+        // 生命周期回调异常错配时可能出现短暂的负数，按0处理
+        return Math.max(0, counter.sum());
+    }
+
+    /**
+     * 清理不在当前实例列表中、且已没有在途请求的计数器
+     * <p>
+     * 计数器数量不超过实例数时直接返回，实例列表稳定时只多一次 size 比较；
+     * 仍有在途请求的计数器暂时保留，等请求结束、计数归零后的下一次调用再删除
+     */
+    public void retainAll(List<ServiceInstance> instances) {
+        if (counters.size() <= instances.size()) {
+            return;
+        }
+        Set<String> live = new HashSet<>(instances.size() * 2);
+        for (ServiceInstance instance : instances) {
+            live.add(ServiceInstanceKey.of(instance));
+        }
+        counters.forEach((key, counter) -> {
+            if (!live.contains(key) && counter.sum() <= 0) {
+                // 两参数 remove：只删除仍是这个计数器的映射
+                counters.remove(key, counter);
+            }
+        });
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    private LongAdder counter(ServiceInstance instance) {
+        String key = ServiceInstanceKey.of(instance);
+        LongAdder counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+}
@@ -0,0 +1,91 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * "二选一"最少在途请求负载均衡（Power of Two Choices）
+ * <p>
+ * 每次随机抽取两个实例，把请求发给在途请求数较少的那个：
+ * - 变慢的实例会积压在途请求，从而自然地少分到流量
+ * - 只比较两个计数器，O(1)；又保留了随机性，避免所有客户端同时涌向"当前最空闲"的同一个实例
+ */
+public class LeastRequestLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(LeastRequestLoadBalancer.class);
+
+    private final String serviceId;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final InFlightRequestTracker inFlightRequestTracker;
+
+    public LeastRequestLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId,
+            InFlightRequestTracker inFlightRequestTracker) {
+        this.serviceId = serviceId;
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.inFlightRequestTracker = inFlightRequestTracker;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    private Response<ServiceInstance> processInstanceResponse(
+            ServiceInstanceListSupplier supplier,
+            List<ServiceInstance> serviceInstances) {
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        inFlightRequestTracker.retainAll(instances);
+        int size = instances.size();
+        if (size == 0) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + this.serviceId);
+            }
+            return new EmptyResponse();
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        // 随机抽取两个不同的实例
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+
+        // 选在途请求较少的一个，相等时两者已是随机顺序，取第一个即可
+        ServiceInstance chosen = inFlightRequestTracker.get(b) < inFlightRequestTracker.get(a) ? b : a;
+        return new DefaultResponse(chosen);
+    }
+}
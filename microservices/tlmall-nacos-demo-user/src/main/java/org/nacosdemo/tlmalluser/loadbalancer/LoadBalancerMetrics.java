@@ -0,0 +1,173 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.nacosdemo.tlmallsupport.loadbalancer.ServiceInstanceKey;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 负载均衡决策的Micrometer指标（每个下游服务一份），通过 /actuator/metrics 查看：
+ * <pre>
+ * tlmall.loadbalancer.choose       Timer    choose() 耗时                     tags: service, strategy
+ * tlmall.loadbalancer.empty        Counter  没有可用实例（EmptyResponse）     tags: service, strategy
+ * tlmall.loadbalancer.selections   Counter  每个实例被选中的次数              tags: service, instance
+ * tlmall.loadbalancer.downstream   Timer    每个实例的下游请求耗时及分位数    tags: service, instance, outcome
+ * </pre>
+ * 下游耗时的分位数由 Micrometer 基于 HdrHistogram 的滑动时间窗直方图在客户端计算。
+ * <p>
+ * 每个实例的Meter只在第一次出现时创建并按实例Key缓存，之后每次调用只有一次Map查找，
+ * 不拼接字符串、不创建Tag
+ * <p>
+ * 实例下线后不会再有请求，它的Meter闲置超过 idleTimeout 后从缓存和 MeterRegistry 中一并删除，
+ * 避免实例频繁上下线（每次发布都会换IP/端口）时Meter无限增长；
+ * 清理在记录指标时顺带进行，每个 sweepInterval 最多一次，不需要额外的定时线程
+ */
+public class LoadBalancerMetrics {
+
+    public static final String CHOOSE = "tlmall.loadbalancer.choose";
+
+    public static final String EMPTY = "tlmall.loadbalancer.empty";
+
+    public static final String SELECTIONS = "tlmall.loadbalancer.selections";
+
+    public static final String DOWNSTREAM = "tlmall.loadbalancer.downstream";
+
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private final MeterRegistry registry;
+
+    private final String serviceId;
+
+    private final long idleTimeoutNanos;
+
+    private final long sweepIntervalNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, InstanceMeters> instanceMeters = new ConcurrentHashMap<>();
+
+    // 下一次清理闲置Meter的时间点
+    private final AtomicLong nextSweep;
+
+    public LoadBalancerMetrics(MeterRegistry registry, String serviceId) {
+        this(registry, serviceId, DEFAULT_IDLE_TIMEOUT, System::nanoTime);
+    }
+
+    LoadBalancerMetrics(MeterRegistry registry, String serviceId, Duration idleTimeout, LongSupplier nanoClock) {
+        this.registry = registry;
+        this.serviceId = serviceId;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.sweepIntervalNanos = Math.max(1, idleTimeoutNanos / 10);
+        this.nanoClock = nanoClock;
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong() + sweepIntervalNanos);
+    }
+
+    /**
+     * 某个负载均衡策略的 choose 指标，由 {@link InstrumentedLoadBalancer} 在创建时获取一次
+     */
+    public ChooseMeters chooseMeters(String strategy) {
+        Timer latency = Timer.builder(CHOOSE)
+                .description("负载均衡器choose()的耗时")
+                .tag("service", serviceId)
+                .tag("strategy", strategy)
+                .register(registry);
+        Counter empty = Counter.builder(EMPTY)
+                .description("choose()找不到可用实例的次数")
+                .tag("service", serviceId)
+                .tag("strategy", strategy)
+                .register(registry);
+        return new ChooseMeters(latency, empty);
+    }
+
+    public void recordSelection(ServiceInstance instance) {
+        meters(instance).selections.increment();
+    }
+
+    public void recordDownstream(ServiceInstance instance, boolean success, long latencyNanos) {
+        InstanceMeters meters = meters(instance);
+        (success ? meters.success : meters.failure).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    int instanceCount() {
+        return instanceMeters.size();
+    }
+
+    private InstanceMeters meters(ServiceInstance instance) {
+        long now = nanoClock.getAsLong();
+        long sweepAt = nextSweep.get();
+        if (now - sweepAt >= 0 && nextSweep.compareAndSet(sweepAt, now + sweepIntervalNanos)) {
+            removeIdle(now);
+        }
+        String key = ServiceInstanceKey.of(instance);
+        InstanceMeters meters = instanceMeters.get(key);
+        if (meters == null) {
+            meters = instanceMeters.computeIfAbsent(key, k -> new InstanceMeters(
+                    registry, serviceId, instance.getHost() + ":" + instance.getPort()));
+        }
+        meters.lastUsed = now;
+        return meters;
+    }
+
+    private void removeIdle(long now) {
+        instanceMeters.forEach((key, meters) -> {
+            if (now - meters.lastUsed > idleTimeoutNanos && instanceMeters.remove(key, meters)) {
+                registry.remove(meters.selections);
+                registry.remove(meters.success);
+                registry.remove(meters.failure);
+            }
+        });
+    }
+
+    public static final class ChooseMeters {
+        private final Timer latency;
+        private final Counter empty;
+
+        private ChooseMeters(Timer latency, Counter empty) {
+            this.latency = latency;
+            this.empty = empty;
+        }
+
+        public void record(long latencyNanos, boolean hasServer) {
+            latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            if (!hasServer) {
+                empty.increment();
+            }
+        }
+    }
+
+    private static final class InstanceMeters {
+        private final Counter selections;
+        private final Timer success;
+        private final Timer failure;
+        private volatile long lastUsed;
+
+        private InstanceMeters(MeterRegistry registry, String serviceId, String instance) {
+            this.selections = Counter.builder(SELECTIONS)
+                    .description("实例被负载均衡器选中的次数")
+                    .tag("service", serviceId)
+                    .tag("instance", instance)
+                    .register(registry);
+            this.success = downstream(registry, serviceId, instance, "SUCCESS");
+            this.failure = downstream(registry, serviceId, instance, "FAILED");
+        }
+
+        private static Timer downstream(MeterRegistry registry, String serviceId, String instance, String outcome) {
+            return Timer.builder(DOWNSTREAM)
+                    .description("经负载均衡转发到各实例的请求耗时")
+                    .tag("service", serviceId)
+                    .tag("instance", instance)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .distributionStatisticExpiry(Duration.ofMinutes(1))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.ServiceInstanceKey;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * 通过生命周期回调记录每个实例的下游请求耗时（按成功/失败区分），见 {@link LoadBalancerMetrics}
+ * <p>
+ * 开始时间记录在请求上下文（TimedRequestContext）中，与 {@link ResponseTimeLifecycle} 一致；
+ * FAILED 或 5xx 记为失败，与 {@link OutlierDetectionLifecycle} 一致
+ */
+public class LoadBalancerMetricsLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final LoadBalancerMetrics metrics;
+
+    public LoadBalancerMetricsLifecycle(LoadBalancerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext) {
+            TimedRequestContext context = (TimedRequestContext) request.getContext();
+            if (context.getRequestStartTime() == 0) {
+                context.setRequestStartTime(System.nanoTime());
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        Request<Object> request = completionContext.getLoadBalancerRequest();
+        if (lbResponse == null || !lbResponse.hasServer() || request == null
+                || !(request.getContext() instanceof TimedRequestContext)) {
+            return;
+        }
+        long startTime = ((TimedRequestContext) request.getContext()).getRequestStartTime();
+        if (startTime != 0) {
+            metrics.recordDownstream(lbResponse.getServer(), !isFailure(completionContext), System.nanoTime() - startTime);
+        }
+    }
+
+    private static boolean isFailure(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        Object clientResponse = completionContext.getClientResponse();
+        if (clientResponse instanceof ResponseData) {
+            HttpStatusCode status = ((ResponseData) clientResponse).getHttpStatus();
+            return status != null && status.is5xxServerError();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import java.util.Locale;
+
+/**
+ * {@link SwitchableLoadBalancer} 可以运行时切换的负载均衡策略
+ * <p>
+ * 配置值（tlmall.lb.&lt;下游服务名&gt;.strategy）使用 {@link #getName()} 或别名，不区分大小写
+ */
+public enum LoadBalancerStrategy {
+
+    // Spring Cloud LoadBalancer 自带的轮询
+    ROUND_ROBIN("round-robin", "rr"),
+
+    // Spring Cloud LoadBalancer 自带的随机
+    RANDOM("random"),
+
+    // 按客户端IP一致性哈希，见 IPHashLoadBalancer
+    IP_HASH("ip-hash", "consistent-hash"),
+
+    // 随机取两个实例，选在途请求少的（Power of Two Choices），见 LeastRequestLoadBalancer
+    LEAST_REQUEST("p2c", "least-request"),
+
+    // 按响应时间 Peak EWMA × (在途请求数 + 1) 二选一，见 PeakEwmaLoadBalancer
+    PEAK_EWMA("peak-ewma"),
+
+    // 按实例元数据 weight 平滑加权轮询，见 SmoothWeightedRoundRobinLoadBalancer
+    WEIGHTED_ROUND_ROBIN("weighted-round-robin", "wrr");
+
+    private final String name;
+
+    private final String[] aliases;
+
+    LoadBalancerStrategy(String name, String... aliases) {
+        this.name = name;
+        this.aliases = aliases;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 按配置值查找策略，未知的名称返回null
+     */
+    public static LoadBalancerStrategy from(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (LoadBalancerStrategy strategy : values()) {
+            if (strategy.name.equals(normalized)) {
+                return strategy;
+            }
+            for (String alias : strategy.aliases) {
+                if (alias.equals(normalized)) {
+                    return strategy;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 对峰值敏感的指数加权移动平均（Peak EWMA），单位：纳秒
+ * <p>
+ * - 样本高于当前值时直接取样本（立刻感知变慢）
+ * - 样本低于当前值时按时间间隔衰减：w = exp(-Δt/τ)，ewma = ewma * w + sample * (1 - w)（缓慢恢复）
+ * - 读取时若该实例已空闲一段时间，按空闲时长向给定的均值衰减，
+ *   这样一个曾经很慢、因此分不到流量的实例，过一段时间后会被重新尝试
+ * <p>
+ * 当前值与更新时间放在同一个不可变快照里，写入用 CAS 整体替换，读取无锁且两者始终一致
+ */
+final class PeakEwma {
+
+    private final double decayNanos;
+
+    private final AtomicReference<Snapshot> snapshot;
+
+    PeakEwma(long decayNanos, double initial, long now) {
+        this.decayNanos = decayNanos;
+        this.snapshot = new AtomicReference<>(new Snapshot(initial, now));
+    }
+
+    void observe(double sample, long now) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            double next;
+            if (sample > current.value) {
+                next = sample;
+            } else {
+                long elapsed = Math.max(0, now - current.updateNanos);
+                double w = Math.exp(-elapsed / decayNanos);
+                next = current.value * w + sample * (1 - w);
+            }
+            // 并发写入时时间戳不回退，避免下一次衰减用到过大的 Δt
+            if (snapshot.compareAndSet(current, new Snapshot(next, Math.max(now, current.updateNanos)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 读取当前值，按空闲时长向 mean 衰减
+     */
+    double get(long now, double mean) {
+        Snapshot current = snapshot.get();
+        long idle = now - current.updateNanos;
+        if (idle <= 0 || mean <= 0) {
+            return current.value;
+        }
+        double w = Math.exp(-idle / decayNanos);
+        return mean + (current.value - mean) * w;
+    }
+
+    /**
+     * 距离上一次样本的空闲时长（纳秒）
+     */
+    long idleNanos(long now) {
+        return now - snapshot.get().updateNanos;
+    }
+
+    static final class Snapshot {
+
+        final double value;
+
+        final long updateNanos;
+
+        Snapshot(double value, long updateNanos) {
+            this.value = value;
+            this.updateNanos = updateNanos;
+        }
+    }
+}
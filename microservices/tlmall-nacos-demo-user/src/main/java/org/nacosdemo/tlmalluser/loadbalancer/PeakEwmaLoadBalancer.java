@@ -0,0 +1,101 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 Peak EWMA 的延迟感知负载均衡
+ * <p>
+ * 实例的代价 = 响应时间的 Peak EWMA × (在途请求数 + 1)，随机抽取两个实例，选代价较小的一个：
+ * - 受邻居干扰或GC停顿而变慢的实例，EWMA 立即升高，很快少分到流量
+ * - 在途请求数放大代价，避免所有请求同时涌向"刚刚最快"的实例
+ * - 空闲实例的 EWMA 会向全服务均值衰减，恢复后的实例能重新被尝试
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(PeakEwmaLoadBalancer.class);
+
+    private final String serviceId;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final InFlightRequestTracker inFlightRequestTracker;
+
+    private final ResponseTimeTracker responseTimeTracker;
+
+    public PeakEwmaLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId,
+            InFlightRequestTracker inFlightRequestTracker,
+            ResponseTimeTracker responseTimeTracker) {
+        this.serviceId = serviceId;
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.inFlightRequestTracker = inFlightRequestTracker;
+        this.responseTimeTracker = responseTimeTracker;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    private Response<ServiceInstance> processInstanceResponse(
+            ServiceInstanceListSupplier supplier,
+            List<ServiceInstance> serviceInstances) {
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        inFlightRequestTracker.retainAll(instances);
+        responseTimeTracker.retainAll(instances);
+        int size = instances.size();
+        if (size == 0) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + this.serviceId);
+            }
+            return new EmptyResponse();
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        // 随机抽取两个不同的实例
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+
+        // 选代价较小的一个
+        ServiceInstance chosen = cost(b) < cost(a) ? b : a;
+        return new DefaultResponse(chosen);
+    }
+
+    private double cost(ServiceInstance instance) {
+        return responseTimeTracker.estimate(instance) * (inFlightRequestTracker.get(instance) + 1);
+    }
+}
@@ -0,0 +1,63 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+/**
+ * 通过生命周期回调采集每个实例的响应时间，写入 {@link ResponseTimeTracker}
+ * <p>
+ * 开始时间记录在请求上下文（TimedRequestContext）中，与 Spring Cloud 自带的
+ * MicrometerStatsLoadBalancerLifecycle 做法一致；RestTemplate 与 OpenFeign 的负载均衡请求上下文都实现了该接口
+ * <p>
+ * 失败的请求同样记录耗时：超时的请求耗时很长，正好让 Peak EWMA 迅速避开该实例
+ */
+public class ResponseTimeLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final ResponseTimeTracker tracker;
+
+    public ResponseTimeLifecycle(ResponseTimeTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext) {
+            TimedRequestContext context = (TimedRequestContext) request.getContext();
+            // 同时配置了其他记录耗时的生命周期时，开始时间已经记录过，不覆盖
+            if (context.getRequestStartTime() == 0) {
+                context.setRequestStartTime(System.nanoTime());
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        Request<Object> request = completionContext.getLoadBalancerRequest();
+        if (lbResponse == null || !lbResponse.hasServer() || request == null
+                || !(request.getContext() instanceof TimedRequestContext)) {
+            return;
+        }
+        // System.nanoTime() 可能为负数，只能用0判断"未设置"
+        long startTime = ((TimedRequestContext) request.getContext()).getRequestStartTime();
+        if (startTime != 0) {
+            tracker.record(lbResponse.getServer(), System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.ServiceInstanceKey;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * 按实例记录响应时间的 Peak EWMA，同时维护一个全服务的普通 EWMA 作为"均值"
+ * <p>
+ * - 没有样本的新实例按均值计算，既不会被当成"最快"而瞬间打满，也不会永远分不到流量
+ * - 长时间没有流量的实例，其 EWMA 会向均值衰减，参见 {@link PeakEwma}
+ * <p>
+ * 样本由 {@link ResponseTimeLifecycle} 在请求完成时写入；读写都在选择实例的热路径上，
+ * 均值与各实例的 EWMA 都用不可变快照 + CAS 维护，不加锁
+ */
+public class ResponseTimeTracker {
+
+    public static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+    // 空闲超过 5 个衰减时间常数后，EWMA 与均值的差距已不到 1%，删除该实例的记录不影响估计值
+    private static final int PRUNE_AFTER_DECAYS = 5;
+
+    private final long decayNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, PeakEwma> instances = new ConcurrentHashMap<>();
+
+    // 全服务响应时间的普通 EWMA（不对峰值敏感），单位：纳秒；没有样本时为 null
+    private final AtomicReference<PeakEwma.Snapshot> mean = new AtomicReference<>();
+
+    public ResponseTimeTracker() {
+        this(DEFAULT_DECAY_TIME);
+    }
+
+    public ResponseTimeTracker(Duration decayTime) {
+        this(decayTime, System::nanoTime);
+    }
+
+    ResponseTimeTracker(Duration decayTime, LongSupplier nanoClock) {
+        this.decayNanos = decayTime.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public void record(ServiceInstance instance, long latencyNanos) {
+        long now = nanoClock.getAsLong();
+        double sample = latencyNanos;
+        updateMean(sample, now);
+
+        PeakEwma ewma = instances.get(ServiceInstanceKey.of(instance));
+        if (ewma == null) {
+            ewma = instances.computeIfAbsent(ServiceInstanceKey.of(instance),
+                    key -> new PeakEwma(decayNanos, sample, now));
+        }
+        ewma.observe(sample, now);
+    }
+
+    /**
+     * 当前对该实例响应时间的估计值（纳秒），没有样本时返回全服务均值
+     */
+    public double estimate(ServiceInstance instance) {
+        double currentMean = getMean();
+        PeakEwma ewma = instances.get(ServiceInstanceKey.of(instance));
+        if (ewma == null) {
+            return currentMean;
+        }
+        return ewma.get(nanoClock.getAsLong(), currentMean);
+    }
+
+    /**
+     * 清理不在当前实例列表中、且已空闲足够久的实例记录
+     * <p>
+     * 与 {@link InFlightRequestTracker#retainAll(List)} 一样，记录数不超过实例数时直接返回
+     */
+    public void retainAll(List<ServiceInstance> current) {
+        if (instances.size() <= current.size()) {
+            return;
+        }
+        Set<String> live = new HashSet<>(current.size() * 2);
+        for (ServiceInstance instance : current) {
+            live.add(ServiceInstanceKey.of(instance));
+        }
+        long now = nanoClock.getAsLong();
+        long pruneAfter = decayNanos * PRUNE_AFTER_DECAYS;
+        instances.forEach((key, ewma) -> {
+            if (!live.contains(key) && ewma.idleNanos(now) > pruneAfter) {
+                instances.remove(key, ewma);
+            }
+        });
+    }
+
+    int size() {
+        return instances.size();
+    }
+
+    private void updateMean(double sample, long now) {
+        while (true) {
+            PeakEwma.Snapshot current = mean.get();
+            PeakEwma.Snapshot next;
+            if (current == null) {
+                next = new PeakEwma.Snapshot(sample, now);
+            } else {
+                double w = Math.exp(-Math.max(0, now - current.updateNanos) / (double) decayNanos);
+                next = new PeakEwma.Snapshot(current.value * w + sample * (1 - w),
+                        Math.max(now, current.updateNanos));
+            }
+            if (mean.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private double getMean() {
+        PeakEwma.Snapshot current = mean.get();
+        return current == null ? 0 : current.value;
+    }
+}
@@ -0,0 +1,55 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Map;
+
+/**
+ * 从实例元数据中读取权重
+ * <p>
+ * 有效权重 = 元数据 weight × 元数据 nacos.weight：
+ * (1) 元数据 weight（application.yml 中 spring.cloud.nacos.discovery.metadata.weight，例如 "100"），表示实例的静态容量，缺省为 100
+ * (2) 元数据 nacos.weight（Nacos实例权重，即 NacosManualRegistrater 中 instance.setWeight(...) 或控制台设置的值，默认 1.0），
+ *     是运行时调整的系数；优雅下线、慢启动等把它设为 0 时，无论 (1) 配置多少，实例都不再分到流量
+ * 两者都为正但乘积不足 1 时按 1 计算，避免被误当作权重为 0
+ */
+public final class ServiceInstanceWeights {
+
+    public static final String WEIGHT = "weight";
+
+    public static final String NACOS_WEIGHT = "nacos.weight";
+
+    public static final int DEFAULT_WEIGHT = 100;
+
+    private ServiceInstanceWeights() {
+    }
+
+    public static int of(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        if (metadata == null || metadata.isEmpty()) {
+            return DEFAULT_WEIGHT;
+        }
+        int weight = DEFAULT_WEIGHT;
+        String configured = metadata.get(WEIGHT);
+        if (configured != null) {
+            try {
+                weight = Math.max(0, Integer.parseInt(configured.trim()));
+            } catch (NumberFormatException ignored) {
+                // 格式不正确时使用默认权重
+            }
+        }
+        double factor = 1.0;
+        String nacosWeight = metadata.get(NACOS_WEIGHT);
+        if (nacosWeight != null) {
+            try {
+                factor = Math.max(0, Double.parseDouble(nacosWeight.trim()));
+            } catch (NumberFormatException ignored) {
+                // 格式不正确时不调整
+            }
+        }
+        if (weight == 0 || factor == 0) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(weight * factor)));
+    }
+}
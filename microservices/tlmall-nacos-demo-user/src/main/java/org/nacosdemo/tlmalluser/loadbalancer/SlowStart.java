@@ -0,0 +1,101 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 新启动实例的预热权重
+ * <p>
+ * 读取实例元数据 startup.time（毫秒时间戳，由 tlmall-nacos-demo-order 的 NacosMetadataConfig 写入），
+ * 在预热窗口内把实例的有效权重从 minWeightPercent 逐步提升到 100%：
+ * <pre>
+ *   factor = max(minWeightPercent / 100, (elapsed / window) ^ (1 / aggression))
+ * </pre>
+ * - aggression = 1：线性爬升
+ * - aggression > 1：激进曲线，前期爬升更快，后期趋于平缓
+ * <p>
+ * 没有 startup.time、格式不正确、或者已经过了预热窗口的实例，factor 都是 1。
+ * <p>
+ * 加权轮询（WeightedSchedule）把 factor 乘到实例权重上；随机、二选一等无状态的策略由 SlowStartLoadBalancer 按 factor 的概率接受。
+ * 不再解析 "yyyy-MM-dd HH:mm:ss"：本地时间不带时区，调用方与被调用方时区不同时预热窗口会整体偏移
+ */
+public final class SlowStart {
+
+    public static final String STARTUP_TIME = "startup.time";
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(60);
+
+    public static final double DEFAULT_AGGRESSION = 1.0;
+
+    public static final double DEFAULT_MIN_WEIGHT_PERCENT = 10.0;
+
+    // 预热窗口内按factor预计算的结构（WeightedSchedule）最多重建的次数
+    private static final int REFRESH_STEPS = 20;
+
+    private static final long MIN_REFRESH_MILLIS = 100;
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final long windowMillis;
+
+    private final double exponent;
+
+    private final double minFactor;
+
+    public SlowStart(Duration window, double aggression, double minWeightPercent) {
+        if (aggression <= 0) {
+            throw new IllegalArgumentException("aggression must be positive: " + aggression);
+        }
+        this.windowMillis = window.toMillis();
+        this.exponent = 1.0 / aggression;
+        this.minFactor = Math.min(1.0, Math.max(0.0, minWeightPercent / 100.0));
+    }
+
+    /**
+     * 实例当前的有效权重比例，取值 (0, 1]
+     */
+    public double factor(ServiceInstance instance, long nowMillis) {
+        if (windowMillis <= 0) {
+            return 1.0;
+        }
+        Map<String, String> metadata = instance.getMetadata();
+        String startupTime = metadata == null ? null : metadata.get(STARTUP_TIME);
+        if (startupTime == null) {
+            return 1.0;
+        }
+        long startedAt = parse(startupTime);
+        if (startedAt == UNKNOWN) {
+            return 1.0;
+        }
+        long elapsed = nowMillis - startedAt;
+        if (elapsed >= windowMillis) {
+            return 1.0;
+        }
+        if (elapsed <= 0) {
+            return minFactor;
+        }
+        double timeFactor = (double) elapsed / windowMillis;
+        return Math.max(minFactor, exponent == 1.0 ? timeFactor : Math.pow(timeFactor, exponent));
+    }
+
+    /**
+     * 预热中实例的 factor 随时间变化，按它预计算的结构每隔这么久重建一次
+     */
+    public long refreshIntervalMillis() {
+        return Math.max(MIN_REFRESH_MILLIS, windowMillis / REFRESH_STEPS);
+    }
+
+    public boolean isWarmingUp(ServiceInstance instance, long nowMillis) {
+        return factor(instance, nowMillis) < 1.0;
+    }
+
+    private static long parse(String startupTime) {
+        try {
+            return Long.parseLong(startupTime.trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+}
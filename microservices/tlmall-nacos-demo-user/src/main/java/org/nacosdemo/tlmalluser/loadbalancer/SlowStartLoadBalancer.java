@@ -0,0 +1,81 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 预热（slow-start）装饰器，只对选择过程无状态的策略生效：随机、二选一（LeastRequest）、PeakEwma
+ * <p>
+ * 被装饰的策略选中一个仍在预热窗口内的实例时，按 {@link SlowStart#factor} 的概率接受，
+ * 否则让被装饰的策略重新选择，最多选 MAX_ATTEMPTS 次。这样新实例分到的流量约为正常份额 × factor，
+ * 而各策略自己的选择逻辑保持不变
+ * <p>
+ * 其它策略直接交给被装饰的策略选择一次，不做拒绝和重新选择：
+ * - 轮询、加权轮询每次选择都会推进位置（SmoothWeightedRoundRobin的调度表下标），被拒绝的选择同样占掉一个位置，
+ *   打乱的是所有实例之间的比例，而不只是压低新实例；加权轮询改为把factor乘到调度表的权重上，见 {@link WeightedSchedule}
+ * - IPHash 这类确定性的策略重新选择仍会得到同一个实例，粘性路由优先于预热
+ * 被装饰的是 {@link SwitchableLoadBalancer} 时，每次按它当前的策略判断
+ * <p>
+ * 注意：被拒绝的选择同样会触发实例列表的 SelectedInstanceCallback，不要与依赖它的Supplier（例如同实例优先）一起使用
+ */
+public class SlowStartLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    // 包括第一次在内，最多选择的次数
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ReactorServiceInstanceLoadBalancer delegate;
+
+    private final SlowStart slowStart;
+
+    public SlowStartLoadBalancer(ReactorServiceInstanceLoadBalancer delegate, SlowStart slowStart) {
+        this.delegate = delegate;
+        this.slowStart = slowStart;
+    }
+
+    public ReactorServiceInstanceLoadBalancer getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 该策略的选择过程是否无状态，可以拒绝后重新选择
+     */
+    public static boolean supportsRetry(ReactorServiceInstanceLoadBalancer loadBalancer) {
+        return loadBalancer instanceof RandomLoadBalancer
+                || loadBalancer instanceof LeastRequestLoadBalancer
+                || loadBalancer instanceof PeakEwmaLoadBalancer;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ReactorServiceInstanceLoadBalancer target = delegate instanceof SwitchableLoadBalancer
+                ? ((SwitchableLoadBalancer) delegate).getDelegate()
+                : delegate;
+        if (!supportsRetry(target)) {
+            return target.choose(request);
+        }
+        return target.choose(request).flatMap(response -> admit(target, request, response, 1));
+    }
+
+    private Mono<Response<ServiceInstance>> admit(ReactorServiceInstanceLoadBalancer target, Request request,
+                                                  Response<ServiceInstance> response, int attempt) {
+        if (attempt >= MAX_ATTEMPTS || accept(response)) {
+            return Mono.just(response);
+        }
+        // 无状态的策略重新选到同一个实例时同样按factor判断，直接接受会把新实例的份额抬高到接近正常份额
+        return target.choose(request).flatMap(next -> admit(target, request, next, attempt + 1));
+    }
+
+    private boolean accept(Response<ServiceInstance> response) {
+        if (!response.hasServer()) {
+            return true;
+        }
+        double factor = slowStart.factor(response.getServer(), System.currentTimeMillis());
+        return factor >= 1.0 || ThreadLocalRandom.current().nextDouble() < factor;
+    }
+}
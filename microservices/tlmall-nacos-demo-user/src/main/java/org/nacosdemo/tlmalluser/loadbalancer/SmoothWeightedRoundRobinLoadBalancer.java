@@ -0,0 +1,104 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按实例元数据权重做平滑加权轮询（nginx smooth weighted round-robin）
+ * <p>
+ * spring.cloud.loadbalancer.nacos.enabled=false 时，Nacos实例权重和元数据 weight 都不会被任何负载均衡器读取，
+ * 这个负载均衡器读取它们（见 {@link ServiceInstanceWeights}），让配置更高的实例分到更多流量
+ * <p>
+ * 调度表在实例列表变化时预计算一次（见 {@link WeightedSchedule}），choose() 只做一次原子自增和数组下标访问
+ * <p>
+ * 给定 {@link SlowStart} 时，新启动实例的预热体现在调度表的权重上，每次选择仍只调用一次；
+ * 不能再用 SlowStartLoadBalancer 拒绝后重新选择，那样每次被拒绝的选择都会推进轮询位置，打乱所有实例的比例
+ */
+public class SmoothWeightedRoundRobinLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Log log = LogFactory.getLog(SmoothWeightedRoundRobinLoadBalancer.class);
+
+    private final String serviceId;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    // 可以为null，表示不预热
+    private final SlowStart slowStart;
+
+    // 从随机位置开始，避免所有客户端同时从第一个实例开始轮询
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+    // 最近一次实例列表快照对应的调度表，实例列表和权重不变时直接复用
+    private final AtomicReference<WeightedSchedule> scheduleRef = new AtomicReference<>();
+
+    public SmoothWeightedRoundRobinLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId) {
+        this(serviceInstanceListSupplierProvider, serviceId, null);
+    }
+
+    public SmoothWeightedRoundRobinLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId, SlowStart slowStart) {
+        this.serviceId = serviceId;
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.slowStart = slowStart;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next()
+                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+    }
+
+    private Response<ServiceInstance> processInstanceResponse(
+            ServiceInstanceListSupplier supplier,
+            List<ServiceInstance> serviceInstances) {
+        Response<ServiceInstance> serviceInstanceResponse = getInstanceResponse(serviceInstances);
+        if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
+            ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
+        }
+        return serviceInstanceResponse;
+    }
+
+    private Response<ServiceInstance> getInstanceResponse(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("No servers available for service: " + this.serviceId);
+            }
+            return new EmptyResponse();
+        }
+        ServiceInstance instance = getSchedule(instances).select(position.getAndIncrement());
+        return new DefaultResponse(instance);
+    }
+
+    private WeightedSchedule getSchedule(List<ServiceInstance> instances) {
+        long now = System.currentTimeMillis();
+        WeightedSchedule schedule = scheduleRef.get();
+        if (schedule != null && schedule.isBuiltFrom(instances, now)) {
+            return schedule;
+        }
+        // 实例列表或权重发生变化，或者预热中实例的factor需要更新，重建调度表；并发重建时结果相同，后写入者覆盖即可
+        schedule = WeightedSchedule.build(instances, slowStart, now);
+        scheduleRef.set(schedule);
+        return schedule;
+    }
+}
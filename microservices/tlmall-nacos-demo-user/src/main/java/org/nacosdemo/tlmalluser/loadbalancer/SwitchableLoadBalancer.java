@@ -0,0 +1,115 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 可以在运行时切换策略的负载均衡器，用于策略的A/B对比和快速回滚
+ * <p>
+ * 当前策略保存在AtomicReference中，每次 choose() 只读取一次：
+ * - 切换只是一次引用替换，不需要重建 LoadBalancerClientFactory 的子容器，子容器中的实例列表、指标等Bean保持不变
+ * - 切换前已经开始的选择仍由旧策略完成，之后的请求使用新策略，不会丢弃在途请求
+ * - 每种策略的实例第一次使用时创建并缓存，切回旧策略时复用它的状态（哈希环、轮询位置等）
+ * <p>
+ * 切换由 LoadBalancerStrategySwitcher 在配置 tlmall.lb.&lt;下游服务名&gt;.strategy 变化时触发（Nacos配置中心推送或 /actuator/refresh）
+ */
+@Slf4j
+public class SwitchableLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final String serviceId;
+
+    private final Function<LoadBalancerStrategy, ReactorServiceInstanceLoadBalancer> factory;
+
+    private final Map<LoadBalancerStrategy, ReactorServiceInstanceLoadBalancer> delegates = new ConcurrentHashMap<>();
+
+    private final AtomicReference<Selection> current;
+
+    public SwitchableLoadBalancer(
+            String serviceId,
+            LoadBalancerStrategy initialStrategy,
+            Function<LoadBalancerStrategy, ReactorServiceInstanceLoadBalancer> factory) {
+        this.serviceId = serviceId;
+        this.factory = factory;
+        this.current = new AtomicReference<>(new Selection(initialStrategy, delegate(initialStrategy)));
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        return current.get().delegate.choose(request);
+    }
+
+    public LoadBalancerStrategy getStrategy() {
+        return current.get().strategy;
+    }
+
+    /**
+     * 当前策略的负载均衡器
+     */
+    public ReactorServiceInstanceLoadBalancer getDelegate() {
+        return current.get().delegate;
+    }
+
+    /**
+     * 切换到配置值对应的策略；名称未知时保持当前策略并返回false
+     */
+    public boolean switchTo(String strategyName) {
+        LoadBalancerStrategy strategy = LoadBalancerStrategy.from(strategyName);
+        if (strategy == null) {
+            log.warn("下游{}的负载均衡策略{}未知，继续使用{}", serviceId, strategyName, getStrategy().getName());
+            return false;
+        }
+        switchTo(strategy);
+        return true;
+    }
+
+    public void switchTo(LoadBalancerStrategy strategy) {
+        Selection next = new Selection(strategy, delegate(strategy));
+        Selection previous = current.getAndSet(next);
+        if (previous.strategy != strategy) {
+            log.info("下游{}的负载均衡策略已切换: {} -> {}", serviceId, previous.strategy.getName(), strategy.getName());
+        }
+    }
+
+    private ReactorServiceInstanceLoadBalancer delegate(LoadBalancerStrategy strategy) {
+        return delegates.computeIfAbsent(strategy, factory);
+    }
+
+    /**
+     * 去掉预热、指标等装饰器，找到其中的 SwitchableLoadBalancer；没有时返回null
+     */
+    public static SwitchableLoadBalancer unwrap(ReactorServiceInstanceLoadBalancer loadBalancer) {
+        ReactorServiceInstanceLoadBalancer current = loadBalancer;
+        while (current != null) {
+            if (current instanceof SwitchableLoadBalancer) {
+                return (SwitchableLoadBalancer) current;
+            } else if (current instanceof SlowStartLoadBalancer) {
+                current = ((SlowStartLoadBalancer) current).getDelegate();
+            } else if (current instanceof InstrumentedLoadBalancer) {
+                current = ((InstrumentedLoadBalancer) current).getDelegate();
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // 策略和它的实例一起替换，保证读到的是同一次切换的结果
+    private static final class Selection {
+        private final LoadBalancerStrategy strategy;
+        private final ReactorServiceInstanceLoadBalancer delegate;
+
+        private Selection(LoadBalancerStrategy strategy, ReactorServiceInstanceLoadBalancer delegate) {
+            this.strategy = strategy;
+            this.delegate = delegate;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 平滑加权轮询（nginx smooth weighted round-robin）的预计算调度表（不可变）
+ * <p>
+ * 实例列表变化时按nginx算法把一个完整周期的选择顺序展开成数组，
+ * 之后每次选择只需 table[counter++ % length]，O(1) 且不需要加锁；
+ * nginx 原算法每次选择都要修改所有实例的 current_weight，必须加全局锁
+ * <p>
+ * 以权重 {a:5, b:1, c:1} 为例，一个周期的顺序是 a a b a c a a，而不是 a a a a a b c
+ * <p>
+ * 给定 {@link SlowStart} 时，预热中实例的权重乘以它当前的 factor；factor 随时间增长，
+ * 因此这样的调度表只在 {@link SlowStart#refreshIntervalMillis()} 内有效，之后按新的 factor 重建
+ */
+final class WeightedSchedule {
+
+    // 调度表长度上限，超过时按比例缩小各实例权重
+    static final int MAX_TABLE_SIZE = 1 << 16;
+
+    // 按nginx算法展开的计算量上限（实例数 × 表长），超过时改用步长（stride）交错排列，平滑效果近似
+    private static final long MAX_EXACT_WORK = 1 << 22;
+
+    // 构建该调度表所用的实例列表快照
+    private final List<ServiceInstance> source;
+    private final long sourceVersion;
+    private final String[] hosts;
+    private final int[] ports;
+    private final int[] weights;
+    // 有预热中的实例时，调度表在此时刻之后失效
+    private final long validUntilMillis;
+
+    private final ServiceInstance[] instances;
+
+    // 一个周期内依次选中的实例下标；为 null 表示各实例权重相同，直接轮询
+    private final int[] table;
+
+    private WeightedSchedule(List<ServiceInstance> source, String[] hosts, int[] ports, int[] weights,
+                             long validUntilMillis, ServiceInstance[] instances, int[] table) {
+        this.source = source;
+        this.sourceVersion = ServiceInstanceListSnapshot.versionOf(source);
+        this.hosts = hosts;
+        this.ports = ports;
+        this.weights = weights;
+        this.validUntilMillis = validUntilMillis;
+        this.instances = instances;
+        this.table = table;
+    }
+
+    static WeightedSchedule build(List<ServiceInstance> source) {
+        return build(source, null, 0);
+    }
+
+    static WeightedSchedule build(List<ServiceInstance> source, SlowStart slowStart, long nowMillis) {
+        int size = source.size();
+        String[] hosts = new String[size];
+        int[] ports = new int[size];
+        int[] weights = new int[size];
+        // 乘以预热factor之后的权重，只用于生成调度表；weights保留实例本身的权重，用于判断列表是否变化
+        int[] scaled = new int[size];
+        boolean warmingUp = false;
+        for (int i = 0; i < size; i++) {
+            ServiceInstance instance = source.get(i);
+            hosts[i] = instance.getHost();
+            ports[i] = instance.getPort();
+            weights[i] = ServiceInstanceWeights.of(instance);
+            scaled[i] = weights[i];
+            double factor = slowStart == null ? 1.0 : slowStart.factor(instance, nowMillis);
+            if (factor < 1.0 && weights[i] > 0) {
+                scaled[i] = (int) Math.max(1, Math.round(weights[i] * factor));
+                warmingUp = true;
+            }
+        }
+        long validUntilMillis = warmingUp ? nowMillis + slowStart.refreshIntervalMillis() : Long.MAX_VALUE;
+
+        // 权重为0的实例不参与分配流量；全部为0时退化为等权轮询
+        int positive = 0;
+        for (int weight : scaled) {
+            if (weight > 0) {
+                positive++;
+            }
+        }
+        ServiceInstance[] instances = new ServiceInstance[positive == 0 ? size : positive];
+        int[] effective = new int[instances.length];
+        for (int i = 0, n = 0; i < size; i++) {
+            if (positive == 0 || scaled[i] > 0) {
+                instances[n] = source.get(i);
+                effective[n] = positive == 0 ? 1 : scaled[i];
+                n++;
+            }
+        }
+
+        int[] table = buildTable(effective);
+        return new WeightedSchedule(source, hosts, ports, weights, validUntilMillis, instances, table);
+    }
+
+    ServiceInstance select(int sequence) {
+        int position = sequence & Integer.MAX_VALUE;
+        if (table == null) {
+            return instances[position % instances.length];
+        }
+        return instances[table[position % table.length]];
+    }
+
+    /**
+     * 判断调度表是否由这份实例列表构建（同一引用、同一版本的快照，或者相同顺序的 host:port 且权重未变）
+     * <p>
+     * 快照的任何变化（包括只改了权重）都会产生新版本，因此两边都是快照时只比较版本号
+     */
+    boolean isBuiltFrom(List<ServiceInstance> candidates, long nowMillis) {
+        return nowMillis < validUntilMillis && isBuiltFrom(candidates);
+    }
+
+    boolean isBuiltFrom(List<ServiceInstance> candidates) {
+        if (candidates == source) {
+            return true;
+        }
+        long version = ServiceInstanceListSnapshot.versionOf(candidates);
+        if (version >= 0 && sourceVersion >= 0) {
+            return version == sourceVersion;
+        }
+        if (candidates.size() != hosts.length) {
+            return false;
+        }
+        for (int i = 0; i < hosts.length; i++) {
+            ServiceInstance instance = candidates.get(i);
+            if (instance.getPort() != ports[i] || !hosts[i].equals(instance.getHost())
+                    || ServiceInstanceWeights.of(instance) != weights[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] buildTable(int[] weights) {
+        if (weights.length == 0 || allEqual(weights)) {
+            return null;
+        }
+
+        // 按最大公约数约分，再把总权重限制在表长上限之内
+        int gcd = 0;
+        for (int weight : weights) {
+            gcd = gcd(gcd, weight);
+        }
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= gcd;
+            total += weights[i];
+        }
+        if (total > MAX_TABLE_SIZE) {
+            double scale = (double) MAX_TABLE_SIZE / total;
+            total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = Math.max(1, (int) (weights[i] * scale));
+                total += weights[i];
+            }
+        }
+
+        if (total * weights.length <= MAX_EXACT_WORK) {
+            return smoothTable(weights, (int) total);
+        }
+        return strideTable(weights, (int) total);
+    }
+
+    // nginx 平滑加权轮询：每轮所有实例 current += weight，选 current 最大者，并将其 current -= total
+    private static int[] smoothTable(int[] weights, int total) {
+        int[] table = new int[total];
+        long[] current = new long[weights.length];
+        for (int step = 0; step < total; step++) {
+            int best = 0;
+            for (int i = 0; i < weights.length; i++) {
+                current[i] += weights[i];
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            table[step] = best;
+        }
+        return table;
+    }
+
+    // 实例很多时的近似：第 i 个实例的第 j 次出现放在 (j + 0.5) / weight[i] 处，按位置排序后交错排列
+    private static int[] strideTable(int[] weights, int total) {
+        long[] slots = new long[total];
+        int n = 0;
+        for (int i = 0; i < weights.length; i++) {
+            for (int j = 0; j < weights[i]; j++) {
+                double position = (j + 0.5) / weights[i];
+                // 高位放位置（[0,1)映射到31位整数），低位放实例下标
+                slots[n++] = ((long) (position * Integer.MAX_VALUE) << 32) | i;
+            }
+        }
+        Arrays.sort(slots);
+        int[] table = new int[total];
+        for (int k = 0; k < total; k++) {
+            table[k] = (int) slots[k];
+        }
+        return table;
+    }
+
+    private static boolean allEqual(int[] weights) {
+        for (int weight : weights) {
+            if (weight != weights[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,149 @@
+package org.nacosdemo.tlmalluser.loadbalancer.supplier;
+
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.cloud.nacos.discovery.NacosServiceDiscovery;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.Event;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 由Nacos推送驱动的实例列表
+ * <p>
+ * 启动时通过 NacosServiceManager 拿到 NamingService 订阅下游服务，实例变化时在Nacos的通知线程上
+ * 生成新的 {@link ServiceInstanceListSnapshot}（版本号加一）放入 AtomicReference；过滤后的列表与当前快照相同时不生成新版本。
+ * choose() 调用 get() 时只读一次 AtomicReference，直接返回快照预先构建好的Flux，
+ * 不再经过 DiscoveryClient，也不产生对象分配
+ * <p>
+ * 订阅失败或者还没有拿到第一份实例列表时，退回到委托的 Supplier（DiscoveryClient）
+ */
+public class NacosPushServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private static final Log log = LogFactory.getLog(NacosPushServiceInstanceListSupplier.class);
+
+    private final NacosServiceManager nacosServiceManager;
+
+    private final String groupName;
+
+    private final AtomicReference<ServiceInstanceListSnapshot> snapshotRef = new AtomicReference<>();
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private final EventListener listener = this::onEvent;
+
+    public NacosPushServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+                                                NacosServiceManager nacosServiceManager,
+                                                String groupName) {
+        super(delegate);
+        this.nacosServiceManager = nacosServiceManager;
+        this.groupName = groupName;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        ServiceInstanceListSnapshot snapshot = snapshotRef.get();
+        return snapshot != null ? snapshot.asFlux() : delegate.get();
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        ServiceInstanceListSnapshot snapshot = snapshotRef.get();
+        return snapshot != null ? snapshot.asFlux() : delegate.get(request);
+    }
+
+    /**
+     * 当前快照，还没有收到实例列表时返回 null
+     */
+    public ServiceInstanceListSnapshot getSnapshot() {
+        return snapshotRef.get();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        super.afterPropertiesSet();
+        // RetryAwareServiceInstanceListSupplier 等外层Supplier也会级联调用这里，只订阅一次
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            NamingService namingService = nacosServiceManager.getNamingService();
+            namingService.subscribe(getServiceId(), groupName, listener);
+            // 订阅后通常会立即收到一次推送；这里再主动查一次，保证第一份快照尽快就绪。
+            // 查询期间可能已经收到推送，推送的数据不比查询结果旧，所以只在仍然没有快照时写入
+            if (snapshotRef.get() == null) {
+                List<ServiceInstance> instances = toServiceInstances(
+                        namingService.selectInstances(getServiceId(), groupName, true));
+                snapshotRef.compareAndSet(null, new ServiceInstanceListSnapshot(1L, instances));
+            }
+        }
+        catch (NacosException | RuntimeException e) {
+            subscribed.set(false);
+            log.warn("Subscribe to " + getServiceId() + " failed, fall back to discovery client", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (subscribed.compareAndSet(true, false)) {
+            try {
+                nacosServiceManager.getNamingService().unsubscribe(getServiceId(), groupName, listener);
+            }
+            catch (NacosException | RuntimeException e) {
+                log.warn("Unsubscribe from " + getServiceId() + " failed", e);
+            }
+        }
+        super.destroy();
+    }
+
+    private void onEvent(Event event) {
+        if (event instanceof NamingEvent) {
+            update(((NamingEvent) event).getInstances());
+        }
+    }
+
+    private void update(List<Instance> hosts) {
+        List<ServiceInstance> instances = toServiceInstances(hosts);
+
+        ServiceInstanceListSnapshot current;
+        ServiceInstanceListSnapshot next;
+        do {
+            current = snapshotRef.get();
+            if (current != null && current.hasSameInstances(instances)) {
+                // 过滤后的实例列表没有变化（例如变化的只是被过滤掉的不健康实例），保留当前快照和版本号
+                return;
+            }
+            next = new ServiceInstanceListSnapshot(current == null ? 1L : current.getVersion() + 1, instances);
+        } while (!snapshotRef.compareAndSet(current, next));
+
+        if (log.isDebugEnabled()) {
+            log.debug("Instances of " + getServiceId() + " changed, version " + next.getVersion()
+                    + ", size " + next.size());
+        }
+    }
+
+    private List<ServiceInstance> toServiceInstances(List<Instance> hosts) {
+        // 与 NamingService.selectInstances(healthy = true) 的过滤条件保持一致
+        List<Instance> available = new ArrayList<>(hosts.size());
+        for (Instance host : hosts) {
+            if (host.isHealthy() && host.isEnabled() && host.getWeight() > 0) {
+                available.add(host);
+            }
+        }
+        return NacosServiceDiscovery.hostToServiceInstanceList(available, getServiceId());
+    }
+}
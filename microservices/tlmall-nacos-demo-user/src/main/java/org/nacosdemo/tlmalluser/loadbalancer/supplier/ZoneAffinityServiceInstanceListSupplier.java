@@ -0,0 +1,152 @@
+package org.nacosdemo.tlmalluser.loadbalancer.supplier;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 同集群/同地域优先的实例列表过滤
+ * <p>
+ * 按以下顺序选出候选实例，前一级的本地容量足够时就不再往下走：
+ * (1) 与调用方 cluster-name 相同的实例（Nacos实例元数据 nacos.cluster）
+ * (2) 与调用方 metadata.region 相同的实例
+ * (3) 全部实例（跨区溢出）
+ * <p>
+ * "容量足够"：本地健康实例数 ≥ max(1, ceil(全部健康实例数 × minLocalRatio))。
+ * 本地实例大量宕机时会自动溢出到其它区，而不是把剩下的少量本地实例压垮
+ * <p>
+ * 过滤结果按实例列表快照缓存：上游返回同一个列表对象，或者 host:port 顺序与元数据都相同的列表时直接复用，
+ * 每次请求不产生新的列表。上游是 {@link ServiceInstanceListSnapshot} 时只按版本号判断，
+ * 新版本的快照即使 host:port 相同（例如只有健康状态、集群等元数据变化）也会重新过滤
+ */
+public class ZoneAffinityServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    public static final String CLUSTER = "nacos.cluster";
+
+    public static final String HEALTHY = "nacos.healthy";
+
+    public static final String REGION = "region";
+
+    private final String localCluster;
+
+    private final String localRegion;
+
+    private final double minLocalRatio;
+
+    // 最近一次的过滤结果
+    private final AtomicReference<Partition> partitionRef = new AtomicReference<>();
+
+    public ZoneAffinityServiceInstanceListSupplier(ServiceInstanceListSupplier delegate,
+                                                   String localCluster, String localRegion,
+                                                   double minLocalRatio) {
+        super(delegate);
+        this.localCluster = localCluster;
+        this.localRegion = localRegion;
+        this.minLocalRatio = minLocalRatio;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(this::filter);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(this::filter);
+    }
+
+    private List<ServiceInstance> filter(List<ServiceInstance> instances) {
+        Partition partition = partitionRef.get();
+        if (partition != null && partition.isBuiltFrom(instances)) {
+            return partition.result;
+        }
+        List<ServiceInstance> result = partition(instances);
+        partitionRef.set(new Partition(instances, result));
+        return result;
+    }
+
+    private List<ServiceInstance> partition(List<ServiceInstance> instances) {
+        List<ServiceInstance> healthy = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!"false".equals(metadata(instance, HEALTHY))) {
+                healthy.add(instance);
+            }
+        }
+        if (healthy.isEmpty()) {
+            // 没有健康实例时原样返回，交给负载均衡器和下游重试处理
+            return instances;
+        }
+        int required = Math.max(1, (int) Math.ceil(healthy.size() * minLocalRatio));
+
+        List<ServiceInstance> sameCluster = select(healthy, CLUSTER, localCluster);
+        if (sameCluster.size() >= required) {
+            return sameCluster;
+        }
+        List<ServiceInstance> sameRegion = select(healthy, REGION, localRegion);
+        if (sameRegion.size() >= required) {
+            return sameRegion;
+        }
+        return Collections.unmodifiableList(healthy);
+    }
+
+    private static List<ServiceInstance> select(List<ServiceInstance> instances, String key, String expected) {
+        if (expected == null || expected.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ServiceInstance> selected = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (Objects.equals(expected, metadata(instance, key))) {
+                selected.add(instance);
+            }
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    private static String metadata(ServiceInstance instance, String key) {
+        Map<String, String> metadata = instance.getMetadata();
+        return metadata == null ? null : metadata.get(key);
+    }
+
+    private static final class Partition {
+        private final List<ServiceInstance> source;
+        private final List<ServiceInstance> result;
+
+        private Partition(List<ServiceInstance> source, List<ServiceInstance> result) {
+            this.source = source;
+            this.result = result;
+        }
+
+        // 快照按版本判断（新版本即重建）；普通列表要求相同顺序的 host:port 且元数据（健康状态、集群、地域、权重等）相同，
+        // 否则会把旧实例对象连同过期的元数据一起返回
+        private boolean isBuiltFrom(List<ServiceInstance> instances) {
+            if (instances == source) {
+                return true;
+            }
+            if (source instanceof ServiceInstanceListSnapshot && instances instanceof ServiceInstanceListSnapshot) {
+                return ServiceInstanceListSnapshot.versionOf(instances) == ServiceInstanceListSnapshot.versionOf(source);
+            }
+            if (instances.size() != source.size()) {
+                return false;
+            }
+            for (int i = 0; i < source.size(); i++) {
+                ServiceInstance instance = instances.get(i);
+                ServiceInstance previous = source.get(i);
+                if (instance.getPort() != previous.getPort() || !Objects.equals(instance.getHost(), previous.getHost())
+                        || !Objects.equals(instance.getMetadata(), previous.getMetadata())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预加载任务的执行上下文：只能读取自己声明依赖的任务的结果
+ * <p>
+ * 读取未声明依赖的任务会直接失败，避免任务之间出现没有写进DAG的隐式依赖
+ */
+public final class PreloadContext {
+
+    private final PreloadTask task;
+    private final Map<String, Object> results;
+
+    PreloadContext(PreloadTask task, Map<String, Object> results) {
+        this.task = task;
+        this.results = results;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String taskName) {
+        Set<String> dependsOn = task.getDependsOn();
+        if (!dependsOn.contains(taskName)) {
+            throw new IllegalArgumentException(
+                    "Preload task '" + task.getName() + "' does not depend on '" + taskName + "'");
+        }
+        Object value = results.get(taskName);
+        return value == PreloadDagRunner.NULL_RESULT ? null : (T) value;
+    }
+
+    public String getTaskName() {
+        return task.getName();
+    }
+}
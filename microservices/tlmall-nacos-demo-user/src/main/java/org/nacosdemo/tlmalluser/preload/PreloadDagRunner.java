@@ -0,0 +1,171 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 按依赖关系（DAG）并行执行启动预加载任务
+ * <p>
+ * - 执行前校验：任务名不能重复、依赖必须存在、不能有环
+ * - 每个任务在其全部依赖完成后立即提交，彼此独立的任务并行执行，总耗时约等于关键路径的耗时
+ * - 加载逻辑提交到executor执行并按任务超时等待，超时后中断加载线程并转入fallback
+ * - 依赖的任务失败（且没有fallback）时，下游任务标记为SKIPPED，不再执行
+ * <p>
+ * 等待超时的一方同样占用executor的线程，配合虚拟线程executor使用时这部分开销可以忽略
+ */
+public final class PreloadDagRunner {
+
+    // ConcurrentHashMap不允许null值，加载结果为null时用它占位
+    static final Object NULL_RESULT = new Object();
+
+    private final ExecutorService executor;
+
+    public PreloadDagRunner(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public PreloadReport run(Collection<PreloadTask> tasks) {
+        List<PreloadTask> ordered = topologicalOrder(tasks);
+        Map<String, Object> results = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<PreloadReport.TaskTiming>> futures = new HashMap<>();
+        long startNanos = System.nanoTime();
+
+        for (PreloadTask task : ordered) {
+            List<CompletableFuture<PreloadReport.TaskTiming>> upstream = new ArrayList<>();
+            for (String dependency : task.getDependsOn()) {
+                upstream.add(futures.get(dependency));
+            }
+            CompletableFuture<PreloadReport.TaskTiming> future = CompletableFuture
+                    .allOf(upstream.toArray(new CompletableFuture<?>[0]))
+                    .thenApplyAsync(ignored -> execute(task, upstream, results, startNanos), executor);
+            futures.put(task.getName(), future);
+        }
+
+        List<PreloadReport.TaskTiming> timings = new ArrayList<>(ordered.size());
+        for (PreloadTask task : ordered) {
+            timings.add(futures.get(task.getName()).join());
+        }
+        return new PreloadReport(timings, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), results);
+    }
+
+    private PreloadReport.TaskTiming execute(PreloadTask task,
+                                             List<CompletableFuture<PreloadReport.TaskTiming>> upstream,
+                                             Map<String, Object> results, long startNanos) {
+        long begin = System.nanoTime();
+        long startOffset = TimeUnit.NANOSECONDS.toMillis(begin - startNanos);
+        for (CompletableFuture<PreloadReport.TaskTiming> dependency : upstream) {
+            PreloadReport.TaskTiming timing = dependency.join();
+            if (timing.getStatus() == PreloadReport.Status.FAILED
+                    || timing.getStatus() == PreloadReport.Status.SKIPPED) {
+                IllegalStateException cause = new IllegalStateException(
+                        "dependency '" + timing.getName() + "' " + timing.getStatus());
+                return new PreloadReport.TaskTiming(task.getName(), PreloadReport.Status.SKIPPED,
+                        task.isRequired(), startOffset, 0, cause);
+            }
+        }
+
+        PreloadContext context = new PreloadContext(task, results);
+        Future<Object> loading = executor.submit(() -> task.getLoader().load(context));
+        Throwable error;
+        try {
+            Object value = loading.get(task.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            results.put(task.getName(), value == null ? NULL_RESULT : value);
+            return timing(task, PreloadReport.Status.SUCCESS, startOffset, begin, null);
+        } catch (TimeoutException e) {
+            loading.cancel(true);
+            error = new TimeoutException("timed out after " + task.getTimeout().toMillis() + "ms");
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        } catch (InterruptedException e) {
+            loading.cancel(true);
+            Thread.currentThread().interrupt();
+            error = e;
+        }
+
+        Function<Throwable, ?> fallback = task.getFallback();
+        if (fallback == null) {
+            return timing(task, PreloadReport.Status.FAILED, startOffset, begin, error);
+        }
+        try {
+            Object value = fallback.apply(error);
+            results.put(task.getName(), value == null ? NULL_RESULT : value);
+            return timing(task, PreloadReport.Status.FALLBACK, startOffset, begin, error);
+        } catch (RuntimeException e) {
+            e.addSuppressed(error);
+            return timing(task, PreloadReport.Status.FAILED, startOffset, begin, e);
+        }
+    }
+
+    private static PreloadReport.TaskTiming timing(PreloadTask task, PreloadReport.Status status,
+                                                   long startOffset, long begin, Throwable error) {
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        return new PreloadReport.TaskTiming(task.getName(), status, task.isRequired(), startOffset, duration, error);
+    }
+
+    /**
+     * Kahn算法拓扑排序，同时完成重名、缺失依赖和环的校验
+     */
+    static List<PreloadTask> topologicalOrder(Collection<PreloadTask> tasks) {
+        Map<String, PreloadTask> byName = new LinkedHashMap<>();
+        for (PreloadTask task : tasks) {
+            if (byName.put(task.getName(), task) != null) {
+                throw new IllegalStateException("Duplicate preload task: " + task.getName());
+            }
+        }
+
+        Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, List<PreloadTask>> dependents = new HashMap<>();
+        for (PreloadTask task : byName.values()) {
+            inDegree.put(task.getName(), task.getDependsOn().size());
+            for (String dependency : task.getDependsOn()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalStateException(
+                            "Preload task '" + task.getName() + "' depends on unknown task '" + dependency + "'");
+                }
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(task);
+            }
+        }
+
+        Deque<PreloadTask> ready = new ArrayDeque<>();
+        for (PreloadTask task : byName.values()) {
+            if (task.getDependsOn().isEmpty()) {
+                ready.add(task);
+            }
+        }
+        List<PreloadTask> ordered = new ArrayList<>(byName.size());
+        while (!ready.isEmpty()) {
+            PreloadTask task = ready.poll();
+            ordered.add(task);
+            for (PreloadTask dependent : dependents.getOrDefault(task.getName(), new ArrayList<>())) {
+                if (inDegree.merge(dependent.getName(), -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (ordered.size() != byName.size()) {
+            List<String> cyclic = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+                if (entry.getValue() > 0) {
+                    cyclic.add(entry.getKey());
+                }
+            }
+            throw new IllegalStateException("Preload tasks contain a dependency cycle: " + cyclic);
+        }
+        return ordered;
+    }
+}
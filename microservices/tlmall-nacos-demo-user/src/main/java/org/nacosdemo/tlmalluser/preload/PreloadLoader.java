@@ -0,0 +1,17 @@
+package org.nacosdemo.tlmalluser.preload;
+
+/**
+ * 启动预加载任务的加载逻辑
+ * <p>
+ * 在虚拟线程上执行，可以直接使用阻塞式调用（RestTemplate、JDBC等）；
+ * 任务超时后执行线程会被中断，加载逻辑应当响应中断
+ */
+@FunctionalInterface
+public interface PreloadLoader {
+
+    /**
+     * @param context 通过它读取所依赖任务的加载结果
+     * @return 加载结果，可以为null
+     */
+    Object load(PreloadContext context) throws Exception;
+}
@@ -0,0 +1,157 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次启动预加载的耗时报告
+ * <p>
+ * 每个任务记录相对预加载开始时刻的启动偏移和执行耗时，可以直接看出：
+ * - 哪些任务真正并行执行了（启动偏移相同）
+ * - 哪条依赖链决定了总耗时（关键路径）
+ */
+public final class PreloadReport {
+
+    public enum Status {
+        SUCCESS,
+        // 加载失败或超时，使用了fallback结果
+        FALLBACK,
+        FAILED,
+        // 依赖的任务失败，未执行
+        SKIPPED
+    }
+
+    public static final class TaskTiming {
+        private final String name;
+        private final Status status;
+        private final boolean required;
+        private final long startOffsetMillis;
+        private final long durationMillis;
+        private final Throwable error;
+
+        TaskTiming(String name, Status status, boolean required,
+                   long startOffsetMillis, long durationMillis, Throwable error) {
+            this.name = name;
+            this.status = status;
+            this.required = required;
+            this.startOffsetMillis = startOffsetMillis;
+            this.durationMillis = durationMillis;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+
+        public long getStartOffsetMillis() {
+            return startOffsetMillis;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getEndOffsetMillis() {
+            return startOffsetMillis + durationMillis;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        boolean isBlocking() {
+            return required && (status == Status.FAILED || status == Status.SKIPPED);
+        }
+    }
+
+    private final List<TaskTiming> tasks;
+    private final long totalMillis;
+    private final Map<String, Object> values;
+
+    PreloadReport(List<TaskTiming> tasks, long totalMillis, Map<String, Object> values) {
+        List<TaskTiming> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparingLong(TaskTiming::getStartOffsetMillis)
+                .thenComparing(TaskTiming::getName));
+        this.tasks = Collections.unmodifiableList(sorted);
+        this.totalMillis = totalMillis;
+        this.values = values;
+    }
+
+    /**
+     * 任务的加载结果（包括fallback结果），结果为null或任务失败时返回null
+     */
+    public Object getValue(String name) {
+        Object value = values.get(name);
+        return value == PreloadDagRunner.NULL_RESULT ? null : value;
+    }
+
+    public List<TaskTiming> getTasks() {
+        return tasks;
+    }
+
+    public TaskTiming getTask(String name) {
+        for (TaskTiming task : tasks) {
+            if (task.name.equals(name)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * 所有任务串行执行时的耗时之和，与 {@link #getTotalMillis()} 对比即为并行带来的收益
+     */
+    public long getSerialMillis() {
+        long sum = 0;
+        for (TaskTiming task : tasks) {
+            sum += task.durationMillis;
+        }
+        return sum;
+    }
+
+    /**
+     * 所有必需任务都成功（或使用了fallback）时才允许注册到Nacos
+     */
+    public boolean isSuccessful() {
+        for (TaskTiming task : tasks) {
+            if (task.isBlocking()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("启动预加载完成: %d个任务, 总耗时%dms, 串行耗时%dms%n",
+                tasks.size(), totalMillis, getSerialMillis()));
+        sb.append(String.format("  %-24s %-8s %10s %10s  %s%n", "task", "status", "start(ms)", "cost(ms)", "error"));
+        for (TaskTiming task : tasks) {
+            String error = task.error == null ? "" : String.valueOf(task.error);
+            sb.append(String.format("  %-24s %-8s %10d %10d  %s%n",
+                    task.required ? task.name : task.name + "?", task.status,
+                    task.startOffsetMillis, task.durationMillis, error));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
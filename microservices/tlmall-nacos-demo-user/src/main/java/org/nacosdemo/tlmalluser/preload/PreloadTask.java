@@ -0,0 +1,160 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 声明式的启动预加载任务（不可变）
+ * <p>
+ * 以Bean的形式声明即可被 {@link StartupPreloader} 收集执行：
+ * <pre>
+ * &#64;Bean
+ * public PreloadTask orderData(RestTemplate restTemplate) {
+ *     return PreloadTask.builder("orderData")
+ *             .dependsOn("dictionary")
+ *             .timeout(Duration.ofSeconds(10))
+ *             .loader(context -&gt; restTemplate.getForObject(url, Result.class))
+ *             .fallback(e -&gt; Result.failed("兜底数据"))
+ *             .build();
+ * }
+ * </pre>
+ * - dependsOn：依赖的任务全部完成后才会开始执行，没有依赖关系的任务并行执行
+ * - timeout：超时后中断加载，转入fallback
+ * - fallback：加载失败或超时时提供兜底结果，依赖它的任务照常执行
+ * - required：没有fallback的必需任务失败时，实例不会注册到Nacos（启动失败）
+ * - snapshot：加载成功的结果持久化到本地快照，下次启动时直接从快照恢复（结果通过 {@link PreloadedData} 读取）
+ */
+public final class PreloadTask {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String name;
+    private final Set<String> dependsOn;
+    private final Duration timeout;
+    private final PreloadLoader loader;
+    private final Function<Throwable, ?> fallback;
+    private final boolean required;
+    private final Class<?> snapshotType;
+
+    private PreloadTask(Builder builder) {
+        this.name = builder.name;
+        this.dependsOn = Collections.unmodifiableSet(new LinkedHashSet<>(builder.dependsOn));
+        this.timeout = builder.timeout;
+        this.loader = builder.loader;
+        this.fallback = builder.fallback;
+        this.required = builder.required;
+        this.snapshotType = builder.snapshotType;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public PreloadLoader getLoader() {
+        return loader;
+    }
+
+    public Function<Throwable, ?> getFallback() {
+        return fallback;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * 快照中恢复结果时转换成的类型，为null表示该任务不写入快照
+     */
+    public Class<?> getSnapshotType() {
+        return snapshotType;
+    }
+
+    @Override
+    public String toString() {
+        return "PreloadTask{" + name + (dependsOn.isEmpty() ? "" : " <- " + dependsOn) + "}";
+    }
+
+    public static final class Builder {
+
+        private final String name;
+        private final Set<String> dependsOn = new LinkedHashSet<>();
+        private Duration timeout = DEFAULT_TIMEOUT;
+        private PreloadLoader loader;
+        private Function<Throwable, ?> fallback;
+        private boolean required = true;
+        private Class<?> snapshotType;
+
+        private Builder(String name) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("Preload task name must not be empty");
+            }
+            this.name = name;
+        }
+
+        public Builder dependsOn(String... taskNames) {
+            Collections.addAll(dependsOn, taskNames);
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("timeout must be positive: " + timeout);
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder loader(PreloadLoader loader) {
+            this.loader = loader;
+            return this;
+        }
+
+        public Builder fallback(Function<Throwable, ?> fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        /**
+         * 标记为可选任务：失败时只记录日志，不阻止实例注册
+         */
+        public Builder optional() {
+            this.required = false;
+            return this;
+        }
+
+        /**
+         * 把加载成功的结果写入本地快照，下次启动时先用快照数据启动，再在后台从网络刷新
+         * <p>
+         * 结果需要能被Jackson转换为JSON树，并能从JSON树转换回type
+         */
+        public Builder snapshot(Class<?> type) {
+            this.snapshotType = type;
+            return this;
+        }
+
+        public PreloadTask build() {
+            if (loader == null) {
+                throw new IllegalStateException("Preload task '" + name + "' has no loader");
+            }
+            if (dependsOn.contains(name)) {
+                throw new IllegalStateException("Preload task '" + name + "' depends on itself");
+            }
+            return new PreloadTask(this);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预加载得到的启动数据，业务代码通过任务名读取
+ * <p>
+ * 从快照启动时先放入快照中的数据，后台刷新完成后原地替换为最新数据，读取方每次调用get()即可拿到当前版本
+ */
+@Component
+public class PreloadedData {
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private volatile boolean fromSnapshot;
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String taskName) {
+        return (T) values.get(taskName);
+    }
+
+    /**
+     * 当前数据是否来自本地快照（后台刷新尚未完成）
+     */
+    public boolean isFromSnapshot() {
+        return fromSnapshot;
+    }
+
+    void update(Map<String, Object> loaded, boolean fromSnapshot) {
+        values.putAll(loaded);
+        this.fromSnapshot = fromSnapshot;
+    }
+}
@@ -0,0 +1,273 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmalluser.config.VirtualThreadConfig;
+import org.nacosdemo.tlmalluser.listener.handler.NacosManualRegistrater;
+import org.nacosdemo.tlmalluser.preload.snapshot.PreloadSnapshot;
+import org.nacosdemo.tlmalluser.preload.snapshot.PreloadSnapshotStore;
+import org.nacosdemo.tlmalluser.readiness.ReadinessGate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 实验2.2 微服务启动阶段访问下游（方法4）：声明式并行预加载
+ * <p>
+ * 方法1~3（StartupSyncLoader、StartupASyncLoader、DeprecatedSyncLoader）各自手写一段串行的远程加载，
+ * 启动数据一多，串行加载就成了发布速度的瓶颈。这里改为：
+ * - 业务方把每份启动数据声明为一个 {@link PreloadTask} Bean（名称、依赖、超时、fallback），参考 listener/StartupPreloadTasks
+ * - 本类收集全部任务，按依赖关系在虚拟线程上并行执行，并打印每个任务的耗时报告
+ * - 由本类决定何时注册到Nacos：预加载完成之前实例不会注册，上游不会发现这个实例
+ * <p>
+ * 注册时机的控制方式：
+ * - 自动注册（默认）：NacosAutoServiceRegistration 在 WebServerInitializedEvent 中注册实例，
+ *   本类以最高优先级监听同一事件并同步执行预加载，因此注册一定发生在预加载完成之后；
+ *   与 register-enabled: false 不同，心跳、元数据等注册相关功能都保持开启
+ * - 手动注册：配置了 spring.cloud.nacos.discovery.register-enabled: false 时，预加载完成后通过 NacosManualRegistrater 注册，
+ *   注册动作排在该事件的最后，JitWarmup 等注册前阶段都在它之前执行
+ * - 必需任务失败（且没有fallback）时抛出异常终止启动，不把缺少启动数据的实例注册出去
+ * - 预加载期间Web服务器已经在监听端口，同时持有就绪闸门（ReadinessGate），直连过来的请求会收到503
+ * <p>
+ * 启动数据快照（tlmall.preload.snapshot）：
+ * - 每次加载成功后，把声明了snapshot的任务结果以紧凑二进制格式写入本地快照文件
+ * - 下次启动时如果快照有效且包含全部必需任务，内存映射读取快照后立即注册，不再等待网络加载；
+ *   同时在后台虚拟线程上重新执行整个DAG，成功后替换 PreloadedData 中的数据并更新快照
+ * - 快照缺失、损坏或过期时退回上面的同步预加载
+ * <p>
+ * 没有声明任何PreloadTask，或 tlmall.preload.enabled=false 时不做任何事情
+ */
+@Component
+@Slf4j
+public class StartupPreloader implements ApplicationListener<WebServerInitializedEvent>, Ordered {
+
+    private final ObjectProvider<PreloadTask> tasks;
+    private final ObjectProvider<NacosManualRegistrater> manualRegistrater;
+    private final ReadinessGate readinessGate;
+    private final PreloadedData preloadedData;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final boolean snapshotEnabled;
+    private volatile PreloadSnapshotStore snapshotStore;
+    private final Duration snapshotMaxAge;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile PreloadReport lastReport;
+    private volatile boolean manualRegistrationPending;
+
+    public StartupPreloader(ObjectProvider<PreloadTask> tasks,
+                            ObjectProvider<NacosManualRegistrater> manualRegistrater,
+                            ReadinessGate readinessGate,
+                            PreloadedData preloadedData,
+                            ObjectMapper objectMapper,
+                            Environment environment) {
+        this.tasks = tasks;
+        this.manualRegistrater = manualRegistrater;
+        this.readinessGate = readinessGate;
+        this.preloadedData = preloadedData;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.snapshotEnabled = environment.getProperty("tlmall.preload.snapshot.enabled", Boolean.class, true);
+        this.snapshotMaxAge = environment.getProperty("tlmall.preload.snapshot.max-age",
+                Duration.class, Duration.ofHours(24));
+    }
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        // 管理端口单独启动Web服务器时也会发布该事件，只处理应用自身的Web服务器
+        if (event.getApplicationContext().getServerNamespace() != null || !started.compareAndSet(false, true)) {
+            return;
+        }
+        if (!environment.getProperty("tlmall.preload.enabled", Boolean.class, true)) {
+            return;
+        }
+        List<PreloadTask> declared = tasks.orderedStream().collect(Collectors.toList());
+        if (declared.isEmpty()) {
+            return;
+        }
+
+        if (snapshotEnabled) {
+            snapshotStore = new PreloadSnapshotStore(snapshotPath(environment, event.getWebServer().getPort()));
+        }
+        PreloadSnapshot snapshot = snapshotStore == null ? null : snapshotStore.read();
+        if (canServeFromSnapshot(snapshot, declared)) {
+            restoreSnapshot(snapshot, declared);
+            refreshInBackground(declared);
+        } else {
+            preloadBeforeRegistration(declared);
+        }
+        manualRegistrationPending = true;
+    }
+
+    /**
+     * 快照文件路径，缺省为 ${java.io.tmpdir}/${spring.application.name}-${端口}-preload.snapshot：
+     * 同一台机器上的多个实例端口不同，各自使用自己的快照文件，不会互相覆盖或读到写了一半的文件
+     */
+    static Path snapshotPath(Environment environment, int port) {
+        String path = environment.getProperty("tlmall.preload.snapshot.path");
+        if (path != null) {
+            return Paths.get(path);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+                environment.getProperty("spring.application.name", "tlmall") + "-" + port + "-preload.snapshot");
+    }
+
+    /**
+     * 手动注册模式下，在同一事件的最后（JitWarmup等注册前阶段都完成之后）注册到Nacos，
+     * 与自动注册时 NacosAutoServiceRegistration 所处的位置一致
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void registerManually(WebServerInitializedEvent event) {
+        if (manualRegistrationPending
+                && !environment.getProperty("spring.cloud.nacos.discovery.register-enabled", Boolean.class, true)) {
+            manualRegistrationPending = false;
+            manualRegistrater.ifAvailable(NacosManualRegistrater::register);
+        }
+    }
+
+    private void preloadBeforeRegistration(List<PreloadTask> declared) {
+        log.info("启动预加载开始: {}个任务，完成前不注册到Nacos", declared.size());
+        PreloadReport report;
+        try (ReadinessGate.Hold ignored = readinessGate.hold("启动预加载")) {
+            report = preload(declared);
+        }
+        lastReport = report;
+        log.info(report.format());
+        if (!report.isSuccessful()) {
+            throw new IllegalStateException("启动预加载失败，实例不注册到Nacos\n" + report.format());
+        }
+        preloadedData.update(loadedValues(report, declared, true), false);
+        saveSnapshot(report, declared);
+    }
+
+    /**
+     * 快照存在、未过期，并且包含全部必需任务时，直接用快照数据启动
+     */
+    private boolean canServeFromSnapshot(PreloadSnapshot snapshot, List<PreloadTask> declared) {
+        if (snapshot == null) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - snapshot.getSavedAtMillis();
+        if (age > snapshotMaxAge.toMillis()) {
+            log.info("启动数据快照已过期（{}s前保存），从网络加载", age / 1000);
+            return false;
+        }
+        for (PreloadTask task : declared) {
+            if (task.isRequired() && (task.getSnapshotType() == null || !snapshot.contains(task.getName()))) {
+                log.info("启动数据快照不包含必需任务{}，从网络加载", task.getName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void restoreSnapshot(PreloadSnapshot snapshot, List<PreloadTask> declared) {
+        long begin = System.nanoTime();
+        Map<String, Object> restored = new HashMap<>();
+        for (PreloadTask task : declared) {
+            if (task.getSnapshotType() != null && snapshot.contains(task.getName())) {
+                Object tree = snapshot.get(task.getName());
+                restored.put(task.getName(), tree == null ? null : objectMapper.convertValue(tree, task.getSnapshotType()));
+            }
+        }
+        preloadedData.update(restored, true);
+        log.info("从启动数据快照恢复{}个任务，耗时{}ms（快照保存于{}s前），后台从网络刷新",
+                restored.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin),
+                (System.currentTimeMillis() - snapshot.getSavedAtMillis()) / 1000);
+    }
+
+    private void refreshInBackground(List<PreloadTask> declared) {
+        Thread.ofVirtual().name("preload-refresh").start(() -> {
+            PreloadReport report = preload(declared);
+            lastReport = report;
+            log.info("后台刷新" + report.format());
+            // 刷新失败（包括使用了fallback）的任务继续使用快照数据
+            preloadedData.update(loadedValues(report, declared, false), false);
+            if (report.isSuccessful()) {
+                saveSnapshot(report, declared);
+            }
+        });
+    }
+
+    private static Map<String, Object> loadedValues(PreloadReport report, List<PreloadTask> declared,
+                                                    boolean includeFallback) {
+        Map<String, Object> values = new HashMap<>();
+        for (PreloadTask task : declared) {
+            PreloadReport.Status status = report.getTask(task.getName()).getStatus();
+            Object value = report.getValue(task.getName());
+            if (value != null && (status == PreloadReport.Status.SUCCESS
+                    || includeFallback && status == PreloadReport.Status.FALLBACK)) {
+                values.put(task.getName(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 只持久化加载成功的结果，fallback得到的兜底数据不写入快照
+     */
+    private void saveSnapshot(PreloadReport report, List<PreloadTask> declared) {
+        if (snapshotStore == null) {
+            return;
+        }
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (PreloadTask task : declared) {
+            if (task.getSnapshotType() != null
+                    && report.getTask(task.getName()).getStatus() == PreloadReport.Status.SUCCESS) {
+                entries.put(task.getName(), objectMapper.convertValue(report.getValue(task.getName()), Object.class));
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            snapshotStore.write(entries);
+            log.info("启动数据快照已保存: {}个任务 -> {}", entries.size(), snapshotStore.getPath());
+        } catch (IOException | RuntimeException e) {
+            log.warn("启动数据快照保存失败: {}", snapshotStore.getPath(), e);
+        }
+    }
+
+    PreloadReport preload(List<PreloadTask> declared) {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(VirtualThreadConfig.virtualThreadFactory("preload-"));
+        try {
+            return new PreloadDagRunner(executor).run(declared);
+        } finally {
+            // 超时任务的加载线程已被中断，这里不等待它们结束（close()会一直等待不响应中断的任务）
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 最近一次预加载的耗时报告，未执行时为null
+     */
+    public PreloadReport getLastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public int getOrder() {
+        // 先于 NacosAutoServiceRegistration（未指定顺序，即最低优先级）处理 WebServerInitializedEvent
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,166 @@
+package org.nacosdemo.tlmalluser.preload.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON树（Map/List/String/Number/Boolean/null）的紧凑二进制编码
+ * <p>
+ * - 每个值以1字节类型标记开头，整数使用zigzag变长编码，长度、个数使用变长编码
+ * - 解码直接读ByteBuffer（可以是MappedByteBuffer），不需要先把文件读成byte[]
+ * <p>
+ * 任意对象先通过ObjectMapper.convertValue转换成JSON树再编码，解码后再转换回目标类型
+ */
+final class CompactBinaryCodec {
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+    private static final byte DECIMAL = 8;
+
+    private CompactBinaryCodec() {
+    }
+
+    static void write(Object value, ByteArrayOutputStream out) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            out.write(INTEGER);
+            long n = ((Number) value).longValue();
+            writeVarLong(out, (n << 1) ^ (n >> 63));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.write(DOUBLE);
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+            out.write(DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof CharSequence) {
+            out.write(STRING);
+            writeString(out, value.toString());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.write(LIST);
+            writeVarLong(out, list.size());
+            for (Object item : list) {
+                write(item, out);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.write(MAP);
+            writeVarLong(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                write(entry.getValue(), out);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported snapshot value type: " + value.getClass().getName());
+        }
+    }
+
+    static Object read(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INTEGER: {
+                long zigzag = readVarLong(in);
+                long n = (zigzag >>> 1) ^ -(zigzag & 1);
+                return n == (int) n ? (Object) (int) n : (Object) n;
+            }
+            case DOUBLE:
+                return in.getDouble();
+            case DECIMAL:
+                return new BigDecimal(readString(in));
+            case STRING:
+                return readString(in);
+            case LIST: {
+                int size = readSize(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readSize(in);
+                Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, read(in));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown snapshot value tag: " + tag);
+        }
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = readSize(in);
+        if (in.hasArray()) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static int readSize(ByteBuffer in) {
+        long size = readVarLong(in);
+        if (size < 0 || size > in.remaining()) {
+            // 每个元素至少占1字节，超过剩余字节数说明文件已损坏
+            throw new IllegalArgumentException("Corrupted snapshot size: " + size);
+        }
+        return (int) size;
+    }
+}
@@ -0,0 +1,34 @@
+package org.nacosdemo.tlmalluser.preload.snapshot;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 持久化的启动数据快照：任务名 → JSON树形式的加载结果
+ */
+public final class PreloadSnapshot {
+
+    private final long savedAtMillis;
+    private final Map<String, Object> entries;
+
+    PreloadSnapshot(long savedAtMillis, Map<String, Object> entries) {
+        this.savedAtMillis = savedAtMillis;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    public long getSavedAtMillis() {
+        return savedAtMillis;
+    }
+
+    public boolean contains(String taskName) {
+        return entries.containsKey(taskName);
+    }
+
+    public Object get(String taskName) {
+        return entries.get(taskName);
+    }
+
+    public Map<String, Object> getEntries() {
+        return entries;
+    }
+}
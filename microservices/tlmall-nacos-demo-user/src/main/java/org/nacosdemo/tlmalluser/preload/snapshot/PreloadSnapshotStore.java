@@ -0,0 +1,137 @@
+package org.nacosdemo.tlmalluser.preload.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 启动数据快照文件的读写
+ * <p>
+ * 文件格式（大端）：
+ * <pre>
+ * int   magic "TLSN"
+ * byte  格式版本
+ * long  保存时间（epoch millis）
+ * var   条目数
+ * 条目： var长度 + UTF-8任务名，CompactBinaryCodec编码的值
+ * int   CRC32（覆盖前面所有字节）
+ * </pre>
+ * - 读取：FileChannel.map映射整个文件后直接在映射内存上校验和解码，重启时几毫秒即可恢复全部启动数据
+ * - 写入：先写临时文件再原子替换，进程中途退出不会留下半个快照
+ * - 文件缺失、损坏（CRC不符）或版本不符时返回null，调用方退回网络加载
+ */
+@Slf4j
+public class PreloadSnapshotStore {
+
+    private static final int MAGIC = 0x544C534E;
+    private static final byte VERSION = 1;
+    // magic + version + savedAt
+    private static final int HEADER_BYTES = 4 + 1 + 8;
+    private static final int CRC_BYTES = 4;
+
+    private final Path path;
+
+    public PreloadSnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public PreloadSnapshot read() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CRC_BYTES || size > Integer.MAX_VALUE) {
+                log.warn("启动数据快照大小异常，忽略: {} ({} bytes)", path, size);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(buffer);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("启动数据快照读取失败，忽略: {}", path, e);
+            return null;
+        }
+    }
+
+    public void write(Map<String, Object> entries) throws IOException {
+        byte[] bytes = encode(System.currentTimeMillis(), entries);
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static byte[] encode(long savedAtMillis, Map<String, Object> entries) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        writeInt(out, MAGIC);
+        out.write(VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (savedAtMillis >>> shift));
+        }
+        CompactBinaryCodec.writeVarLong(out, entries.size());
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            CompactBinaryCodec.writeString(out, entry.getKey());
+            CompactBinaryCodec.write(entry.getValue(), out);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray(), 0, out.size());
+        writeInt(out, (int) crc.getValue());
+        return out.toByteArray();
+    }
+
+    static PreloadSnapshot decode(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.limit(limit - CRC_BYTES);
+        crc.update(content);
+        if ((int) crc.getValue() != buffer.getInt(limit - CRC_BYTES)) {
+            throw new IllegalArgumentException("Snapshot checksum mismatch");
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        in.limit(limit - CRC_BYTES);
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a preload snapshot");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+        }
+        long savedAtMillis = in.getLong();
+        long count = CompactBinaryCodec.readVarLong(in);
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (long i = 0; i < count; i++) {
+            String name = CompactBinaryCodec.readString(in);
+            entries.put(name, CompactBinaryCodec.read(in));
+        }
+        return new PreloadSnapshot(savedAtMillis, entries);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,132 @@
+package org.nacosdemo.tlmalluser.readiness;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内的就绪闸门，替代 NacosInstanceStatusManager.setHealthy(false/true) 的重新注册方案
+ * <p>
+ * 启动数据加载等需要暂停接收流量的操作通过 {@link #hold(String)} 关闭闸门，全部释放后闸门重新打开：
+ * - 闸门状态以 Spring Boot 的 ReadinessState 发布（AvailabilityChangeEvent），
+ *   /actuator/health/readiness、ReadinessGateFilter 和 NacosReadinessPublisher 都以它为准
+ * - Spring Boot 在 ApplicationReadyEvent 之后会发布 ACCEPTING_TRAFFIC，如果此时闸门仍被持有，立即改回 REFUSING_TRAFFIC
+ * - 闸门打开前，ReadinessGateFilter 对业务请求直接返回 503，NacosReadinessPublisher 把实例权重置为0
+ * - 容器关闭时 Spring Boot 发布的 REFUSING_TRAFFIC 不关闭闸门：GracefulDrainCoordinator 排空期间的请求照常处理，
+ *   排空完成后才由 DrainFilter 拒绝
+ * <p>
+ * 持有闸门的代码应尽早调用hold()（例如在Bean构造时），保证实例注册到Nacos之前闸门已经关闭
+ * <p>
+ * 进程内部发起的请求（如JitWarmup的回环预热请求）携带 {@link #BYPASS_HEADER} 旁路令牌，不受闸门限制
+ */
+@Component
+@Slf4j
+public class ReadinessGate {
+
+    public static final String BYPASS_HEADER = "X-Tlmall-Warmup";
+
+    private final ApplicationEventPublisher publisher;
+    private final AtomicInteger holds = new AtomicInteger();
+    // 每次启动随机生成，只有进程内部知道
+    private final String bypassToken = UUID.randomUUID().toString();
+
+    // Spring Boot 是否已经发布过 ACCEPTING_TRAFFIC（即应用启动完成）
+    private volatile boolean applicationReady;
+    // 对外生效的就绪状态：应用启动完成且没有任何持有者
+    private volatile boolean acceptingTraffic;
+
+    public ReadinessGate(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * 关闭闸门，直到返回的Hold被释放；可以被多个持有者同时持有
+     */
+    public Hold hold(String reason) {
+        if (holds.getAndIncrement() == 0) {
+            log.info("就绪闸门关闭: {}", reason);
+            if (applicationReady) {
+                AvailabilityChangeEvent.publish(publisher, this, ReadinessState.REFUSING_TRAFFIC);
+            }
+        }
+        return new Hold(reason);
+    }
+
+    public boolean isHeld() {
+        return holds.get() > 0;
+    }
+
+    /**
+     * 热路径上由ReadinessGateFilter调用，只读取一个volatile字段
+     */
+    public boolean isAcceptingTraffic() {
+        return acceptingTraffic;
+    }
+
+    public String getBypassToken() {
+        return bypassToken;
+    }
+
+    public boolean isBypass(String token) {
+        return bypassToken.equals(token);
+    }
+
+    @EventListener
+    public void onReadinessStateChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        ReadinessState state = event.getState();
+        if (state == ReadinessState.REFUSING_TRAFFIC && event.getSource() instanceof ApplicationContext) {
+            // 容器关闭：Spring Boot 以 ApplicationContext 为source发布（闸门自己发布的事件source是闸门）
+            return;
+        }
+        if (state == ReadinessState.ACCEPTING_TRAFFIC) {
+            applicationReady = true;
+            if (isHeld()) {
+                acceptingTraffic = false;
+                AvailabilityChangeEvent.publish(publisher, this, ReadinessState.REFUSING_TRAFFIC);
+                return;
+            }
+        }
+        acceptingTraffic = state == ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
+    private void release(String reason) {
+        if (holds.decrementAndGet() == 0) {
+            log.info("就绪闸门打开: {}", reason);
+            if (applicationReady) {
+                AvailabilityChangeEvent.publish(publisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            }
+        }
+    }
+
+    /**
+     * 闸门的一次持有，release()可重复调用，只生效一次
+     */
+    public final class Hold implements AutoCloseable {
+
+        private final String reason;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Hold(String reason) {
+            this.reason = reason;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ReadinessGate.this.release(reason);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
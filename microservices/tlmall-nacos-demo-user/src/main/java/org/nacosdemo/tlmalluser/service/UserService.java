@@ -1,16 +1,24 @@
 package org.nacosdemo.tlmalluser.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
 import org.nacosdemo.tlmalluser.config.RestConfig;
 import org.springcloudmvp.tlmallcommon.Result;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 实验2.1 Beaa装配阶段访问下游（方法1）
@@ -33,6 +41,9 @@ public class UserService implements InitializingBean {
     @Autowired
     private LoadBalancerClient loadBalancerClient;
 
+    @Autowired
+    private RetryRegistry retryRegistry;
+
     public UserService() {
     }
 
@@ -47,7 +58,53 @@ public class UserService implements InitializingBean {
 
         //方式3：利用@LoadBalanced，restTemplate需要添加@LoadBalanced注解
         String url = "http://tlmall-order/order/getOrder?userId="+userId;
-        return restTemplate.getForObject(url,Result.class);
+        return callOrder(() -> restTemplate.getForObject(url,Result.class));
+    }
+
+    /**
+     * 带客户端Key调用下游，供IPHashLoadBalancer按客户端IP选择实例
+     * <p>
+     * clientKey作为出站请求头X-Client-IP传递，负载均衡器从请求上下文中直接读取，
+     * 不依赖当前线程上的RequestContextHolder，因此在异步线程/虚拟线程中调用同样有效
+     */
+    public Result<?> getOrderByUserId(String userId, String clientKey) {
+        if (clientKey == null) {
+            return getOrderByUserId(userId);
+        }
+        String url = "http://tlmall-order/order/getOrder?userId="+userId;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ClientKeys.HEADER, clientKey);
+        return callOrder(() -> restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), Result.class).getBody());
+    }
+
+    /**
+     * 调用tlmall-order，暂时性失败（I/O异常、429/502/503/504）按RetryRegistry的退避策略和重试预算重试
+     * <p>
+     * 请求线程是虚拟线程，等待重试结果时不占用平台线程。
+     * 对tlmall-order的并发调用由它的连接池限制（tlmall.http-client.services.tlmall-order 的 max-per-route/max-total）：
+     * 连接用完时最多等待connection-request-timeout，超时按I/O异常失败，不会无限制地放大对下游的并发
+     */
+    private Result<?> callOrder(Callable<Result<?>> call) {
+        try {
+            return retryRegistry.forService("tlmall-order").executeAndWait(call);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("调用tlmall-order被中断", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("调用tlmall-order失败", e);
+        }
+    }
+
+    /**
+     * 在虚拟线程执行器（VirtualThreadConfig）上异步调用下游，用于扇出多个下游请求
+     * <p>
+     * 每个调用一个虚拟线程，阻塞等待响应时不占用载体线程，扇出的并发度不受线程池大小限制
+     */
+    @Async
+    public CompletableFuture<Result<?>> getOrderByUserIdAsync(String userId, String clientKey) {
+        return CompletableFuture.completedFuture(getOrderByUserId(userId, clientKey));
     }
 
     // 用于分析@LoadBalanced底层实现，该方法在依赖注入完成之后执行，具体顺序如下：
@@ -0,0 +1,64 @@
+package org.nacosdemo.tlmalluser.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.retry.RetryExecutor;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RetryConfigTest {
+
+    private final RetryConfig config = new RetryConfig();
+    private final ExecutorService attemptExecutor = config.retryAttemptExecutor();
+    // 有并发上限的外层执行器，模拟@Async扇出所在的执行器被占满
+    private final SimpleAsyncTaskExecutor fanOutExecutor = VirtualThreadConfig.virtualThreadExecutor("fan-out-", 4);
+
+    @AfterEach
+    void tearDown() {
+        fanOutExecutor.close();
+        attemptExecutor.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nestedCallsCompleteWhenTheCallersExecutorIsSaturated() throws Exception {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        RetryRegistry registry = config.retryRegistry(environment, attemptExecutor, mock(ObjectProvider.class));
+        RetryExecutor retry = registry.forService("tlmall-order");
+
+        // 扇出任务数远多于外层名额，每个任务都占着名额同步等待一次下游调用
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            String userId = "user-" + i;
+            CompletableFuture<String> result = new CompletableFuture<>();
+            results.add(result);
+            fanOutExecutor.execute(() -> {
+                try {
+                    result.complete(retry.executeAndWait(() -> {
+                        Thread.sleep(5);
+                        return userId;
+                    }));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertThat(results).allSatisfy(result -> assertThat(result).isCompleted());
+    }
+}
@@ -0,0 +1,65 @@
+package org.nacosdemo.tlmalluser.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.ThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsBlockingInsideSynchronizedBySite() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meters = mock(ObjectProvider.class);
+        when(meters.getIfAvailable()).thenReturn(meterRegistry);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.virtual-threads.pinning.threshold", "10ms");
+        environment.setConversionService(new ApplicationConversionService());
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meters, environment);
+        monitor.start();
+        try {
+            ThreadFactory factory = VirtualThreadConfig.virtualThreadFactory("pinned-");
+            for (int i = 0; i < 2; i++) {
+                Thread thread = factory.newThread(this::sleepWhileHoldingMonitor);
+                thread.start();
+                thread.join();
+            }
+
+            // JFR按固定间隔把事件刷给订阅者
+            String site = getClass().getName() + ".sleepWhileHoldingMonitor";
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (monitor.getPinnedSites().getOrDefault(site, 0L) < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+
+            assertThat(monitor.getPinnedSites()).containsEntry(site, 2L);
+            assertThat(meterRegistry.get("tlmall.virtual-threads.pinned").tag("site", site).timer().count())
+                    .isEqualTo(2);
+        } finally {
+            monitor.stop();
+        }
+        assertThat(monitor.isRunning()).isFalse();
+    }
+
+    private void sleepWhileHoldingMonitor() {
+        synchronized (lock) {
+            try {
+                // 在synchronized块内阻塞，虚拟线程无法卸载
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.nacosdemo.tlmalluser.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmalluser.service.UserService;
+import org.springcloudmvp.tlmallcommon.Result;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+class UserControllerTest {
+
+    private final UserService userService = mock(UserService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UserController controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "environment",
+                new MockEnvironment().withProperty("tlmall.user.get-orders.max-user-ids", "3"));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        when(userService.getOrderByUserIdAsync(anyString(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(Result.success(invocation.getArgument(0))));
+    }
+
+    @Test
+    void duplicateUserIdsAreFetchedOnce() throws Exception {
+        mockMvc.perform(get("/user/getOrders").param("userId", "fox", "monkey", "fox"))
+                .andExpect(jsonPath("$.data.fox.data").value("fox"))
+                .andExpect(jsonPath("$.data.monkey.data").value("monkey"));
+
+        verify(userService, times(2)).getOrderByUserIdAsync(anyString(), any());
+    }
+
+    @Test
+    void tooManyUserIdsAreRejectedWithoutCallingDownstream() throws Exception {
+        mockMvc.perform(get("/user/getOrders").param("userId", "a", "b", "c", "d"))
+                .andExpect(jsonPath("$.message").value("一次最多查询3个用户的订单"))
+                .andExpect(jsonPath("$.data").doesNotExist());
+
+        verify(userService, never()).getOrderByUserIdAsync(anyString(), any());
+    }
+}
@@ -0,0 +1,38 @@
+package org.nacosdemo.tlmalluser.filter;
+
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientKeyFilterTest {
+
+    private final ClientKeyFilter filter = new ClientKeyFilter();
+
+    @Test
+    void headerIsExposedAsRequestAttribute() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/getOrder");
+        request.addHeader(ClientKeys.HEADER, "10.0.0.1");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(request.getAttribute(ClientKeys.ATTRIBUTE)).isEqualTo("10.0.0.1");
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    void missingOrEmptyHeaderLeavesAttributeUnset() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/getOrder");
+        request.addHeader(ClientKeys.HEADER, "");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(request.getAttribute(ClientKeys.ATTRIBUTE)).isNull();
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+}
@@ -0,0 +1,106 @@
+package org.nacosdemo.tlmalluser.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledHttpClientFactoryTest {
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PooledHttpClientFactory factory;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/fast", exchange -> respond(exchange, 0));
+        server.createContext("/slow", exchange -> respond(exchange, 300));
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.http-client.default.max-per-route", "10")
+                .withProperty("tlmall.http-client.services.tlmall-order.max-per-route", "4");
+        environment.setConversionService(new ApplicationConversionService());
+        factory = new PooledHttpClientFactory(environment, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+        server.stop(0);
+    }
+
+    @Test
+    void reusesKeepAliveConnections() {
+        RestTemplate restTemplate = new RestTemplate(factory.requestFactory("tlmall-order"));
+        for (int i = 0; i < 20; i++) {
+            assertThat(restTemplate.getForObject(baseUrl + "/fast", String.class)).isEqualTo("ok");
+        }
+        // 串行的20次调用复用同一个连接
+        assertThat(clientPorts).hasSize(1);
+        assertThat(factory.requestFactory("tlmall-order")).isSameAs(restTemplate.getRequestFactory());
+    }
+
+    @Test
+    void perCallTimeoutOverridesOnlyTheWrappedCall() throws Exception {
+        RestTemplate restTemplate = new RestTemplate(factory.requestFactory("tlmall-order"));
+        CallTimeouts shortTimeout = CallTimeouts.responseTimeout(Duration.ofMillis(100));
+
+        assertThatThrownBy(() -> shortTimeout.call(() -> restTemplate.getForObject(baseUrl + "/slow", String.class)))
+                .isInstanceOf(ResourceAccessException.class);
+        // 覆盖只对call()内的请求生效，之后使用连接池的缺省超时（5s）
+        assertThat(CallTimeouts.current()).isNull();
+        assertThat(restTemplate.getForObject(baseUrl + "/slow", String.class)).isEqualTo("ok");
+    }
+
+    @Test
+    void servicePropertiesOverrideDefaultsAndPoolIsInstrumented() {
+        factory.requestFactory("tlmall-order");
+
+        assertThat(factory.properties("tlmall-order").getMaxPerRoute()).isEqualTo(4);
+        assertThat(factory.properties("tlmall-product").getMaxPerRoute()).isEqualTo(10);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.route.max.default")
+                .tag("httpclient", "tlmall-order").gauge().value()).isEqualTo(4);
+    }
+
+    private void respond(HttpExchange exchange, long delayMillis) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.nacosdemo.tlmalluser.listener.handler;
+
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingMaintainService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.nacosdemo.tlmalluser.readiness.ReadinessGate;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NacosReadinessPublisherTest {
+
+    private final NamingMaintainService maintainService = mock(NamingMaintainService.class);
+    private final ReadinessGate readinessGate = mock(ReadinessGate.class);
+    private final Map<String, String> metadata = new HashMap<>();
+    private NacosReadinessPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        NacosServiceManager serviceManager = mock(NacosServiceManager.class);
+        when(serviceManager.getNamingMaintainService(any())).thenReturn(maintainService);
+        NacosDiscoveryProperties properties = mock(NacosDiscoveryProperties.class);
+        when(properties.getWeight()).thenReturn(1f);
+        when(properties.getIp()).thenReturn("127.0.0.1");
+        when(properties.getPort()).thenReturn(8080);
+        when(properties.getService()).thenReturn("tlmall-user");
+        when(properties.getGroup()).thenReturn("DEFAULT_GROUP");
+        when(properties.getMetadata()).thenReturn(metadata);
+        publisher = new NacosReadinessPublisher(serviceManager, properties, readinessGate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void failedUpdateIsRetriedUntilPublished() throws Exception {
+        doThrow(new NacosException(NacosException.SERVER_ERROR, "unavailable"))
+                .doNothing()
+                .when(maintainService).updateInstance(eq("tlmall-user"), eq("DEFAULT_GROUP"), any(Instance.class));
+
+        publisher.onRegistered(new InstanceRegisteredEvent<>(this, null));
+
+        ArgumentCaptor<Instance> instances = ArgumentCaptor.forClass(Instance.class);
+        verify(maintainService, timeout(3000).times(2)).updateInstance(any(), any(), instances.capture());
+        assertThat(instances.getAllValues()).extracting(Instance::getWeight).containsExactly(1.0, 1.0);
+        assertThat(metadata).containsEntry(NacosReadinessPublisher.READY_METADATA, "true");
+    }
+
+    @Test
+    void retryPublishesTheLatestState() throws Exception {
+        doThrow(new NacosException(NacosException.SERVER_ERROR, "unavailable"))
+                .doNothing()
+                .when(maintainService).updateInstance(any(), any(), any(Instance.class));
+        publisher.onRegistered(new InstanceRegisteredEvent<>(this, null));
+
+        // 重试之前闸门关闭，重试应写入权重0而不是过时的"就绪"
+        when(readinessGate.isHeld()).thenReturn(true);
+        publisher.onReadinessStateChanged(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+
+        ArgumentCaptor<Instance> instances = ArgumentCaptor.forClass(Instance.class);
+        verify(maintainService, timeout(3000).times(2)).updateInstance(any(), any(), instances.capture());
+        List<Instance> published = instances.getAllValues();
+        assertThat(published.get(published.size() - 1).getWeight()).isZero();
+        assertThat(metadata).containsEntry(NacosReadinessPublisher.READY_METADATA, "false");
+    }
+
+    @Test
+    void markNotReadyFailsWhenWeightCannotBeWritten() throws Exception {
+        publisher.onRegistered(new InstanceRegisteredEvent<>(this, null));
+        doThrow(new NacosException(NacosException.SERVER_ERROR, "unavailable"))
+                .when(maintainService).updateInstance(any(), any(), any(Instance.class));
+
+        assertThatThrownBy(publisher::markNotReady).isInstanceOf(IllegalStateException.class);
+
+        doNothing().when(maintainService).updateInstance(any(), any(), any(Instance.class));
+        assertThat(publisher.markNotReady()).isTrue();
+        verify(maintainService, times(3)).updateInstance(any(), any(), any(Instance.class));
+    }
+}
@@ -0,0 +1,106 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightRequestLifecycleTest {
+
+    private final InFlightRequestTracker tracker = new InFlightRequestTracker();
+
+    private final InFlightRequestLifecycle lifecycle = new InFlightRequestLifecycle(tracker);
+
+    private final Request<Object> request = new DefaultRequest<>();
+
+    private final ServiceInstance a = instance("a", 8081);
+
+    private final ServiceInstance b = instance("b", 8082);
+
+    @Test
+    void successAndFailureReleaseTheSlot() {
+        Response<ServiceInstance> response = new DefaultResponse(a);
+        lifecycle.onStartRequest(request, response);
+        lifecycle.onStartRequest(request, response);
+        assertThat(tracker.get(a)).isEqualTo(2);
+
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                new IllegalStateException("500"), request, response));
+        assertThat(tracker.get(a)).isZero();
+    }
+
+    @Test
+    void timeoutReleasesTheSlot() {
+        Response<ServiceInstance> response = new DefaultResponse(a);
+        lifecycle.onStartRequest(request, response);
+
+        // 连接/读超时以 FAILED + 异常的形式回调
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                new SocketTimeoutException("Read timed out"), request, response));
+        assertThat(tracker.get(a)).isZero();
+    }
+
+    @Test
+    void discardDoesNotTouchTheCounter() {
+        Response<ServiceInstance> response = new DefaultResponse(a);
+        lifecycle.onStartRequest(request, response);
+
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.DISCARD, request, response));
+        assertThat(tracker.get(a)).isEqualTo(1);
+
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.DISCARD, request, response));
+        assertThat(tracker.get(a)).isZero();
+    }
+
+    @Test
+    void retainAllDropsIdleCountersOfDepartedInstances() {
+        tracker.increment(a);
+        tracker.increment(b);
+        tracker.decrement(b);
+        assertThat(tracker.size()).isEqualTo(2);
+
+        // b 已下线且没有在途请求，被清理；a 仍在列表中，保留
+        tracker.retainAll(Collections.singletonList(a));
+        assertThat(tracker.size()).isEqualTo(1);
+        assertThat(tracker.get(a)).isEqualTo(1);
+
+        // 下线实例上迟到的 decrement 不会把计数器重新建出来
+        tracker.decrement(b);
+        assertThat(tracker.size()).isEqualTo(1);
+    }
+
+    @Test
+    void retainAllKeepsDepartedInstanceUntilItsRequestsFinish() {
+        tracker.increment(a);
+        tracker.increment(b);
+
+        tracker.retainAll(Collections.singletonList(a));
+        assertThat(tracker.get(b)).isEqualTo(1);
+
+        tracker.decrement(b);
+        tracker.retainAll(Collections.singletonList(a));
+        assertThat(tracker.size()).isEqualTo(1);
+
+        // 实例列表没有缩小时不做清理
+        tracker.increment(b);
+        tracker.decrement(b);
+        tracker.retainAll(Arrays.asList(a, b));
+        assertThat(tracker.size()).isEqualTo(2);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, "tlmall-order", "127.0.0.1", port, false);
+    }
+}
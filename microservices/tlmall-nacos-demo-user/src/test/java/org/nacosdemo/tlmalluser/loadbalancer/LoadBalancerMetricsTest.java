@@ -0,0 +1,82 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadBalancerMetricsTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private final ServiceInstance a = new DefaultServiceInstance("a", "tlmall-order", "127.0.0.1", 8081, false);
+
+    private final ServiceInstance b = new DefaultServiceInstance("b", "tlmall-order", "127.0.0.1", 8082, false);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final LoadBalancerMetrics metrics = new LoadBalancerMetrics(registry, "tlmall-order", IDLE_TIMEOUT, clock::get);
+
+    @Test
+    void recordsSelectionsAndDownstreamLatencyPerInstance() {
+        metrics.recordSelection(a);
+        metrics.recordSelection(a);
+        metrics.recordDownstream(a, true, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordDownstream(a, false, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(registry.get(LoadBalancerMetrics.SELECTIONS)
+                .tag("service", "tlmall-order").tag("instance", "127.0.0.1:8081").counter().count()).isEqualTo(2);
+        assertThat(registry.get(LoadBalancerMetrics.DOWNSTREAM)
+                .tag("instance", "127.0.0.1:8081").tag("outcome", "SUCCESS").timer().count()).isEqualTo(1);
+        assertThat(registry.get(LoadBalancerMetrics.DOWNSTREAM)
+                .tag("instance", "127.0.0.1:8081").tag("outcome", "FAILED").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void chooseMetersAreTaggedByStrategy() {
+        metrics.chooseMeters("round-robin").record(1000, true);
+        metrics.chooseMeters("least-request").record(1000, false);
+
+        assertThat(registry.get(LoadBalancerMetrics.CHOOSE).tag("strategy", "round-robin").timer().count()).isEqualTo(1);
+        assertThat(registry.get(LoadBalancerMetrics.EMPTY).tag("strategy", "round-robin").counter().count()).isZero();
+        assertThat(registry.get(LoadBalancerMetrics.EMPTY).tag("strategy", "least-request").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void metersOfDepartedInstancesAreRemovedFromRegistry() {
+        metrics.recordSelection(a);
+        metrics.recordSelection(b);
+        metrics.recordDownstream(b, true, 1000);
+
+        // b 下线后不再被选中，a 持续有流量
+        clock.addAndGet(IDLE_TIMEOUT.toNanos() / 2);
+        metrics.recordSelection(a);
+        clock.addAndGet(IDLE_TIMEOUT.toNanos() / 2 + 1);
+        metrics.recordSelection(a);
+
+        assertThat(metrics.instanceCount()).isEqualTo(1);
+        assertThat(registry.find(LoadBalancerMetrics.SELECTIONS).tag("instance", "127.0.0.1:8082").counter()).isNull();
+        assertThat(registry.find(LoadBalancerMetrics.DOWNSTREAM).tag("instance", "127.0.0.1:8082").timers()).isEmpty();
+        assertThat(registry.get(LoadBalancerMetrics.SELECTIONS).tag("instance", "127.0.0.1:8081").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void instanceComingBackGetsFreshMeters() {
+        metrics.recordSelection(b);
+        clock.addAndGet(IDLE_TIMEOUT.toNanos() + 1);
+        metrics.recordSelection(a);
+        assertThat(registry.find(LoadBalancerMetrics.SELECTIONS).tag("instance", "127.0.0.1:8082").counter()).isNull();
+
+        metrics.recordSelection(b);
+
+        assertThat(registry.get(LoadBalancerMetrics.SELECTIONS).tag("instance", "127.0.0.1:8082").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,65 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PeakEwmaLoadBalancerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ServiceInstance fast = new DefaultServiceInstance("fast", "tlmall-order", "127.0.0.1", 8081, false);
+
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", "tlmall-order", "127.0.0.1", 8082, false);
+
+    private final InFlightRequestTracker inFlight = new InFlightRequestTracker();
+
+    private final ResponseTimeTracker responseTime = new ResponseTimeTracker();
+
+    // 只有两个实例时"二选一"总是比较这两个，结果是确定的
+    private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(
+            ServiceInstanceListSuppliers.toProvider("tlmall-order", fast, slow), "tlmall-order", inFlight, responseTime);
+
+    @Test
+    void prefersLowerLatency() {
+        responseTime.record(fast, 10 * MILLIS);
+        responseTime.record(slow, 200 * MILLIS);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose()).isEqualTo("fast");
+        }
+    }
+
+    @Test
+    void inFlightRequestsScaleTheCost() {
+        responseTime.record(fast, 10 * MILLIS);
+        responseTime.record(slow, 30 * MILLIS);
+        // 10ms × (5 + 1) > 30ms × (0 + 1)
+        for (int i = 0; i < 5; i++) {
+            inFlight.increment(fast);
+        }
+
+        assertThat(choose()).isEqualTo("slow");
+    }
+
+    @Test
+    void instanceWithoutSamplesIsCostedAtTheMean() {
+        ServiceInstance other = new DefaultServiceInstance("other", "tlmall-order", "127.0.0.1", 8083, false);
+        responseTime.record(other, 20 * MILLIS);
+        responseTime.record(slow, 500 * MILLIS);
+
+        // fast 没有样本，按均值估计，仍低于 slow 的峰值
+        assertThat(responseTime.estimate(fast)).isLessThan(responseTime.estimate(slow));
+        assertThat(choose()).isEqualTo("fast");
+    }
+
+    private String choose() {
+        return loadBalancer.choose(new DefaultRequest<>()).block().getServer().getInstanceId();
+    }
+}
@@ -0,0 +1,67 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PeakEwmaTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SECONDS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1000 * SECONDS);
+
+    @Test
+    void peakIsTakenImmediatelyAndRecoveryDecays() {
+        PeakEwma ewma = new PeakEwma(10 * SECONDS, 10 * MILLIS, clock.get());
+
+        ewma.observe(200 * MILLIS, clock.get());
+        assertThat(ewma.get(clock.get(), 10 * MILLIS)).isEqualTo(200 * MILLIS);
+
+        // 一个时间常数后的快样本：w = e^-1，只恢复约 63%
+        clock.addAndGet(10 * SECONDS);
+        ewma.observe(10 * MILLIS, clock.get());
+        double expected = 200 * MILLIS * Math.exp(-1) + 10 * MILLIS * (1 - Math.exp(-1));
+        assertThat(ewma.get(clock.get(), 10 * MILLIS)).isCloseTo(expected, within(1.0));
+    }
+
+    @Test
+    void idleInstanceDecaysTowardsMean() {
+        PeakEwma ewma = new PeakEwma(10 * SECONDS, 500 * MILLIS, clock.get());
+
+        clock.addAndGet(60 * SECONDS);
+        assertThat(ewma.get(clock.get(), 20 * MILLIS)).isCloseTo(20 * MILLIS, within(2.0 * MILLIS));
+    }
+
+    @Test
+    void trackerFallsBackToMeanAndPrunesIdleDepartedInstances() {
+        ResponseTimeTracker tracker = new ResponseTimeTracker(Duration.ofSeconds(10), clock::get);
+        ServiceInstance a = instance("a", 8081);
+        ServiceInstance b = instance("b", 8082);
+        ServiceInstance fresh = instance("c", 8083);
+
+        tracker.record(a, 10 * MILLIS);
+        tracker.record(b, 10 * MILLIS);
+        assertThat(tracker.estimate(fresh)).isEqualTo(10 * MILLIS);
+
+        // b 下线但刚有过样本，先保留；空闲超过 5 个时间常数后删除
+        tracker.retainAll(Collections.singletonList(a));
+        assertThat(tracker.size()).isEqualTo(2);
+        clock.addAndGet(51 * SECONDS);
+        tracker.retainAll(Collections.singletonList(a));
+        assertThat(tracker.size()).isEqualTo(1);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, "tlmall-order", "127.0.0.1", port, false);
+    }
+}
@@ -0,0 +1,71 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowStartLoadBalancerTest {
+
+    // 预热开始时权重为0：只要被拒绝，就重新选择
+    private final SlowStart slowStart = new SlowStart(Duration.ofSeconds(60), 1.0, 0);
+
+    private final ServiceInstance warmed = new DefaultServiceInstance("warmed", "tlmall-order", "192.168.0.1", 8060, false);
+
+    private final ServiceInstance fresh = new DefaultServiceInstance("fresh", "tlmall-order", "192.168.0.2", 8060, false,
+            Collections.singletonMap(SlowStart.STARTUP_TIME, String.valueOf(System.currentTimeMillis())));
+
+    @Test
+    void statelessDelegateIsAskedAgainForWarmingInstances() {
+        SlowStartLoadBalancer loadBalancer = new SlowStartLoadBalancer(
+                new RandomLoadBalancer(ServiceInstanceListSuppliers.toProvider("tlmall-order", warmed, fresh), "tlmall-order"),
+                slowStart);
+
+        // 最多选3次，新实例的份额约为 1/2 × 1/2 × 1/2，而不是 1/2
+        assertThat(countFresh(loadBalancer, 400)).isLessThan(100);
+    }
+
+    @Test
+    void roundRobinIsChosenOnceSoTheRotationIsNotSkewed() {
+        SlowStartLoadBalancer loadBalancer = new SlowStartLoadBalancer(
+                new RoundRobinLoadBalancer(ServiceInstanceListSuppliers.toProvider("tlmall-order", warmed, fresh), "tlmall-order"),
+                slowStart);
+
+        assertThat(countFresh(loadBalancer, 400)).isEqualTo(200);
+    }
+
+    @Test
+    void switchableDecidesByItsCurrentStrategy() {
+        Function<LoadBalancerStrategy, ReactorServiceInstanceLoadBalancer> factory = strategy ->
+                strategy == LoadBalancerStrategy.RANDOM
+                        ? new RandomLoadBalancer(ServiceInstanceListSuppliers.toProvider("tlmall-order", warmed, fresh), "tlmall-order")
+                        : new RoundRobinLoadBalancer(ServiceInstanceListSuppliers.toProvider("tlmall-order", warmed, fresh), "tlmall-order");
+        SwitchableLoadBalancer switchable = new SwitchableLoadBalancer("tlmall-order", LoadBalancerStrategy.ROUND_ROBIN, factory);
+        SlowStartLoadBalancer loadBalancer = new SlowStartLoadBalancer(switchable, slowStart);
+
+        assertThat(countFresh(loadBalancer, 400)).isEqualTo(200);
+
+        switchable.switchTo(LoadBalancerStrategy.RANDOM);
+        assertThat(countFresh(loadBalancer, 400)).isLessThan(100);
+    }
+
+    private int countFresh(ReactorServiceInstanceLoadBalancer loadBalancer, int requests) {
+        int count = 0;
+        for (int i = 0; i < requests; i++) {
+            if (loadBalancer.choose(new DefaultRequest<>()).block().getServer() == fresh) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
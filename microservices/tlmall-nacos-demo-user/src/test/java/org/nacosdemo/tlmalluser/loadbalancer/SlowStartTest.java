@@ -0,0 +1,57 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SlowStartTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void linearRampFromMinimumToFullWeight() {
+        SlowStart slowStart = new SlowStart(Duration.ofSeconds(60), 1.0, 10);
+
+        assertThat(slowStart.factor(startedAt(NOW), NOW)).isEqualTo(0.1);
+        assertThat(slowStart.factor(startedAt(NOW - 3_000), NOW)).isEqualTo(0.1);
+        assertThat(slowStart.factor(startedAt(NOW - 30_000), NOW)).isCloseTo(0.5, within(1e-9));
+        assertThat(slowStart.factor(startedAt(NOW - 60_000), NOW)).isEqualTo(1.0);
+        assertThat(slowStart.isWarmingUp(startedAt(NOW - 120_000), NOW)).isFalse();
+    }
+
+    @Test
+    void aggressiveCurveRampsFasterEarly() {
+        SlowStart linear = new SlowStart(Duration.ofSeconds(60), 1.0, 0);
+        SlowStart aggressive = new SlowStart(Duration.ofSeconds(60), 2.0, 0);
+        ServiceInstance instance = startedAt(NOW - 15_000);
+
+        assertThat(linear.factor(instance, NOW)).isCloseTo(0.25, within(1e-9));
+        assertThat(aggressive.factor(instance, NOW)).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void instancesWithoutStartupTimeGetFullWeight() {
+        SlowStart slowStart = new SlowStart(Duration.ofSeconds(60), 1.0, 10);
+        ServiceInstance noMetadata = new DefaultServiceInstance("order-0", "tlmall-order", "192.168.0.1", 8060, false);
+        ServiceInstance badFormat = new DefaultServiceInstance("order-1", "tlmall-order", "192.168.0.2", 8060, false,
+                Collections.singletonMap(SlowStart.STARTUP_TIME, "yesterday"));
+        // 本地时间格式不带时区，不再解析
+        ServiceInstance localTime = new DefaultServiceInstance("order-2", "tlmall-order", "192.168.0.3", 8060, false,
+                Collections.singletonMap(SlowStart.STARTUP_TIME, "2023-11-14 22:13:20"));
+
+        assertThat(slowStart.factor(noMetadata, NOW)).isEqualTo(1.0);
+        assertThat(slowStart.factor(badFormat, NOW)).isEqualTo(1.0);
+        assertThat(slowStart.factor(localTime, NOW)).isEqualTo(1.0);
+    }
+
+    private static ServiceInstance startedAt(long millis) {
+        return new DefaultServiceInstance("order-" + millis, "tlmall-order", "192.168.0.1", 8060, false,
+                Collections.singletonMap(SlowStart.STARTUP_TIME, String.valueOf(millis)));
+    }
+}
@@ -0,0 +1,39 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.nacosdemo.tlmalluser.loadbalancer.WeightedScheduleTest.instance;
+
+class SmoothWeightedRoundRobinLoadBalancerTest {
+
+    @Test
+    void trafficIsSplitByEffectiveWeight() {
+        ServiceInstance big = instance("big", 8081, "100", "1.0");
+        ServiceInstance small = instance("small", 8082, "100", "0.25");
+        SmoothWeightedRoundRobinLoadBalancer loadBalancer = new SmoothWeightedRoundRobinLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider("tlmall-order", big, small), "tlmall-order");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            String id = loadBalancer.choose(new DefaultRequest<>()).block().getServer().getInstanceId();
+            counts.merge(id, 1, Integer::sum);
+        }
+        // 100 : 25 = 4 : 1，整周期内严格按比例
+        assertThat(counts).containsEntry("big", 400).containsEntry("small", 100);
+    }
+
+    @Test
+    void emptyListReturnsNoServer() {
+        SmoothWeightedRoundRobinLoadBalancer loadBalancer = new SmoothWeightedRoundRobinLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider("tlmall-order"), "tlmall-order");
+
+        assertThat(loadBalancer.choose(new DefaultRequest<>()).block().hasServer()).isFalse();
+    }
+}
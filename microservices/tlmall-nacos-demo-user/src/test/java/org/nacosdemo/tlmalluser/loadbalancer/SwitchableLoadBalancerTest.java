@@ -0,0 +1,74 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SwitchableLoadBalancerTest {
+
+    @Test
+    void switchAffectsOnlyNewChoices() {
+        SwitchableLoadBalancer loadBalancer = new SwitchableLoadBalancer(
+                "tlmall-order", LoadBalancerStrategy.IP_HASH, SwitchableLoadBalancerTest::fixed);
+        // 切换前已经开始的选择仍由旧策略完成
+        Mono<Response<ServiceInstance>> inFlight = loadBalancer.choose(new DefaultRequest<>());
+
+        assertThat(loadBalancer.switchTo("p2c")).isTrue();
+
+        assertThat(loadBalancer.getStrategy()).isEqualTo(LoadBalancerStrategy.LEAST_REQUEST);
+        assertThat(inFlight.block().getServer().getInstanceId()).isEqualTo("ip-hash");
+        assertThat(loadBalancer.choose(new DefaultRequest<>()).block().getServer().getInstanceId()).isEqualTo("p2c");
+    }
+
+    @Test
+    void unknownStrategyKeepsCurrent() {
+        SwitchableLoadBalancer loadBalancer = new SwitchableLoadBalancer(
+                "tlmall-order", LoadBalancerStrategy.PEAK_EWMA, SwitchableLoadBalancerTest::fixed);
+
+        assertThat(loadBalancer.switchTo("fastest")).isFalse();
+
+        assertThat(loadBalancer.getStrategy()).isEqualTo(LoadBalancerStrategy.PEAK_EWMA);
+    }
+
+    @Test
+    void switchingBackReusesDelegate() {
+        Map<LoadBalancerStrategy, Integer> created = new EnumMap<>(LoadBalancerStrategy.class);
+        SwitchableLoadBalancer loadBalancer = new SwitchableLoadBalancer("tlmall-order", LoadBalancerStrategy.ROUND_ROBIN,
+                strategy -> {
+                    created.merge(strategy, 1, Integer::sum);
+                    return fixed(strategy);
+                });
+
+        loadBalancer.switchTo(LoadBalancerStrategy.RANDOM);
+        loadBalancer.switchTo(LoadBalancerStrategy.ROUND_ROBIN);
+        loadBalancer.switchTo(LoadBalancerStrategy.RANDOM);
+
+        assertThat(created).containsEntry(LoadBalancerStrategy.ROUND_ROBIN, 1).containsEntry(LoadBalancerStrategy.RANDOM, 1);
+    }
+
+    @Test
+    void strategyNamesAndAliases() {
+        assertThat(LoadBalancerStrategy.from("P2C")).isEqualTo(LoadBalancerStrategy.LEAST_REQUEST);
+        assertThat(LoadBalancerStrategy.from("least_request")).isEqualTo(LoadBalancerStrategy.LEAST_REQUEST);
+        assertThat(LoadBalancerStrategy.from(" consistent-hash ")).isEqualTo(LoadBalancerStrategy.IP_HASH);
+        assertThat(LoadBalancerStrategy.from("wrr")).isEqualTo(LoadBalancerStrategy.WEIGHTED_ROUND_ROBIN);
+        assertThat(LoadBalancerStrategy.from("fastest")).isNull();
+        assertThat(LoadBalancerStrategy.from(null)).isNull();
+    }
+
+    // 每种策略固定返回以策略名为instanceId的实例，组装Mono时即确定结果
+    private static ReactorServiceInstanceLoadBalancer fixed(LoadBalancerStrategy strategy) {
+        ServiceInstance instance = new DefaultServiceInstance(strategy.getName(), "tlmall-order", "127.0.0.1", 8060, false);
+        return request -> Mono.just(new DefaultResponse(instance));
+    }
+}
@@ -0,0 +1,108 @@
+package org.nacosdemo.tlmalluser.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeightedScheduleTest {
+
+    @Test
+    void nacosWeightScalesConfiguredWeight() {
+        assertThat(ServiceInstanceWeights.of(instance("a", 8081, null, null))).isEqualTo(100);
+        assertThat(ServiceInstanceWeights.of(instance("a", 8081, "100", "0.5"))).isEqualTo(50);
+        assertThat(ServiceInstanceWeights.of(instance("a", 8081, null, "2.0"))).isEqualTo(200);
+        // 元数据 weight 不会覆盖 Nacos 权重为 0（摘流量）的设置
+        assertThat(ServiceInstanceWeights.of(instance("a", 8081, "100", "0.0"))).isZero();
+        assertThat(ServiceInstanceWeights.of(instance("a", 8081, "1", "0.01"))).isEqualTo(1);
+        assertThat(ServiceInstanceWeights.of(instance("a", 8081, "abc", "1.0"))).isEqualTo(100);
+    }
+
+    @Test
+    void smoothOrderFollowsNginx() {
+        List<ServiceInstance> instances = Arrays.asList(
+                instance("a", 8081, "5", null), instance("b", 8082, "1", null), instance("c", 8083, "1", null));
+        WeightedSchedule schedule = WeightedSchedule.build(instances);
+
+        StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            order.append(schedule.select(i).getInstanceId());
+        }
+        assertThat(order.toString()).isEqualTo("aabacaa");
+    }
+
+    @Test
+    void zeroWeightInstancesGetNoTraffic() {
+        List<ServiceInstance> instances = Arrays.asList(
+                instance("a", 8081, "100", "1.0"), instance("b", 8082, "100", "0"));
+        WeightedSchedule schedule = WeightedSchedule.build(instances);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(schedule.select(i).getInstanceId()).isEqualTo("a");
+        }
+    }
+
+    @Test
+    void scheduleIsRebuiltWhenWeightChanges() {
+        List<ServiceInstance> before = Arrays.asList(instance("a", 8081, "100", "1.0"), instance("b", 8082, "100", "1.0"));
+        List<ServiceInstance> same = Arrays.asList(instance("a", 8081, "100", "1.0"), instance("b", 8082, "100", "1.0"));
+        List<ServiceInstance> drained = Arrays.asList(instance("a", 8081, "100", "1.0"), instance("b", 8082, "100", "0"));
+        WeightedSchedule schedule = WeightedSchedule.build(before);
+
+        assertThat(schedule.isBuiltFrom(same)).isTrue();
+        assertThat(schedule.isBuiltFrom(drained)).isFalse();
+    }
+
+    @Test
+    void slowStartScalesTheWarmingInstanceUntilTheNextRefresh() {
+        long now = 1_700_000_000_000L;
+        SlowStart slowStart = new SlowStart(Duration.ofSeconds(60), 1.0, 10);
+        ServiceInstance warming = instance("b", 8082, "100", "1.0");
+        warming.getMetadata().put(SlowStart.STARTUP_TIME, String.valueOf(now - 15_000));
+        List<ServiceInstance> instances = Arrays.asList(instance("a", 8081, "100", "1.0"), warming);
+        WeightedSchedule schedule = WeightedSchedule.build(instances, slowStart, now);
+
+        // 预热25%：100 : 25，一个周期125次中b占25次
+        int warmingCount = 0;
+        for (int i = 0; i < 125; i++) {
+            if (schedule.select(i) == warming) {
+                warmingCount++;
+            }
+        }
+        assertThat(warmingCount).isEqualTo(25);
+        // 窗口60s分20步，3s后按新的factor重建
+        assertThat(schedule.isBuiltFrom(instances, now + 2_999)).isTrue();
+        assertThat(schedule.isBuiltFrom(instances, now + 3_000)).isFalse();
+
+        WeightedSchedule warmed = WeightedSchedule.build(instances, slowStart, now + 60_000);
+        assertThat(warmed.isBuiltFrom(instances, Long.MAX_VALUE - 1)).isTrue();
+    }
+
+    @Test
+    void snapshotsAreComparedByVersionOnly() {
+        List<ServiceInstance> instances = Arrays.asList(instance("a", 8081, "100", "1.0"), instance("b", 8082, "50", "1.0"));
+        WeightedSchedule schedule = WeightedSchedule.build(new ServiceInstanceListSnapshot(3, instances));
+
+        assertThat(schedule.isBuiltFrom(new ServiceInstanceListSnapshot(3, instances))).isTrue();
+        assertThat(schedule.isBuiltFrom(new ServiceInstanceListSnapshot(4, instances))).isFalse();
+    }
+
+    static ServiceInstance instance(String id, int port, String weight, String nacosWeight) {
+        Map<String, String> metadata = new HashMap<>();
+        if (weight != null) {
+            metadata.put(ServiceInstanceWeights.WEIGHT, weight);
+        }
+        if (nacosWeight != null) {
+            metadata.put(ServiceInstanceWeights.NACOS_WEIGHT, nacosWeight);
+        }
+        return new DefaultServiceInstance(id, "tlmall-order", "127.0.0.1", port, false, metadata);
+    }
+}
@@ -0,0 +1,110 @@
+package org.nacosdemo.tlmalluser.loadbalancer.supplier;
+
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.listener.EventListener;
+import com.alibaba.nacos.api.naming.listener.NamingEvent;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NacosPushServiceInstanceListSupplierTest {
+
+    private static final String SERVICE_ID = "tlmall-order";
+
+    private static final String GROUP = "DEFAULT_GROUP";
+
+    @Test
+    void servesPushedSnapshotWithoutTouchingDiscoveryClient() throws Exception {
+        ServiceInstanceListSupplier delegate = mock(ServiceInstanceListSupplier.class);
+        when(delegate.getServiceId()).thenReturn(SERVICE_ID);
+        NamingService namingService = mock(NamingService.class);
+        when(namingService.selectInstances(SERVICE_ID, GROUP, true))
+                .thenReturn(Collections.singletonList(instance("192.168.0.1", true)));
+        NacosServiceManager nacosServiceManager = mock(NacosServiceManager.class);
+        when(nacosServiceManager.getNamingService()).thenReturn(namingService);
+
+        NacosPushServiceInstanceListSupplier supplier =
+                new NacosPushServiceInstanceListSupplier(delegate, nacosServiceManager, GROUP);
+        supplier.afterPropertiesSet();
+
+        ArgumentCaptor<EventListener> listener = ArgumentCaptor.forClass(EventListener.class);
+        verify(namingService).subscribe(eq(SERVICE_ID), eq(GROUP), listener.capture());
+
+        List<ServiceInstance> first = supplier.get().blockFirst();
+        assertThat(first).hasSize(1);
+        assertThat(ServiceInstanceListSnapshot.versionOf(first)).isEqualTo(1L);
+        // 实例列表不变时每次拿到的都是同一个快照
+        assertThat(supplier.get().blockFirst()).isSameAs(first);
+
+        // 推送新的实例列表：不健康的实例被过滤掉，版本号加一
+        listener.getValue().onEvent(new NamingEvent(SERVICE_ID, Arrays.asList(
+                instance("192.168.0.1", true), instance("192.168.0.2", true), instance("192.168.0.3", false))));
+        List<ServiceInstance> second = supplier.get().blockFirst();
+        assertThat(second).extracting(ServiceInstance::getHost).containsExactly("192.168.0.1", "192.168.0.2");
+        assertThat(ServiceInstanceListSnapshot.versionOf(second)).isEqualTo(2L);
+
+        // 过滤后的列表不变：保留当前快照和版本号
+        listener.getValue().onEvent(new NamingEvent(SERVICE_ID, Arrays.asList(
+                instance("192.168.0.1", true), instance("192.168.0.2", true), instance("192.168.0.4", false))));
+        assertThat(supplier.get().blockFirst()).isSameAs(second);
+
+        // 只有权重变化也生成新版本
+        Instance reweighted = instance("192.168.0.2", true);
+        reweighted.setWeight(2.0);
+        listener.getValue().onEvent(new NamingEvent(SERVICE_ID, Arrays.asList(instance("192.168.0.1", true), reweighted)));
+        assertThat(ServiceInstanceListSnapshot.versionOf(supplier.get().blockFirst())).isEqualTo(3L);
+
+        verify(delegate, never()).get();
+        verify(delegate, never()).get(any());
+    }
+
+    @Test
+    void pushDuringInitialQueryIsNotOverwritten() throws Exception {
+        ServiceInstanceListSupplier delegate = mock(ServiceInstanceListSupplier.class);
+        when(delegate.getServiceId()).thenReturn(SERVICE_ID);
+        NamingService namingService = mock(NamingService.class);
+        NacosServiceManager nacosServiceManager = mock(NacosServiceManager.class);
+        when(nacosServiceManager.getNamingService()).thenReturn(namingService);
+        ArgumentCaptor<EventListener> listener = ArgumentCaptor.forClass(EventListener.class);
+        // 主动查询返回之前，Nacos 已经推送了更新的实例列表
+        when(namingService.selectInstances(SERVICE_ID, GROUP, true)).thenAnswer(invocation -> {
+            verify(namingService).subscribe(eq(SERVICE_ID), eq(GROUP), listener.capture());
+            listener.getValue().onEvent(new NamingEvent(SERVICE_ID, Arrays.asList(
+                    instance("192.168.0.1", true), instance("192.168.0.2", true))));
+            return Collections.singletonList(instance("192.168.0.1", true));
+        });
+
+        NacosPushServiceInstanceListSupplier supplier =
+                new NacosPushServiceInstanceListSupplier(delegate, nacosServiceManager, GROUP);
+        supplier.afterPropertiesSet();
+
+        assertThat(supplier.getSnapshot()).extracting(ServiceInstance::getHost)
+                .containsExactly("192.168.0.1", "192.168.0.2");
+        assertThat(supplier.getSnapshot().getVersion()).isEqualTo(1L);
+    }
+
+    private static Instance instance(String ip, boolean healthy) {
+        Instance instance = new Instance();
+        instance.setIp(ip);
+        instance.setPort(8060);
+        instance.setHealthy(healthy);
+        instance.setServiceName(SERVICE_ID);
+        return instance;
+    }
+}
@@ -0,0 +1,99 @@
+package org.nacosdemo.tlmalluser.loadbalancer.supplier;
+
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ZoneAffinityServiceInstanceListSupplierTest {
+
+    private final AtomicReference<List<ServiceInstance>> upstream = new AtomicReference<>();
+
+    private final ZoneAffinityServiceInstanceListSupplier supplier = supplier();
+
+    @Test
+    void prefersLocalClusterThenRegionThenSpills() {
+        upstream.set(Arrays.asList(
+                instance(8081, "sh", "cn-shanghai", true),
+                instance(8082, "sh", "cn-shanghai", true),
+                instance(8083, "hz", "cn-shanghai", true),
+                instance(8084, "bj", "cn-beijing", true)));
+        assertThat(ports()).containsExactly(8081, 8082);
+
+        // 本集群只剩1个健康实例（< 4 × 0.5），退到同地域
+        upstream.set(Arrays.asList(
+                instance(8081, "sh", "cn-shanghai", true),
+                instance(8083, "hz", "cn-shanghai", true),
+                instance(8084, "bj", "cn-beijing", true),
+                instance(8085, "bj", "cn-beijing", true)));
+        assertThat(ports()).containsExactly(8081, 8083);
+
+        upstream.set(Arrays.asList(
+                instance(8081, "sh", "cn-shanghai", true),
+                instance(8084, "bj", "cn-beijing", true),
+                instance(8085, "bj", "cn-beijing", true)));
+        assertThat(ports()).containsExactly(8081, 8084, 8085);
+    }
+
+    @Test
+    void sameListIsFilteredOnce() {
+        upstream.set(Arrays.asList(instance(8081, "sh", "cn-shanghai", true), instance(8082, "bj", "cn-beijing", true)));
+
+        assertThat(supplier.get().blockFirst()).isSameAs(supplier.get().blockFirst());
+    }
+
+    @Test
+    void healthChangeOnSameHostPortIsNotServedStale() {
+        upstream.set(Arrays.asList(instance(8081, "sh", "cn-shanghai", true), instance(8082, "sh", "cn-shanghai", true)));
+        assertThat(ports()).containsExactly(8081, 8082);
+
+        // 新列表 host:port 顺序相同，只有健康状态变化
+        upstream.set(Arrays.asList(instance(8081, "sh", "cn-shanghai", true), instance(8082, "sh", "cn-shanghai", false)));
+        assertThat(ports()).containsExactly(8081);
+    }
+
+    @Test
+    void newSnapshotVersionIsRefiltered() {
+        List<ServiceInstance> instances = Arrays.asList(
+                instance(8081, "sh", "cn-shanghai", true), instance(8082, "bj", "cn-beijing", true));
+        upstream.set(new ServiceInstanceListSnapshot(1, instances));
+        List<ServiceInstance> first = supplier.get().blockFirst();
+
+        upstream.set(new ServiceInstanceListSnapshot(2, instances));
+        List<ServiceInstance> second = supplier.get().blockFirst();
+
+        assertThat(second).isNotSameAs(first).isEqualTo(first);
+    }
+
+    private List<Integer> ports() {
+        return supplier.get().blockFirst().stream().map(ServiceInstance::getPort).collect(Collectors.toList());
+    }
+
+    private ZoneAffinityServiceInstanceListSupplier supplier() {
+        ServiceInstanceListSupplier delegate = mock(ServiceInstanceListSupplier.class);
+        when(delegate.getServiceId()).thenReturn("tlmall-order");
+        when(delegate.get()).thenAnswer(invocation -> Flux.just(upstream.get()));
+        return new ZoneAffinityServiceInstanceListSupplier(delegate, "sh", "cn-shanghai", 0.5);
+    }
+
+    private static ServiceInstance instance(int port, String cluster, String region, boolean healthy) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(ZoneAffinityServiceInstanceListSupplier.CLUSTER, cluster);
+        metadata.put(ZoneAffinityServiceInstanceListSupplier.REGION, region);
+        metadata.put(ZoneAffinityServiceInstanceListSupplier.HEALTHY, String.valueOf(healthy));
+        return new DefaultServiceInstance(null, "tlmall-order", "127.0.0.1", port, false, metadata);
+    }
+}
@@ -0,0 +1,141 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PreloadDagRunnerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PreloadDagRunner runner = new PreloadDagRunner(executor);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void independentTasksRunInParallelAndDependentsSeeTheirResults() {
+        PreloadTask a = sleeping("a", 300, "A");
+        PreloadTask b = sleeping("b", 300, "B");
+        PreloadTask c = PreloadTask.builder("c")
+                .dependsOn("a", "b")
+                .loader(context -> context.<String>get("a") + context.<String>get("b"))
+                .build();
+        PreloadTask d = PreloadTask.builder("d")
+                .dependsOn("c")
+                .loader(context -> {
+                    assertThat(context.<String>get("c")).isEqualTo("AB");
+                    return null;
+                })
+                .build();
+
+        PreloadReport report = runner.run(Arrays.asList(d, c, b, a));
+
+        assertThat(report.isSuccessful()).isTrue();
+        assertThat(report.getTask("d").getStatus()).isEqualTo(PreloadReport.Status.SUCCESS);
+        // a、b并行执行：总耗时接近单个任务的耗时，而不是两者之和
+        assertThat(report.getTotalMillis()).isLessThan(550);
+        assertThat(report.getSerialMillis()).isGreaterThanOrEqualTo(600);
+        assertThat(report.getTask("c").getStartOffsetMillis())
+                .isGreaterThanOrEqualTo(report.getTask("a").getEndOffsetMillis());
+    }
+
+    @Test
+    void timeoutInterruptsLoaderAndUsesFallback() {
+        PreloadTask slow = PreloadTask.builder("slow")
+                .timeout(Duration.ofMillis(100))
+                .loader(context -> {
+                    Thread.sleep(10_000);
+                    return "remote";
+                })
+                .fallback(e -> "cached")
+                .build();
+        PreloadTask dependent = PreloadTask.builder("dependent")
+                .dependsOn("slow")
+                .loader(context -> context.get("slow"))
+                .build();
+
+        PreloadReport report = runner.run(Arrays.asList(slow, dependent));
+
+        assertThat(report.getTask("slow").getStatus()).isEqualTo(PreloadReport.Status.FALLBACK);
+        assertThat(report.getTask("slow").getDurationMillis()).isLessThan(1000);
+        assertThat(report.getTask("dependent").getStatus()).isEqualTo(PreloadReport.Status.SUCCESS);
+        assertThat(report.isSuccessful()).isTrue();
+    }
+
+    @Test
+    void failureWithoutFallbackSkipsDependentsAndBlocksRegistration() {
+        PreloadTask broken = PreloadTask.builder("broken")
+                .loader(context -> {
+                    throw new IllegalStateException("boom");
+                })
+                .build();
+        PreloadTask dependent = PreloadTask.builder("dependent")
+                .dependsOn("broken")
+                .loader(context -> "never")
+                .build();
+        PreloadTask optional = PreloadTask.builder("optional")
+                .optional()
+                .loader(context -> {
+                    throw new IllegalStateException("ignored");
+                })
+                .build();
+
+        PreloadReport report = runner.run(Arrays.asList(broken, dependent, optional));
+
+        assertThat(report.getTask("broken").getStatus()).isEqualTo(PreloadReport.Status.FAILED);
+        assertThat(report.getTask("broken").getError()).hasMessage("boom");
+        assertThat(report.getTask("dependent").getStatus()).isEqualTo(PreloadReport.Status.SKIPPED);
+        assertThat(report.getTask("optional").getStatus()).isEqualTo(PreloadReport.Status.FAILED);
+        assertThat(report.isSuccessful()).isFalse();
+        assertThat(report.format()).contains("broken", "dependent", "optional?");
+    }
+
+    @Test
+    void rejectsCyclesAndUnknownDependencies() {
+        List<PreloadTask> cycle = Arrays.asList(
+                PreloadTask.builder("a").dependsOn("c").loader(context -> null).build(),
+                PreloadTask.builder("b").dependsOn("a").loader(context -> null).build(),
+                PreloadTask.builder("c").dependsOn("b").loader(context -> null).build());
+        assertThatThrownBy(() -> runner.run(cycle))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cycle");
+
+        List<PreloadTask> unknown = Arrays.asList(
+                PreloadTask.builder("a").dependsOn("missing").loader(context -> null).build());
+        assertThatThrownBy(() -> runner.run(unknown))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("missing");
+    }
+
+    @Test
+    void contextRejectsUndeclaredDependencies() {
+        PreloadTask a = sleeping("a", 0, "A");
+        PreloadTask b = PreloadTask.builder("b")
+                .loader(context -> context.get("a"))
+                .build();
+
+        PreloadReport report = runner.run(Arrays.asList(a, b));
+
+        assertThat(report.getTask("b").getStatus()).isEqualTo(PreloadReport.Status.FAILED);
+        assertThat(report.getTask("b").getError()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static PreloadTask sleeping(String name, long millis, String result) {
+        return PreloadTask.builder(name)
+                .loader(context -> {
+                    Thread.sleep(millis);
+                    return result;
+                })
+                .build();
+    }
+}
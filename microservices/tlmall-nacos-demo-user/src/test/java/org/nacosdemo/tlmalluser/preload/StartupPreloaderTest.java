@@ -0,0 +1,30 @@
+package org.nacosdemo.tlmalluser.preload;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupPreloaderTest {
+
+    @Test
+    void defaultSnapshotPathIsPerPort() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.application.name", "tlmall-user");
+
+        assertThat(StartupPreloader.snapshotPath(environment, 8050))
+                .isEqualTo(Paths.get(System.getProperty("java.io.tmpdir"), "tlmall-user-8050-preload.snapshot"));
+        assertThat(StartupPreloader.snapshotPath(environment, 8051))
+                .isNotEqualTo(StartupPreloader.snapshotPath(environment, 8050));
+    }
+
+    @Test
+    void configuredSnapshotPathIsUsedAsIs() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.preload.snapshot.path", "/data/tlmall-user/preload.snapshot");
+
+        assertThat(StartupPreloader.snapshotPath(environment, 8050))
+                .isEqualTo(Paths.get("/data/tlmall-user/preload.snapshot"));
+    }
+}
@@ -0,0 +1,63 @@
+package org.nacosdemo.tlmalluser.preload.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PreloadSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsJsonTreesThroughMappedFile() throws Exception {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("code", 200);
+        order.put("message", "成功");
+        order.put("data", Arrays.asList(1L << 40, -7, 3.5, new BigDecimal("12.30"), true, null, "fox"));
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("orderData", order);
+        entries.put("empty", null);
+
+        PreloadSnapshotStore store = new PreloadSnapshotStore(dir.resolve("nested/user.snapshot"));
+        store.write(entries);
+        PreloadSnapshot snapshot = store.read();
+
+        assertThat(snapshot).isNotNull();
+        assertThat(snapshot.getSavedAtMillis()).isCloseTo(System.currentTimeMillis(), within(60_000L));
+        assertThat(snapshot.getEntries()).isEqualTo(entries);
+        assertThat(snapshot.contains("empty")).isTrue();
+        try (Stream<Path> files = Files.list(dir.resolve("nested"))) {
+            // 临时文件已被原子替换掉
+            assertThat(files).containsExactly(dir.resolve("nested/user.snapshot"));
+        }
+    }
+
+    @Test
+    void missingOrCorruptedSnapshotIsIgnored() throws Exception {
+        Path path = dir.resolve("user.snapshot");
+        PreloadSnapshotStore store = new PreloadSnapshotStore(path);
+        assertThat(store.read()).isNull();
+
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("dictionary", "cn-shanghai");
+        store.write(entries);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x40;
+        Files.write(path, bytes);
+        assertThat(store.read()).isNull();
+
+        Files.write(path, new byte[]{1, 2, 3});
+        assertThat(store.read()).isNull();
+    }
+}
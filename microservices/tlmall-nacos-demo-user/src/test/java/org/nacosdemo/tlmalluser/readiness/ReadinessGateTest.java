@@ -0,0 +1,72 @@
+package org.nacosdemo.tlmalluser.readiness;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadinessGateTest {
+
+    private final List<ReadinessState> published = new ArrayList<>();
+    private final ReadinessGate gate = new ReadinessGate(this::dispatch);
+
+    @Test
+    void holdAcquiredBeforeStartupKeepsRefusingAfterApplicationReady() {
+        ReadinessGate.Hold hold = gate.hold("loading");
+
+        // Spring Boot 在 ApplicationReadyEvent 之后发布 ACCEPTING_TRAFFIC
+        AvailabilityChangeEvent.publish(this::dispatch, this, ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(gate.isAcceptingTraffic()).isFalse();
+        assertThat(published).containsExactly(ReadinessState.ACCEPTING_TRAFFIC, ReadinessState.REFUSING_TRAFFIC);
+
+        hold.release();
+        hold.release();
+        assertThat(gate.isAcceptingTraffic()).isTrue();
+        assertThat(published).endsWith(ReadinessState.ACCEPTING_TRAFFIC).hasSize(3);
+    }
+
+    @Test
+    void gateStaysClosedUntilLastHoldIsReleased() {
+        AvailabilityChangeEvent.publish(this::dispatch, this, ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(gate.isAcceptingTraffic()).isTrue();
+
+        ReadinessGate.Hold first = gate.hold("first");
+        ReadinessGate.Hold second = gate.hold("second");
+        assertThat(gate.isAcceptingTraffic()).isFalse();
+
+        first.release();
+        assertThat(gate.isAcceptingTraffic()).isFalse();
+        second.close();
+        assertThat(gate.isAcceptingTraffic()).isTrue();
+    }
+
+    @Test
+    void releasingBeforeApplicationReadyDoesNotOpenEarly() {
+        gate.hold("preload").release();
+
+        assertThat(gate.isAcceptingTraffic()).isFalse();
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void refusingTrafficPublishedOnContextCloseIsIgnored() {
+        AvailabilityChangeEvent.publish(this::dispatch, this, ReadinessState.ACCEPTING_TRAFFIC);
+
+        // ServletWebServerApplicationContext.doClose() 以容器为source发布
+        AvailabilityChangeEvent.publish(this::dispatch, new GenericApplicationContext(), ReadinessState.REFUSING_TRAFFIC);
+
+        assertThat(gate.isAcceptingTraffic()).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(Object event) {
+        AvailabilityChangeEvent<ReadinessState> change = (AvailabilityChangeEvent<ReadinessState>) event;
+        published.add(change.getState());
+        gate.onReadinessStateChanged(change);
+    }
+}
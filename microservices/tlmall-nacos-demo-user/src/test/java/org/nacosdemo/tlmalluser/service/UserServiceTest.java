@@ -0,0 +1,82 @@
+package org.nacosdemo.tlmalluser.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.ClientKeys;
+import org.nacosdemo.tlmallsupport.retry.RetryExecutor;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class UserServiceTest {
+
+    private static final String URL = "http://tlmall-order/order/getOrder?userId=fox";
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    // 负载均衡器看到的客户端Key：按 BlockingLoadBalancerClient 的方式从出站请求构造 RequestDataContext 后读取
+    private final List<String> chosenKeys = new ArrayList<>();
+
+    private final UserService userService = new UserService();
+
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            RequestData data = new RequestData(request.getMethod(), request.getURI(), request.getHeaders(), null, new HashMap<>());
+            chosenKeys.add(ClientKeys.fromRequest(new DefaultRequest<>(new RequestDataContext(data))));
+            return execution.execute(request, body);
+        });
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        RetryExecutor retryExecutor = mock(RetryExecutor.class);
+        when(retryExecutor.executeAndWait(any())).thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+        RetryRegistry retryRegistry = mock(RetryRegistry.class);
+        when(retryRegistry.forService("tlmall-order")).thenReturn(retryExecutor);
+
+        ReflectionTestUtils.setField(userService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(userService, "retryRegistry", retryRegistry);
+    }
+
+    @Test
+    void clientKeyTravelsAsOutboundHeaderToTheLoadBalancer() {
+        server.expect(requestTo(URL)).andExpect(header(ClientKeys.HEADER, "10.0.0.1"))
+                .andRespond(withSuccess("{\"code\":200}", MediaType.APPLICATION_JSON));
+
+        userService.getOrderByUserId("fox", "10.0.0.1");
+
+        server.verify();
+        assertThat(chosenKeys).containsExactly("10.0.0.1");
+    }
+
+    @Test
+    void withoutClientKeyNoHeaderIsSent() {
+        server.expect(requestTo(URL)).andExpect(headerDoesNotExist(ClientKeys.HEADER))
+                .andRespond(withSuccess("{\"code\":200}", MediaType.APPLICATION_JSON));
+
+        userService.getOrderByUserId("fox", null);
+
+        server.verify();
+        assertThat(chosenKeys).containsExactly((String) null);
+    }
+}
@@ -0,0 +1,49 @@
+package org.nacosdemo.tlmalluseropenfeigndemo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Feign调用下游的重试（RetryRegistry）
+ * <p>
+ * - Spring Cloud OpenFeign缺省使用 Retryer.NEVER_RETRY，重试统一由RetryRegistry负责（退避等待期间不占用线程）
+ * - 每次尝试在 applicationTaskExecutor 上执行（spring.threads.virtual.enabled=true 时为虚拟线程）
+ * - FeignAuthRequestInterceptor 从RequestContextHolder读取请求头，因此把调用方的请求上下文带到每次尝试的线程上
+ */
+@Configuration
+public class RetryConfig {
+
+    @Bean
+    public RetryRegistry retryRegistry(
+            Environment environment,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RetryRegistry(environment, executor, requestContextDecorator(), meterRegistry.getIfAvailable());
+    }
+
+    private static TaskDecorator requestContextDecorator() {
+        return task -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+                RequestContextHolder.setRequestAttributes(attributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previous);
+                }
+            };
+        };
+    }
+}
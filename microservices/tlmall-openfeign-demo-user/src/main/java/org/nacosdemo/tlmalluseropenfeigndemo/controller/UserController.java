@@ -1,6 +1,7 @@
 package org.nacosdemo.tlmalluseropenfeigndemo.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.nacosdemo.tlmallsupport.retry.RetryRegistry;
 import org.nacosdemo.tlmalluseropenfeigndemo.controller.data.OrderRequest;
 import org.nacosdemo.tlmalluseropenfeigndemo.feign.dto.OrderDTO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springcloudmvp.tlmallcommon.Result;
 import org.nacosdemo.tlmalluseropenfeigndemo.feign.OrderFeignService;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @RestController
 @RequestMapping("/users")
@@ -15,14 +18,28 @@ public class UserController {
     @Autowired
     private OrderFeignService orderService;
 
+    @Autowired
+    private RetryRegistry retryRegistry;
+
     @GetMapping(value = "/{userId}/orders")
-    public Result<?> getUserOrders(
+    public CompletableFuture<Result<?>> getUserOrders(
             @PathVariable("userId") String userId) {
         log.info("根据userId:" + userId + "查询订单信息");
 
         // 使用openFeign调用订单服务
-        Result result = orderService.getOrder(userId);
-        return result;
+        // 查询是幂等的，暂时性失败按退避策略和重试预算重试；返回CompletableFuture，等待期间不占用Tomcat线程
+        return retryRegistry.forService("tlmall-order").execute(() -> orderService.getOrder(userId));
+    }
+
+    /**
+     * 分页查询用户订单，返回的data中nextCursor作为下一页的cursor参数，为null时没有下一页
+     */
+    @GetMapping(value = "/{userId}/orders/page")
+    public CompletableFuture<Result<?>> getUserOrderPage(
+            @PathVariable("userId") String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return retryRegistry.forService("tlmall-order").execute(() -> orderService.getOrderPage(userId, cursor, limit));
     }
 
     @PostMapping(value = "/{userId}/orders")
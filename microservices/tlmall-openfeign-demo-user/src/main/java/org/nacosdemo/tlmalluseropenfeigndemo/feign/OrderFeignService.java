@@ -20,6 +20,12 @@ public interface OrderFeignService {
     @GetMapping("/getOrder")
     Result<?> getOrder(@RequestParam("userId") String userId);
 
+    // keyset分页：cursor为上一页返回的nextCursor（不透明字符串），第一页传null
+    @GetMapping("/getOrderPage")
+    Result<?> getOrderPage(@RequestParam("userId") String userId,
+                           @RequestParam(value = "cursor", required = false) String cursor,
+                           @RequestParam(value = "limit", required = false) Integer limit);
+
     @GetMapping(value = "/post1")
     Result<?> post1(@RequestBody OrderDTO orderDTO);
 
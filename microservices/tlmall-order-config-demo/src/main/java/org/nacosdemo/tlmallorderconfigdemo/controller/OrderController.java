@@ -10,6 +10,7 @@ import org.springcloudmvp.tlmallcommon.BusinessException;
 import org.springcloudmvp.tlmallcommon.Result;
 import org.nacosdemo.tlmallorderconfigdemo.dto.OrderDTO;
 import org.nacosdemo.tlmallorderconfigdemo.service.OrderService;
+import org.nacosdemo.tlmallsupport.order.OrderView;
 
 @RestController
 @RequestMapping("/order")
@@ -23,10 +24,12 @@ public class OrderController {
     /**
      * 根据用户id查询订单信息
      * @param userId
+     * @param view summary：只返回id、commodityCode、count、money；full（缺省）：完整的订单
      * @return
      */
     @GetMapping("/getOrder")
-    public Result<?> getOrder(@RequestParam("userId") String userId) {
+    public Result<?> getOrder(@RequestParam("userId") String userId,
+                              @RequestParam(value = "view", required = false) String view) {
 
         //模拟异常
         if(("foxxxx").equals(userId)){
@@ -43,7 +46,7 @@ public class OrderController {
         log.info("根据userId:"+userId+"查询订单信息");
         Result<?> res = null;
         try {
-            res = orderService.getOrderByUserId(userId);
+            res = orderService.getOrderByUserId(userId, OrderView.from(view));
         }
         catch (BusinessException e) {
             return Result.failed(e.getMessage());
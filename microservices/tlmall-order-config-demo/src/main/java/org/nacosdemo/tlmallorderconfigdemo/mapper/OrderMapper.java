@@ -16,11 +16,14 @@
 
 package org.nacosdemo.tlmallorderconfigdemo.mapper;
 
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.springframework.stereotype.Repository;
 import org.nacosdemo.tlmallorderconfigdemo.entity.Order;
+import org.nacosdemo.tlmallsupport.order.OrderSummary;
 
 import java.util.List;
 
@@ -28,6 +31,24 @@ import java.util.List;
 @Mapper
 @Repository
 public interface OrderMapper {
-	@Select("select * from `order` where user_id = #{userId} order by id desc")
+	// 完整视图（Order）的列，显式列出而不是select *，表增加列时不会多传
+	String FULL_COLUMNS = "id, user_id, commodity_code, count, money, create_time, update_time";
+
+	// 摘要视图（OrderSummary）的列，顺序与OrderSummary的构造方法参数一致
+	String SUMMARY_COLUMNS = "id, commodity_code, count, money";
+
+	@Select("select " + FULL_COLUMNS + " from `order` where user_id = #{userId} order by id desc")
 	List<Order> getOrderByUserId(@Param("userId") String userId);
+
+	/**
+	 * 同getOrderByUserId，只查询摘要视图的列
+	 */
+	@Select("select " + SUMMARY_COLUMNS + " from `order` where user_id = #{userId} order by id desc")
+	@ConstructorArgs({
+			@Arg(column = "id", javaType = Integer.class),
+			@Arg(column = "commodity_code", javaType = String.class),
+			@Arg(column = "count", javaType = Integer.class),
+			@Arg(column = "money", javaType = Integer.class)
+	})
+	List<OrderSummary> getOrderSummariesByUserId(@Param("userId") String userId);
 }
@@ -17,11 +17,15 @@
 package org.nacosdemo.tlmallorderconfigdemo.service;
 
 
+import org.nacosdemo.tlmallsupport.order.OrderView;
 import org.springcloudmvp.tlmallcommon.Result;
 
 
 public interface OrderService {
 
 
-	Result<?> getOrderByUserId(String userId);
+	/**
+	 * 查询用户的所有订单，view为SUMMARY时只返回摘要视图（OrderSummary）
+	 */
+	Result<?> getOrderByUserId(String userId, OrderView view);
 }
@@ -23,6 +23,7 @@ import org.springcloudmvp.tlmallcommon.Result;
 import org.nacosdemo.tlmallorderconfigdemo.entity.Order;
 import org.nacosdemo.tlmallorderconfigdemo.mapper.OrderMapper;
 import org.nacosdemo.tlmallorderconfigdemo.service.OrderService;
+import org.nacosdemo.tlmallsupport.order.OrderView;
 
 
 import java.util.List;
@@ -36,7 +37,11 @@ public class OrderServiceImpl implements OrderService {
 
 
     @Override
-    public Result<?> getOrderByUserId(String userId) {
+    public Result<?> getOrderByUserId(String userId, OrderView view) {
+        if (view == OrderView.SUMMARY) {
+            // 只查询摘要的列
+            return Result.success(orderMapper.getOrderSummariesByUserId(userId));
+        }
         List<Order> list = orderMapper.getOrderByUserId(userId);
 
         return Result.success(list);
@@ -0,0 +1,31 @@
+package org.nacosdemo.tlmallorderconfigdemo.mapper;
+
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.order.OrderSummary;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 摘要查询的 @ConstructorArgs 映射：列的顺序和类型必须与OrderSummary的构造方法一致，否则运行时才报错
+ */
+class OrderMapperTest {
+
+    @Test
+    void constructorArgsFollowSummaryColumns() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.addMapper(OrderMapper.class);
+
+        List<ResultMapping> args = configuration
+                .getMappedStatement(OrderMapper.class.getName() + ".getOrderSummariesByUserId")
+                .getResultMaps().get(0).getConstructorResultMappings();
+
+        assertThat(args).extracting(ResultMapping::getColumn)
+                .containsExactly(OrderMapper.SUMMARY_COLUMNS.split(",\\s*"));
+        Class<?>[] types = args.stream().map(ResultMapping::getJavaType).toArray(Class<?>[]::new);
+        assertThat(OrderSummary.class.getConstructor(types)).isNotNull();
+    }
+}
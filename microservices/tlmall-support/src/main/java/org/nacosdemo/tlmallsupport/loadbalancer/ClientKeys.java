@@ -0,0 +1,57 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.http.HttpHeaders;
+import reactor.util.context.Context;
+
+import java.util.Map;
+
+/**
+ * 哈希负载均衡所用的客户端Key（客户端IP）在调用链中的传递约定
+ * <p>
+ * 入口（tlmall-nacos-demo-user 的 ClientKeyFilter / 网关的 ClientKeyGlobalFilter）只解析一次客户端Key，之后按下面的方式传到 choose()：
+ * (1) Reactor Context：非阻塞调用方用 {@code .contextWrite(ClientKeys.context(key))} 写入，跨线程切换也不会丢失
+ * (2) RequestDataContext 的请求属性：网关的 ReactiveLoadBalancerClientFilter 会把 exchange attributes 带进负载均衡请求上下文
+ * (3) 出站请求头 X-Client-IP：RestTemplate 负载均衡请求上下文只带请求头，由调用方显式设置（见 tlmall-nacos-demo-user 的 UserService）；
+ *     网关则把它转发给下游服务，下游可以继续按同一个Key做哈希
+ * <p>
+ * 不再依赖 RequestContextHolder（ThreadLocal）：它在网关、CompletableFuture 异步线程、虚拟线程切换后都取不到值
+ */
+public final class ClientKeys {
+
+    public static final String HEADER = "X-Client-IP";
+
+    // Servlet请求属性、网关exchange属性、Reactor Context共用的Key
+    public static final String ATTRIBUTE = "tlmall.loadbalancer.client-key";
+
+    private ClientKeys() {
+    }
+
+    public static Context context(String clientKey) {
+        return Context.of(ATTRIBUTE, clientKey);
+    }
+
+    /**
+     * 从负载均衡请求上下文中取客户端Key：先取请求属性，再取出站请求头，都没有时返回 null
+     */
+    public static String fromRequest(Request<?> request) {
+        if (request == null || !(request.getContext() instanceof RequestDataContext)) {
+            return null;
+        }
+        RequestData clientRequest = ((RequestDataContext) request.getContext()).getClientRequest();
+        if (clientRequest == null) {
+            return null;
+        }
+        Map<String, Object> attributes = clientRequest.getAttributes();
+        if (attributes != null) {
+            Object clientKey = attributes.get(ATTRIBUTE);
+            if (clientKey instanceof String) {
+                return (String) clientKey;
+            }
+        }
+        HttpHeaders headers = clientRequest.getHeaders();
+        return headers == null ? null : headers.getFirst(HEADER);
+    }
+}
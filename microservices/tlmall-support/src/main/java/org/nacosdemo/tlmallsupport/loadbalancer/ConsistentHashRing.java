@@ -0,0 +1,121 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 带虚拟节点的一致性哈希环（不可变）
+ * <p>
+ * 与 hash % size 取模相比，实例扩缩容时只有约 1/N 的Key会被重新映射，其余Key仍落在原来的实例上，
+ * 从而保住各实例上已经预热好的本地缓存
+ * <p>
+ * 哈希环针对某一份实例列表快照构建一次，之后在多个choose()调用之间复用：
+ * - 通过 {@link #isBuiltFrom(List)} 判断快照是否变化：上游是 {@link ServiceInstanceListSnapshot} 时只比较版本号，
+ *   否则逐个比较 host:port，比较过程不产生对象分配
+ * - 查找是对有序int数组的二分查找，时间复杂度 O(log(N * virtualNodes))
+ */
+public final class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    // 构建该哈希环所用的实例列表快照
+    private final List<ServiceInstance> source;
+    private final long sourceVersion;
+    private final String[] hosts;
+    private final int[] ports;
+
+    // 哈希环：升序排列的虚拟节点哈希值，以及每个虚拟节点归属的实例
+    private final int[] points;
+    private final ServiceInstance[] owners;
+
+    private ConsistentHashRing(List<ServiceInstance> source, String[] hosts, int[] ports,
+                               int[] points, ServiceInstance[] owners) {
+        this.source = source;
+        this.sourceVersion = ServiceInstanceListSnapshot.versionOf(source);
+        this.hosts = hosts;
+        this.ports = ports;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    public static ConsistentHashRing build(List<ServiceInstance> instances, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+        }
+        int size = instances.size();
+        String[] hosts = new String[size];
+        int[] ports = new int[size];
+
+        // 虚拟节点用long打包：高32位是哈希值，低32位是实例下标，排序后即得到哈希环
+        long[] packed = new long[size * virtualNodes];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            ServiceInstance instance = instances.get(i);
+            hosts[i] = instance.getHost();
+            ports[i] = instance.getPort();
+            String nodeKey = hosts[i] + ":" + ports[i];
+            for (int v = 0; v < virtualNodes; v++) {
+                int hash = MurmurHash3.hash32(nodeKey + "#" + v);
+                packed[n++] = ((long) hash << 32) | (i & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(packed);
+
+        int[] points = new int[packed.length];
+        ServiceInstance[] owners = new ServiceInstance[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            points[i] = (int) (packed[i] >> 32);
+            owners[i] = instances.get((int) packed[i]);
+        }
+        return new ConsistentHashRing(instances, hosts, ports, points, owners);
+    }
+
+    /**
+     * 按Key在哈希环上顺时针找到第一个虚拟节点，返回它所属的实例
+     */
+    public ServiceInstance select(CharSequence key) {
+        if (owners.length == 0) {
+            return null;
+        }
+        int hash = MurmurHash3.hash32(key);
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (index == points.length) {
+            // 超过最后一个节点，回绕到环的起点
+            index = 0;
+        }
+        return owners[index];
+    }
+
+    /**
+     * 判断该哈希环是否由这份实例列表构建（同一引用、同一版本的快照，或者相同顺序的 host:port）
+     */
+    public boolean isBuiltFrom(List<ServiceInstance> instances) {
+        if (instances == source) {
+            return true;
+        }
+        long version = ServiceInstanceListSnapshot.versionOf(instances);
+        if (version >= 0 && sourceVersion >= 0) {
+            return version == sourceVersion;
+        }
+        if (instances.size() != hosts.length) {
+            return false;
+        }
+        for (int i = 0; i < hosts.length; i++) {
+            ServiceInstance instance = instances.get(i);
+            if (instance.getPort() != ports[i] || !hosts[i].equals(instance.getHost())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return hosts.length;
+    }
+}
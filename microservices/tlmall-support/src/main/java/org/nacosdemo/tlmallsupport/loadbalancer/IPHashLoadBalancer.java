@@ -1,4 +1,4 @@
-package org.nacosdemo.tlmalluser.loadbalancer;
+package org.nacosdemo.tlmallsupport.loadbalancer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -9,31 +9,41 @@ import org.springframework.cloud.client.loadbalancer.EmptyResponse;
 import org.springframework.cloud.client.loadbalancer.Request;
 import org.springframework.cloud.client.loadbalancer.Response;
 import org.springframework.cloud.loadbalancer.core.*;
-import org.springframework.web.context.request.RequestAttributes;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 public class IPHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
 
     private static final Log log = LogFactory.getLog(IPHashLoadBalancer.class);
 
-    private static final String X_CLIENT_IP = "X-Client-IP";
-
     private final String serviceId;
 
     private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
 
+    // 每个实例在哈希环上的虚拟节点数量
+    private final int virtualNodes;
+
+    // 最近一次实例列表快照对应的一致性哈希环，实例列表不变时直接复用
+    private final AtomicReference<ConsistentHashRing> ringRef = new AtomicReference<>();
+
     public IPHashLoadBalancer(
             ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
             String serviceId) {
+        this(serviceInstanceListSupplierProvider, serviceId, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+    }
+
+    public IPHashLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId,
+            int virtualNodes) {
         this.serviceId = serviceId;
         this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.virtualNodes = virtualNodes;
     }
 
     @Override
@@ -42,35 +52,21 @@ public class IPHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
         ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
                 .getIfAvailable(NoopServiceInstanceListSupplier::new);
 
-        // 获取Client IP，这里仅供演示如何实现自定义LoadBalancer
-        // 可靠且符合Reactor的做法是
-        // 注入一个上下文传递Bean，用Reactor Context把WebFilter写入的IP传递到这里并取出
-        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
-        String ipAddress = extractIP(attributes);
-        log.info("X-CLIENT-IP：" + ipAddress);
-
-        // 返回Mono
-        return supplier.get(loadBalancerAdaptorRequest).next()
-                .map(serviceInstances -> processInstanceResponse(
-                        supplier, serviceInstances, ipAddress));
-    }
-
-    private static String extractIP(RequestAttributes attributes) {
-        //  检查
-        if (Objects.isNull(attributes)) {
-            log.warn("ServletRequestAttributes is null");
-            return null;
-        }
-        if (! (attributes instanceof ServletRequestAttributes)) {
-            log.warn("only available of servlet request");
-            return null;
-        }
-        // 提取ServletRequestAttributes
-        ServletRequestAttributes servletRequestAttributes = (ServletRequestAttributes) attributes;
-        // 方法1：从HTTP Header “X-CLIENT-IP”提取IP，方便演示
-        return servletRequestAttributes.getRequest().getHeader(X_CLIENT_IP);
-        // 方法2：返回客户端IP，实际应用还需要考虑网关转发等情况，从请求头中找到转发前的原始IP
-        // return servletRequestAttributes.getRequest().getRemoteAddr();
+        // 获取Client IP：优先从Reactor Context取，其次从负载均衡请求上下文（请求属性/请求头）取，见ClientKeys
+        // 不使用RequestContextHolder，它是ThreadLocal，在网关、异步线程中都取不到
+        return Mono.deferContextual(context -> {
+            String ipAddress = context.getOrDefault(ClientKeys.ATTRIBUTE, null);
+            if (ipAddress == null) {
+                ipAddress = ClientKeys.fromRequest(loadBalancerAdaptorRequest);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("X-CLIENT-IP：" + ipAddress);
+            }
+            String clientKey = ipAddress;
+            return supplier.get(loadBalancerAdaptorRequest).next()
+                    .map(serviceInstances -> processInstanceResponse(
+                            supplier, serviceInstances, clientKey));
+        });
     }
 
     private Response<ServiceInstance> processInstanceResponse(
@@ -93,10 +89,9 @@ public class IPHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
             }
             return new EmptyResponse();
         } else if (Objects.nonNull(ipAddress) && !ipAddress.isEmpty()) {
-            // 根据IP Hash负载均衡选择实例
-            int hash = ipAddress.hashCode();
-            int index = Math.abs(hash) % instances.size(); // 用Math.abs防止负数取模得到负索引
-            ServiceInstance instance = instances.get(index);
+            // 根据IP在一致性哈希环上选择实例
+            // 不使用 hash % size 取模：那样每次扩缩容几乎所有IP都会换到别的实例上，各实例的本地缓存全部失效
+            ServiceInstance instance = getRing(instances).select(ipAddress);
             return new DefaultResponse(instance);
         } else {
             // 没有IP，随机选择实例
@@ -108,5 +103,16 @@ public class IPHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
             return new DefaultResponse(instance);
         }
     }
+
+    private ConsistentHashRing getRing(List<ServiceInstance> instances) {
+        ConsistentHashRing ring = ringRef.get();
+        if (ring != null && ring.isBuiltFrom(instances)) {
+            return ring;
+        }
+        // 实例列表发生变化，重建哈希环；并发重建时结果相同，后写入者覆盖即可
+        ring = ConsistentHashRing.build(instances, virtualNodes);
+        ringRef.set(ring);
+        return ring;
+    }
 }
 
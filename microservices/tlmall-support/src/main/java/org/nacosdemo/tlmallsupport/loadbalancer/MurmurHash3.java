@@ -0,0 +1,63 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+/**
+ * MurmurHash3 (x86_32) 的最小实现，用于一致性哈希环
+ * <p>
+ * 直接对字符串的UTF-16字符做哈希（与Guava的hashUnencodedChars结果一致），不需要先转成byte[]，
+ * 因此在choose()热路径上计算Key哈希时不会产生额外的对象分配
+ */
+final class MurmurHash3 {
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private MurmurHash3() {
+    }
+
+    static int hash32(CharSequence input) {
+        return hash32(input, 0);
+    }
+
+    static int hash32(CharSequence input, int seed) {
+        int h1 = seed;
+        int length = input.length();
+
+        // 每次处理两个char（4字节）
+        for (int i = 1; i < length; i += 2) {
+            int k1 = input.charAt(i - 1) | (input.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+
+        // 剩余的一个char
+        if ((length & 1) == 1) {
+            int k1 = input.charAt(length - 1);
+            h1 ^= mixK1(k1);
+        }
+
+        return fmix(h1, 2 * length);
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        h1 = h1 * 5 + 0xe6546b64;
+        return h1;
+    }
+
+    private static int fmix(int h1, int length) {
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+}
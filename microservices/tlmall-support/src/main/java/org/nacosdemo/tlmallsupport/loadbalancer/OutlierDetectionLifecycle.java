@@ -0,0 +1,85 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * 通过生命周期回调把每次请求的结果交给 {@link OutlierDetector}
+ * <p>
+ * 失败：FAILED（连接拒绝、超时等异常），或者下游返回 5xx；
+ * 耗时取自请求上下文（TimedRequestContext）中的开始时间。
+ * RestTemplate/OpenFeign 与网关的 ReactiveLoadBalancerClientFilter 都会在收到下游响应后回调 onComplete，
+ * clientResponse 是带状态码的 ResponseData
+ */
+public class OutlierDetectionLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final OutlierDetector detector;
+
+    public OutlierDetectionLifecycle(OutlierDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext) {
+            TimedRequestContext context = (TimedRequestContext) request.getContext();
+            // 其它生命周期回调（例如 tlmall-nacos-demo-user 的 ResponseTimeLifecycle）已经记录过开始时间时不覆盖
+            if (context.getRequestStartTime() == 0) {
+                context.setRequestStartTime(System.nanoTime());
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        long latencyNanos = latency(completionContext.getLoadBalancerRequest());
+        if (isFailure(completionContext)) {
+            detector.recordFailure(lbResponse.getServer(), latencyNanos);
+        } else {
+            detector.recordSuccess(lbResponse.getServer(), latencyNanos);
+        }
+    }
+
+    private static boolean isFailure(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        Object clientResponse = completionContext.getClientResponse();
+        if (clientResponse instanceof ResponseData) {
+            HttpStatusCode status = ((ResponseData) clientResponse).getHttpStatus();
+            return status != null && status.is5xxServerError();
+        }
+        return false;
+    }
+
+    // 没有记录开始时间时返回 -1，只计入成败、不计入延迟
+    private static long latency(Request<Object> request) {
+        if (request == null || !(request.getContext() instanceof TimedRequestContext)) {
+            return -1;
+        }
+        long startTime = ((TimedRequestContext) request.getContext()).getRequestStartTime();
+        return startTime == 0 ? -1 : System.nanoTime() - startTime;
+    }
+}
@@ -0,0 +1,121 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import java.time.Duration;
+
+/**
+ * 被动异常实例检测的参数，对应配置前缀 tlmall.loadbalancer.outlier-detection
+ */
+public class OutlierDetectionProperties {
+
+    public static final String PREFIX = "tlmall.loadbalancer.outlier-detection";
+
+    // 是否开启
+    private boolean enabled = true;
+
+    // 连续失败次数达到该值即摘除
+    private int consecutiveFailures = 5;
+
+    // 统计错误率和延迟的滑动窗口长度（按秒分桶）
+    private Duration window = Duration.ofSeconds(10);
+
+    // 窗口内请求数不少于该值时才按错误率、延迟判断，避免样本太少误判
+    private int minimumRequests = 20;
+
+    // 窗口内错误率达到该值即摘除
+    private double failureRateThreshold = 0.5;
+
+    // 窗口内平均延迟超过全部实例平均延迟的该倍数即摘除
+    private double latencyFactor = 3.0;
+
+    // 平均延迟低于该值时不按延迟摘除，避免 2ms 与 6ms 这种差异触发摘除
+    private Duration minOutlierLatency = Duration.ofMillis(200);
+
+    // 第一次摘除的时长，之后每次连续摘除时长翻倍
+    private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+    // 单次摘除时长上限
+    private Duration maxEjectionTime = Duration.ofMinutes(5);
+
+    // 同时被摘除的实例最多占实例总数的百分比，超出的实例仍然保留在候选列表中
+    private int maxEjectionPercent = 50;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getMinimumRequests() {
+        return minimumRequests;
+    }
+
+    public void setMinimumRequests(int minimumRequests) {
+        this.minimumRequests = minimumRequests;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public double getLatencyFactor() {
+        return latencyFactor;
+    }
+
+    public void setLatencyFactor(double latencyFactor) {
+        this.latencyFactor = latencyFactor;
+    }
+
+    public Duration getMinOutlierLatency() {
+        return minOutlierLatency;
+    }
+
+    public void setMinOutlierLatency(Duration minOutlierLatency) {
+        this.minOutlierLatency = minOutlierLatency;
+    }
+
+    public Duration getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    public void setBaseEjectionTime(Duration baseEjectionTime) {
+        this.baseEjectionTime = baseEjectionTime;
+    }
+
+    public Duration getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    public void setMaxEjectionTime(Duration maxEjectionTime) {
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    public void setMaxEjectionPercent(int maxEjectionPercent) {
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+}
@@ -0,0 +1,276 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 被动异常实例检测：根据真实请求的结果判断实例是否异常，并将其临时摘除
+ * <p>
+ * Nacos要等心跳超时才会把故障实例标记为不健康，在此之前约 1/N 的请求会失败或挂起。
+ * 这里在客户端根据每个实例的请求结果提前摘除：
+ * (1) 连续失败次数达到阈值
+ * (2) 滑动窗口内错误率达到阈值
+ * (3) 滑动窗口内平均延迟超过全部实例平均延迟的若干倍
+ * <p>
+ * 摘除时长按 baseEjectionTime × 2^(n-1) 指数增长（n 为连续被摘除的次数），不超过 maxEjectionTime；
+ * 实例恢复后正常运行满一个 baseEjectionTime，n 减一。
+ * 同时被摘除的实例比例由 {@link org.nacosdemo.tlmallsupport.loadbalancer.supplier.OutlierEjectionServiceInstanceListSupplier}
+ * 按当前实例列表控制，它在实例列表变化时调用 {@link #retainAll(List)} 清理已下线实例的状态
+ */
+public class OutlierDetector {
+
+    private static final Log log = LogFactory.getLog(OutlierDetector.class);
+
+    // 指数增长的上限，防止移位溢出
+    private static final int MAX_EJECTION_SHIFT = 16;
+
+    private final OutlierDetectionProperties properties;
+
+    private final LongSupplier nanoClock;
+
+    private final int buckets;
+
+    private final long bucketNanos;
+
+    private final long minOutlierLatencyNanos;
+
+    private final long baseEjectionNanos;
+
+    private final long maxEjectionNanos;
+
+    // 已下线实例的状态保留时长：超过滑动窗口和最长摘除时长后，状态对判断不再有任何影响
+    private final long retentionNanos;
+
+    private final Map<String, InstanceState> states = new ConcurrentHashMap<>();
+
+    // 全部实例的滑动窗口，用于计算平均延迟
+    private final SlidingWindow serviceWindow;
+
+    // 每次有实例被摘除时加一，供实例列表过滤结果判断缓存是否失效
+    private final AtomicLong ejectionVersion = new AtomicLong();
+
+    public OutlierDetector(OutlierDetectionProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    OutlierDetector(OutlierDetectionProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.buckets = (int) Math.max(1, properties.getWindow().getSeconds());
+        this.bucketNanos = TimeUnit.SECONDS.toNanos(1);
+        this.minOutlierLatencyNanos = properties.getMinOutlierLatency().toNanos();
+        this.baseEjectionNanos = properties.getBaseEjectionTime().toNanos();
+        this.maxEjectionNanos = properties.getMaxEjectionTime().toNanos();
+        this.retentionNanos = Math.max(buckets * bucketNanos, maxEjectionNanos);
+        this.serviceWindow = new SlidingWindow(buckets);
+    }
+
+    public OutlierDetectionProperties getProperties() {
+        return properties;
+    }
+
+    public void recordSuccess(ServiceInstance instance, long latencyNanos) {
+        record(instance, true, latencyNanos);
+    }
+
+    public void recordFailure(ServiceInstance instance, long latencyNanos) {
+        record(instance, false, latencyNanos);
+    }
+
+    private void record(ServiceInstance instance, boolean success, long latencyNanos) {
+        long now = nanoClock.getAsLong();
+        long bucket = now / bucketNanos;
+        if (latencyNanos >= 0) {
+            serviceWindow.add(bucket, success, latencyNanos);
+        }
+        InstanceState state = states.computeIfAbsent(ServiceInstanceKey.of(instance), key -> new InstanceState(buckets));
+        String reason;
+        synchronized (state) {
+            state.lastActivity = now;
+            if (state.ejectedUntil != 0 && state.ejectedUntil - now > 0) {
+                // 已被摘除（例如摘除前发出的请求），结果不再计入
+                return;
+            }
+            if (state.ejections > 0 && now - state.returnedAt >= baseEjectionNanos) {
+                // 恢复后正常运行满一个基础摘除时长，指数回退一级
+                state.ejections--;
+                state.returnedAt = now;
+            }
+            state.consecutiveFailures = success ? 0 : state.consecutiveFailures + 1;
+            state.window.add(bucket, success, Math.max(0, latencyNanos));
+            reason = detect(state, bucket);
+            if (reason == null) {
+                return;
+            }
+            long ejectionNanos = Math.min(maxEjectionNanos,
+                    baseEjectionNanos << Math.min(state.ejections, MAX_EJECTION_SHIFT));
+            state.ejections++;
+            state.ejectedUntil = now + ejectionNanos;
+            state.returnedAt = state.ejectedUntil;
+            state.consecutiveFailures = 0;
+            state.window.reset();
+            ejectionVersion.incrementAndGet();
+            if (log.isWarnEnabled()) {
+                log.warn("Eject outlier instance " + ServiceInstanceKey.of(instance) + " of " + instance.getServiceId()
+                        + " for " + TimeUnit.NANOSECONDS.toSeconds(ejectionNanos) + "s: " + reason);
+            }
+        }
+    }
+
+    private String detect(InstanceState state, long bucket) {
+        if (state.consecutiveFailures >= properties.getConsecutiveFailures()) {
+            return state.consecutiveFailures + " consecutive failures";
+        }
+        long requests = state.window.requests(bucket);
+        if (requests < properties.getMinimumRequests()) {
+            return null;
+        }
+        double failureRate = (double) state.window.failures(bucket) / requests;
+        if (failureRate >= properties.getFailureRateThreshold()) {
+            return "failure rate " + Math.round(failureRate * 100) + "%";
+        }
+        long meanLatency = state.window.latencySum(bucket) / requests;
+        if (meanLatency >= minOutlierLatencyNanos) {
+            long serviceRequests = serviceWindow.requests(bucket);
+            long serviceMeanLatency = serviceRequests == 0 ? 0 : serviceWindow.latencySum(bucket) / serviceRequests;
+            if (meanLatency > properties.getLatencyFactor() * serviceMeanLatency) {
+                return "mean latency " + TimeUnit.NANOSECONDS.toMillis(meanLatency) + "ms, service mean "
+                        + TimeUnit.NANOSECONDS.toMillis(serviceMeanLatency) + "ms";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 实例被摘除到的时间点（System.nanoTime() 时间轴），未被摘除时返回 0
+     */
+    public long ejectedUntil(ServiceInstance instance, long nowNanos) {
+        InstanceState state = states.get(ServiceInstanceKey.of(instance));
+        if (state == null) {
+            return 0;
+        }
+        long ejectedUntil = state.ejectedUntil;
+        return ejectedUntil != 0 && ejectedUntil - nowNanos > 0 ? ejectedUntil : 0;
+    }
+
+    /**
+     * 清理不在当前实例列表中、且已经闲置超过保留时长的实例状态
+     * <p>
+     * 状态数不超过实例数时直接返回；刚下线的实例暂时保留，避免同一实例短暂消失又出现时丢失摘除退避的记录
+     */
+    public void retainAll(List<ServiceInstance> instances) {
+        if (states.size() <= instances.size()) {
+            return;
+        }
+        Set<String> live = new HashSet<>(instances.size() * 2);
+        for (ServiceInstance instance : instances) {
+            live.add(ServiceInstanceKey.of(instance));
+        }
+        long now = nanoClock.getAsLong();
+        states.forEach((key, state) -> {
+            if (!live.contains(key) && now - state.lastActivity > retentionNanos
+                    && (state.ejectedUntil == 0 || now - state.ejectedUntil > 0)) {
+                states.remove(key, state);
+            }
+        });
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    public long nanoTime() {
+        return nanoClock.getAsLong();
+    }
+
+    public long getEjectionVersion() {
+        return ejectionVersion.get();
+    }
+
+    private static final class InstanceState {
+        private final SlidingWindow window;
+        private int consecutiveFailures;
+        private int ejections;
+        private volatile long ejectedUntil;
+        private long returnedAt;
+        private volatile long lastActivity;
+
+        private InstanceState(int buckets) {
+            this.window = new SlidingWindow(buckets);
+        }
+    }
+
+    /**
+     * 按秒分桶的滑动窗口，过期的桶在写入或读取时惰性清零
+     */
+    private static final class SlidingWindow {
+        private final long[] epochs;
+        private final long[] requests;
+        private final long[] failures;
+        private final long[] latencySums;
+
+        private SlidingWindow(int buckets) {
+            this.epochs = new long[buckets];
+            this.requests = new long[buckets];
+            this.failures = new long[buckets];
+            this.latencySums = new long[buckets];
+            reset();
+        }
+
+        private synchronized void add(long bucket, boolean success, long latencyNanos) {
+            int index = (int) Math.floorMod(bucket, (long) epochs.length);
+            if (epochs[index] != bucket) {
+                epochs[index] = bucket;
+                requests[index] = 0;
+                failures[index] = 0;
+                latencySums[index] = 0;
+            }
+            requests[index]++;
+            if (!success) {
+                failures[index]++;
+            }
+            latencySums[index] += latencyNanos;
+        }
+
+        private synchronized long requests(long bucket) {
+            return sum(requests, bucket);
+        }
+
+        private synchronized long failures(long bucket) {
+            return sum(failures, bucket);
+        }
+
+        private synchronized long latencySum(long bucket) {
+            return sum(latencySums, bucket);
+        }
+
+        private long sum(long[] values, long bucket) {
+            long sum = 0;
+            for (int i = 0; i < epochs.length; i++) {
+                if (bucket - epochs[i] < epochs.length) {
+                    sum += values[i];
+                }
+            }
+            return sum;
+        }
+
+        private synchronized void reset() {
+            for (int i = 0; i < epochs.length; i++) {
+                epochs[i] = Long.MIN_VALUE / 2;
+                requests[i] = 0;
+                failures[i] = 0;
+                latencySums[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * 统计类数据（在途请求数、响应时间等）所用的实例Key
+ * <p>
+ * Nacos返回的实例自带 instanceId（ip#port#cluster#group@@service），直接复用、不产生对象分配；
+ * 没有 instanceId 的实例（例如手工构造的 DefaultServiceInstance）退化为 host:port
+ */
+public final class ServiceInstanceKey {
+
+    private ServiceInstanceKey() {
+    }
+
+    public static String of(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        if (instanceId != null && !instanceId.isEmpty()) {
+            return instanceId;
+        }
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
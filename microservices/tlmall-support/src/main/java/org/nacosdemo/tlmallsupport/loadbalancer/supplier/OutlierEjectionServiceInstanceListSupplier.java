@@ -0,0 +1,121 @@
+package org.nacosdemo.tlmallsupport.loadbalancer.supplier;
+
+import org.nacosdemo.tlmallsupport.loadbalancer.OutlierDetector;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 从实例列表中去掉被 {@link OutlierDetector} 摘除的实例
+ * <p>
+ * 同时被摘除的实例不超过实例总数的 maxEjectionPercent（至少保留一个实例）：
+ * 超出时，摘除到期最早的实例仍保留在列表中
+ * <p>
+ * 过滤结果按"上游列表 + 摘除版本号"缓存，直到最早的一个摘除到期为止；
+ * 没有实例被摘除时直接返回上游列表本身，IPHash等负载均衡器可以继续按引用复用预计算结构
+ */
+public class OutlierEjectionServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final OutlierDetector detector;
+
+    private final int maxEjectionPercent;
+
+    private volatile Filtered filtered;
+
+    public OutlierEjectionServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, OutlierDetector detector) {
+        super(delegate);
+        this.detector = detector;
+        this.maxEjectionPercent = Math.max(0, Math.min(100, detector.getProperties().getMaxEjectionPercent()));
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get().map(this::filter);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return delegate.get(request).map(this::filter);
+    }
+
+    private List<ServiceInstance> filter(List<ServiceInstance> instances) {
+        long now = detector.nanoTime();
+        long version = detector.getEjectionVersion();
+        Filtered current = filtered;
+        if (current != null && current.source == instances && current.version == version
+                && (current.validUntil == 0 || current.validUntil - now > 0)) {
+            return current.result;
+        }
+        if (current == null || current.source != instances) {
+            // 实例列表变化时顺带清理已下线实例的检测状态，列表不变时不做任何额外工作
+            detector.retainAll(instances);
+        }
+        Filtered next = eject(instances, version, now);
+        filtered = next;
+        return next.result;
+    }
+
+    private Filtered eject(List<ServiceInstance> instances, long version, long now) {
+        int size = instances.size();
+        long[] ejectedUntil = null;
+        int ejected = 0;
+        for (int i = 0; i < size; i++) {
+            long until = detector.ejectedUntil(instances.get(i), now);
+            if (until != 0) {
+                if (ejectedUntil == null) {
+                    ejectedUntil = new long[size];
+                }
+                ejectedUntil[i] = until;
+                ejected++;
+            }
+        }
+        if (ejected == 0) {
+            return new Filtered(instances, version, 0, instances);
+        }
+
+        // 超过摘除比例上限时，把摘除到期最早的实例放回列表
+        int maxEjected = Math.min(size - 1, size * maxEjectionPercent / 100);
+        while (ejected > maxEjected) {
+            int earliest = -1;
+            for (int i = 0; i < size; i++) {
+                if (ejectedUntil[i] != 0 && (earliest < 0 || ejectedUntil[i] - ejectedUntil[earliest] < 0)) {
+                    earliest = i;
+                }
+            }
+            ejectedUntil[earliest] = 0;
+            ejected--;
+        }
+
+        List<ServiceInstance> result = new ArrayList<>(size - ejected);
+        long validUntil = 0;
+        for (int i = 0; i < size; i++) {
+            if (ejectedUntil[i] == 0) {
+                result.add(instances.get(i));
+            } else if (validUntil == 0 || ejectedUntil[i] - validUntil < 0) {
+                validUntil = ejectedUntil[i];
+            }
+        }
+        return new Filtered(instances, version, validUntil, Collections.unmodifiableList(result));
+    }
+
+    private static final class Filtered {
+        private final List<ServiceInstance> source;
+        private final long version;
+        // 最早一个摘除到期的时间点，到期后需要重新过滤；0 表示没有摘除任何实例
+        private final long validUntil;
+        private final List<ServiceInstance> result;
+
+        private Filtered(List<ServiceInstance> source, long version, long validUntil, List<ServiceInstance> result) {
+            this.source = source;
+            this.version = version;
+            this.validUntil = validUntil;
+            this.result = result;
+        }
+    }
+}
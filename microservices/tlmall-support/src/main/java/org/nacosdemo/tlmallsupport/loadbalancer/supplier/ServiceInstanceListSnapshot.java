@@ -0,0 +1,79 @@
+package org.nacosdemo.tlmallsupport.loadbalancer.supplier;
+
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.core.publisher.Flux;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * 带版本号的不可变实例列表快照
+ * <p>
+ * 实例列表每变化一次生成一个新快照，版本号加一；列表不变时所有请求拿到的都是同一个快照对象。
+ * 下游的负载均衡器（一致性哈希环、加权调度表、分区过滤结果等）可以直接按引用或版本号判断是否需要重建，
+ * 不需要逐个比较实例；版本号只在同一个服务的同一个 Supplier 内有意义
+ */
+public final class ServiceInstanceListSnapshot extends AbstractList<ServiceInstance> implements RandomAccess {
+
+    private final long version;
+
+    private final ServiceInstance[] instances;
+
+    // 预先构建好的Flux，get()时直接返回，不产生对象分配
+    private final Flux<List<ServiceInstance>> flux;
+
+    public ServiceInstanceListSnapshot(long version, List<ServiceInstance> instances) {
+        this.version = version;
+        this.instances = instances.toArray(new ServiceInstance[0]);
+        this.flux = Flux.just(this);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Flux<List<ServiceInstance>> asFlux() {
+        return flux;
+    }
+
+    @Override
+    public ServiceInstance get(int index) {
+        return instances[index];
+    }
+
+    @Override
+    public int size() {
+        return instances.length;
+    }
+
+    /**
+     * 是否与给定的实例列表逐个相同（按顺序比较 host、port、secure 和元数据，Nacos 的权重、健康状态也在元数据中）。
+     * 相同时应继续使用当前快照，不生成新版本，避免下游按版本号缓存的结构被白白重建
+     */
+    public boolean hasSameInstances(List<ServiceInstance> other) {
+        if (other.size() != instances.length) {
+            return false;
+        }
+        for (int i = 0; i < instances.length; i++) {
+            ServiceInstance a = instances[i];
+            ServiceInstance b = other.get(i);
+            if (a != b && (a.getPort() != b.getPort()
+                    || a.isSecure() != b.isSecure()
+                    || !Objects.equals(a.getHost(), b.getHost())
+                    || !Objects.equals(a.getMetadata(), b.getMetadata()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 返回实例列表的快照版本号，不是快照时返回 -1
+     */
+    public static long versionOf(List<ServiceInstance> instances) {
+        return instances instanceof ServiceInstanceListSnapshot
+                ? ((ServiceInstanceListSnapshot) instances).version : -1L;
+    }
+}
@@ -0,0 +1,48 @@
+package org.nacosdemo.tlmallsupport.order;
+
+/**
+ * 订单的摘要视图：只有id、商品编码、数量和金额
+ * <p>
+ * 大多数调用方（订单列表、金额汇总）只用到这几列。对应订单服务和order-config-demo的 OrderMapper 中只查询这几列的方法（@ConstructorArgs），
+ * 与完整的Order相比，MySQL少传userId和两个时间列，每行少创建两个Timestamp对象，JSON也更小。
+ * 不可变，由MyBatis通过构造方法创建
+ */
+public final class OrderSummary {
+
+    private final Integer id;
+
+    private final String commodityCode;
+
+    private final Integer count;
+
+    private final Integer money;
+
+    public OrderSummary(Integer id, String commodityCode, Integer count, Integer money) {
+        this.id = id;
+        this.commodityCode = commodityCode;
+        this.count = count;
+        this.money = money;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCommodityCode() {
+        return commodityCode;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public Integer getMoney() {
+        return money;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderSummary{" + "id=" + id + ", commodityCode='" + commodityCode + '\'' + ", count=" + count
+                + ", money=" + money + '}';
+    }
+}
@@ -0,0 +1,31 @@
+package org.nacosdemo.tlmallsupport.order;
+
+import org.springcloudmvp.tlmallcommon.BusinessException;
+
+import java.util.Locale;
+
+/**
+ * 查询订单时返回的视图，由调用方按用途选择（请求参数view）
+ */
+public enum OrderView {
+
+    // 只有id、commodityCode、count、money，见 OrderSummary
+    SUMMARY,
+
+    // 完整的Order，包括userId和创建、更新时间
+    FULL;
+
+    /**
+     * 按请求参数解析视图，未指定时为FULL（保持原有的返回格式）
+     */
+    public static OrderView from(String value) {
+        if (value == null || value.isEmpty()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("不支持的订单视图: " + value);
+        }
+    }
+}
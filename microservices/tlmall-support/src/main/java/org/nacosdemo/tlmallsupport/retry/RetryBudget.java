@@ -0,0 +1,78 @@
+package org.nacosdemo.tlmallsupport.retry;
+
+/**
+ * 令牌桶形式的重试预算，让重试只占正常流量的一小部分
+ * <p>
+ * 单个请求的重试次数上限（maxAttempts）挡不住重试风暴：下游整体不可用时，每个请求都会重试满次数，
+ * 下游收到的请求量放大数倍，恢复得更慢。重试预算按下游统计：
+ * - 每个新请求（非重试）向桶中存入 retryRatio 个令牌，例如0.1表示重试最多占请求量的10%
+ * - 另外按 minRetriesPerSecond 随时间补充令牌，保证低流量时（例如启动阶段）也能重试
+ * - 每次重试取出1个令牌，令牌不足时放弃重试，直接返回最后一次的失败
+ * - 令牌数不超过 capacity，避免长时间空闲后积攒的令牌一次性放出大量重试
+ */
+public final class RetryBudget {
+
+    private final double retryRatio;
+    private final double minRetriesPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public RetryBudget(double retryRatio, int minRetriesPerSecond, int capacity) {
+        if (retryRatio < 0) {
+            throw new IllegalArgumentException("retryRatio must not be negative: " + retryRatio);
+        }
+        if (minRetriesPerSecond < 0) {
+            throw new IllegalArgumentException("minRetriesPerSecond must not be negative: " + minRetriesPerSecond);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.retryRatio = retryRatio;
+        this.minRetriesPerNano = minRetriesPerSecond / 1e9;
+        this.capacity = capacity;
+        // 初始令牌为每秒的保底重试数，刚启动时就可以重试
+        this.tokens = Math.min(capacity, minRetriesPerSecond);
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录一次新请求（非重试）
+     */
+    public synchronized void recordRequest() {
+        refill();
+        tokens = Math.min(capacity, tokens + retryRatio);
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @return 预算是否足够；返回false时不应重试
+     */
+    public synchronized boolean tryAcquireRetry() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * 当前可用的重试次数
+     */
+    public synchronized double getAvailableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * minRetriesPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
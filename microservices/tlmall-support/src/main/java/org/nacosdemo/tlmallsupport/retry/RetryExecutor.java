@@ -0,0 +1,184 @@
+package org.nacosdemo.tlmallsupport.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对某个下游的非阻塞重试执行器，RestTemplate和Feign调用都通过它重试
+ * <p>
+ * 与 RetryTemplate 的区别：
+ * - 两次尝试之间的等待不占用线程：失败后通过 CompletableFuture.delayedExecutor 定时，到点再把下一次尝试提交给executor；
+ *   提交在一个新的虚拟线程上进行，JDK共享的定时器线程只负责启动它，executor.execute 阻塞时不会拖住JVM中其它的延迟任务
+ * - 等待时间按 {@link RetryPolicy} 的 decorrelated jitter 指数退避计算，各实例的重试不会同步
+ * - 每次重试都要先从该下游的 {@link RetryBudget} 申请令牌，预算耗尽时不再重试
+ * <p>
+ * 每次尝试本身（阻塞的HTTP调用）在executor上执行，应使用不限并发的虚拟线程执行器，
+ * 且不要与调用方所在的执行器共用：调用方占着执行器的名额等待本次调用，尝试又要向同一个执行器申请名额，名额用完时会死锁。
+ * taskDecorator在调用 execute() 的线程上包装一次，之后每次尝试都在包装后的上下文中执行，
+ * 用于把请求上下文（例如RequestContextHolder）带到重试线程
+ * <p>
+ * 指标（tag service=下游服务名）：
+ * - tlmall.retry.attempts：尝试次数（包括第一次调用）
+ * - tlmall.retry.retries：重试次数
+ * - tlmall.retry.budget.exhausted：因预算耗尽而放弃的重试次数
+ */
+@Slf4j
+public class RetryExecutor {
+
+    // 定时到点后启动一个虚拟线程去提交下一次尝试，不在JDK共享的定时器线程上调用executor.execute
+    private static final Executor HANDOFF = task -> Thread.ofVirtual().name("tlmall-retry-handoff").start(task);
+
+    private final String service;
+    private final RetryPolicy defaultPolicy;
+    private final RetryBudget budget;
+    private final Executor executor;
+    private final TaskDecorator taskDecorator;
+
+    private final Counter attempts;
+    private final Counter retries;
+    private final Counter budgetExhausted;
+
+    public RetryExecutor(String service, RetryPolicy defaultPolicy, RetryBudget budget, Executor executor,
+                         TaskDecorator taskDecorator, MeterRegistry meterRegistry) {
+        this.service = service;
+        this.defaultPolicy = defaultPolicy;
+        this.budget = budget;
+        this.executor = executor;
+        this.taskDecorator = taskDecorator;
+        this.attempts = counter(meterRegistry, "tlmall.retry.attempts", "调用下游的尝试次数（包括第一次调用）");
+        this.retries = counter(meterRegistry, "tlmall.retry.retries", "调用下游的重试次数");
+        this.budgetExhausted = counter(meterRegistry, "tlmall.retry.budget.exhausted", "因重试预算耗尽而放弃的重试次数");
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String name, String description) {
+        if (meterRegistry == null) {
+            return null;
+        }
+        return Counter.builder(name).description(description).tag("service", service).register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> execute(Callable<T> call) {
+        return execute(defaultPolicy, call);
+    }
+
+    /**
+     * 异步执行，失败时按策略和预算重试
+     *
+     * @return 最后一次尝试的结果；不再重试时以最后一次的异常结束
+     */
+    public <T> CompletableFuture<T> execute(RetryPolicy policy, Callable<T> call) {
+        budget.recordRequest();
+        Execution<T> execution = new Execution<>(policy, call);
+        execution.task = taskDecorator == null ? execution : taskDecorator.decorate(execution);
+        execution.submit(executor);
+        return execution.result;
+    }
+
+    /**
+     * 同步执行，用于调用方本身就需要等待结果的场景（调用方应运行在虚拟线程上）
+     */
+    public <T> T executeAndWait(Callable<T> call) throws Exception {
+        return executeAndWait(defaultPolicy, call);
+    }
+
+    public <T> T executeAndWait(RetryPolicy policy, Callable<T> call) throws Exception {
+        try {
+            return execute(policy, call).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * 一次调用的重试状态；只会被串行地执行（上一次尝试结束后才调度下一次），不需要同步
+     */
+    private final class Execution<T> implements Runnable {
+
+        private final RetryPolicy policy;
+        private final Callable<T> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Runnable task;
+        private int attempt;
+        private long previousDelayNanos;
+
+        private Execution(RetryPolicy policy, Callable<T> call) {
+            this.policy = policy;
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                // 调用方已取消
+                return;
+            }
+            attempt++;
+            increment(attempts);
+            T value;
+            try {
+                value = call.call();
+            } catch (Throwable e) {
+                onFailure(e);
+                return;
+            }
+            result.complete(value);
+        }
+
+        private void onFailure(Throwable error) {
+            if (attempt >= policy.getMaxAttempts() || !policy.isRetryable(error)) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (!budget.tryAcquireRetry()) {
+                increment(budgetExhausted);
+                log.warn("调用{}失败，重试预算已耗尽，放弃重试（第{}次尝试）: {}", service, attempt, error.toString());
+                result.completeExceptionally(error);
+                return;
+            }
+            increment(retries);
+            long delayNanos = policy.nextDelayNanos(previousDelayNanos);
+            previousDelayNanos = delayNanos;
+            log.info("调用{}第{}次尝试失败，{}ms后重试: {}",
+                    service, attempt, TimeUnit.NANOSECONDS.toMillis(delayNanos), error.toString());
+            // 等待期间不占用执行线程：JDK共享的定时器线程到点后只启动HANDOFF线程，由它把下一次尝试提交给executor
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, HANDOFF)
+                    .execute(() -> submit(executor));
+        }
+
+        private void submit(Executor target) {
+            try {
+                target.execute(task);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.nacosdemo.tlmallsupport.retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * 重试策略（不可变）：最大尝试次数、可重试的异常，以及 decorrelated jitter 指数退避
+ * <p>
+ * 固定间隔重试（fixedBackoff）在下游重启时会让所有实例按同样的节奏一起重试，形成一波波的请求尖峰；
+ * decorrelated jitter 每次的等待时间取 [baseDelay, 上一次等待时间 × 3] 之间的随机值，不超过maxDelay：
+ * - 整体仍然按指数增长，下游长时间不可用时重试越来越稀疏
+ * - 各实例、各请求的重试时刻互相错开，不会同步
+ * <pre>
+ * RetryPolicy.builder()
+ *         .maxAttempts(5)
+ *         .baseDelay(Duration.ofMillis(200))
+ *         .maxDelay(Duration.ofSeconds(5))
+ *         .retryOn(RetryableExceptions::isTransient)
+ *         .build();
+ * </pre>
+ */
+public final class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(5);
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final Predicate<Throwable> retryable;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayNanos = builder.baseDelay.toNanos();
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.retryable = builder.retryable;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 最大尝试次数（包括第一次调用）
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getBaseDelay() {
+        return Duration.ofNanos(baseDelayNanos);
+    }
+
+    public Duration getMaxDelay() {
+        return Duration.ofNanos(maxDelayNanos);
+    }
+
+    public boolean isRetryable(Throwable error) {
+        return retryable.test(error);
+    }
+
+    /**
+     * 下一次重试前的等待时间：min(maxDelay, random(baseDelay, previousDelay × 3))
+     *
+     * @param previousDelayNanos 上一次的等待时间，第一次重试时传 0
+     */
+    public long nextDelayNanos(long previousDelayNanos) {
+        long upper = Math.max(baseDelayNanos, previousDelayNanos) * 3;
+        if (upper <= 0 || upper > maxDelayNanos) {
+            // 乘3溢出或超过上限
+            upper = maxDelayNanos;
+        }
+        long delay = upper <= baseDelayNanos
+                ? upper
+                : ThreadLocalRandom.current().nextLong(baseDelayNanos, upper + 1);
+        return Math.min(delay, maxDelayNanos);
+    }
+
+    public static final class Builder {
+
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private Duration baseDelay = DEFAULT_BASE_DELAY;
+        private Duration maxDelay = DEFAULT_MAX_DELAY;
+        private Predicate<Throwable> retryable = RetryableExceptions::isTransient;
+
+        private Builder() {
+        }
+
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder baseDelay(Duration baseDelay) {
+            if (baseDelay == null || baseDelay.isNegative() || baseDelay.isZero()) {
+                throw new IllegalArgumentException("baseDelay must be positive: " + baseDelay);
+            }
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay == null || maxDelay.isNegative() || maxDelay.isZero()) {
+                throw new IllegalArgumentException("maxDelay must be positive: " + maxDelay);
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * 判断异常是否可以重试，缺省为 {@link RetryableExceptions#isTransient(Throwable)}
+         */
+        public Builder retryOn(Predicate<Throwable> retryable) {
+            if (retryable == null) {
+                throw new IllegalArgumentException("retryable predicate must not be null");
+            }
+            this.retryable = retryable;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalArgumentException("maxDelay " + maxDelay + " is less than baseDelay " + baseDelay);
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.nacosdemo.tlmallsupport.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 按下游服务名提供 {@link RetryExecutor}，同一个下游的所有调用（RestTemplate、Feign、启动加载）共用一份重试预算
+ * <p>
+ * 配置（tlmall.retry.*）：
+ * - max-attempts / base-delay / max-delay：缺省的重试策略，调用方也可以在每次调用时传入自己的 {@link RetryPolicy}
+ * - budget.retry-ratio / budget.min-retries-per-second / budget.capacity：重试预算，见 {@link RetryBudget}
+ */
+public class RetryRegistry {
+
+    private final Environment environment;
+    private final Executor executor;
+    private final TaskDecorator taskDecorator;
+    private final MeterRegistry meterRegistry;
+    private final RetryPolicy defaultPolicy;
+
+    private final Map<String, RetryExecutor> executors = new ConcurrentHashMap<>();
+
+    public RetryRegistry(Environment environment, Executor executor, TaskDecorator taskDecorator,
+                         MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.executor = executor;
+        this.taskDecorator = taskDecorator;
+        this.meterRegistry = meterRegistry;
+        this.defaultPolicy = RetryPolicy.builder()
+                .maxAttempts(environment.getProperty("tlmall.retry.max-attempts", Integer.class,
+                        RetryPolicy.DEFAULT_MAX_ATTEMPTS))
+                .baseDelay(environment.getProperty("tlmall.retry.base-delay", Duration.class,
+                        RetryPolicy.DEFAULT_BASE_DELAY))
+                .maxDelay(environment.getProperty("tlmall.retry.max-delay", Duration.class,
+                        RetryPolicy.DEFAULT_MAX_DELAY))
+                .build();
+    }
+
+    public RetryExecutor forService(String service) {
+        return executors.computeIfAbsent(service, this::create);
+    }
+
+    public RetryPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    private RetryExecutor create(String service) {
+        RetryBudget budget = new RetryBudget(
+                environment.getProperty("tlmall.retry.budget.retry-ratio", Double.class, 0.1),
+                environment.getProperty("tlmall.retry.budget.min-retries-per-second", Integer.class, 10),
+                environment.getProperty("tlmall.retry.budget.capacity", Integer.class, 100));
+        return new RetryExecutor(service, defaultPolicy, budget, executor, taskDecorator, meterRegistry);
+    }
+}
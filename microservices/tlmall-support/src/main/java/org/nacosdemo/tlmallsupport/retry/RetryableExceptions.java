@@ -0,0 +1,42 @@
+package org.nacosdemo.tlmallsupport.retry;
+
+import feign.FeignException;
+import feign.RetryableException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * RestTemplate 和 Feign 共用的"可重试异常"判断
+ * <p>
+ * 只重试大概率是暂时性的失败，重试不会让结果变得不同的错误（4xx、业务异常）直接返回：
+ * - 连接失败、读超时等I/O异常：RestTemplate的 ResourceAccessException，Feign的 RetryableException
+ * - 下游过载或正在重启：HTTP 429、502、503、504
+ */
+public final class RetryableExceptions {
+
+    private RetryableExceptions() {
+    }
+
+    public static boolean isTransient(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof ResourceAccessException || e instanceof RetryableException
+                    || e instanceof IOException || e instanceof TimeoutException) {
+                return true;
+            }
+            if (e instanceof HttpStatusCodeException) {
+                return isTransientStatus(((HttpStatusCodeException) e).getStatusCode().value());
+            }
+            if (e instanceof FeignException) {
+                return isTransientStatus(((FeignException) e).status());
+            }
+        }
+        return false;
+    }
+
+    static boolean isTransientStatus(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+}
@@ -0,0 +1,53 @@
+package org.nacosdemo.tlmallsupport.shutdown;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 统计处理中的请求数，供 GracefulDrainCoordinator 判断何时排空完成
+ * <p>
+ * 位于最外层（先于其它过滤器，如用户服务的ReadinessGateFilter），下线期间被拒绝（503）的请求也在这里计数；
+ * 排空完成、Tomcat停止前到达的请求直接返回503并关闭连接，让上游换一个实例重试
+ */
+public class DrainFilter extends OncePerRequestFilter implements Ordered {
+
+    private final GracefulDrainCoordinator coordinator;
+
+    public DrainFilter(GracefulDrainCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!coordinator.enter()) {
+            coordinator.recordRejected();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.CONNECTION, "close");
+            response.setContentLength(0);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            coordinator.exit();
+            if (coordinator.getState() != GracefulDrainCoordinator.State.RUNNING
+                    && response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+                coordinator.recordRejected();
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // 其它需要排在最前的过滤器用 HIGHEST_PRECEDENCE + 1；HIGHEST_PRECEDENCE - 1 会溢出成 LOWEST_PRECEDENCE
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,238 @@
+package org.nacosdemo.tlmallsupport.shutdown;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 优雅下线：先让上游停止发请求，再等处理中的请求结束，最后才停止Tomcat
+ * <p>
+ * 缺省情况下，NacosAutoServiceRegistration 在Bean销毁阶段才注销实例，此时Tomcat早已停止，
+ * 上游的实例缓存在这段时间里仍然会把请求发过来，表现为滚动发布时的一批 connection reset。
+ * 本类作为 phase 最大的 SmartLifecycle，在容器关闭时最先被stop()，按顺序执行：
+ * (1) 从Nacos注销实例（mode=deregister），或把实例权重置为0（mode=zero-weight，实例仍在列表中，便于观察）
+ * (2) 等待传播延迟（propagation-delay）：Nacos推送、上游负载均衡器的实例列表缓存都需要时间才能感知
+ * (3) 等待处理中的请求数降到0，最多等待drain-timeout
+ * (4) 返回，之后才轮到 WebServerGracefulShutdownLifecycle / WebServerStartStopLifecycle 停止Tomcat
+ * <p>
+ * 处理中的请求数由 DrainFilter 统计；排空期间到达的请求照常处理，排空完成后仍然到达的请求由DrainFilter直接返回503（Connection: close）
+ * <p>
+ * 通过 ServiceRegistry 注册的实例由本类直接注销；zero-weight 模式的权重更新，以及没有经过 ServiceRegistry 的注册
+ * （例如手动注册）由服务提供的 {@link DiscoveryHooks} 处理。权重没能置0时退回到注销实例，不让上游继续选中本实例
+ * <p>
+ * 本类和 DrainFilter 都不是 @Component，由使用的服务以 @Bean 声明
+ * <p>
+ * 指标：
+ * - tlmall.shutdown.drain：排空耗时（Timer，outcome=drained/timeout）
+ * - tlmall.shutdown.inflight：处理中的请求数（Gauge）
+ * - tlmall.shutdown.rejected：下线期间被拒绝的请求数（Counter）
+ */
+@Slf4j
+public class GracefulDrainCoordinator implements SmartLifecycle {
+
+    /**
+     * 各服务从Nacos摘除实例的方式
+     */
+    public interface DiscoveryHooks {
+
+        /**
+         * zero-weight 模式：把实例权重置为0
+         *
+         * @return 实例是否已注册（需要等待上游感知）
+         * @throws Exception 权重没能写入Nacos，协调器改为注销实例
+         */
+        boolean zeroWeight() throws Exception;
+
+        /**
+         * 实例不是通过 ServiceRegistry 注册的（例如手动注册）时的注销
+         *
+         * @return 是否注销了实例
+         */
+        default boolean deregisterUnmanaged() {
+            return false;
+        }
+    }
+
+    public enum State {
+        RUNNING,
+        // 已注销/权重置0，等待上游感知和处理中的请求结束
+        DRAINING,
+        // 排空完成，等待Tomcat停止
+        DRAINED
+    }
+
+    private final ObjectProvider<ServiceRegistry<Registration>> serviceRegistry;
+    private final ObjectProvider<Registration> registration;
+    private final DiscoveryHooks discoveryHooks;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final boolean enabled;
+    private final boolean zeroWeight;
+    private final Duration propagationDelay;
+    private final Duration drainTimeout;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile State state = State.RUNNING;
+    private volatile boolean running;
+    private Counter rejected;
+
+    public GracefulDrainCoordinator(ObjectProvider<ServiceRegistry<Registration>> serviceRegistry,
+                                    ObjectProvider<Registration> registration,
+                                    DiscoveryHooks discoveryHooks,
+                                    ObjectProvider<MeterRegistry> meterRegistry,
+                                    Environment environment) {
+        this.serviceRegistry = serviceRegistry;
+        this.registration = registration;
+        this.discoveryHooks = discoveryHooks;
+        this.meterRegistry = meterRegistry;
+        this.enabled = environment.getProperty("tlmall.shutdown.drain.enabled", Boolean.class, true);
+        this.zeroWeight = "zero-weight".equals(environment.getProperty("tlmall.shutdown.drain.mode", "deregister"));
+        this.propagationDelay = environment.getProperty("tlmall.shutdown.drain.propagation-delay",
+                Duration.class, Duration.ofSeconds(5));
+        this.drainTimeout = environment.getProperty("tlmall.shutdown.drain.drain-timeout",
+                Duration.class, Duration.ofSeconds(20));
+    }
+
+    @Override
+    public void start() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("tlmall.shutdown.inflight", inFlight, AtomicInteger::get)
+                    .description("处理中的请求数")
+                    .register(registry);
+            rejected = Counter.builder("tlmall.shutdown.rejected")
+                    .description("下线期间被拒绝的请求数")
+                    .register(registry);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (!enabled) {
+            return;
+        }
+        long begin = System.nanoTime();
+        state = State.DRAINING;
+        log.info("优雅下线开始: {}，处理中请求{}个", zeroWeight ? "权重置为0" : "从Nacos注销", inFlight.get());
+        if (removeFromDiscovery()) {
+            // 没有注册过（例如测试环境）时无需等待上游感知
+            sleep(propagationDelay.toMillis());
+        }
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            sleep(50);
+        }
+        boolean drained = inFlight.get() == 0;
+        state = State.DRAINED;
+
+        long elapsed = System.nanoTime() - begin;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder("tlmall.shutdown.drain")
+                    .description("优雅下线排空耗时")
+                    .tag("outcome", drained ? "drained" : "timeout")
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        if (drained) {
+            log.info("优雅下线排空完成，耗时{}ms，期间拒绝请求{}个",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), rejectedCount());
+        } else {
+            log.warn("优雅下线排空超时（{}ms），仍有{}个请求在处理，继续停止Tomcat",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), inFlight.get());
+        }
+    }
+
+    /**
+     * @return 实例是否曾经注册到Nacos（需要等待上游感知）
+     */
+    private boolean removeFromDiscovery() {
+        if (zeroWeight) {
+            try {
+                return discoveryHooks.zeroWeight();
+            } catch (Exception e) {
+                // 权重没能置0时上游仍会选中本实例，退回到注销实例
+                log.warn("优雅下线时权重置0失败，改为从Nacos注销: {}", e.getMessage());
+            }
+        }
+        try {
+            Registration current = registration.getIfAvailable();
+            ServiceRegistry<Registration> registry = serviceRegistry.getIfAvailable();
+            if (current != null && registry != null && current.getPort() > 0) {
+                // 只注销实例，不调用close()：NamingService保持可用，心跳、订阅在容器销毁时再关闭
+                registry.deregister(current);
+                return true;
+            }
+            return discoveryHooks.deregisterUnmanaged();
+        } catch (RuntimeException e) {
+            log.error("优雅下线时从Nacos摘除实例失败，继续排空", e);
+            return true;
+        }
+    }
+
+    /**
+     * DrainFilter在请求进入时调用；排空完成后返回false，请求应被拒绝
+     */
+    public boolean enter() {
+        if (state == State.DRAINED) {
+            return false;
+        }
+        inFlight.incrementAndGet();
+        return true;
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    public void recordRejected() {
+        if (rejected != null) {
+            rejected.increment();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private double rejectedCount() {
+        return rejected == null ? 0 : rejected.count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // 停止时phase越大越先执行，保证先于Web服务器的优雅关闭和停止
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,108 @@
+package org.nacosdemo.tlmallsupport.warmup;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 观测JIT编译进度，判断是否进入平台期
+ * <p>
+ * 通过标准的JMX接口取两个指标：
+ * - 累计JIT编译耗时（CompilationMXBean）
+ * - 代码缓存（CodeHeap / Code Cache）中已编译代码的大小
+ * 连续若干次采样中两者的增长都低于阈值时，认为热点代码已经编译完成，继续预热收益不大
+ */
+final class CompilationProbe {
+
+    static final class Sample {
+        final long iteration;
+        final long elapsedMillis;
+        final long compilationMillis;
+        final long codeCacheBytes;
+
+        Sample(long iteration, long elapsedMillis, long compilationMillis, long codeCacheBytes) {
+            this.iteration = iteration;
+            this.elapsedMillis = elapsedMillis;
+            this.compilationMillis = compilationMillis;
+            this.codeCacheBytes = codeCacheBytes;
+        }
+    }
+
+    private final int plateauSamples;
+    private final long maxCompilationMillisDelta;
+    private final double maxCodeCacheGrowth;
+
+    private final List<Sample> samples = new ArrayList<>();
+    private int quietSamples;
+    private Sample plateau;
+
+    /**
+     * @param plateauSamples            连续多少次采样增长都低于阈值时认为进入平台期
+     * @param maxCompilationMillisDelta 两次采样之间JIT编译耗时增长的上限
+     * @param maxCodeCacheGrowth        两次采样之间代码缓存增长比例的上限
+     */
+    CompilationProbe(int plateauSamples, long maxCompilationMillisDelta, double maxCodeCacheGrowth) {
+        this.plateauSamples = plateauSamples;
+        this.maxCompilationMillisDelta = maxCompilationMillisDelta;
+        this.maxCodeCacheGrowth = maxCodeCacheGrowth;
+    }
+
+    Sample sample(long iteration, long elapsedMillis) {
+        return record(new Sample(iteration, elapsedMillis, compilationMillis(), codeCacheBytes()));
+    }
+
+    Sample record(Sample sample) {
+        if (!samples.isEmpty() && plateau == null) {
+            Sample previous = samples.get(samples.size() - 1);
+            long compilationDelta = sample.compilationMillis - previous.compilationMillis;
+            long codeCacheDelta = sample.codeCacheBytes - previous.codeCacheBytes;
+            boolean quiet = compilationDelta <= maxCompilationMillisDelta
+                    && codeCacheDelta <= previous.codeCacheBytes * maxCodeCacheGrowth;
+            quietSamples = quiet ? quietSamples + 1 : 0;
+            if (quietSamples >= plateauSamples) {
+                // 平台期从连续平稳的第一次采样算起
+                plateau = samples.get(samples.size() - plateauSamples);
+            }
+        }
+        samples.add(sample);
+        return sample;
+    }
+
+    boolean reachedPlateau() {
+        return plateau != null;
+    }
+
+    Sample getPlateau() {
+        return plateau;
+    }
+
+    Sample first() {
+        return samples.get(0);
+    }
+
+    Sample last() {
+        return samples.get(samples.size() - 1);
+    }
+
+    private static long compilationMillis() {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        if (compilation == null || !compilation.isCompilationTimeMonitoringSupported()) {
+            return 0;
+        }
+        return compilation.getTotalCompilationTime();
+    }
+
+    private static long codeCacheBytes() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String name = pool.getName();
+            if (pool.getType() == MemoryType.NON_HEAP && (name.startsWith("CodeHeap") || name.equals("Code Cache"))) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,244 @@
+package org.nacosdemo.tlmallsupport.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 注册到Nacos之前的JIT预热：通过本机回环地址重放一组请求，让Controller及其下游调用链上的热点代码先被JIT编译
+ * <p>
+ * 刚启动的实例前几千个请求明显更慢（解释执行、C1/C2编译尚未完成），预热把这段代价挪到注册之前：
+ * - 在 WebServerInitializedEvent 中同步执行，排在启动预加载（StartupPreloader）之后、Nacos注册之前
+ * - 请求集合来自 tlmall.warmup.requests（合成请求），以及可选的 tlmall.warmup.request-file（录制的请求，每行一条）
+ * - 请求走完整的Tomcat → Filter → DispatcherServlet链路；服务需要的额外请求头（例如用户服务就绪闸门的旁路令牌）
+ *   通过 {@link RequestDecorator} 附加
+ * - 达到迭代次数或时间预算时停止；开启stop-on-plateau时，JIT编译量进入平台期后提前停止
+ * - 结束时打印报告：首轮/末轮平均延迟，JIT编译耗时和代码缓存的增长，以及进入平台期的时刻
+ * <p>
+ * 本类不是 @Component，由使用的服务以 @Bean 声明；tlmall.warmup.enabled 缺省为false
+ */
+@Slf4j
+public class JitWarmup implements ApplicationListener<WebServerInitializedEvent>, Ordered {
+
+    /**
+     * 在发出之前修改每个预热请求
+     */
+    @FunctionalInterface
+    public interface RequestDecorator {
+
+        RequestDecorator NONE = builder -> {
+        };
+
+        void decorate(HttpRequest.Builder builder);
+    }
+
+    private final Environment environment;
+    private final RequestDecorator requestDecorator;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public JitWarmup(Environment environment) {
+        this(environment, RequestDecorator.NONE);
+    }
+
+    public JitWarmup(Environment environment, RequestDecorator requestDecorator) {
+        this.environment = environment;
+        this.requestDecorator = requestDecorator;
+    }
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() != null || !started.compareAndSet(false, true)) {
+            return;
+        }
+        if (!environment.getProperty("tlmall.warmup.enabled", Boolean.class, false)) {
+            return;
+        }
+        // 读取配置、解析请求也在try中：配置写错只放弃预热，不能让异常从监听器抛出中断启动
+        try {
+            List<WarmupRequest> requests = loadRequests();
+            if (requests.isEmpty()) {
+                log.warn("JIT预热已开启，但没有配置有效的预热请求（tlmall.warmup.requests / request-file）");
+                return;
+            }
+            String baseUrl = "http://127.0.0.1:" + event.getWebServer().getPort()
+                    + environment.getProperty("server.servlet.context-path", "");
+            run(baseUrl, requests);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // 预热失败不影响启动，只是放弃预热
+            log.warn("JIT预热异常终止", e);
+        }
+    }
+
+    private void run(String baseUrl, List<WarmupRequest> requests) throws InterruptedException {
+        long maxIterations = environment.getProperty("tlmall.warmup.max-iterations", Long.class, 2000L);
+        Duration timeBudget = environment.getProperty("tlmall.warmup.time-budget", Duration.class, Duration.ofSeconds(15));
+        int concurrency = environment.getProperty("tlmall.warmup.concurrency", Integer.class, 4);
+        int sampleEvery = environment.getProperty("tlmall.warmup.sample-every", Integer.class, 50);
+        boolean stopOnPlateau = environment.getProperty("tlmall.warmup.stop-on-plateau", Boolean.class, true);
+        CompilationProbe probe = new CompilationProbe(
+                environment.getProperty("tlmall.warmup.plateau-samples", Integer.class, 3),
+                environment.getProperty("tlmall.warmup.plateau-compilation-millis", Long.class, 20L),
+                0.01);
+
+        log.info("JIT预热开始: {}条请求, 最多{}轮, 时间预算{}s, 并发{}",
+                requests.size(), maxIterations, timeBudget.getSeconds(), concurrency);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("warmup-", 0).factory());
+        AtomicLong failures = new AtomicLong();
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + timeBudget.toNanos();
+        long iterations = 0;
+        double firstRoundMicros = -1;
+        double lastRoundMicros = 0;
+        String stopReason = "达到迭代次数上限";
+        try {
+            probe.sample(0, 0);
+            while (iterations < maxIterations) {
+                // 每轮执行sampleEvery次迭代（每次迭代重放全部请求），分摊给concurrency个虚拟线程
+                long round = Math.min(sampleEvery, maxIterations - iterations);
+                List<Callable<Long>> workers = new ArrayList<>(concurrency);
+                for (int w = 0; w < concurrency; w++) {
+                    long share = round / concurrency + (w < round % concurrency ? 1 : 0);
+                    workers.add(() -> replay(client, baseUrl, requests, share, failures));
+                }
+                long roundNanos = 0;
+                for (Future<Long> worker : executor.invokeAll(workers)) {
+                    roundNanos += getQuietly(worker);
+                }
+                iterations += round;
+                lastRoundMicros = roundNanos / 1000.0 / (round * requests.size());
+                if (firstRoundMicros < 0) {
+                    firstRoundMicros = lastRoundMicros;
+                }
+
+                long now = System.nanoTime();
+                CompilationProbe.Sample sample = probe.sample(iterations, TimeUnit.NANOSECONDS.toMillis(now - startNanos));
+                log.debug("JIT预热: 第{}轮, 平均延迟{}μs, JIT编译累计{}ms, 代码缓存{}KB",
+                        iterations, Math.round(lastRoundMicros), sample.compilationMillis, sample.codeCacheBytes / 1024);
+                if (stopOnPlateau && probe.reachedPlateau()) {
+                    stopReason = "JIT编译进入平台期";
+                    break;
+                }
+                if (now >= deadline) {
+                    stopReason = "达到时间预算";
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            // Java 21起HttpClient需要关闭，否则它的选择器线程在预热结束后仍然存活
+            client.close();
+        }
+
+        CompilationProbe.Sample first = probe.first();
+        CompilationProbe.Sample last = probe.last();
+        CompilationProbe.Sample plateau = probe.getPlateau();
+        log.info("JIT预热结束（{}）: {}轮/{}次请求, 耗时{}ms, 失败{}次; 平均延迟 首轮{}μs → 末轮{}μs; "
+                        + "JIT编译耗时 +{}ms, 代码缓存 {}KB → {}KB; {}",
+                stopReason, iterations, iterations * requests.size(), last.elapsedMillis, failures.get(),
+                Math.round(firstRoundMicros), Math.round(lastRoundMicros),
+                last.compilationMillis - first.compilationMillis,
+                first.codeCacheBytes / 1024, last.codeCacheBytes / 1024,
+                plateau == null ? "未进入平台期，可以增加迭代次数或时间预算"
+                        : "第" + plateau.iteration + "轮（" + plateau.elapsedMillis + "ms）进入平台期");
+    }
+
+    /**
+     * 重放iterations遍请求，返回所有请求的累计耗时（纳秒）
+     */
+    private long replay(HttpClient client, String baseUrl, List<WarmupRequest> requests,
+                        long iterations, AtomicLong failures) throws InterruptedException {
+        long total = 0;
+        for (long i = 0; i < iterations; i++) {
+            for (WarmupRequest request : requests) {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.getPath()))
+                        .timeout(Duration.ofSeconds(5));
+                requestDecorator.decorate(builder);
+                if (request.getBody() == null) {
+                    builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+                } else {
+                    builder.header("Content-Type", "application/json")
+                            .method(request.getMethod(), HttpRequest.BodyPublishers.ofString(request.getBody()));
+                }
+                long begin = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 400) {
+                        failures.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+                total += System.nanoTime() - begin;
+            }
+        }
+        return total;
+    }
+
+    private List<WarmupRequest> loadRequests() {
+        List<String> lines = new ArrayList<>(Binder.get(environment)
+                .bind("tlmall.warmup.requests", Bindable.listOf(String.class))
+                .orElse(Collections.emptyList()));
+        String file = environment.getProperty("tlmall.warmup.request-file");
+        if (file != null && !file.isEmpty()) {
+            try {
+                lines.addAll(Files.readAllLines(Paths.get(file)));
+            } catch (IOException e) {
+                log.warn("读取预热请求文件失败: {}", file, e);
+            }
+        }
+        List<WarmupRequest> requests = new ArrayList<>();
+        for (String line : lines) {
+            if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                continue;
+            }
+            try {
+                requests.add(WarmupRequest.parse(line));
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略格式错误的预热请求: {}", e.getMessage());
+            }
+        }
+        return requests;
+    }
+
+    private static long getQuietly(Future<Long> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("预热请求执行失败", e.getCause());
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // 在 StartupPreloader（HIGHEST_PRECEDENCE，启动数据已就绪）之后、
+        // NacosAutoServiceRegistration（未指定顺序，即最低优先级）之前执行
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
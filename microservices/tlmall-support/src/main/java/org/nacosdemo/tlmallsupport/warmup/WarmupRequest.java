@@ -0,0 +1,58 @@
+package org.nacosdemo.tlmallsupport.warmup;
+
+import java.util.Locale;
+
+/**
+ * 一条用于预热的请求，格式为 "METHOD /path?query [JSON请求体]"，例如：
+ * <pre>
+ * GET /user/getOrder?userId=fox
+ * POST /order/post1 {"userId":"fox","commodityCode":"1","count":1,"money":10}
+ * </pre>
+ * 既可以来自配置（合成请求），也可以来自录制下来的请求文件（每行一条，#开头为注释）
+ */
+public final class WarmupRequest {
+
+    private final String method;
+    private final String path;
+    private final String body;
+
+    private WarmupRequest(String method, String path, String body) {
+        this.method = method;
+        this.path = path;
+        this.body = body;
+    }
+
+    public static WarmupRequest parse(String line) {
+        String trimmed = line.trim();
+        int first = trimmed.indexOf(' ');
+        if (first < 0) {
+            throw new IllegalArgumentException("Warm-up request must be 'METHOD /path [body]': " + line);
+        }
+        String method = trimmed.substring(0, first).toUpperCase(Locale.ROOT);
+        String rest = trimmed.substring(first + 1).trim();
+        int second = rest.indexOf(' ');
+        String path = second < 0 ? rest : rest.substring(0, second);
+        String body = second < 0 ? null : rest.substring(second + 1).trim();
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("Warm-up request path must start with '/': " + line);
+        }
+        return new WarmupRequest(method, path, body == null || body.isEmpty() ? null : body);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+}
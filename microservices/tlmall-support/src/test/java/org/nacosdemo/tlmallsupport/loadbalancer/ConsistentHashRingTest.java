@@ -0,0 +1,78 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.ServiceInstanceListSnapshot;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void addingOneInstanceMovesAboutOneNthOfKeys() {
+        List<ServiceInstance> before = instances(10);
+        List<ServiceInstance> after = new ArrayList<>(before);
+        ServiceInstance added = instance(10);
+        after.add(added);
+
+        ConsistentHashRing oldRing = ConsistentHashRing.build(before, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        ConsistentHashRing newRing = ConsistentHashRing.build(after, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String ip = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+            ServiceInstance oldOwner = oldRing.select(ip);
+            ServiceInstance newOwner = newRing.select(ip);
+            if (oldOwner != newOwner) {
+                moved++;
+                // 只会从旧实例迁移到新加入的实例，旧实例之间不会互相迁移
+                assertThat(newOwner).isSameAs(added);
+            }
+        }
+
+        // 理想迁移比例为 1/11 ≈ 9.1%，取模哈希在这种情况下约 90% 的Key都会迁移
+        double movedRatio = (double) moved / KEYS;
+        assertThat(movedRatio).isBetween(0.06, 0.13);
+    }
+
+    @Test
+    void ringIsReusedForSameSnapshot() {
+        List<ServiceInstance> instances = instances(3);
+        ConsistentHashRing ring = ConsistentHashRing.build(instances, 16);
+
+        assertThat(ring.isBuiltFrom(instances)).isTrue();
+        assertThat(ring.isBuiltFrom(new ArrayList<>(instances))).isTrue();
+        assertThat(ring.isBuiltFrom(instances(4))).isFalse();
+        assertThat(ring.isBuiltFrom(List.of(instance(0), instance(1), instance(5)))).isFalse();
+    }
+
+    @Test
+    void snapshotsAreComparedByVersionOnly() {
+        List<ServiceInstance> instances = instances(3);
+        ConsistentHashRing ring = ConsistentHashRing.build(new ServiceInstanceListSnapshot(7, instances), 16);
+
+        assertThat(ring.isBuiltFrom(new ServiceInstanceListSnapshot(7, instances))).isTrue();
+        // 新版本即使 host:port 相同也重建，例如只有元数据变化
+        assertThat(ring.isBuiltFrom(new ServiceInstanceListSnapshot(8, instances))).isFalse();
+        // 非快照列表仍按 host:port 比较
+        assertThat(ring.isBuiltFrom(new ArrayList<>(instances))).isTrue();
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(instance(i));
+        }
+        return instances;
+    }
+
+    private static ServiceInstance instance(int i) {
+        return new DefaultServiceInstance("tlmall-order-" + i, "tlmall-order", "192.168.0." + i, 8060, false);
+    }
+}
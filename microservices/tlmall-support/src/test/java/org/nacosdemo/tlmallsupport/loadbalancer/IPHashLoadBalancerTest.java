@@ -0,0 +1,76 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IPHashLoadBalancerTest {
+
+    private final IPHashLoadBalancer loadBalancer = new IPHashLoadBalancer(
+            ServiceInstanceListSuppliers.toProvider("tlmall-order", instance(8081), instance(8082), instance(8083)),
+            "tlmall-order");
+
+    @Test
+    void sameKeyFromHeaderAttributeOrContextPicksSameInstance() {
+        int byHeader = loadBalancer.choose(request(ClientKeys.HEADER, "10.0.0.1", null)).block().getServer().getPort();
+        int byAttribute = loadBalancer.choose(request(null, null, "10.0.0.1")).block().getServer().getPort();
+        int byContext = loadBalancer.choose(new DefaultRequest<>())
+                .contextWrite(ClientKeys.context("10.0.0.1")).block().getServer().getPort();
+
+        assertThat(byAttribute).isEqualTo(byHeader);
+        assertThat(byContext).isEqualTo(byHeader);
+        for (int i = 0; i < 10; i++) {
+            assertThat(loadBalancer.choose(request(ClientKeys.HEADER, "10.0.0.1", null)).block().getServer().getPort())
+                    .isEqualTo(byHeader);
+        }
+    }
+
+    @Test
+    void differentKeysSpreadAcrossInstances() {
+        Set<Integer> ports = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            ports.add(loadBalancer.choose(request(ClientKeys.HEADER, "10.0.0." + i, null)).block().getServer().getPort());
+        }
+        assertThat(ports).containsExactlyInAnyOrder(8081, 8082, 8083);
+    }
+
+    @Test
+    void emptyInstanceListReturnsNoServer() {
+        IPHashLoadBalancer empty = new IPHashLoadBalancer(ServiceInstanceListSuppliers.toProvider("tlmall-order"), "tlmall-order");
+
+        assertThat(empty.choose(request(ClientKeys.HEADER, "10.0.0.1", null)).block().hasServer()).isFalse();
+    }
+
+    private static DefaultRequest<RequestDataContext> request(String header, String value, String attribute) {
+        HttpHeaders headers = new HttpHeaders();
+        if (header != null) {
+            headers.set(header, value);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (attribute != null) {
+            attributes.put(ClientKeys.ATTRIBUTE, attribute);
+        }
+        RequestData data = new RequestData(HttpMethod.GET, URI.create("http://tlmall-order/order/getOrder"),
+                headers, null, attributes);
+        return new DefaultRequest<>(new RequestDataContext(data));
+    }
+
+    private static ServiceInstance instance(int port) {
+        return new DefaultServiceInstance(null, "tlmall-order", "127.0.0.1", port, false, Collections.emptyMap());
+    }
+}
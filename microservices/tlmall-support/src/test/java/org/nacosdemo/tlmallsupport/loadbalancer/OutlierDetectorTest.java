@@ -0,0 +1,123 @@
+package org.nacosdemo.tlmallsupport.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.nacosdemo.tlmallsupport.loadbalancer.supplier.OutlierEjectionServiceInstanceListSupplier;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutlierDetectorTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SECONDS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1000 * SECONDS);
+
+    private final OutlierDetector detector = new OutlierDetector(new OutlierDetectionProperties(), clock::get);
+
+    private final List<ServiceInstance> instances = instances(4);
+
+    @Test
+    void consecutiveFailuresEjectWithExponentialBackoff() {
+        ServiceInstance broken = instances.get(0);
+        fail(broken, 5);
+        assertThat(detector.ejectedUntil(broken, clock.get())).isEqualTo(clock.get() + 30 * SECONDS);
+
+        // 摘除到期后再次连续失败，摘除时长翻倍
+        clock.addAndGet(31 * SECONDS);
+        assertThat(detector.ejectedUntil(broken, clock.get())).isZero();
+        fail(broken, 5);
+        assertThat(detector.ejectedUntil(broken, clock.get())).isEqualTo(clock.get() + 60 * SECONDS);
+    }
+
+    @Test
+    void failureRateAndLatencyOutliersAreEjected() {
+        ServiceInstance flaky = instances.get(0);
+        ServiceInstance slow = instances.get(1);
+        for (int i = 0; i < 20; i++) {
+            // 成功与失败交替，不会触发连续失败，但错误率 50%
+            if (i % 2 == 0) {
+                detector.recordFailure(flaky, 10 * MILLIS);
+            } else {
+                detector.recordSuccess(flaky, 10 * MILLIS);
+            }
+            detector.recordSuccess(instances.get(2), 10 * MILLIS);
+            detector.recordSuccess(instances.get(3), 10 * MILLIS);
+        }
+        assertThat(detector.ejectedUntil(flaky, clock.get())).isNotZero();
+
+        for (int i = 0; i < 20; i++) {
+            detector.recordSuccess(slow, 500 * MILLIS);
+        }
+        assertThat(detector.ejectedUntil(slow, clock.get())).isNotZero();
+        assertThat(detector.ejectedUntil(instances.get(2), clock.get())).isZero();
+    }
+
+    @Test
+    void supplierRespectsMaxEjectionPercent() {
+        ServiceInstanceListSupplier delegate = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return "tlmall-order";
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        OutlierEjectionServiceInstanceListSupplier supplier =
+                new OutlierEjectionServiceInstanceListSupplier(delegate, detector);
+        assertThat(supplier.get().blockFirst()).isSameAs(instances);
+
+        fail(instances.get(0), 5);
+        clock.addAndGet(SECONDS);
+        fail(instances.get(1), 5);
+        fail(instances.get(2), 5);
+
+        // 4个实例最多摘除50%，最早到期的 instances[0] 被放回
+        assertThat(supplier.get().blockFirst()).containsExactly(instances.get(0), instances.get(3));
+
+        clock.addAndGet(60 * SECONDS);
+        assertThat(supplier.get().blockFirst()).isSameAs(instances);
+    }
+
+    @Test
+    void departedInstancesArePrunedAfterRetention() {
+        for (ServiceInstance instance : instances) {
+            detector.recordSuccess(instance, 10 * MILLIS);
+        }
+        List<ServiceInstance> remaining = instances.subList(0, 2);
+
+        // 刚下线的实例暂时保留
+        detector.retainAll(remaining);
+        assertThat(detector.size()).isEqualTo(4);
+
+        clock.addAndGet(detector.getProperties().getMaxEjectionTime().toNanos() + SECONDS);
+        detector.retainAll(remaining);
+        assertThat(detector.size()).isEqualTo(2);
+    }
+
+    private void fail(ServiceInstance instance, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.recordFailure(instance, 10 * MILLIS);
+        }
+    }
+
+    private static List<ServiceInstance> instances(int count) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instances.add(new DefaultServiceInstance("tlmall-order-" + i, "tlmall-order", "192.168.0." + i, 8060, false));
+        }
+        return instances;
+    }
+}
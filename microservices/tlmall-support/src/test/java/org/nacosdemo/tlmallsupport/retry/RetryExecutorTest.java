@@ -0,0 +1,175 @@
+package org.nacosdemo.tlmallsupport.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryExecutorTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RetryPolicy policy = RetryPolicy.builder()
+            .maxAttempts(4)
+            .baseDelay(Duration.ofMillis(20))
+            .maxDelay(Duration.ofMillis(100))
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retriesTransientFailuresWithoutHoldingAThreadWhileBackingOff() throws Exception {
+        RetryExecutor retry = retryExecutor(new RetryBudget(0.1, 10, 100));
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+
+        CompletableFuture<String> result = retry.execute(() -> {
+            running.incrementAndGet();
+            try {
+                if (calls.incrementAndGet() < 3) {
+                    throw new ResourceAccessException("Connection refused");
+                }
+                return "ok";
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        // 退避期间没有尝试在执行（不存在阻塞等待的线程）
+        boolean idleWhileBackingOff = false;
+        while (!result.isDone()) {
+            if (calls.get() > 0 && running.get() == 0 && !result.isDone()) {
+                idleWhileBackingOff = true;
+            }
+            Thread.sleep(1);
+        }
+        assertThat(idleWhileBackingOff).isTrue();
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(counter("tlmall.retry.attempts")).isEqualTo(3);
+        assertThat(counter("tlmall.retry.retries")).isEqualTo(2);
+        assertThat(counter("tlmall.retry.budget.exhausted")).isZero();
+    }
+
+    @Test
+    void doesNotRetryNonTransientFailures() {
+        RetryExecutor retry = retryExecutor(new RetryBudget(0.1, 10, 100));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry.executeAndWait(() -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        })).isInstanceOf(HttpClientErrorException.class);
+        assertThat(calls).hasValue(1);
+        assertThat(counter("tlmall.retry.retries")).isZero();
+    }
+
+    @Test
+    void stopsRetryingWhenBudgetIsExhausted() {
+        // 没有保底令牌，也没有按请求存入的令牌
+        RetryExecutor retry = retryExecutor(new RetryBudget(0, 0, 1));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry.executeAndWait(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        })).isInstanceOf(HttpServerErrorException.class);
+        assertThat(calls).hasValue(1);
+        assertThat(counter("tlmall.retry.budget.exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void blockingSubmitOfARetryDoesNotStallOtherDelayedTasks() throws Exception {
+        CountDownLatch submitting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger submits = new AtomicInteger();
+        // 第二次提交（第一次重试）一直阻塞，模拟名额已满的执行器
+        Executor blocking = task -> {
+            if (submits.incrementAndGet() == 2) {
+                submitting.countDown();
+                await(release);
+            }
+            executor.execute(task);
+        };
+        RetryExecutor retry = new RetryExecutor("tlmall-order", policy, new RetryBudget(0.1, 10, 100), blocking,
+                null, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = retry.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ResourceAccessException("Connection refused");
+            }
+            return "ok";
+        });
+        assertThat(submitting.await(2, TimeUnit.SECONDS)).isTrue();
+
+        // JVM共享的定时器线程没有被阻塞，其它延迟任务照常执行
+        CompletableFuture<String> other = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS).execute(() -> other.complete("done"));
+        assertThat(other.get(2, TimeUnit.SECONDS)).isEqualTo("done");
+
+        release.countDown();
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    void budgetLimitsRetriesToAFractionOfRequests() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 100);
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+        int allowed = 0;
+        while (budget.tryAcquireRetry()) {
+            allowed++;
+        }
+        // 浮点累加存在误差，100个请求存入约10个令牌
+        assertThat(allowed).isBetween(9, 10);
+    }
+
+    @Test
+    void decorrelatedJitterStaysWithinBounds() {
+        long base = TimeUnit.MILLISECONDS.toNanos(20);
+        long max = TimeUnit.MILLISECONDS.toNanos(100);
+        long previous = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelayNanos(previous);
+            assertThat(delay).isBetween(base, Math.min(max, Math.max(base, previous) * 3));
+            previous = delay;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RetryExecutor retryExecutor(RetryBudget budget) {
+        return new RetryExecutor("tlmall-order", policy, budget, executor, null, meterRegistry);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("service", "tlmall-order").counter().count();
+    }
+}
@@ -0,0 +1,117 @@
+package org.nacosdemo.tlmallsupport.shutdown;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DrainFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsRequestsRejectedByLaterFiltersAndRejectsOnceDrained() throws Exception {
+        ObjectProvider<MeterRegistry> meters = mock(ObjectProvider.class);
+        when(meters.getIfAvailable()).thenReturn(meterRegistry);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.shutdown.drain.drain-timeout", "5s");
+        environment.setConversionService(new ApplicationConversionService());
+        GracefulDrainCoordinator coordinator = new GracefulDrainCoordinator(
+                mock(ObjectProvider.class), mock(ObjectProvider.class), () -> false, meters, environment);
+        RefusingFilter gateFilter = new RefusingFilter(coordinator);
+        // 按Spring Boot注册过滤器时的顺序排列，DrainFilter必须在最外层
+        List<Filter> filters = new ArrayList<>(List.of(gateFilter, new DrainFilter(coordinator)));
+        AnnotationAwareOrderComparator.sort(filters);
+        assertThat(filters.get(0)).isInstanceOf(DrainFilter.class);
+        coordinator.start();
+
+        assertThat(coordinator.enter()).isTrue();
+        CompletableFuture<Void> stopping = CompletableFuture.runAsync(coordinator::stop);
+        while (coordinator.getState() != GracefulDrainCoordinator.State.DRAINING) {
+            Thread.sleep(10);
+        }
+
+        // 排空期间照常处理；内层过滤器返回的503也计入处理中和拒绝数
+        assertThat(handle(filters).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        gateFilter.refusing = true;
+        assertThat(handle(filters).getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(gateFilter.inFlightSeen).isEqualTo(2);
+        assertThat(meterRegistry.get("tlmall.shutdown.rejected").counter().count()).isEqualTo(1);
+
+        coordinator.exit();
+        stopping.get(2, TimeUnit.SECONDS);
+        MockHttpServletResponse rejected = handle(filters);
+        assertThat(rejected.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeader("Connection")).isEqualTo("close");
+        assertThat(meterRegistry.get("tlmall.shutdown.rejected").counter().count()).isEqualTo(2);
+        assertThat(coordinator.getInFlight()).isZero();
+    }
+
+    private static MockHttpServletResponse handle(List<Filter> filters) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                resp.setStatus(HttpServletResponse.SC_OK);
+            }
+        };
+        new MockFilterChain(servlet, filters.toArray(new Filter[0]))
+                .doFilter(new MockHttpServletRequest("GET", "/user/getOrder"), response);
+        return response;
+    }
+
+    /**
+     * 模拟用户服务的ReadinessGateFilter：排在DrainFilter之后，拒绝时返回503
+     */
+    private static class RefusingFilter extends OncePerRequestFilter implements Ordered {
+
+        private final GracefulDrainCoordinator coordinator;
+        private volatile boolean refusing;
+        private volatile int inFlightSeen;
+
+        RefusingFilter(GracefulDrainCoordinator coordinator) {
+            this.coordinator = coordinator;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            inFlightSeen = coordinator.getInFlight();
+            if (refusing) {
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            filterChain.doFilter(request, response);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.nacosdemo.tlmallsupport.shutdown;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GracefulDrainCoordinatorTest {
+
+    private final GracefulDrainCoordinator.DiscoveryHooks discoveryHooks = mock(GracefulDrainCoordinator.DiscoveryHooks.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deregistersThenWaitsForInFlightRequestsBeforeReturning() throws Exception {
+        when(discoveryHooks.deregisterUnmanaged()).thenReturn(true);
+        ObjectProvider<MeterRegistry> meters = mock(ObjectProvider.class);
+        when(meters.getIfAvailable()).thenReturn(meterRegistry);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.shutdown.drain.propagation-delay", "100ms")
+                .withProperty("tlmall.shutdown.drain.drain-timeout", "5s");
+        environment.setConversionService(new ApplicationConversionService());
+        GracefulDrainCoordinator coordinator = new GracefulDrainCoordinator(
+                mock(ObjectProvider.class), mock(ObjectProvider.class), discoveryHooks,
+                meters, environment);
+        coordinator.start();
+
+        assertThat(coordinator.enter()).isTrue();
+        CompletableFuture<Void> stopping = CompletableFuture.runAsync(coordinator::stop);
+        Thread.sleep(300);
+        // 传播延迟已过，但仍有请求在处理，stop()不能返回
+        assertThat(stopping).isNotDone();
+        assertThat(coordinator.getState()).isEqualTo(GracefulDrainCoordinator.State.DRAINING);
+        verify(discoveryHooks).deregisterUnmanaged();
+
+        coordinator.exit();
+        stopping.get(2, TimeUnit.SECONDS);
+
+        assertThat(coordinator.getState()).isEqualTo(GracefulDrainCoordinator.State.DRAINED);
+        assertThat(coordinator.enter()).isFalse();
+        assertThat(meterRegistry.get("tlmall.shutdown.drain").tag("outcome", "drained").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("tlmall.shutdown.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givesUpAfterDrainTimeout() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.shutdown.drain.drain-timeout", "200ms");
+        environment.setConversionService(new ApplicationConversionService());
+        GracefulDrainCoordinator coordinator = new GracefulDrainCoordinator(
+                mock(ObjectProvider.class), mock(ObjectProvider.class), discoveryHooks,
+                mock(ObjectProvider.class), environment);
+        coordinator.start();
+        coordinator.enter();
+
+        long begin = System.nanoTime();
+        coordinator.stop();
+
+        // 没有注册过，不等待传播延迟
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isBetween(150L, 2000L);
+        assertThat(coordinator.getInFlight()).isEqualTo(1);
+        assertThat(coordinator.getState()).isEqualTo(GracefulDrainCoordinator.State.DRAINED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void zeroWeightFallsBackToDeregisterWhenWeightCannotBeWritten() throws Exception {
+        when(discoveryHooks.zeroWeight()).thenThrow(new IllegalStateException("Nacos实例权重置0失败"));
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.shutdown.drain.mode", "zero-weight")
+                .withProperty("tlmall.shutdown.drain.propagation-delay", "0s");
+        environment.setConversionService(new ApplicationConversionService());
+        GracefulDrainCoordinator coordinator = new GracefulDrainCoordinator(
+                mock(ObjectProvider.class), mock(ObjectProvider.class), discoveryHooks,
+                mock(ObjectProvider.class), environment);
+        coordinator.start();
+
+        coordinator.stop();
+
+        verify(discoveryHooks).deregisterUnmanaged();
+        assertThat(coordinator.getState()).isEqualTo(GracefulDrainCoordinator.State.DRAINED);
+    }
+}
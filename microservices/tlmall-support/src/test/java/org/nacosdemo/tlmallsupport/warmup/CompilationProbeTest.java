@@ -0,0 +1,51 @@
+package org.nacosdemo.tlmallsupport.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompilationProbeTest {
+
+    @Test
+    void plateauStartsAtFirstOfConsecutiveQuietSamples() {
+        CompilationProbe probe = new CompilationProbe(3, 20, 0.01);
+        probe.record(new CompilationProbe.Sample(0, 0, 100, 10_000_000));
+        probe.record(new CompilationProbe.Sample(50, 400, 600, 14_000_000));
+        probe.record(new CompilationProbe.Sample(100, 700, 610, 14_050_000));
+        probe.record(new CompilationProbe.Sample(150, 900, 700, 15_000_000));
+        assertThat(probe.reachedPlateau()).isFalse();
+
+        probe.record(new CompilationProbe.Sample(200, 1100, 705, 15_010_000));
+        probe.record(new CompilationProbe.Sample(250, 1300, 710, 15_020_000));
+        assertThat(probe.reachedPlateau()).isFalse();
+        probe.record(new CompilationProbe.Sample(300, 1500, 712, 15_020_000));
+
+        assertThat(probe.reachedPlateau()).isTrue();
+        assertThat(probe.getPlateau().iteration).isEqualTo(150);
+        assertThat(probe.last().iteration).isEqualTo(300);
+    }
+
+    @Test
+    void samplesRealJvmCounters() {
+        CompilationProbe probe = new CompilationProbe(3, 20, 0.01);
+        CompilationProbe.Sample sample = probe.sample(0, 0);
+
+        assertThat(sample.codeCacheBytes).isPositive();
+        assertThat(sample.compilationMillis).isNotNegative();
+    }
+
+    @Test
+    void parsesRecordedRequestLines() {
+        WarmupRequest get = WarmupRequest.parse("get /user/getOrder?userId=fox");
+        assertThat(get.getMethod()).isEqualTo("GET");
+        assertThat(get.getPath()).isEqualTo("/user/getOrder?userId=fox");
+        assertThat(get.getBody()).isNull();
+
+        WarmupRequest post = WarmupRequest.parse("POST /order/post1 {\"userId\": \"fox\"}");
+        assertThat(post.getBody()).isEqualTo("{\"userId\": \"fox\"}");
+
+        assertThatThrownBy(() -> WarmupRequest.parse("/missing/method"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
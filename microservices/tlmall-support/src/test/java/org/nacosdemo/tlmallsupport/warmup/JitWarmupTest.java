@@ -0,0 +1,99 @@
+package org.nacosdemo.tlmallsupport.warmup;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JitWarmupTest {
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                    + " " + exchange.getRequestHeaders().getFirst("X-Warmup"));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void replaysRequestsThroughTheDecorator() {
+        MockEnvironment environment = warmupEnvironment().withProperty("tlmall.warmup.enabled", "true");
+
+        new JitWarmup(environment, builder -> builder.header("X-Warmup", "token")).onApplicationEvent(event());
+
+        assertThat(received).hasSize(4).containsOnly("GET /order/getOrder?userId=fox token");
+    }
+
+    @Test
+    void malformedRequestsAreSkippedInsteadOfFailingStartup() {
+        MockEnvironment environment = warmupEnvironment()
+                .withProperty("tlmall.warmup.enabled", "true")
+                .withProperty("tlmall.warmup.requests[1]", "GET")
+                .withProperty("tlmall.warmup.requests[2]", "GET order/getOrderById?orderId=1")
+                .withProperty("tlmall.warmup.time-budget", "not-a-duration");
+
+        new JitWarmup(environment).onApplicationEvent(event());
+
+        // 时间预算配置错误：放弃预热；格式错误的请求行被跳过，不会抛出
+        assertThat(received).isEmpty();
+
+        environment.setProperty("tlmall.warmup.time-budget", "15s");
+        new JitWarmup(environment).onApplicationEvent(event());
+
+        assertThat(received).hasSize(4).containsOnly("GET /order/getOrder?userId=fox null");
+    }
+
+    @Test
+    void disabledByDefault() {
+        new JitWarmup(warmupEnvironment()).onApplicationEvent(event());
+
+        assertThat(received).isEmpty();
+    }
+
+    private static MockEnvironment warmupEnvironment() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("tlmall.warmup.requests[0]", "GET /order/getOrder?userId=fox")
+                .withProperty("tlmall.warmup.max-iterations", "4")
+                .withProperty("tlmall.warmup.sample-every", "2")
+                .withProperty("tlmall.warmup.concurrency", "1")
+                .withProperty("tlmall.warmup.stop-on-plateau", "false");
+        environment.setConversionService(new ApplicationConversionService());
+        return environment;
+    }
+
+    private WebServerInitializedEvent event() {
+        WebServer webServer = mock(WebServer.class);
+        when(webServer.getPort()).thenReturn(server.getAddress().getPort());
+        WebServerApplicationContext context = mock(WebServerApplicationContext.class);
+        WebServerInitializedEvent event = mock(WebServerInitializedEvent.class);
+        when(event.getWebServer()).thenReturn(webServer);
+        when(event.getApplicationContext()).thenReturn(context);
+        return event;
+    }
+}